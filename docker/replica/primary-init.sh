@@ -0,0 +1,4 @@
+#!/bin/bash
+# Izinkan koneksi replikasi dari container replica
+set -e
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
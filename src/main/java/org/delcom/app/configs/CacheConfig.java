@@ -0,0 +1,36 @@
+package org.delcom.app.configs;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String CACHE_PHOTO_ANALYTICS = "photoAnalytics";
+
+    // Region Hibernate second-level/query cache; ukurannya diatur di application.conf
+    public static final String REGION_PHOTO = "photo";
+    public static final String REGION_USER = "user";
+    public static final String REGION_PHOTO_CATEGORY_COUNTS = "photo-category-counts";
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${app.cache.analytics.max-entries:10000}") long maxEntries,
+            @Value("${app.cache.analytics.ttl:PT1H}") Duration ttl) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(CACHE_PHOTO_ANALYTICS);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats());
+        // Eviction baru berlaku setelah commit, supaya pembaca lain tidak mengisi ulang data lama
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
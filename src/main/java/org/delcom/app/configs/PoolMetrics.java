@@ -0,0 +1,81 @@
+package org.delcom.app.configs;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.IMetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.delcom.app.dto.ConnectionPoolStats;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Metrics tracker Hikari: waktu tunggu koneksi, lama pemakaian, timeout, dan isi pool
+@Component
+public class PoolMetrics implements IMetricsTrackerFactory {
+    private final Map<String, PoolTracker> pools = new ConcurrentHashMap<>();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        PoolTracker tracker = new PoolTracker(poolStats);
+        pools.put(poolName, tracker);
+        return tracker;
+    }
+
+    public List<ConnectionPoolStats> snapshot() {
+        List<ConnectionPoolStats> result = new ArrayList<>();
+        pools.forEach((name, tracker) -> result.add(tracker.toStats(name)));
+        return result;
+    }
+
+    private static final class PoolTracker implements IMetricsTracker {
+        private final PoolStats poolStats;
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder usages = new LongAdder();
+        private final LongAdder usageMillis = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+
+        private PoolTracker(PoolStats poolStats) {
+            this.poolStats = poolStats;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquisitions.increment();
+            waitNanos.add(elapsedAcquiredNanos);
+            maxWaitNanos.accumulate(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usages.increment();
+            usageMillis.add(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+
+        ConnectionPoolStats toStats(String name) {
+            long acquired = acquisitions.sum();
+            long used = usages.sum();
+            return new ConnectionPoolStats(name,
+                    poolStats.getActiveConnections(),
+                    poolStats.getIdleConnections(),
+                    poolStats.getTotalConnections(),
+                    poolStats.getMaxConnections(),
+                    poolStats.getPendingThreads(),
+                    acquired,
+                    acquired == 0 ? 0.0 : waitNanos.sum() / 1_000_000.0 / acquired,
+                    maxWaitNanos.get() / 1_000_000.0,
+                    used == 0 ? 0.0 : (double) usageMillis.sum() / used,
+                    timeouts.sum());
+        }
+    }
+}
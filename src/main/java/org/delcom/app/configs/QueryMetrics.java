@@ -0,0 +1,153 @@
+package org.delcom.app.configs;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.delcom.app.dto.EndpointQueryStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Listener datasource-proxy: mencatat latency setiap statement, menulis log
+ * untuk query lambat beserta handler asal, dan menghitung query per request.
+ * Sekalian mencatat byte heap yang dialokasikan thread request (HotSpot).
+ */
+@Component
+public class QueryMetrics implements QueryExecutionListener {
+    private static final Logger log = LoggerFactory.getLogger(QueryMetrics.class);
+    private static final String NO_HANDLER = "(tanpa request)";
+
+    private final long slowQueryMillis;
+    private final int requestQueryWarn;
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private final ThreadLocal<RequestQueries> currentRequest = new ThreadLocal<>();
+    private final Map<String, EndpointCounter> endpoints = new ConcurrentHashMap<>();
+
+    public QueryMetrics(@Value("${app.db.slow-query-threshold:PT0.2S}") Duration slowQueryThreshold,
+                        @Value("${app.db.request-query-warn:30}") int requestQueryWarn) {
+        this.slowQueryMillis = slowQueryThreshold.toMillis();
+        this.requestQueryWarn = requestQueryWarn;
+    }
+
+    public void beginRequest(String handler) {
+        currentRequest.set(new RequestQueries(handler, allocatedBytes()));
+    }
+
+    public void endRequest() {
+        RequestQueries request = currentRequest.get();
+        if (request == null) {
+            return;
+        }
+        currentRequest.remove();
+        long allocated = allocatedBytes();
+        request.allocatedBytes = allocated < 0 || request.startAllocated < 0 ? -1 : allocated - request.startAllocated;
+
+        endpoints.computeIfAbsent(request.handler, key -> new EndpointCounter()).record(request);
+        // Jumlah query yang tinggi untuk satu request biasanya tanda pola N+1
+        if (request.queries > requestQueryWarn) {
+            log.warn("{} menjalankan {} query dalam satu request ({} ms di database)",
+                    request.handler, request.queries, request.millis);
+        }
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = execInfo.getElapsedTime();
+        RequestQueries request = currentRequest.get();
+        if (request != null) {
+            request.queries += queryInfoList.size();
+            request.millis += elapsed;
+        }
+
+        if (elapsed >= slowQueryMillis) {
+            String sql = queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+            log.warn("Query lambat {} ms dari {}{}: {}", elapsed,
+                    request == null ? NO_HANDLER : request.handler,
+                    execInfo.isBatch() ? " (batch " + execInfo.getBatchSize() + ")" : "",
+                    sql);
+        }
+    }
+
+    public List<EndpointQueryStats> snapshot() {
+        List<EndpointQueryStats> result = new ArrayList<>();
+        endpoints.forEach((endpoint, counter) -> result.add(counter.toStats(endpoint)));
+        result.sort(Comparator.comparingLong(EndpointQueryStats::queries).reversed());
+        return result;
+    }
+
+    // -1 jika JVM tidak mendukung pengukuran alokasi per thread
+    private static long allocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            return bean;
+        }
+        return null;
+    }
+
+    // Dipakai satu thread saja, jadi field biasa cukup
+    private static final class RequestQueries {
+        private final String handler;
+        private final long startAllocated;
+        private long queries;
+        private long millis;
+        private long allocatedBytes;
+
+        private RequestQueries(String handler, long startAllocated) {
+            this.handler = handler;
+            this.startAllocated = startAllocated;
+        }
+    }
+
+    private static final class EndpointCounter {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder queries = new LongAdder();
+        private final LongAdder millis = new LongAdder();
+        private final LongAccumulator maxQueries = new LongAccumulator(Math::max, 0);
+        private final LongAdder allocatedBytes = new LongAdder();
+        private final LongAccumulator maxAllocatedBytes = new LongAccumulator(Math::max, 0);
+
+        void record(RequestQueries request) {
+            requests.increment();
+            queries.add(request.queries);
+            millis.add(request.millis);
+            maxQueries.accumulate(request.queries);
+            if (request.allocatedBytes >= 0) {
+                allocatedBytes.add(request.allocatedBytes);
+                maxAllocatedBytes.accumulate(request.allocatedBytes);
+            }
+        }
+
+        EndpointQueryStats toStats(String endpoint) {
+            long requestCount = requests.sum();
+            long queryCount = queries.sum();
+            return new EndpointQueryStats(endpoint, requestCount, queryCount,
+                    requestCount == 0 ? 0.0 : (double) queryCount / requestCount,
+                    maxQueries.get(), millis.sum(),
+                    requestCount == 0 ? 0 : allocatedBytes.sum() / requestCount, maxAllocatedBytes.get());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.delcom.app.configs;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Menyimpan user yang sedang dilayani thread ini dan kapan terakhir user
+ * tersebut menulis. Selama jendela sticky setelah write, baca milik user itu
+ * tetap ke primary supaya perubahannya sendiri langsung terlihat.
+ */
+@Component
+public class ReplicaRoutingContext {
+    private final ThreadLocal<UUID> currentUser = new ThreadLocal<>();
+    private final ThreadLocal<Boolean> primaryOnly = new ThreadLocal<>();
+    private final Cache<UUID, Boolean> recentWriters;
+
+    public ReplicaRoutingContext(
+            @Value("${app.datasource.replica.sticky-window:PT5S}") Duration stickyWindow,
+            @Value("${app.datasource.replica.max-tracked-users:100000}") long maxTrackedUsers) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(stickyWindow)
+                .maximumSize(maxTrackedUsers)
+                .build();
+    }
+
+    public void bindUser(UUID userId) {
+        currentUser.set(userId);
+    }
+
+    public void clear() {
+        currentUser.remove();
+    }
+
+    /**
+     * Jalankan baca di primary tanpa menandai user sebagai penulis. Dipakai lookup
+     * autentikasi yang berjalan sebelum user terikat ke thread: token hasil login atau
+     * user yang baru daftar belum tentu sudah ada di replica.
+     */
+    public <T> T onPrimary(Supplier<T> read) {
+        boolean outermost = primaryOnly.get() == null;
+        primaryOnly.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (outermost) {
+                primaryOnly.remove();
+            }
+        }
+    }
+
+    public boolean isPrimaryForced() {
+        return primaryOnly.get() != null;
+    }
+
+    public void recordWrite() {
+        UUID userId = currentUser.get();
+        if (userId != null) {
+            recentWriters.put(userId, Boolean.TRUE);
+        }
+    }
+
+    public boolean isSticky() {
+        UUID userId = currentUser.get();
+        return userId != null && recentWriters.getIfPresent(userId) != null;
+    }
+}
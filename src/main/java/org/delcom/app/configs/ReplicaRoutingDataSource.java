@@ -0,0 +1,27 @@
+package org.delcom.app.configs;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Transaksi readOnly ke replica, selain itu ke primary. Wajib dibungkus
+// LazyConnectionDataSourceProxy agar keputusan diambil setelah flag readOnly terpasang
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    public enum Route { PRIMARY, REPLICA }
+
+    private final ReplicaRoutingContext routingContext;
+
+    public ReplicaRoutingDataSource(ReplicaRoutingContext routingContext) {
+        this.routingContext = routingContext;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                routingContext.recordWrite();
+            }
+            return Route.PRIMARY;
+        }
+        return routingContext.isSticky() || routingContext.isPrimaryForced() ? Route.PRIMARY : Route.REPLICA;
+    }
+}
@@ -14,6 +14,8 @@ public class SecurityConfig {
     @Bean
     SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
+            // API memakai bearer token (AuthInterceptor), bukan cookie sesi, jadi tidak perlu CSRF
+            .csrf(csrf -> csrf.ignoringRequestMatchers("/api/**"))
             .exceptionHandling(ex -> ex
                 .authenticationEntryPoint((req, res, e) -> {
                     // Mencegah redirect loop jika request adalah aset statis
@@ -0,0 +1,50 @@
+package org.delcom.app.configs;
+
+import org.delcom.app.services.LocalStorageBackend;
+import org.delcom.app.services.S3StorageBackend;
+import org.delcom.app.services.StorageBackend;
+import org.delcom.app.services.TieredStorageBackend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Locale;
+
+// Memilih tempat file upload: folder lokal (default), dua folder hot/cold, atau bucket S3-compatible agar node aplikasi tanpa state
+@Configuration
+public class StorageConfig {
+    private static final Logger log = LoggerFactory.getLogger(StorageConfig.class);
+
+    @Bean
+    public StorageBackend storageBackend(
+            @Value("${app.storage.backend:local}") String backend,
+            @Value("${app.upload.dir:./uploads}") String uploadDir,
+            @Value("${app.storage.tiering.cold-dir:./uploads-cold}") String coldDir,
+            @Value("${app.storage.tiering.sketch-width:65536}") int sketchWidth,
+            @Value("${app.storage.s3.endpoint:}") String endpoint,
+            @Value("${app.storage.s3.region:us-east-1}") String region,
+            @Value("${app.storage.s3.bucket:}") String bucket,
+            @Value("${app.storage.s3.access-key:}") String accessKey,
+            @Value("${app.storage.s3.secret-key:}") String secretKey,
+            @Value("${app.storage.s3.timeout:PT30S}") Duration timeout) {
+        StorageBackend storage = switch (backend.trim().toLowerCase(Locale.ROOT)) {
+            case "local" -> new LocalStorageBackend(Paths.get(uploadDir));
+            // app.upload.dir menjadi tier hot, jadi beralih dari local tidak perlu memindah file
+            case "tiered" -> new TieredStorageBackend(new LocalStorageBackend(Paths.get(uploadDir)),
+                    new LocalStorageBackend(Paths.get(coldDir)), sketchWidth);
+            case "s3" -> {
+                if (endpoint.isBlank() || bucket.isBlank()) {
+                    throw new IllegalStateException("app.storage.s3.endpoint dan app.storage.s3.bucket wajib diisi");
+                }
+                yield new S3StorageBackend(endpoint, region, bucket, accessKey, secretKey, timeout);
+            }
+            default -> throw new IllegalStateException("app.storage.backend tidak dikenal: " + backend);
+        };
+        log.info("Storage upload: {}", storage);
+        return storage;
+    }
+}
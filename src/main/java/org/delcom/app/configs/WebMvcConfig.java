@@ -1,40 +1,38 @@
 package org.delcom.app.configs;
 
 import org.delcom.app.interceptors.AuthInterceptor;
+import org.delcom.app.interceptors.QueryCountInterceptor;
+import org.delcom.app.interceptors.ReplicaRoutingInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value; // Import Value
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry; // Import ini
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
-import java.nio.file.Path; // Import Path
-import java.nio.file.Paths; // Import Paths
-
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
 
     @Autowired
     private AuthInterceptor authInterceptor;
 
-    @Value("${app.upload.dir:./uploads}") // Ambil path folder upload
-    private String uploadDir;
+    @Autowired
+    private ReplicaRoutingInterceptor replicaRoutingInterceptor;
+
+    @Autowired
+    private QueryCountInterceptor queryCountInterceptor;
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
+        // Paling awal supaya query milik AuthInterceptor ikut terhitung
+        registry.addInterceptor(queryCountInterceptor)
+                .addPathPatterns("/**");
+
         registry.addInterceptor(authInterceptor)
                 .addPathPatterns("/api/**")
                 .excludePathPatterns("/api/auth/**")
                 .excludePathPatterns("/api/public/**");
-    }
-
-    // TAMBAHKAN INI: Agar folder uploads bisa diakses browser
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        Path uploadPath = Paths.get(uploadDir);
-        String uploadAbsolutePath = uploadPath.toFile().getAbsolutePath();
 
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:///" + uploadAbsolutePath + "/");
+        // Setelah AuthInterceptor supaya user API sudah ada di AuthContext
+        registry.addInterceptor(replicaRoutingInterceptor)
+                .addPathPatterns("/**");
     }
 }
\ No newline at end of file
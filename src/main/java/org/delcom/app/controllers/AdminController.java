@@ -0,0 +1,121 @@
+package org.delcom.app.controllers;
+
+import org.delcom.app.configs.ApiResponse;
+import org.delcom.app.configs.AuthContext;
+import org.delcom.app.configs.PoolMetrics;
+import org.delcom.app.configs.QueryMetrics;
+import org.delcom.app.dto.CacheRegionStats;
+import org.delcom.app.dto.MarketplaceReport;
+import org.delcom.app.dto.OrphanReport;
+import org.delcom.app.entities.User;
+import org.delcom.app.services.CacheStatsService;
+import org.delcom.app.services.MarketplaceReportService;
+import org.delcom.app.services.OrphanFileService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+    private final CacheStatsService cacheStatsService;
+    private final QueryMetrics queryMetrics;
+    private final PoolMetrics poolMetrics;
+    private final MarketplaceReportService marketplaceReportService;
+    private final OrphanFileService orphanFileService;
+    private final AuthContext authContext;
+    private final Set<String> adminEmails;
+
+    public AdminController(CacheStatsService cacheStatsService, QueryMetrics queryMetrics, PoolMetrics poolMetrics,
+                           MarketplaceReportService marketplaceReportService, OrphanFileService orphanFileService,
+                           AuthContext authContext,
+                           @Value("${app.admin.emails:}") List<String> adminEmails) {
+        this.cacheStatsService = cacheStatsService;
+        this.queryMetrics = queryMetrics;
+        this.poolMetrics = poolMetrics;
+        this.marketplaceReportService = marketplaceReportService;
+        this.orphanFileService = orphanFileService;
+        this.authContext = authContext;
+        this.adminEmails = adminEmails.stream()
+                .map(email -> email.trim().toLowerCase(Locale.ROOT))
+                .filter(email -> !email.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @GetMapping("/cache-stats")
+    public ResponseEntity<ApiResponse<Map<String, List<CacheRegionStats>>>> cacheStats() {
+        if (!isAdmin()) {
+            return forbidden();
+        }
+        return ResponseEntity.ok(new ApiResponse<>("success", "Berhasil mengambil statistik cache",
+                cacheStatsService.getStats()));
+    }
+
+    // Pool koneksi (aktif/idle/menunggu, waktu tunggu) dan jumlah query per handler, terbanyak di atas
+    @GetMapping("/db-metrics")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> dbMetrics() {
+        if (!isAdmin()) {
+            return forbidden();
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("pools", poolMetrics.snapshot());
+        metrics.put("endpoints", queryMetrics.snapshot());
+        return ResponseEntity.ok(new ApiResponse<>("success", "Berhasil mengambil metrik database", metrics));
+    }
+
+    // Laporan seluruh marketplace dari snapshot di memori (diperbarui berkala), bukan query ke tabel photos
+    @GetMapping("/reports")
+    public ResponseEntity<ApiResponse<MarketplaceReport>> reports(@RequestParam(defaultValue = "30") int days) {
+        if (!isAdmin()) {
+            return forbidden();
+        }
+        return ResponseEntity.ok(new ApiResponse<>("success", "Berhasil mengambil laporan marketplace",
+                marketplaceReportService.getReport(days)));
+    }
+
+    // Hasil pembersihan file upload yatim terakhir (terjadwal atau manual)
+    @GetMapping("/uploads/orphans")
+    public ResponseEntity<ApiResponse<OrphanReport>> orphanReport() {
+        if (!isAdmin()) {
+            return forbidden();
+        }
+        return ResponseEntity.ok(new ApiResponse<>("success", "Berhasil mengambil laporan file yatim",
+                orphanFileService.getLastReport()));
+    }
+
+    @PostMapping("/uploads/orphans")
+    public ResponseEntity<ApiResponse<OrphanReport>> reconcileOrphans() {
+        if (!isAdmin()) {
+            return forbidden();
+        }
+        OrphanReport report = orphanFileService.reconcile();
+        if (report == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>("fail", "Pembersihan file yatim sedang berjalan", null));
+        }
+        return ResponseEntity.ok(new ApiResponse<>("success", "Pembersihan file yatim selesai", report));
+    }
+
+    // Endpoint admin hanya untuk email yang terdaftar di app.admin.emails
+    private boolean isAdmin() {
+        User authUser = authContext.getAuthUser();
+        return authUser != null && adminEmails.contains(authUser.getEmail().toLowerCase(Locale.ROOT));
+    }
+
+    private <T> ResponseEntity<ApiResponse<T>> forbidden() {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(new ApiResponse<>("fail", "Akses admin ditolak", null));
+    }
+}
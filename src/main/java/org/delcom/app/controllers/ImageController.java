@@ -0,0 +1,151 @@
+package org.delcom.app.controllers;
+
+import org.delcom.app.dto.ResizedImage;
+import org.delcom.app.dto.StorageObject;
+import org.delcom.app.services.FileStorageService;
+import org.delcom.app.services.ImageResizeService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+// Gambar upload dialirkan dari StorageBackend (lokal atau S3), sehingga node aplikasi tidak perlu folder upload sendiri
+@Controller
+public class ImageController {
+    private static final CacheControl VARIANT_CACHE = CacheControl.maxAge(Duration.ofHours(1)).cachePublic();
+    // File asli bisa diganti dengan nama sama; browser wajib revalidasi lewat ETag
+    private static final CacheControl ORIGINAL_CACHE = CacheControl.noCache().cachePublic();
+
+    private final ImageResizeService imageResizeService;
+    private final FileStorageService fileStorageService;
+
+    public ImageController(ImageResizeService imageResizeService, FileStorageService fileStorageService) {
+        this.imageResizeService = imageResizeService;
+        this.fileStorageService = fileStorageService;
+    }
+
+    /**
+     * File asli. Satu range (Range: bytes=a-b) dijawab 206 dengan potongan yang
+     * dibaca langsung dari backend; beberapa range sekaligus atau header rusak
+     * dijawab dengan file utuh.
+     */
+    @GetMapping("/uploads/{name:.+}")
+    public ResponseEntity<StreamingResponseBody> original(@PathVariable String name,
+                                                          @RequestHeader(name = HttpHeaders.RANGE, required = false) String range,
+                                                          WebRequest webRequest) throws IOException {
+        if (!FileStorageService.isServableName(name)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        StorageObject file = fileStorageService.stat(name);
+        if (file == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        long size = file.size();
+        long modified = file.lastModified().toEpochMilli();
+        String etag = "\"" + Long.toHexString(modified) + "-" + Long.toHexString(size) + "\"";
+        if (webRequest.checkNotModified(etag, modified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(ORIGINAL_CACHE).build();
+        }
+        MediaType contentType = MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM);
+
+        List<HttpRange> ranges = parseRanges(range);
+        if (ranges.size() == 1) {
+            long start;
+            long end;
+            try {
+                start = ranges.get(0).getRangeStart(size);
+                end = ranges.get(0).getRangeEnd(size);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                        .build();
+            }
+            long length = end - start + 1;
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                    .eTag(etag)
+                    .cacheControl(ORIGINAL_CACHE)
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size)
+                    .contentType(contentType)
+                    .contentLength(length)
+                    .body(stream(name, start, length));
+        }
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(ORIGINAL_CACHE)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(contentType)
+                .contentLength(size)
+                .body(stream(name, 0, -1));
+    }
+
+    @GetMapping(path = "/uploads/{name:.+}", params = "w")
+    public ResponseEntity<byte[]> resized(@PathVariable String name,
+                                          @RequestParam("w") int width,
+                                          @RequestParam(name = "h", required = false) Integer height,
+                                          @RequestParam(defaultValue = "contain") String fit,
+                                          WebRequest webRequest) throws IOException {
+        ResizedImage image;
+        try {
+            image = imageResizeService.getVariant(name, width, height, ImageResizeService.parseFit(fit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RejectedExecutionException e) {
+            // Semua slot resize terpakai; client diminta mencoba lagi alih-alih mengantre tanpa batas
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        if (image == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        if (webRequest.checkNotModified(image.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(image.etag()).cacheControl(VARIANT_CACHE).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(image.etag())
+                .cacheControl(VARIANT_CACHE)
+                .contentType(MediaType.parseMediaType(image.contentType()))
+                .body(image.data());
+    }
+
+    private List<HttpRange> parseRanges(String range) {
+        if (range == null || range.isBlank()) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+
+    // Dibuka saat body ditulis, jadi tidak ada isi file yang ditahan di memori
+    private StreamingResponseBody stream(String name, long offset, long length) {
+        fileStorageService.recordAccess(name);
+        return out -> {
+            try (InputStream in = fileStorageService.openFile(name, offset, length)) {
+                if (in != null) {
+                    in.transferTo(out);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,287 @@
+package org.delcom.app.controllers;
+
+import jakarta.validation.Valid;
+import org.delcom.app.configs.ApiResponse;
+import org.delcom.app.configs.AuthContext;
+import org.delcom.app.dto.BulkEditRequest;
+import org.delcom.app.dto.PhotoDetail;
+import org.delcom.app.dto.PhotoPage;
+import org.delcom.app.dto.PhotoRequest;
+import org.delcom.app.dto.PhotoSummary;
+import org.delcom.app.dto.PriceBucket;
+import org.delcom.app.entities.Photo;
+import org.delcom.app.entities.User;
+import org.delcom.app.services.FileStorageService;
+import org.delcom.app.services.InvalidImageException;
+import org.delcom.app.services.PhotoFeedService;
+import org.delcom.app.services.PhotoImageService;
+import org.delcom.app.services.PhotoService;
+import org.delcom.app.services.QuotaExceededException;
+import org.delcom.app.utils.EtagUtil;
+import org.delcom.app.utils.MoneyUtil;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/photos")
+public class PhotoApiController {
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 100;
+    private static final String DEFAULT_HISTOGRAM_WIDTH = "100000";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final PhotoService photoService;
+    private final FileStorageService fileStorageService;
+    private final PhotoFeedService photoFeedService;
+    private final PhotoImageService photoImageService;
+    private final AuthContext authContext;
+
+    public PhotoApiController(PhotoService photoService, FileStorageService fileStorageService,
+                              PhotoFeedService photoFeedService, PhotoImageService photoImageService,
+                              AuthContext authContext) {
+        this.photoService = photoService;
+        this.fileStorageService = fileStorageService;
+        this.photoFeedService = photoFeedService;
+        this.photoImageService = photoImageService;
+        this.authContext = authContext;
+    }
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<PhotoPage>> list(@RequestParam(required = false) String cursor,
+                                                       @RequestParam(required = false) String category,
+                                                       @RequestParam(defaultValue = "" + DEFAULT_LIMIT) int limit,
+                                                       WebRequest webRequest) {
+        User authUser = authContext.getAuthUser();
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        PhotoPage page;
+        try {
+            page = photoService.getPhotoPage(authUser.getId(), category, cursor, pageSize);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>("fail", e.getMessage(), null));
+        }
+
+        // ETag dari id + updatedAt setiap item, jadi berubah jika ada foto yang diubah
+        StringBuilder fingerprint = new StringBuilder();
+        for (PhotoSummary item : page.items()) {
+            fingerprint.append(item.id()).append(item.updatedAt());
+        }
+        String etag = EtagUtil.weak(authUser.getId(), category, cursor, pageSize, fingerprint);
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        return ResponseEntity.ok().eTag(etag)
+                .body(new ApiResponse<>("success", "Berhasil mengambil daftar foto", page));
+    }
+
+    // Feed NDJSON untuk client sync/backup; since = updatedAt/deletedAt terakhir yang sudah diterima client
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> stream(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+        // AuthContext bersifat request-scoped, jadi userId diambil sebelum streaming dimulai
+        UUID userId = authContext.getAuthUser().getId();
+        StreamingResponseBody body = out -> photoFeedService.writeNdjson(userId, since, out);
+
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header("X-Accel-Buffering", "no")
+                .body(body);
+    }
+
+    // Filter rentang harga (nominal, inklusif); dieksekusi sebagai range scan bigint
+    @GetMapping("/price-range")
+    public ResponseEntity<ApiResponse<List<PhotoSummary>>> priceRange(
+            @RequestParam(defaultValue = "0") BigDecimal min,
+            @RequestParam(required = false) BigDecimal max,
+            @RequestParam(defaultValue = "" + DEFAULT_LIMIT) int limit) {
+        long minMinor;
+        long maxMinor;
+        try {
+            minMinor = MoneyUtil.toMinor(min);
+            maxMinor = max == null ? Long.MAX_VALUE : MoneyUtil.toMinor(max);
+        } catch (ArithmeticException e) {
+            minMinor = -1;
+            maxMinor = -1;
+        }
+        if (minMinor < 0 || maxMinor < minMinor) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>("fail", "Rentang harga tidak valid", null));
+        }
+
+        List<PhotoSummary> items = photoService.getPhotosInPriceRange(authContext.getAuthUser().getId(),
+                minMinor, maxMinor, Math.max(1, Math.min(limit, MAX_LIMIT)));
+        return ResponseEntity.ok(new ApiResponse<>("success", "Berhasil mengambil foto dalam rentang harga", items));
+    }
+
+    // Histogram harga dengan lebar batang tetap (nominal)
+    @GetMapping("/price-histogram")
+    public ResponseEntity<ApiResponse<List<PriceBucket>>> priceHistogram(
+            @RequestParam(defaultValue = DEFAULT_HISTOGRAM_WIDTH) BigDecimal width) {
+        long widthMinor;
+        try {
+            widthMinor = MoneyUtil.toMinor(width);
+        } catch (ArithmeticException e) {
+            // Tidak muat di long (satuan terkecil)
+            return ResponseEntity.badRequest().body(new ApiResponse<>("fail", "Lebar histogram terlalu besar", null));
+        }
+        if (widthMinor <= 0) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>("fail", "Lebar histogram harus positif", null));
+        }
+
+        List<PriceBucket> buckets = photoService.getPriceHistogram(authContext.getAuthUser().getId(), widthMinor);
+        return ResponseEntity.ok(new ApiResponse<>("success", "Berhasil mengambil histogram harga", buckets));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<PhotoDetail>> detail(@PathVariable UUID id, WebRequest webRequest) {
+        PhotoDetail photo = photoService.getPhotoDetail(id, authContext.getAuthUser().getId());
+        if (photo == null) {
+            return notFound();
+        }
+
+        String etag = EtagUtil.weak(photo.id(), photo.version(), photo.updatedAt(), photo.filename());
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        return ResponseEntity.ok().eTag(etag)
+                .body(new ApiResponse<>("success", "Berhasil mengambil data foto", photo));
+    }
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<PhotoDetail>> create(@Valid @RequestBody PhotoRequest request) {
+        User authUser = authContext.getAuthUser();
+        Photo photo = photoService.createPhoto(new Photo(authUser.getId(), request.getTitle(),
+                request.getCategory(), request.getDescription(), request.getPrice()));
+
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(new ApiResponse<>("success", "Foto berhasil dibuat", toDetail(photo)));
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<ApiResponse<PhotoDetail>> update(@PathVariable UUID id,
+                                                           @Valid @RequestBody PhotoRequest request) {
+        if (findOwnedPhoto(id) == null) {
+            return notFound();
+        }
+
+        Photo photo;
+        try {
+            photo = photoService.updatePhotoData(id, request.getVersion(), request.getTitle(), request.getCategory(),
+                    request.getDescription(), request.getPrice());
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return conflict(id);
+        }
+        return ResponseEntity.ok(new ApiResponse<>("success", "Foto berhasil diperbarui", toDetail(photo)));
+    }
+
+    @PostMapping("/{id}/image")
+    public ResponseEntity<ApiResponse<PhotoDetail>> updateImage(@PathVariable UUID id,
+                                                                @RequestParam("file") MultipartFile file,
+                                                                @RequestParam(required = false) Long version)
+            throws IOException {
+        Photo photo = findOwnedPhoto(id);
+        if (photo == null) {
+            return notFound();
+        }
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>("fail", "File gambar wajib diunggah", null));
+        }
+        // Cek awal tanpa membaca upload; yang menentukan adalah cek ulang di bawah lock per foto
+        if (version != null && version != photo.getVersion()) {
+            return conflict(id);
+        }
+        try {
+            fileStorageService.inspect(file);
+        } catch (InvalidImageException e) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                    .body(new ApiResponse<>("fail", e.getMessage(), null));
+        }
+
+        Photo updated;
+        try {
+            updated = photoImageService.replaceImage(id, photo.getUserId(), version, file.getSize(), 0,
+                    photoId -> fileStorageService.storeFile(file, photoId));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // Ditolak sebelum file ditulis: gambar lama dan kuota tidak berubah
+            return conflict(id);
+        } catch (QuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE).body(new ApiResponse<>("fail", e.getMessage(), null));
+        }
+        if (updated == null) {
+            return notFound();
+        }
+        return ResponseEntity.ok(new ApiResponse<>("success", "Gambar berhasil diganti", toDetail(updated)));
+    }
+
+    // Edit massal foto milik user; data = jumlah foto yang berubah (id asing/terhapus dilewati)
+    @PostMapping("/bulk")
+    public ResponseEntity<ApiResponse<Integer>> bulk(@Valid @RequestBody BulkEditRequest request) {
+        int changed;
+        try {
+            changed = photoService.bulkEdit(authContext.getAuthUser().getId(), request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>("fail", e.getMessage(), null));
+        }
+        return ResponseEntity.ok(new ApiResponse<>("success", changed + " foto diperbarui", changed));
+    }
+
+    // Soft delete; bisa dibatalkan lewat /restore selama jendela undo
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<Void>> delete(@PathVariable UUID id) {
+        if (!photoService.deletePhoto(id, authContext.getAuthUser().getId())) {
+            return notFound();
+        }
+        return ResponseEntity.ok(new ApiResponse<>("success", "Foto berhasil dihapus", null));
+    }
+
+    @PostMapping("/{id}/restore")
+    public ResponseEntity<ApiResponse<Void>> restore(@PathVariable UUID id) {
+        if (!photoService.restorePhoto(id, authContext.getAuthUser().getId())) {
+            return notFound();
+        }
+        return ResponseEntity.ok(new ApiResponse<>("success", "Foto berhasil dikembalikan", null));
+    }
+
+    // Foto milik user lain diperlakukan sama dengan tidak ditemukan
+    private Photo findOwnedPhoto(UUID id) {
+        Photo photo = photoService.getPhotoById(id);
+        if (photo == null || !photo.getUserId().equals(authContext.getAuthUser().getId())) {
+            return null;
+        }
+        return photo;
+    }
+
+    private PhotoDetail toDetail(Photo photo) {
+        return new PhotoDetail(photo.getId(), photo.getTitle(), photo.getCategoryId(), photo.getCategory(),
+                photo.getDescription(),
+                photo.getPrice(), photo.getCurrency(), photo.getFilename(), photo.getCreatedAt(),
+                photo.getUpdatedAt(), photo.getVersion());
+    }
+
+    // 409 beserta data terbaru (termasuk version) supaya client bisa menggabungkan lalu mengirim ulang
+    private ResponseEntity<ApiResponse<PhotoDetail>> conflict(UUID id) {
+        PhotoDetail current = photoService.getPhotoDetail(id, authContext.getAuthUser().getId());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ApiResponse<>("fail",
+                        "Foto sudah diubah oleh client lain; kirim ulang dengan version terbaru", current));
+    }
+
+    private <T> ResponseEntity<ApiResponse<T>> notFound() {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ApiResponse<>("fail", "Foto tidak ditemukan", null));
+    }
+}
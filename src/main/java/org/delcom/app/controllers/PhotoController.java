@@ -1,11 +1,33 @@
 package org.delcom.app.controllers;
 
 import jakarta.validation.Valid;
+import org.delcom.app.configs.ApiResponse;
+import org.delcom.app.dto.BulkEditRequest;
+import org.delcom.app.dto.CategoryStat;
+import org.delcom.app.dto.ImportProgress;
 import org.delcom.app.dto.PhotoForm;
+import org.delcom.app.dto.PhotoSummary;
+import org.delcom.app.dto.PortfolioAnalytics;
+import org.delcom.app.dto.TimeBucket;
 import org.delcom.app.entities.Photo;
+import org.delcom.app.entities.PortfolioVersion;
 import org.delcom.app.entities.User;
 import org.delcom.app.services.FileStorageService;
+import org.delcom.app.services.InvalidImageException;
+import org.delcom.app.services.PhotoImageService;
 import org.delcom.app.services.PhotoService;
+import org.delcom.app.services.PortfolioExportService;
+import org.delcom.app.services.PortfolioImportService;
+import org.delcom.app.services.QuotaExceededException;
+import org.delcom.app.services.StorageQuotaService;
+import org.delcom.app.utils.EtagUtil;
+import org.delcom.app.utils.MoneyUtil;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 // Import Security Context
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -13,10 +35,20 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.thymeleaf.context.LazyContextVariable;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Controller
@@ -25,11 +57,23 @@ public class PhotoController {
 
     private final PhotoService photoService;
     private final FileStorageService fileStorageService;
+    private final PortfolioExportService portfolioExportService;
+    private final PortfolioImportService portfolioImportService;
+    private final StorageQuotaService storageQuotaService;
+    private final PhotoImageService photoImageService;
     // Hapus AuthContext dari sini
 
-    public PhotoController(PhotoService photoService, FileStorageService fileStorageService) {
+    public PhotoController(PhotoService photoService, FileStorageService fileStorageService,
+                           PortfolioExportService portfolioExportService,
+                           PortfolioImportService portfolioImportService,
+                           StorageQuotaService storageQuotaService,
+                           PhotoImageService photoImageService) {
         this.photoService = photoService;
         this.fileStorageService = fileStorageService;
+        this.portfolioExportService = portfolioExportService;
+        this.portfolioImportService = portfolioImportService;
+        this.storageQuotaService = storageQuotaService;
+        this.photoImageService = photoImageService;
     }
 
     // Helper method untuk mengambil User yang sedang login
@@ -41,13 +85,43 @@ public class PhotoController {
         return null;
     }
 
+    // Saran kategori untuk datalist form, hanya kategori milik user. Lazy: baru dimuat
+    // saat template form merender datalist, halaman lain tidak menjalankan query-nya
+    @ModelAttribute("categorySuggestions")
+    public LazyContextVariable<List<String>> categorySuggestions() {
+        User authUser = getAuthUser();
+        return new LazyContextVariable<>() {
+            @Override
+            protected List<String> loadValue() {
+                return authUser == null ? List.of() : photoService.getCategorySuggestions(authUser.getId());
+            }
+        };
+    }
+
+    // Halaman galeri/detail hanya berubah jika portofolio user berubah. Versi dicek dulu
+    // (satu lookup PK) sehingga refresh tanpa perubahan tidak menjalankan query daftar maupun template.
+    // Halaman yang membawa flash message selalu dirender; session ikut di-hash karena HTML memuat token CSRF
+    private boolean notModified(User user, Model model, ServletWebRequest webRequest, Object... parts) {
+        if (model.containsAttribute("success") || model.containsAttribute("error")) {
+            return false;
+        }
+        PortfolioVersion version = photoService.getPortfolioVersion(user.getId());
+        long lastModified = version.getUpdatedAt() == null ? -1
+                : version.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        String etag = EtagUtil.weak(user.getId(), version.getVersion(), webRequest.getSessionId(),
+                List.of(parts));
+        return EtagUtil.checkNotModified(webRequest, etag, lastModified);
+    }
+
     @GetMapping
-    public String index(Model model) {
+    public String index(Model model, ServletWebRequest webRequest) {
         User user = getAuthUser();
         // Redirect login jika sesi habis
         if (user == null) return "redirect:/auth/login"; 
+        // null = request sudah ditangani (304)
+        if (notModified(user, model, webRequest, "index")) return null;
         
-        List<Photo> photos = photoService.getAllPhotos(user.getId());
+        List<PhotoSummary> photos = photoService.getPhotoSummaries(user.getId());
         model.addAttribute("photos", photos);
         return "pages/photos/index";
     }
@@ -72,19 +146,107 @@ public class PhotoController {
         User user = getAuthUser();
         if (user == null) return "redirect:/auth/login";
 
+        // Tolak file bukan gambar sebelum foto dibuat atau apa pun ditulis ke disk
+        try {
+            fileStorageService.inspect(form.getFile());
+        } catch (InvalidImageException e) {
+            result.rejectValue("file", "error.file", e.getMessage());
+            return "pages/photos/form";
+        }
+
+        // Kuota dipesan sebelum menulis; dikembalikan jika penyimpanan gagal
+        long size = form.getFile().getSize();
+        if (!storageQuotaService.tryReserve(user.getId(), size)) {
+            result.rejectValue("file", "error.file", quotaMessage());
+            return "pages/photos/form";
+        }
+
         Photo photo = new Photo(user.getId(), form.getTitle(), form.getCategory(), form.getDescription(), form.getPrice());
-        Photo savedPhoto = photoService.createPhoto(photo);
-        String filename = fileStorageService.storeFile(form.getFile(), savedPhoto.getId());
-        photoService.updatePhotoFile(savedPhoto.getId(), filename);
+        try {
+            Photo savedPhoto = photoService.createPhoto(photo);
+            String filename = fileStorageService.storeFile(form.getFile(), savedPhoto.getId());
+            photoService.updatePhotoFile(savedPhoto.getId(), filename);
+        } catch (IOException | RuntimeException e) {
+            storageQuotaService.release(user.getId(), size);
+            throw e;
+        }
+        storageQuotaService.confirm(user.getId(), size);
 
         redirectAttributes.addFlashAttribute("success", "Foto berhasil ditambahkan ke portofolio.");
         return "redirect:/photos";
     }
 
+    // Download seluruh portofolio sebagai ZIP yang di-stream langsung ke response
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export() {
+        User user = getAuthUser();
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.FOUND).location(URI.create("/auth/login")).build();
+        }
+
+        UUID userId = user.getId();
+        String filename = "portfolio-" + LocalDate.now() + ".zip";
+        StreamingResponseBody body = out -> portfolioExportService.exportPortfolio(userId, out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    @GetMapping("/import")
+    public String importPage() {
+        return "pages/photos/import";
+    }
+
+    // Body request (ZIP atau CSV) dibaca sebagai stream mentah, bukan multipart,
+    // sehingga arsip besar tidak ditampung di memori maupun file sementara
+    @PostMapping("/import")
+    @ResponseBody
+    public ResponseEntity<ApiResponse<ImportProgress>> importPortfolio(InputStream body) {
+        User user = getAuthUser();
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ApiResponse<>("fail", "Sesi login telah berakhir", null));
+        }
+
+        try {
+            ImportProgress progress = portfolioImportService.importPortfolio(user.getId(), body);
+            return ResponseEntity.ok(new ApiResponse<>("success", "Import portofolio selesai", progress));
+        } catch (IOException | RuntimeException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>("fail", "Import gagal: " + e.getMessage(),
+                            portfolioImportService.getProgress(user.getId())));
+        }
+    }
+
+    @GetMapping("/import/progress")
+    @ResponseBody
+    public ResponseEntity<ApiResponse<ImportProgress>> importProgress() {
+        User user = getAuthUser();
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ApiResponse<>("fail", "Sesi login telah berakhir", null));
+        }
+
+        ImportProgress progress = portfolioImportService.getProgress(user.getId());
+        if (progress == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ApiResponse<>("fail", "Belum ada proses import", null));
+        }
+        return ResponseEntity.ok(new ApiResponse<>("success", "Progress import", progress));
+    }
+
     @GetMapping("/{id}")
-    public String detail(@PathVariable UUID id, Model model) {
+    public String detail(@PathVariable UUID id, Model model, ServletWebRequest webRequest) {
+        User user = getAuthUser();
+        if (user != null && notModified(user, model, webRequest, "detail", id)) return null;
+
         Photo photo = photoService.getPhotoById(id);
         if (photo == null) return "redirect:/photos";
+        // Validator di atas memakai versi portofolio penampil, jadi foto user lain tidak ditampilkan
+        if (user != null && !user.getId().equals(photo.getUserId())) return "redirect:/photos";
         model.addAttribute("photo", photo);
         return "pages/photos/detail";
     }
@@ -99,6 +261,7 @@ public class PhotoController {
         form.setCategory(photo.getCategory());
         form.setDescription(photo.getDescription());
         form.setPrice(photo.getPrice());
+        form.setVersion(photo.getVersion());
         
         model.addAttribute("photoForm", form);
         model.addAttribute("photoId", id);
@@ -109,10 +272,25 @@ public class PhotoController {
     public String update(@PathVariable UUID id, 
                          @Valid @ModelAttribute("photoForm") PhotoForm form,
                          BindingResult result,
+                         Model model,
                          RedirectAttributes redirectAttributes) {
+        model.addAttribute("photoId", id);
         if (result.hasErrors()) return "pages/photos/form";
 
-        photoService.updatePhotoData(id, form.getTitle(), form.getCategory(), form.getDescription(), form.getPrice());
+        try {
+            photoService.updatePhotoData(id, form.getVersion(), form.getTitle(), form.getCategory(),
+                    form.getDescription(), form.getPrice());
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // Foto diubah di tab/perangkat lain: isian user dipertahankan, data terbaru ditampilkan,
+            // dan version dinaikkan sehingga submit berikutnya sengaja menimpa perubahan tersebut
+            Photo current = photoService.getPhotoById(id);
+            if (current == null) return "redirect:/photos";
+            form.setVersion(current.getVersion());
+            model.addAttribute("conflictPhoto", current);
+            result.reject("error.conflict",
+                    "Foto ini baru saja diubah di tempat lain. Periksa data terbaru, lalu simpan lagi untuk menimpanya.");
+            return "pages/photos/form";
+        }
         redirectAttributes.addFlashAttribute("success", "Informasi foto berhasil diperbarui.");
         return "redirect:/photos";
     }
@@ -121,36 +299,106 @@ public class PhotoController {
     public String updateImage(@PathVariable UUID id, 
                               @RequestParam("file") org.springframework.web.multipart.MultipartFile file,
                               RedirectAttributes redirectAttributes) throws IOException {
+        User user = getAuthUser();
+        if (user == null) return "redirect:/auth/login";
+
         if (file.isEmpty()) {
             redirectAttributes.addFlashAttribute("error", "Pilih file gambar baru.");
             return "redirect:/photos/" + id;
         }
 
-        Photo photo = photoService.getPhotoById(id);
-        if(photo.getFilename() != null) {
-            fileStorageService.deleteFile(photo.getFilename());
+        // File baru divalidasi sebelum menyentuh gambar lama
+        try {
+            fileStorageService.inspect(file);
+        } catch (InvalidImageException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+            return "redirect:/photos/" + id;
         }
 
-        String newFilename = fileStorageService.storeFile(file, id);
-        photoService.updatePhotoFile(id, newFilename);
+        // Hanya pemilik yang boleh mengganti gambar (dan memakai kuotanya)
+        Photo photo;
+        try {
+            photo = photoImageService.replaceImage(id, user.getId(), null, file.getSize(), 0,
+                    photoId -> fileStorageService.storeFile(file, photoId));
+        } catch (QuotaExceededException e) {
+            redirectAttributes.addFlashAttribute("error", quotaMessage());
+            return "redirect:/photos/" + id;
+        }
+        if (photo == null) {
+            redirectAttributes.addFlashAttribute("error", "Foto tidak ditemukan.");
+            return "redirect:/photos";
+        }
 
         redirectAttributes.addFlashAttribute("success", "Gambar berhasil diganti.");
         return "redirect:/photos/" + id;
     }
 
-    @GetMapping("/{id}/delete")
+    // POST agar link/prefetch tidak bisa menghapus; file dan kuota dilepas PhotoPurgeService setelah jendela undo
+    @PostMapping("/{id}/delete")
     public String delete(@PathVariable UUID id, RedirectAttributes redirectAttributes) {
-        Photo photo = photoService.getPhotoById(id);
-        if (photo != null) {
-            if (photo.getFilename() != null) {
-                fileStorageService.deleteFile(photo.getFilename());
-            }
-            photoService.deletePhoto(id);
+        User user = getAuthUser();
+        if (user == null) return "redirect:/auth/login";
+
+        if (photoService.deletePhoto(id, user.getId())) {
             redirectAttributes.addFlashAttribute("success", "Foto berhasil dihapus.");
+            redirectAttributes.addFlashAttribute("undoPhotoId", id);
+        }
+        return "redirect:/photos";
+    }
+
+    @PostMapping("/{id}/restore")
+    public String restore(@PathVariable UUID id, RedirectAttributes redirectAttributes) {
+        User user = getAuthUser();
+        if (user == null) return "redirect:/auth/login";
+
+        if (photoService.restorePhoto(id, user.getId())) {
+            redirectAttributes.addFlashAttribute("success", "Foto berhasil dikembalikan.");
+        } else {
+            redirectAttributes.addFlashAttribute("error", "Foto tidak bisa dikembalikan, batas waktu undo sudah lewat.");
         }
         return "redirect:/photos";
     }
     
+    // Edit massal dari galeri (checkbox); satu statement UPDATE untuk semua foto terpilih
+    @PostMapping("/bulk")
+    public String bulk(@Valid @ModelAttribute BulkEditRequest request,
+                       BindingResult result,
+                       RedirectAttributes redirectAttributes) {
+        User user = getAuthUser();
+        if (user == null) return "redirect:/auth/login";
+
+        if (result.hasErrors()) {
+            // Salah ketik angka/UUID (binding failure) tidak punya pesan yang layak ditampilkan
+            String message = result.getFieldErrors().stream()
+                    .filter(error -> !error.isBindingFailure())
+                    .map(error -> error.getDefaultMessage())
+                    .findFirst()
+                    .orElse("Data edit massal tidak valid.");
+            redirectAttributes.addFlashAttribute("error", message);
+            return "redirect:/photos";
+        }
+
+        int changed;
+        try {
+            changed = photoService.bulkEdit(user.getId(), request);
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+            return "redirect:/photos";
+        }
+        String message = switch (request.getAction()) {
+            case CATEGORY -> changed + " foto dipindah ke kategori " + request.getCategory().trim() + ".";
+            case PRICE_AMOUNT, PRICE_PERCENT -> "Harga " + changed + " foto diperbarui.";
+            case DELETE -> changed + " foto berhasil dihapus.";
+        };
+        redirectAttributes.addFlashAttribute("success", message);
+        return "redirect:/photos";
+    }
+
+    private String quotaMessage() {
+        return "Kuota penyimpanan (" + (storageQuotaService.getQuotaBytes() / (1024 * 1024))
+                + " MB) tidak cukup untuk gambar ini.";
+    }
+
     @GetMapping("/chart")
     public String chart(Model model) {
         User user = getAuthUser();
@@ -158,6 +406,42 @@ public class PhotoController {
 
         List<Object[]> chartData = photoService.getChartData(user.getId());
         model.addAttribute("chartData", chartData);
+
+        // Analitik deret waktu & kategori (dihitung di SQL, di-cache per user)
+        PortfolioAnalytics analytics = photoService.getAnalytics(user.getId());
+        model.addAttribute("dailySeries", toSeries(analytics.daily()));
+        model.addAttribute("weeklySeries", toSeries(analytics.weekly()));
+        model.addAttribute("monthlySeries", toSeries(analytics.monthly()));
+        model.addAttribute("categoryStats", toCategorySeries(analytics.categories()));
         return "pages/photos/chart";
     }
+
+    // Ubah ke Map berisi list sederhana agar aman di-inline ke JavaScript oleh Thymeleaf
+    private Map<String, List<Object>> toSeries(List<TimeBucket> buckets) {
+        Map<String, List<Object>> series = new LinkedHashMap<>();
+        series.put("labels", new ArrayList<>());
+        series.put("uploads", new ArrayList<>());
+        series.put("value", new ArrayList<>());
+        series.put("cumulativeValue", new ArrayList<>());
+        for (TimeBucket bucket : buckets) {
+            series.get("labels").add(bucket.start().toString());
+            series.get("uploads").add(bucket.uploads());
+            series.get("value").add(MoneyUtil.toMajor(bucket.valueMinor()));
+            series.get("cumulativeValue").add(MoneyUtil.toMajor(bucket.cumulativeValueMinor()));
+        }
+        return series;
+    }
+
+    private Map<String, List<Object>> toCategorySeries(List<CategoryStat> stats) {
+        Map<String, List<Object>> series = new LinkedHashMap<>();
+        series.put("labels", new ArrayList<>());
+        series.put("value", new ArrayList<>());
+        series.put("share", new ArrayList<>());
+        for (CategoryStat stat : stats) {
+            series.get("labels").add(stat.category());
+            series.get("value").add(MoneyUtil.toMajor(stat.valueMinor()));
+            series.get("share").add(stat.valueShare());
+        }
+        return series;
+    }
 }
\ No newline at end of file
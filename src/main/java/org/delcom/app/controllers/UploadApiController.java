@@ -0,0 +1,159 @@
+package org.delcom.app.controllers;
+
+import jakarta.validation.Valid;
+import org.delcom.app.configs.ApiResponse;
+import org.delcom.app.configs.AuthContext;
+import org.delcom.app.dto.PhotoDetail;
+import org.delcom.app.dto.UploadRequest;
+import org.delcom.app.dto.UploadStatus;
+import org.delcom.app.entities.Photo;
+import org.delcom.app.services.InvalidImageException;
+import org.delcom.app.services.PhotoService;
+import org.delcom.app.services.QuotaExceededException;
+import org.delcom.app.services.ResumableUploadService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Upload gambar besar yang bisa dilanjutkan: POST membuka sesi, PUT mengirim potongan
+ * dengan header Content-Range, GET menampilkan rentang yang sudah diterima, dan
+ * POST /complete memasang file ke foto. Tidak terkena batas multipart karena body mentah.
+ */
+@RestController
+@RequestMapping("/api/uploads")
+public class UploadApiController {
+    // bytes <awal>-<akhir inklusif>/<total atau *>
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d{1,18})-(\\d{1,18})/(\\d{1,18}|\\*)");
+
+    private final ResumableUploadService resumableUploadService;
+    private final PhotoService photoService;
+    private final AuthContext authContext;
+
+    public UploadApiController(ResumableUploadService resumableUploadService, PhotoService photoService,
+                               AuthContext authContext) {
+        this.resumableUploadService = resumableUploadService;
+        this.photoService = photoService;
+        this.authContext = authContext;
+    }
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<UploadStatus>> create(@Valid @RequestBody UploadRequest request) throws IOException {
+        UploadStatus status;
+        try {
+            status = resumableUploadService.create(authContext.getAuthUser().getId(), request.getPhotoId(),
+                    request.getSize(), request.getSha256());
+        } catch (QuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE).body(new ApiResponse<>("fail", e.getMessage(), null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>("fail", e.getMessage(), null));
+        } catch (IllegalStateException e) {
+            // Batas sesi terbuka: client harus menyelesaikan atau membatalkan sesi lama dulu
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ApiResponse<>("fail", e.getMessage(), null));
+        }
+        if (status == null) {
+            return notFound("Foto tidak ditemukan");
+        }
+        return ResponseEntity.created(URI.create("/api/uploads/" + status.id()))
+                .body(new ApiResponse<>("success", "Sesi upload dibuat", status));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<UploadStatus>> status(@PathVariable UUID id) {
+        UploadStatus status = resumableUploadService.getStatus(authContext.getAuthUser().getId(), id);
+        if (status == null) {
+            return notFound("Sesi upload tidak ditemukan");
+        }
+        return ResponseEntity.ok(new ApiResponse<>("success", "Status upload", status));
+    }
+
+    // Potongan boleh dikirim tidak urut atau diulang; respons berisi rentang yang sudah diterima
+    @PutMapping("/{id}")
+    public ResponseEntity<ApiResponse<UploadStatus>> writeChunk(@PathVariable UUID id,
+                                                                @RequestHeader(value = HttpHeaders.CONTENT_RANGE, required = false) String contentRange,
+                                                                InputStream body) throws IOException {
+        Matcher range = contentRange == null ? null : CONTENT_RANGE.matcher(contentRange.trim());
+        if (range == null || !range.matches()) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>("fail", "Header Content-Range harus berbentuk 'bytes awal-akhir/total'", null));
+        }
+        long start = Long.parseLong(range.group(1));
+        long end = Long.parseLong(range.group(2));
+        if (end < start) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>("fail", "Rentang Content-Range tidak valid", null));
+        }
+
+        UUID userId = authContext.getAuthUser().getId();
+        if (!"*".equals(range.group(3))) {
+            UploadStatus current = resumableUploadService.getStatus(userId, id);
+            if (current != null && current.size() != Long.parseLong(range.group(3))) {
+                return ResponseEntity.badRequest()
+                        .body(new ApiResponse<>("fail", "Total Content-Range harus " + current.size(), null));
+            }
+        }
+
+        UploadStatus status;
+        try {
+            status = resumableUploadService.writeChunk(userId, id, start, end - start + 1, body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>("fail", e.getMessage(), null));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ApiResponse<>("fail", e.getMessage(), null));
+        }
+        if (status == null) {
+            return notFound("Sesi upload tidak ditemukan");
+        }
+        return ResponseEntity.ok(new ApiResponse<>("success", "Potongan diterima", status));
+    }
+
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<ApiResponse<Object>> complete(@PathVariable UUID id) throws IOException {
+        UUID userId = authContext.getAuthUser().getId();
+        Photo photo;
+        try {
+            photo = resumableUploadService.complete(userId, id);
+        } catch (IllegalStateException e) {
+            // Belum lengkap: status dikirim balik supaya client tahu celah yang harus dikirim
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>("fail", e.getMessage(), resumableUploadService.getStatus(userId, id)));
+        } catch (InvalidImageException e) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                    .body(new ApiResponse<>("fail", e.getMessage(), null));
+        } catch (QuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE).body(new ApiResponse<>("fail", e.getMessage(), null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>("fail", e.getMessage(), null));
+        }
+        if (photo == null) {
+            return notFound("Sesi upload tidak ditemukan");
+        }
+        PhotoDetail detail = photoService.getPhotoDetail(photo.getId(), userId);
+        return ResponseEntity.ok(new ApiResponse<>("success", "Gambar berhasil diganti", detail));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<Void>> abort(@PathVariable UUID id) throws IOException {
+        boolean aborted;
+        try {
+            aborted = resumableUploadService.abort(authContext.getAuthUser().getId(), id);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ApiResponse<>("fail", e.getMessage(), null));
+        }
+        if (!aborted) {
+            return notFound("Sesi upload tidak ditemukan");
+        }
+        return ResponseEntity.ok(new ApiResponse<>("success", "Sesi upload dibatalkan", null));
+    }
+
+    private <T> ResponseEntity<ApiResponse<T>> notFound(String message) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse<>("fail", message, null));
+    }
+}
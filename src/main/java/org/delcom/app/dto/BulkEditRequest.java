@@ -0,0 +1,39 @@
+package org.delcom.app.dto;
+
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+// Edit massal foto terpilih (form galeri dan API); value = nominal atau persen sesuai action
+public class BulkEditRequest {
+    public static final int MAX_IDS = 500;
+
+    public enum Action { CATEGORY, PRICE_AMOUNT, PRICE_PERCENT, DELETE }
+
+    @NotEmpty(message = "Pilih minimal satu foto")
+    @Size(max = MAX_IDS, message = "Maksimal " + MAX_IDS + " foto sekaligus")
+    private List<UUID> ids;
+
+    @NotNull(message = "Aksi harus dipilih")
+    private Action action;
+
+    @Size(max = 255, message = "Kategori maksimal 255 karakter")
+    private String category;
+
+    @Digits(integer = 15, fraction = 2, message = "Nilai maksimal 15 digit dengan 2 angka desimal")
+    private BigDecimal value;
+
+    // Getters Setters
+    public List<UUID> getIds() { return ids; }
+    public void setIds(List<UUID> ids) { this.ids = ids; }
+    public Action getAction() { return action; }
+    public void setAction(Action action) { this.action = action; }
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+    public BigDecimal getValue() { return value; }
+    public void setValue(BigDecimal value) { this.value = value; }
+}
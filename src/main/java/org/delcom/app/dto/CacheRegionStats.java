@@ -0,0 +1,17 @@
+package org.delcom.app.dto;
+
+// Statistik satu region cache; size = -1 jika provider tidak melaporkan jumlah entry
+public record CacheRegionStats(
+        String region,
+        long hits,
+        long misses,
+        long puts,
+        long size,
+        double hitRatio) {
+
+    public static CacheRegionStats of(String region, long hits, long misses, long puts, long size) {
+        long lookups = hits + misses;
+        double ratio = lookups == 0 ? 0.0 : (double) hits / lookups;
+        return new CacheRegionStats(region, hits, misses, puts, size, ratio);
+    }
+}
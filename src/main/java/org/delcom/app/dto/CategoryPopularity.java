@@ -0,0 +1,8 @@
+package org.delcom.app.dto;
+
+// Popularitas kategori di seluruh marketplace; share dalam persen dari total foto
+public record CategoryPopularity(
+        String category,
+        long photos,
+        double share) {
+}
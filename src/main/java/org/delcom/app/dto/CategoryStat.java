@@ -0,0 +1,9 @@
+package org.delcom.app.dto;
+
+// Ringkasan per kategori; nilai dalam satuan terkecil, valueShare dalam persen dari total nilai portofolio
+public record CategoryStat(
+        String category,
+        long photos,
+        long valueMinor,
+        double valueShare) {
+}
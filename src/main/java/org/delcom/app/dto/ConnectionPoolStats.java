@@ -0,0 +1,16 @@
+package org.delcom.app.dto;
+
+// Snapshot satu pool Hikari: isi pool saat ini + akumulasi waktu tunggu koneksi sejak start
+public record ConnectionPoolStats(
+        String pool,
+        int active,
+        int idle,
+        int total,
+        int max,
+        int pendingThreads,
+        long acquisitions,
+        double avgWaitMillis,
+        double maxWaitMillis,
+        double avgUsageMillis,
+        long timeouts) {
+}
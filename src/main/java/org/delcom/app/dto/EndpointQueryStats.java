@@ -0,0 +1,13 @@
+package org.delcom.app.dto;
+
+// Akumulasi query SQL dan alokasi heap per handler controller sejak start
+public record EndpointQueryStats(
+        String endpoint,
+        long requests,
+        long queries,
+        double avgQueries,
+        long maxQueries,
+        long totalQueryMillis,
+        long avgAllocatedBytes,
+        long maxAllocatedBytes) {
+}
@@ -0,0 +1,16 @@
+package org.delcom.app.dto;
+
+// Format dan dimensi gambar hasil membaca header; width/height -1 jika tidak ditemukan di header
+public record ImageInfo(
+        String format,
+        int width,
+        int height) {
+
+    public String extension() {
+        return "jpeg".equals(format) ? ".jpg" : "." + format;
+    }
+
+    public String contentType() {
+        return "image/" + format;
+    }
+}
@@ -0,0 +1,46 @@
+package org.delcom.app.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+
+// Status import yang dibaca oleh request lain (polling), jadi field-nya volatile
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportProgress {
+    public enum Status { RUNNING, DONE, FAILED }
+
+    private volatile Status status = Status.RUNNING;
+    private volatile long processedEntries;
+    private volatile long importedPhotos;
+    private volatile long storedFiles;
+    private volatile long skippedEntries;
+    private volatile String message;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private volatile LocalDateTime finishedAt;
+
+    public void entryProcessed() { processedEntries++; }
+    public void photoImported() { importedPhotos++; }
+    public void fileStored() { storedFiles++; }
+    public void entrySkipped() { skippedEntries++; }
+
+    public void finish() {
+        status = Status.DONE;
+        finishedAt = LocalDateTime.now();
+    }
+
+    public void fail(String message) {
+        this.message = message;
+        status = Status.FAILED;
+        finishedAt = LocalDateTime.now();
+    }
+
+    // Getters
+    public Status getStatus() { return status; }
+    public long getProcessedEntries() { return processedEntries; }
+    public long getImportedPhotos() { return importedPhotos; }
+    public long getStoredFiles() { return storedFiles; }
+    public long getSkippedEntries() { return skippedEntries; }
+    public String getMessage() { return message; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+}
@@ -0,0 +1,17 @@
+package org.delcom.app.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Laporan lintas portofolio dari snapshot di memori; truncated = snapshot dipotong di batas max-rows
+public record MarketplaceReport(
+        LocalDateTime snapshotAt,
+        long snapshotBuildMillis,
+        boolean truncated,
+        long photos,
+        long sellers,
+        List<CategoryPopularity> categories,
+        List<PricePercentiles> prices,
+        List<UploadRate> uploads,
+        double avgUploadsPerDay) {
+}
@@ -0,0 +1,16 @@
+package org.delcom.app.dto;
+
+import java.time.LocalDateTime;
+
+// Hasil satu putaran pembersihan file upload yatim; reclaimedBytes = byte yang keluar dari folder upload
+public record OrphanReport(
+        LocalDateTime startedAt,
+        long durationMillis,
+        String action,
+        long scannedFiles,
+        long orphanFiles,
+        long reclaimedBytes,
+        long purgedQuarantineFiles,
+        long purgedQuarantineBytes,
+        long failedFiles) {
+}
@@ -0,0 +1,35 @@
+package org.delcom.app.dto;
+
+import org.delcom.app.utils.MoneyUtil;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Proyeksi detail foto untuk API (tanpa data internal entity)
+public record PhotoDetail(
+        UUID id,
+        String title,
+        int categoryId,
+        String category,
+        String description,
+        BigDecimal price,
+        String currency,
+        String filename,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        long version) {
+
+    // Dipakai constructor expression JPQL (price_minor + category_id); nama kategori diisi service
+    public PhotoDetail(UUID id, String title, int categoryId, String description, long priceMinor,
+                       String currency, String filename, LocalDateTime createdAt, LocalDateTime updatedAt,
+                       long version) {
+        this(id, title, categoryId, null, description, MoneyUtil.toMajor(priceMinor), currency, filename,
+                createdAt, updatedAt, version);
+    }
+
+    public PhotoDetail withCategory(String category) {
+        return new PhotoDetail(id, title, categoryId, category, description, price, currency, filename,
+                createdAt, updatedAt, version);
+    }
+}
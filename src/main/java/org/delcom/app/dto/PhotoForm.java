@@ -1,8 +1,10 @@
 package org.delcom.app.dto;
 
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import org.springframework.web.multipart.MultipartFile;
 import java.math.BigDecimal;
 
@@ -11,14 +13,19 @@ public class PhotoForm {
     private String title;
 
     @NotBlank(message = "Kategori harus dipilih")
+    @Size(max = 255, message = "Kategori maksimal 255 karakter")
     private String category;
 
     private String description;
 
     @NotNull(message = "Harga harus diisi")
     @Min(value = 0, message = "Harga tidak boleh negatif")
+    @Digits(integer = 15, fraction = 2, message = "Harga maksimal 15 digit dengan 2 angka desimal")
     private BigDecimal price;
 
+    // Version foto saat client mulai mengedit (optimistic locking); kosong = tanpa pengecekan
+    private Long version;
+
     // Optional saat edit data teks, Wajib saat create (divalidasi di controller)
     private MultipartFile file;
 
@@ -31,6 +38,8 @@ public class PhotoForm {
     public void setDescription(String description) { this.description = description; }
     public BigDecimal getPrice() { return price; }
     public void setPrice(BigDecimal price) { this.price = price; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
     public MultipartFile getFile() { return file; }
     public void setFile(MultipartFile file) { this.file = file; }
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package org.delcom.app.dto;
+
+import java.util.List;
+
+// Satu halaman hasil cursor pagination; nextCursor null berarti halaman terakhir
+public record PhotoPage(List<PhotoSummary> items, String nextCursor) {
+}
@@ -0,0 +1,40 @@
+package org.delcom.app.dto;
+
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.math.BigDecimal;
+
+// Body JSON untuk create/update foto lewat API
+public class PhotoRequest {
+    @NotBlank(message = "Judul foto harus diisi")
+    private String title;
+
+    @NotBlank(message = "Kategori harus dipilih")
+    @Size(max = 255, message = "Kategori maksimal 255 karakter")
+    private String category;
+
+    private String description;
+
+    @NotNull(message = "Harga harus diisi")
+    @Min(value = 0, message = "Harga tidak boleh negatif")
+    @Digits(integer = 15, fraction = 2, message = "Harga maksimal 15 digit dengan 2 angka desimal")
+    private BigDecimal price;
+
+    // Version foto saat client mulai mengedit (optimistic locking); kosong = tanpa pengecekan
+    private Long version;
+
+    // Getters Setters
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    public BigDecimal getPrice() { return price; }
+    public void setPrice(BigDecimal price) { this.price = price; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+}
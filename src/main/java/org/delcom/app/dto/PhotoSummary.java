@@ -0,0 +1,30 @@
+package org.delcom.app.dto;
+
+import org.delcom.app.utils.MoneyUtil;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Proyeksi ringan untuk daftar foto (tanpa kolom description)
+public record PhotoSummary(
+        UUID id,
+        String title,
+        int categoryId,
+        String category,
+        BigDecimal price,
+        String currency,
+        String filename,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+
+    // Dipakai constructor expression JPQL (price_minor + category_id); nama kategori diisi service
+    public PhotoSummary(UUID id, String title, int categoryId, long priceMinor, String currency,
+                        String filename, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, title, categoryId, null, MoneyUtil.toMajor(priceMinor), currency, filename, createdAt, updatedAt);
+    }
+
+    public PhotoSummary withCategory(String category) {
+        return new PhotoSummary(id, title, categoryId, category, price, currency, filename, createdAt, updatedAt);
+    }
+}
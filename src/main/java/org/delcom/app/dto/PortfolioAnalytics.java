@@ -0,0 +1,11 @@
+package org.delcom.app.dto;
+
+import java.util.List;
+
+// Hasil analitik yang di-cache per user
+public record PortfolioAnalytics(
+        List<TimeBucket> daily,
+        List<TimeBucket> weekly,
+        List<TimeBucket> monthly,
+        List<CategoryStat> categories) {
+}
@@ -0,0 +1,18 @@
+package org.delcom.app.dto;
+
+import org.delcom.app.utils.MoneyUtil;
+
+import java.math.BigDecimal;
+
+// Ringkasan portofolio untuk dashboard, dihitung dengan satu query agregat
+public record PortfolioStats(
+        long photos,
+        long categories,
+        long valueMinor) {
+
+    public static final PortfolioStats EMPTY = new PortfolioStats(0, 0, 0);
+
+    public BigDecimal value() {
+        return MoneyUtil.toMajor(valueMinor);
+    }
+}
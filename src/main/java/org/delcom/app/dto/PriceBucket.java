@@ -0,0 +1,8 @@
+package org.delcom.app.dto;
+
+// Satu batang histogram harga: [fromMinor, toMinor) dalam satuan terkecil
+public record PriceBucket(
+        long fromMinor,
+        long toMinor,
+        long photos) {
+}
@@ -0,0 +1,12 @@
+package org.delcom.app.dto;
+
+// Sebaran harga satu mata uang, semua nilai dalam satuan terkecil
+public record PricePercentiles(
+        String currency,
+        long photos,
+        long minMinor,
+        long p50Minor,
+        long p90Minor,
+        long p99Minor,
+        long maxMinor) {
+}
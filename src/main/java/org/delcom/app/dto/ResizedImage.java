@@ -0,0 +1,8 @@
+package org.delcom.app.dto;
+
+// Hasil resize siap kirim; etag berasal dari nama varian + waktu ubah file asli
+public record ResizedImage(
+        byte[] data,
+        String contentType,
+        String etag) {
+}
@@ -0,0 +1,10 @@
+package org.delcom.app.dto;
+
+import java.time.Instant;
+
+// Metadata objek di storage backend; key relatif terhadap root (folder upload atau bucket)
+public record StorageObject(
+        String key,
+        long size,
+        Instant lastModified) {
+}
@@ -0,0 +1,14 @@
+package org.delcom.app.dto;
+
+import java.time.LocalDateTime;
+
+// Hasil satu putaran pemindahan file antar tier hot/cold
+public record TieringReport(
+        LocalDateTime startedAt,
+        long durationMillis,
+        long promotedFiles,
+        long promotedBytes,
+        long demotedFiles,
+        long demotedBytes,
+        long failedFiles) {
+}
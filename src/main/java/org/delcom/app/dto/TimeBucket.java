@@ -0,0 +1,12 @@
+package org.delcom.app.dto;
+
+import java.time.LocalDate;
+
+// Satu titik deret waktu: jumlah upload dan nilai portofolio (satuan terkecil) dalam satu periode
+public record TimeBucket(
+        LocalDate start,
+        long uploads,
+        long valueMinor,
+        long cumulativeUploads,
+        long cumulativeValueMinor) {
+}
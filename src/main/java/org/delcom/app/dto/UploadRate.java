@@ -0,0 +1,10 @@
+package org.delcom.app.dto;
+
+import java.time.LocalDate;
+
+// Jumlah upload dan penjual aktif pada satu hari
+public record UploadRate(
+        LocalDate day,
+        long uploads,
+        long activeSellers) {
+}
@@ -0,0 +1,30 @@
+package org.delcom.app.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+
+import java.util.UUID;
+
+// Body JSON untuk membuka sesi upload bertahap (resumable) bagi gambar sebuah foto
+public class UploadRequest {
+    @NotNull(message = "Foto harus dipilih")
+    private UUID photoId;
+
+    @NotNull(message = "Ukuran file harus diisi")
+    @Min(value = 1, message = "Ukuran file minimal 1 byte")
+    private Long size;
+
+    // SHA-256 seluruh file (hex); dicocokkan saat finalisasi
+    @NotNull(message = "Digest SHA-256 harus diisi")
+    @Pattern(regexp = "[0-9a-fA-F]{64}", message = "Digest SHA-256 harus 64 karakter hex")
+    private String sha256;
+
+    // Getters Setters
+    public UUID getPhotoId() { return photoId; }
+    public void setPhotoId(UUID photoId) { this.photoId = photoId; }
+    public Long getSize() { return size; }
+    public void setSize(Long size) { this.size = size; }
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+}
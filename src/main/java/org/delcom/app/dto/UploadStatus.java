@@ -0,0 +1,17 @@
+package org.delcom.app.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Status sesi upload bertahap. received berisi rentang byte yang sudah tersimpan
+ * (start inklusif, end eksklusif, terurut dan tidak bertumpuk); client cukup
+ * mengirim ulang celahnya setelah koneksi putus.
+ */
+public record UploadStatus(UUID id, UUID photoId, long size, long receivedBytes, List<ByteRange> received,
+                           boolean complete, LocalDateTime expiresAt) {
+
+    public record ByteRange(long start, long end) {
+    }
+}
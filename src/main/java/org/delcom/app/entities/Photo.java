@@ -4,10 +4,33 @@ import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
+import org.delcom.app.configs.CacheConfig;
+import org.delcom.app.utils.MoneyUtil;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.SQLRestriction;
 
 @Entity
-@Table(name = "photos")
+// Tabel dipartisi per bulan berdasarkan created_at (V5__partition_photos.sql);
+// index di bawah didefinisikan pada tabel induk dan berlaku di setiap partisi
+@Table(name = "photos", indexes = {
+    // Daftar foto per user diurutkan terbaru (keyset pagination)
+    @Index(name = "idx_photos_user_created", columnList = "user_id, created_at, id"),
+    // Sinkronisasi inkremental berdasarkan updated_at
+    @Index(name = "idx_photos_user_updated", columnList = "user_id, updated_at, id"),
+    // Filter & urut rentang harga per user
+    @Index(name = "idx_photos_user_price", columnList = "user_id, price_minor"),
+    // Daftar foto per kategori (keyset pagination)
+    @Index(name = "idx_photos_user_category", columnList = "user_id, category_id, created_at, id")
+})
+@EntityListeners(PhotoCategoryListener.class)
+// Foto yang sudah dihapus (menunggu purge) tidak pernah dimuat oleh find/JPQL;
+// query native wajib menambahkan filter deleted_at IS NULL sendiri
+@SQLRestriction("deleted_at IS NULL")
+// Second-level cache: findById berulang per request dilayani dari memori
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.REGION_PHOTO)
 public class Photo {
 
     // --- 1. Mandatory Attribute: ID ---
@@ -26,22 +49,30 @@ public class Photo {
     private String title;
 
     // --- 4. Attribute: Category (e.g., Portrait, Landscape, Abstract) ---
-    @Column(nullable = false)
+    // Disimpan sebagai id ke tabel categories; nama diisi dari CategoryDictionary
+    @Column(name = "category_id", nullable = false)
+    private int categoryId;
+
+    @Transient
     private String category;
 
     // --- 5. Attribute: Description ---
     @Column(columnDefinition = "TEXT")
     private String description;
 
-    // --- 6. Attribute: Price (Selling price) ---
-    @Column(nullable = false)
-    private BigDecimal price;
+    // --- 6. Attribute: Price (Selling price) dalam satuan terkecil (sen) + kode mata uang ---
+    @Column(name = "price_minor", nullable = false)
+    private long priceMinor;
+
+    @Column(name = "currency", nullable = false, length = 3, columnDefinition = "char(3)")
+    private String currency = MoneyUtil.DEFAULT_CURRENCY;
 
     // --- 7. Attribute: Filename (Image Path) ---
     @Column(name = "filename")
     private String filename;
 
     // --- 8. Mandatory Attribute: CreatedAt ---
+    // Kunci partisi: tidak pernah di-update sehingga baris tidak berpindah partisi
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -49,6 +80,15 @@ public class Photo {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    // --- 10. Optimistic locking: UPDATE ... WHERE version = ? tanpa row lock ---
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    // --- 11. Soft delete: diisi saat dihapus, baris dibersihkan PhotoPurgeService setelah jendela undo ---
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
     public Photo() {}
 
     // Constructor custom
@@ -57,7 +97,7 @@ public class Photo {
         this.title = title;
         this.category = category;
         this.description = description;
-        this.price = price;
+        setPrice(price);
     }
 
     // Getters Setters
@@ -69,14 +109,30 @@ public class Photo {
     public void setTitle(String title) { this.title = title; }
     public String getCategory() { return category; }
     public void setCategory(String category) { this.category = category; }
+    public int getCategoryId() { return categoryId; }
+    public void setCategoryId(int categoryId) { this.categoryId = categoryId; }
+
+    // Dipakai service setelah nama kategori di-resolve ke id
+    public void assignCategory(int categoryId, String category) {
+        this.categoryId = categoryId;
+        this.category = category;
+    }
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
-    public BigDecimal getPrice() { return price; }
-    public void setPrice(BigDecimal price) { this.price = price; }
+    // Nominal BigDecimal hanya untuk form/tampilan; agregasi memakai priceMinor
+    public BigDecimal getPrice() { return MoneyUtil.toMajor(priceMinor); }
+    public void setPrice(BigDecimal price) { this.priceMinor = MoneyUtil.toMinor(price); }
+    public long getPriceMinor() { return priceMinor; }
+    public void setPriceMinor(long priceMinor) { this.priceMinor = priceMinor; }
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
     public String getFilename() { return filename; }
     public void setFilename(String filename) { this.filename = filename; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+    public LocalDateTime getDeletedAt() { return deletedAt; }
 
     @PrePersist
     protected void onCreate() {
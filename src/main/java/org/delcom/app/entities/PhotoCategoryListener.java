@@ -0,0 +1,19 @@
+package org.delcom.app.entities;
+
+import jakarta.persistence.PostLoad;
+import org.delcom.app.services.CategoryDictionary;
+
+// Mengisi nama kategori dari kamus setiap kali Photo dimuat (termasuk dari second-level cache).
+// Dibuat oleh Hibernate lewat container bean Spring sehingga bisa menerima dependency.
+public class PhotoCategoryListener {
+    private final CategoryDictionary categoryDictionary;
+
+    public PhotoCategoryListener(CategoryDictionary categoryDictionary) {
+        this.categoryDictionary = categoryDictionary;
+    }
+
+    @PostLoad
+    public void fillCategoryName(Photo photo) {
+        photo.setCategory(categoryDictionary.nameOf(photo.getCategoryId()));
+    }
+}
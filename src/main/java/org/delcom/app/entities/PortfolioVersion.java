@@ -0,0 +1,34 @@
+package org.delcom.app.entities;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Penanda versi portofolio per user; naik setiap kali foto user berubah (validator ETag halaman HTML)
+@Entity
+@Table(name = "portfolio_versions")
+public class PortfolioVersion {
+
+    @Id
+    @Column(name = "user_id", updatable = false, nullable = false)
+    private UUID userId;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public PortfolioVersion() {}
+
+    public PortfolioVersion(UUID userId, long version, LocalDateTime updatedAt) {
+        this.userId = userId;
+        this.version = version;
+        this.updatedAt = updatedAt;
+    }
+
+    public UUID getUserId() { return userId; }
+    public long getVersion() { return version; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
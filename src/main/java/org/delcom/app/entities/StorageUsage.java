@@ -0,0 +1,34 @@
+package org.delcom.app.entities;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Total byte file upload milik user; hanya diubah lewat delta dari StorageQuotaService
+@Entity
+@Table(name = "storage_usage")
+public class StorageUsage {
+
+    @Id
+    @Column(name = "user_id", updatable = false, nullable = false)
+    private UUID userId;
+
+    @Column(name = "bytes", nullable = false)
+    private long bytes;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public StorageUsage() {}
+
+    public StorageUsage(UUID userId, long bytes, LocalDateTime updatedAt) {
+        this.userId = userId;
+        this.bytes = bytes;
+        this.updatedAt = updatedAt;
+    }
+
+    public UUID getUserId() { return userId; }
+    public long getBytes() { return bytes; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
@@ -0,0 +1,50 @@
+package org.delcom.app.interceptors;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.delcom.app.configs.QueryMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Membuka dan menutup penghitung query SQL per request, dikelompokkan per handler controller
+@Component
+public class QueryCountInterceptor implements AsyncHandlerInterceptor {
+    static final String UNMAPPED = "(unmapped)";
+
+    private final QueryMetrics queryMetrics;
+
+    public QueryCountInterceptor(QueryMetrics queryMetrics) {
+        this.queryMetrics = queryMetrics;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        queryMetrics.beginRequest(handlerName(request, handler));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        queryMetrics.endRequest();
+    }
+
+    // Bagian sinkron request async dicatat di sini; dispatch async membuka penghitung baru
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        queryMetrics.endRequest();
+    }
+
+    // Kunci harus berkardinalitas terbatas: URI mentah (resource statis, probe 404,
+    // /uploads/<nama>) akan menumpuk tanpa batas di peta endpoint QueryMetrics
+    private String handlerName(HttpServletRequest request, Object handler) {
+        if (handler instanceof HandlerMethod method) {
+            return method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : UNMAPPED);
+    }
+}
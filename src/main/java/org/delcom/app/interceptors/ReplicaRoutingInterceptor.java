@@ -0,0 +1,58 @@
+package org.delcom.app.interceptors;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.delcom.app.configs.AuthContext;
+import org.delcom.app.configs.ReplicaRoutingContext;
+import org.delcom.app.entities.User;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+// Mengikat user request ke thread agar routing replica bisa menerapkan read-your-writes
+@Component
+public class ReplicaRoutingInterceptor implements AsyncHandlerInterceptor {
+    private final ReplicaRoutingContext routingContext;
+    private final AuthContext authContext;
+
+    public ReplicaRoutingInterceptor(ReplicaRoutingContext routingContext, AuthContext authContext) {
+        this.routingContext = routingContext;
+        this.authContext = authContext;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        User user = currentUser();
+        if (user != null) {
+            routingContext.bindUser(user.getId());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        routingContext.clear();
+    }
+
+    // Request async (StreamingResponseBody) tidak memanggil afterCompletion di thread ini;
+    // tanpa ini user lama tertinggal di thread pool untuk request anonim berikutnya
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        routingContext.clear();
+    }
+
+    // API memakai AuthContext (bearer token), halaman web memakai sesi Spring Security
+    private User currentUser() {
+        if (authContext.isAuthenticated()) {
+            return authContext.getAuthUser();
+        }
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof User user) {
+            return user;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,28 @@
+package org.delcom.app.repositories;
+
+import jakarta.persistence.QueryHint;
+import org.delcom.app.entities.Category;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CategoryRepository extends JpaRepository<Category, Integer> {
+    // Memakai unique index lower(name)
+    @Query("SELECT c FROM Category c WHERE lower(c.name) = lower(?1)")
+    Optional<Category> findByNameIgnoreCase(String name);
+
+    // Aman dipanggil bersamaan dari beberapa request; pemenang balapan yang tersimpan.
+    // Native spaces dibatasi ke tabel categories agar second-level cache lain tidak ikut dibuang
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "categories"))
+    @Query(value = "INSERT INTO categories (name) VALUES (:name) ON CONFLICT (lower(name)) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name);
+}
@@ -1,19 +1,205 @@
 package org.delcom.app.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.delcom.app.configs.CacheConfig;
+import org.delcom.app.dto.PhotoDetail;
+import org.delcom.app.dto.PhotoSummary;
+import org.delcom.app.dto.PortfolioStats;
 import org.delcom.app.entities.Photo;
+import org.delcom.app.utils.MoneyUtil;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+/**
+ * Tabel photos dipartisi per bulan pada created_at (V5). Query yang membatasi created_at
+ * (timeline, analitik, keyset galeri) hanya menyentuh partisi terkait. Lookup dan update
+ * berdasarkan id saja (findById, update versioned Hibernate, softDelete, restore,
+ * updateFilename) tidak ter-prune: Postgres memeriksa index PK tiap partisi, satu probe
+ * btree per bulan. Itu sengaja diterima karena pemanggilnya hanya membawa id, jumlah
+ * partisi tumbuh linear per bulan, findById kebanyakan dilayani L2 cache, dan menyisipkan
+ * created_at ke id entity berarti mengganti identitas Photo di seluruh aplikasi. Jalur
+ * yang memang sudah memegang created_at (PhotoPurgeService) menyertakannya di WHERE.
+ */
 @Repository
 public interface PhotoRepository extends JpaRepository<Photo, UUID> {
     // Menampilkan foto milik user tertentu
     List<Photo> findByUserIdOrderByCreatedAtDesc(UUID userId);
     
-    // Query untuk Chart: Menghitung jumlah foto per kategori milik user
-    @Query("SELECT p.category, COUNT(p) FROM Photo p WHERE p.userId = ?1 GROUP BY p.category")
+    // Query untuk Chart: Menghitung jumlah foto per kategori milik user.
+    // Dikelompokkan per category_id (integer); nama dipetakan lewat CategoryDictionary.
+    // Hasil disimpan di query cache dan otomatis basi saat tabel photos berubah
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheConfig.REGION_PHOTO_CATEGORY_COUNTS)
+    })
+    @Query("SELECT p.categoryId, COUNT(p) FROM Photo p WHERE p.userId = ?1 GROUP BY p.categoryId")
     List<Object[]> countPhotosByCategory(UUID userId);
-}
\ No newline at end of file
+
+    // Cursor server-side untuk export: baris dibaca bertahap sesuai fetch size,
+    // wajib dipanggil di dalam transaksi dan stream harus ditutup
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Photo p WHERE p.userId = ?1 ORDER BY p.createdAt")
+    Stream<Photo> streamByUserId(UUID userId);
+
+    // Soft delete milik user; bulk update ikut mengosongkan cache entity Photo sehingga findById tidak melihatnya lagi
+    @Modifying
+    @Query("UPDATE Photo p SET p.deletedAt = ?3, p.updatedAt = ?3, p.version = p.version + 1 "
+            + "WHERE p.id = ?1 AND p.userId = ?2 AND p.deletedAt IS NULL")
+    int softDelete(UUID id, UUID userId, LocalDateTime deletedAt);
+
+    // Operasi massal: satu UPDATE berbasis himpunan, dibatasi ke pemilik. Listener entity tidak jalan
+    // pada bulk update, jadi updated_at dan version diisi di query (version naik = edit lama ditolak)
+    @Modifying
+    @Query("UPDATE Photo p SET p.categoryId = ?3, p.updatedAt = ?4, p.version = p.version + 1 "
+            + "WHERE p.id IN ?1 AND p.userId = ?2 AND p.deletedAt IS NULL")
+    int bulkUpdateCategory(Collection<UUID> ids, UUID userId, int categoryId, LocalDateTime updatedAt);
+
+    // Harga dijaga antara nol dan MAX_MINOR (batas yang sama dengan edit satu foto)
+    @Modifying
+    @Query("UPDATE Photo p SET p.priceMinor = CASE WHEN p.priceMinor + ?3 < 0 THEN 0 "
+            + "WHEN p.priceMinor + ?3 > " + MoneyUtil.MAX_MINOR + "L THEN " + MoneyUtil.MAX_MINOR + "L "
+            + "ELSE p.priceMinor + ?3 END, "
+            + "p.updatedAt = ?4, p.version = p.version + 1 "
+            + "WHERE p.id IN ?1 AND p.userId = ?2 AND p.deletedAt IS NULL")
+    int bulkAdjustPrice(Collection<UUID> ids, UUID userId, long deltaMinor, LocalDateTime updatedAt);
+
+    // factor = 1 + persen/100; dibulatkan ke sen terdekat (HALF_UP, sama dengan MoneyUtil).
+    // Hasil dibatasi MAX_MINOR seperti edit satu foto, supaya kenaikan berulang tidak melewati bigint
+    @Modifying
+    @Query("UPDATE Photo p SET p.priceMinor = CASE WHEN round(p.priceMinor * ?3, 0) > " + MoneyUtil.MAX_MINOR + "L "
+            + "THEN " + MoneyUtil.MAX_MINOR + "L ELSE cast(round(p.priceMinor * ?3, 0) as Long) END, "
+            + "p.updatedAt = ?4, p.version = p.version + 1 "
+            + "WHERE p.id IN ?1 AND p.userId = ?2 AND p.deletedAt IS NULL")
+    int bulkScalePrice(Collection<UUID> ids, UUID userId, BigDecimal factor, LocalDateTime updatedAt);
+
+    @Modifying
+    @Query("UPDATE Photo p SET p.deletedAt = ?3, p.updatedAt = ?3, p.version = p.version + 1 "
+            + "WHERE p.id IN ?1 AND p.userId = ?2 AND p.deletedAt IS NULL")
+    int bulkSoftDelete(Collection<UUID> ids, UUID userId, LocalDateTime deletedAt);
+
+    // Batalkan hapus selama masih di jendela undo. Native karena JPQL tidak melihat baris yang sudah dihapus;
+    // native space "photos" membatasi invalidasi cache ke data foto saja
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "photos"))
+    @Query(value = "UPDATE photos SET deleted_at = NULL, updated_at = ?3, version = version + 1 "
+            + "WHERE id = ?1 AND user_id = ?2 AND deleted_at >= ?4", nativeQuery = true)
+    int restore(UUID id, UUID userId, LocalDateTime restoredAt, LocalDateTime deletedSince);
+
+    // Update filename tanpa memuat entity (dipakai import massal); version ikut dinaikkan
+    @Modifying
+    @Query("UPDATE Photo p SET p.filename = ?2, p.version = p.version + 1 WHERE p.id = ?1")
+    int updateFilename(UUID id, String filename);
+
+    // Galeri web: semua foto user sebagai proyeksi (tanpa description), tidak masuk persistence context
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new org.delcom.app.dto.PhotoSummary(p.id, p.title, p.categoryId, p.priceMinor, p.currency, p.filename, p.createdAt, p.updatedAt) "
+            + "FROM Photo p WHERE p.userId = ?1 ORDER BY p.createdAt DESC, p.id DESC")
+    List<PhotoSummary> findAllSummaries(UUID userId);
+
+    // Statistik dashboard dihitung di database; tidak ada baris foto yang dikirim ke aplikasi
+    @Query("SELECT new org.delcom.app.dto.PortfolioStats(COUNT(p), COUNT(DISTINCT p.categoryId), COALESCE(SUM(p.priceMinor), 0)) "
+            + "FROM Photo p WHERE p.userId = ?1")
+    PortfolioStats getPortfolioStats(UUID userId);
+
+    // Halaman pertama API: proyeksi langsung ke DTO, entity tidak di-hydrate
+    @Query("SELECT new org.delcom.app.dto.PhotoSummary(p.id, p.title, p.categoryId, p.priceMinor, p.currency, p.filename, p.createdAt, p.updatedAt) "
+            + "FROM Photo p WHERE p.userId = ?1 ORDER BY p.createdAt DESC, p.id DESC")
+    List<PhotoSummary> findSummaries(UUID userId, Limit limit);
+
+    // Halaman berikutnya: keyset (created_at, id) sehingga tidak ada OFFSET scan.
+    // Batas "createdAt <= ?2" yang eksplisit membuat partisi bulan setelah cursor dilewati (partition pruning)
+    @Query("SELECT new org.delcom.app.dto.PhotoSummary(p.id, p.title, p.categoryId, p.priceMinor, p.currency, p.filename, p.createdAt, p.updatedAt) "
+            + "FROM Photo p WHERE p.userId = ?1 AND p.createdAt <= ?2 AND (p.createdAt < ?2 OR (p.createdAt = ?2 AND p.id < ?3)) "
+            + "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PhotoSummary> findSummariesAfter(UUID userId, LocalDateTime createdAt, UUID id, Limit limit);
+
+    // Daftar per kategori: memakai index (user_id, category_id, created_at, id)
+    @Query("SELECT new org.delcom.app.dto.PhotoSummary(p.id, p.title, p.categoryId, p.priceMinor, p.currency, p.filename, p.createdAt, p.updatedAt) "
+            + "FROM Photo p WHERE p.userId = ?1 AND p.categoryId = ?2 ORDER BY p.createdAt DESC, p.id DESC")
+    List<PhotoSummary> findSummariesByCategory(UUID userId, int categoryId, Limit limit);
+
+    @Query("SELECT new org.delcom.app.dto.PhotoSummary(p.id, p.title, p.categoryId, p.priceMinor, p.currency, p.filename, p.createdAt, p.updatedAt) "
+            + "FROM Photo p WHERE p.userId = ?1 AND p.categoryId = ?2 "
+            + "AND p.createdAt <= ?3 AND (p.createdAt < ?3 OR (p.createdAt = ?3 AND p.id < ?4)) "
+            + "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PhotoSummary> findSummariesByCategoryAfter(UUID userId, int categoryId, LocalDateTime createdAt, UUID id,
+                                                    Limit limit);
+
+    @Query("SELECT new org.delcom.app.dto.PhotoDetail(p.id, p.title, p.categoryId, p.description, p.priceMinor, p.currency, p.filename, p.createdAt, p.updatedAt, p.version) "
+            + "FROM Photo p WHERE p.id = ?1 AND p.userId = ?2")
+    Optional<PhotoDetail> findDetail(UUID id, UUID userId);
+
+    // Feed sinkronisasi: cursor server-side atas proyeksi DTO, urut berdasarkan updatedAt
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new org.delcom.app.dto.PhotoDetail(p.id, p.title, p.categoryId, p.description, p.priceMinor, p.currency, p.filename, p.createdAt, p.updatedAt, p.version) "
+            + "FROM Photo p WHERE p.userId = ?1 AND p.updatedAt > ?2 ORDER BY p.updatedAt, p.id")
+    Stream<PhotoDetail> streamDetailsUpdatedAfter(UUID userId, LocalDateTime since);
+
+    // Foto yang dihapus setelah since: [id, deleted_at]. Native karena @SQLRestriction menyembunyikan
+    // baris soft delete dari JPQL; yang sudah di-purge diambil dari photo_tombstones
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT p.id, p.deleted_at FROM photos p WHERE p.user_id = :userId AND p.deleted_at > :since "
+            + "UNION ALL SELECT t.id, t.deleted_at FROM photo_tombstones t WHERE t.user_id = :userId AND t.deleted_at > :since "
+            + "ORDER BY 2, 1", nativeQuery = true)
+    Stream<Object[]> streamDeletedAfter(@Param("userId") UUID userId, @Param("since") LocalDateTime since);
+
+    // Deret waktu upload & nilai per periode (day/week/month) dengan kumulatif via window function.
+    // Filter created_at >= :from memangkas partisi di luar jendela daily/weekly; kumulatif di sini
+    // dimulai dari nol, total sebelum jendela ditambahkan dari totalsBefore.
+    // SUM(bigint) di PostgreSQL menghasilkan numeric, jadi di-cast kembali ke bigint
+    @Query(value = "SELECT b.bucket, b.uploads, b.value_minor, "
+            + "CAST(SUM(b.uploads) OVER (ORDER BY b.bucket) AS bigint) AS cumulative_uploads, "
+            + "CAST(SUM(b.value_minor) OVER (ORDER BY b.bucket) AS bigint) AS cumulative_value_minor "
+            + "FROM (SELECT date_trunc(:unit, p.created_at) AS bucket, COUNT(*) AS uploads, "
+            + "CAST(COALESCE(SUM(p.price_minor), 0) AS bigint) AS value_minor "
+            + "FROM photos p WHERE p.user_id = :userId AND p.created_at >= :from AND p.deleted_at IS NULL GROUP BY 1) b "
+            + "ORDER BY b.bucket", nativeQuery = true)
+    List<Object[]> aggregateByPeriod(@Param("userId") UUID userId, @Param("unit") String unit,
+                                     @Param("from") LocalDateTime from);
+
+    // Satu baris [jumlah foto, nilai] untuk foto yang dibuat sebelum from (awal jendela deret waktu)
+    @Query(value = "SELECT COUNT(*), CAST(COALESCE(SUM(p.price_minor), 0) AS bigint) FROM photos p "
+            + "WHERE p.user_id = :userId AND p.created_at < :from AND p.deleted_at IS NULL", nativeQuery = true)
+    List<Object[]> totalsBefore(@Param("userId") UUID userId, @Param("from") LocalDateTime from);
+
+    // Jumlah & nilai per kategori (category_id) beserta porsi (%) terhadap total nilai portofolio
+    @Query(value = "SELECT p.category_id, COUNT(*) AS photos, CAST(COALESCE(SUM(p.price_minor), 0) AS bigint) AS value_minor, "
+            + "COALESCE(100.0 * SUM(p.price_minor) / NULLIF(SUM(SUM(p.price_minor)) OVER (), 0), 0) AS value_share "
+            + "FROM photos p WHERE p.user_id = :userId AND p.deleted_at IS NULL GROUP BY p.category_id ORDER BY value_minor DESC",
+            nativeQuery = true)
+    List<Object[]> aggregateByCategory(@Param("userId") UUID userId);
+
+    // Total nilai portofolio dihitung di database sebagai bigint
+    @Query("SELECT COALESCE(SUM(p.priceMinor), 0) FROM Photo p WHERE p.userId = ?1")
+    long sumPriceMinor(UUID userId);
+
+    // Histogram harga dengan lebar batang tetap; memakai index (user_id, price_minor)
+    @Query(value = "SELECT (p.price_minor / :width) * :width AS bucket_start, COUNT(*) AS photos "
+            + "FROM photos p WHERE p.user_id = :userId AND p.deleted_at IS NULL GROUP BY 1 ORDER BY 1", nativeQuery = true)
+    List<Object[]> priceHistogram(@Param("userId") UUID userId, @Param("width") long widthMinor);
+
+    // Filter rentang harga (inklusif), urut harga lalu id sebagai keyset
+    @Query("SELECT new org.delcom.app.dto.PhotoSummary(p.id, p.title, p.categoryId, p.priceMinor, p.currency, p.filename, p.createdAt, p.updatedAt) "
+            + "FROM Photo p WHERE p.userId = ?1 AND p.priceMinor BETWEEN ?2 AND ?3 ORDER BY p.priceMinor, p.id")
+    List<PhotoSummary> findSummariesInPriceRange(UUID userId, long minMinor, long maxMinor, Limit limit);
+}
@@ -0,0 +1,25 @@
+package org.delcom.app.repositories;
+
+import jakarta.persistence.QueryHint;
+import org.delcom.app.entities.PortfolioVersion;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface PortfolioVersionRepository extends JpaRepository<PortfolioVersion, UUID> {
+    // Upsert atomik; baris user dibuat saat perubahan pertama.
+    // Native spaces dibatasi agar second-level cache photo/user tidak ikut dibuang
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "portfolio_versions"))
+    @Query(value = "INSERT INTO portfolio_versions (user_id, version, updated_at) VALUES (:userId, 1, now()) "
+            + "ON CONFLICT (user_id) DO UPDATE SET version = portfolio_versions.version + 1, updated_at = now()",
+            nativeQuery = true)
+    int bump(@Param("userId") UUID userId);
+}
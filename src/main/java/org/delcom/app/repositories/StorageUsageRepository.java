@@ -0,0 +1,32 @@
+package org.delcom.app.repositories;
+
+import jakarta.persistence.QueryHint;
+import org.delcom.app.entities.StorageUsage;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface StorageUsageRepository extends JpaRepository<StorageUsage, UUID> {
+    // Tambah delta secara atomik di database; flush tidak perlu membaca nilai lama lebih dulu
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "storage_usage"))
+    @Query(value = "INSERT INTO storage_usage (user_id, bytes, updated_at) VALUES (:userId, :delta, now()) "
+            + "ON CONFLICT (user_id) DO UPDATE SET bytes = storage_usage.bytes + :delta, updated_at = now()",
+            nativeQuery = true)
+    int addBytes(@Param("userId") UUID userId, @Param("delta") long delta);
+
+    // Tulis total mutlak (rekonsiliasi); dijalankan ulang atau dari node lain hasilnya tetap sama
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "storage_usage"))
+    @Query(value = "INSERT INTO storage_usage (user_id, bytes, updated_at) VALUES (:userId, :bytes, now()) "
+            + "ON CONFLICT (user_id) DO UPDATE SET bytes = :bytes, updated_at = now()",
+            nativeQuery = true)
+    int setBytes(@Param("userId") UUID userId, @Param("bytes") long bytes);
+}
@@ -2,6 +2,7 @@ package org.delcom.app.services;
 
 import java.util.UUID;
 
+import org.delcom.app.configs.ReplicaRoutingContext;
 import org.delcom.app.entities.AuthToken;
 import org.delcom.app.repositories.AuthTokenRepository;
 import org.springframework.stereotype.Service;
@@ -10,14 +11,17 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class AuthTokenService {
     private final AuthTokenRepository authTokenRepository;
+    private final ReplicaRoutingContext routingContext;
 
-    public AuthTokenService(AuthTokenRepository authTokenRepository) {
+    public AuthTokenService(AuthTokenRepository authTokenRepository, ReplicaRoutingContext routingContext) {
         this.authTokenRepository = authTokenRepository;
+        this.routingContext = routingContext;
     }
 
+    // Selalu ke primary: token yang baru dibuat saat login belum tentu sudah sampai di replica
     @Transactional(readOnly = true)
     public AuthToken findUserToken(UUID userId, String token) {
-        return authTokenRepository.findUserToken(userId, token);
+        return routingContext.onPrimary(() -> authTokenRepository.findUserToken(userId, token));
     }
 
     @Transactional
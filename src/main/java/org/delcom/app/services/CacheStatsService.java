@@ -0,0 +1,82 @@
+package org.delcom.app.services;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.persistence.EntityManagerFactory;
+import org.delcom.app.configs.CacheConfig;
+import org.delcom.app.dto.CacheRegionStats;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class CacheStatsService {
+    private static final List<String> ENTITY_REGIONS = List.of(CacheConfig.REGION_PHOTO, CacheConfig.REGION_USER);
+    private static final List<String> QUERY_REGIONS = List.of(CacheConfig.REGION_PHOTO_CATEGORY_COUNTS);
+    private static final List<String> APPLICATION_CACHES = List.of(CacheConfig.CACHE_PHOTO_ANALYTICS);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final CacheManager cacheManager;
+
+    public CacheStatsService(EntityManagerFactory entityManagerFactory, CacheManager cacheManager) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Hit/miss per region: entity cache & query cache Hibernate, serta cache
+     * Spring (Caffeine) milik aplikasi. Angka bersifat kumulatif sejak start.
+     */
+    public Map<String, List<CacheRegionStats>> getStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        List<CacheRegionStats> entities = new ArrayList<>();
+        for (String region : ENTITY_REGIONS) {
+            entities.add(toStats(region, statistics.getDomainDataRegionStatistics(region)));
+        }
+
+        List<CacheRegionStats> queries = new ArrayList<>();
+        for (String region : QUERY_REGIONS) {
+            queries.add(toStats(region, statistics.getQueryRegionStatistics(region)));
+        }
+
+        List<CacheRegionStats> application = new ArrayList<>();
+        for (String name : APPLICATION_CACHES) {
+            application.add(toStats(name, cacheManager.getCache(name)));
+        }
+
+        Map<String, List<CacheRegionStats>> result = new LinkedHashMap<>();
+        result.put("entity", entities);
+        result.put("query", queries);
+        result.put("application", application);
+        return result;
+    }
+
+    private CacheRegionStats toStats(String region, CacheRegionStatistics stats) {
+        // Region yang belum pernah disentuh bisa belum memiliki statistik
+        if (stats == null) {
+            return CacheRegionStats.of(region, 0, 0, 0, -1);
+        }
+        long size = stats.getElementCountInMemory();
+        return CacheRegionStats.of(region, stats.getHitCount(), stats.getMissCount(), stats.getPutCount(),
+                size < 0 ? -1 : size);
+    }
+
+    private CacheRegionStats toStats(String name, Cache cache) {
+        // Native cache Spring untuk CaffeineCacheManager adalah Cache milik Caffeine
+        if (cache == null
+                || !(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine)) {
+            return CacheRegionStats.of(name, 0, 0, 0, -1);
+        }
+        CacheStats stats = caffeine.stats();
+        return CacheRegionStats.of(name, stats.hitCount(), stats.missCount(), stats.loadCount(),
+                caffeine.estimatedSize());
+    }
+}
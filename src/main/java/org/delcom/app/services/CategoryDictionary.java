@@ -0,0 +1,101 @@
+package org.delcom.app.services;
+
+import org.delcom.app.entities.Category;
+import org.delcom.app.repositories.CategoryRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Kamus id <-> nama kategori untuk seluruh proses. Nama di-intern sehingga
+ * ribuan Photo dengan kategori sama berbagi satu instance String.
+ */
+@Service
+public class CategoryDictionary {
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate requiresNew;
+
+    private final Map<Integer, String> namesById = new ConcurrentHashMap<>();
+    private final Map<String, Integer> idsByKey = new ConcurrentHashMap<>();
+
+    public CategoryDictionary(CategoryRepository categoryRepository, PlatformTransactionManager transactionManager) {
+        this.categoryRepository = categoryRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Tabel kategori kecil, jadi dimuat penuh sekali saat aplikasi siap
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        for (Category category : categoryRepository.findAll()) {
+            register(category);
+        }
+    }
+
+    public String nameOf(int id) {
+        String name = namesById.get(id);
+        if (name == null) {
+            Category category = categoryRepository.findById(id).orElse(null);
+            if (category == null) {
+                return null;
+            }
+            name = register(category);
+        }
+        return name;
+    }
+
+    // Id kategori yang sudah ada tanpa membuat baru; null jika nama belum dikenal
+    public Integer findId(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        String normalized = name.trim();
+        Integer id = idsByKey.get(key(normalized));
+        if (id == null) {
+            Category category = categoryRepository.findByNameIgnoreCase(normalized).orElse(null);
+            if (category == null) {
+                return null;
+            }
+            register(category);
+            id = category.getId();
+        }
+        return id;
+    }
+
+    /**
+     * Id untuk nama kategori, dibuat jika belum ada. Insert berjalan di transaksi
+     * terpisah supaya id yang sudah masuk kamus tetap valid walau transaksi
+     * pemanggil di-rollback.
+     */
+    public int idFor(String name) {
+        Integer id = findId(name);
+        if (id != null) {
+            return id;
+        }
+        String normalized = name.trim();
+        Category category = requiresNew.execute(status -> {
+            categoryRepository.insertIfAbsent(normalized);
+            return categoryRepository.findByNameIgnoreCase(normalized).orElseThrow();
+        });
+        register(category);
+        return category.getId();
+    }
+
+    private String register(Category category) {
+        String name = category.getName().intern();
+        namesById.put(category.getId(), name);
+        idsByKey.put(key(name), category.getId());
+        return name;
+    }
+
+    private String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,58 +1,204 @@
 package org.delcom.app.services;
 
+import org.delcom.app.dto.ImageInfo;
+import org.delcom.app.dto.StorageObject;
+import org.delcom.app.utils.ImageSniffer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
+// Validasi dan penyimpanan gambar upload; lokasi fisiknya ditentukan StorageBackend (folder lokal atau S3)
 @Service
 public class FileStorageService {
-    @Value("${app.upload.dir:./uploads}")
-    protected String uploadDir;
+    // Ukuran awal buffer stream upload; cukup untuk header kebanyakan gambar
+    public static final int HEADER_BYTES = 64 * 1024;
+    // Batas header yang boleh dilewati untuk mencari dimensi: segmen APP JPEG (EXIF, ICC,
+    // XMP, thumbnail Photoshop) bisa jauh melebihi 64 KB. Buffer hanya tumbuh sebesar
+    // header yang benar-benar dibaca
+    public static final int MAX_HEADER_BYTES = 4 * 1024 * 1024;
 
-    public String storeFile(MultipartFile file, UUID todoId) throws IOException {
-        // Buat directory jika belum ada
-        Path uploadPath = Paths.get(uploadDir);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
+    // Tipe yang dikirim browser tanpa tahu isi file; selain ini harus cocok dengan hasil sniffing
+    private static final Set<String> GENERIC_TYPES = Set.of("", "application/octet-stream");
+
+    // Jumlah lock (pangkat dua); foto berbeda hampir selalu jatuh ke lock berbeda
+    static final int LOCK_STRIPES = 64;
+    // Nama yang boleh dilayani publik: satu segmen tanpa awalan titik (bukan file sementara atau karantina)
+    private static final Pattern SERVABLE_NAME = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]*");
+
+    // Penulisan ke foto yang sama diserialkan lewat lock per stripe, bukan satu lock global
+    private final ReentrantLock[] writeLocks = new ReentrantLock[LOCK_STRIPES];
+
+    {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            writeLocks[i] = new ReentrantLock();
         }
+    }
+
+    @Value("${app.upload.max-dimension:12000}")
+    protected int maxDimension = 12000;
+
+    // Batas piksel mencegah decompression bomb: file kecil yang meledak saat di-decode
+    @Value("${app.upload.max-pixels:50000000}")
+    protected long maxPixels = 50_000_000L;
 
-        // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
-        String fileExtension = "";
-        if (originalFilename != null && originalFilename.contains(".")) {
-            fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
+    private final StorageBackend backend;
+
+    public FileStorageService(StorageBackend backend) {
+        this.backend = backend;
+    }
+
+    public static boolean isServableName(String name) {
+        return name != null && SERVABLE_NAME.matcher(name).matches();
+    }
+
+    public String storeFile(MultipartFile file, UUID todoId) throws IOException {
+        try (InputStream inputStream = file.getInputStream()) {
+            BufferedInputStream in = new BufferedInputStream(inputStream, HEADER_BYTES);
+            ImageInfo image = inspect(in);
+            checkDeclaredType(file.getContentType(), image);
+            return store(in, image, todoId, file.getSize());
         }
+    }
 
-        String filename = "cover_" + todoId.toString() + fileExtension;
+    /**
+     * Simpan isi stream apa adanya; stream tidak ditutup agar bisa dipakai untuk entry ZIP.
+     * Header divalidasi sebelum file dibuat, dan ekstensi diambil dari format hasil
+     * sniffing, bukan dari nama file kiriman client.
+     */
+    public String storeStream(InputStream inputStream, UUID todoId) throws IOException {
+        BufferedInputStream in = inputStream instanceof BufferedInputStream buffered
+                ? buffered : new BufferedInputStream(inputStream, HEADER_BYTES);
+        return store(in, inspect(in), todoId, -1);
+    }
 
-        // Simpan file
-        Path filePath = uploadPath.resolve(filename);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+    // Backend mengganti isi lama secara atomik; lock per foto mencegah dua penulis bersamaan untuk foto yang sama
+    private String store(BufferedInputStream in, ImageInfo image, UUID todoId, long length) throws IOException {
+        // Nama unik per foto; ekstensi mengikuti format asli file
+        String filename = "cover_" + todoId.toString() + image.extension();
 
+        ReentrantLock lock = lockFor(todoId);
+        lock.lock();
+        try {
+            backend.put(filename, in, length, image.contentType());
+        } finally {
+            lock.unlock();
+        }
         return filename;
     }
 
+    ReentrantLock lockFor(UUID photoId) {
+        int hash = photoId.hashCode();
+        return writeLocks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    // Validasi upload tanpa menyimpan: dipanggil controller sebelum menyentuh database atau file lama
+    public ImageInfo inspect(MultipartFile file) throws IOException {
+        try (InputStream inputStream = file.getInputStream()) {
+            ImageInfo image = inspect(new BufferedInputStream(inputStream, HEADER_BYTES));
+            checkDeclaredType(file.getContentType(), image);
+            return image;
+        }
+    }
+
+    // Hanya membaca header (paling banyak MAX_HEADER_BYTES); posisi stream dikembalikan ke awal
+    public ImageInfo inspect(BufferedInputStream in) throws IOException {
+        in.mark(MAX_HEADER_BYTES);
+        ImageInfo image;
+        try {
+            image = ImageSniffer.sniff(in, MAX_HEADER_BYTES);
+        } finally {
+            in.reset();
+        }
+
+        if (image == null) {
+            throw new InvalidImageException("File bukan gambar JPEG, PNG, GIF, atau WebP");
+        }
+        if (image.width() <= 0 || image.height() <= 0) {
+            throw new InvalidImageException("Dimensi gambar tidak dapat dibaca");
+        }
+        if (image.width() > maxDimension || image.height() > maxDimension
+                || (long) image.width() * image.height() > maxPixels) {
+            throw new InvalidImageException("Dimensi gambar terlalu besar (" + image.width() + "x" + image.height() + ")");
+        }
+        return image;
+    }
+
     public boolean deleteFile(String filename) {
         try {
-            Path filePath = Paths.get(uploadDir).resolve(filename);
-            return Files.deleteIfExists(filePath);
+            return backend.delete(filename);
         } catch (IOException e) {
             return false;
         }
     }
 
-    public Path loadFile(String filename) {
-        return Paths.get(uploadDir).resolve(filename);
+    // Metadata file; null jika tidak ada
+    public StorageObject stat(String filename) throws IOException {
+        return backend.stat(filename);
+    }
+
+    // Isi file (pemanggil menutup stream); null jika tidak ada
+    public InputStream openFile(String filename) throws IOException {
+        return backend.get(filename);
+    }
+
+    // Potongan isi file untuk permintaan Range; length -1 = sampai akhir
+    public InputStream openFile(String filename, long offset, long length) throws IOException {
+        return backend.get(filename, offset, length);
+    }
+
+    // Hanya untuk file yang dikirim ke pengguna; pembacaan internal tidak membuat file terlihat populer
+    public void recordAccess(String filename) {
+        backend.recordAccess(filename);
+    }
+
+    public boolean moveFile(String filename, String targetName) throws IOException {
+        return backend.move(filename, targetName);
+    }
+
+    public void listFiles(String prefix, Consumer<StorageObject> consumer) throws IOException {
+        backend.list(prefix, consumer);
     }
 
     public boolean fileExists(String filename) {
-        return Files.exists(loadFile(filename));
+        try {
+            return backend.stat(filename) != null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Ukuran file upload dalam byte; 0 jika nama kosong atau file tidak ada
+    public long fileSize(String filename) {
+        if (filename == null) {
+            return 0L;
+        }
+        try {
+            StorageObject object = backend.stat(filename);
+            return object == null ? 0L : object.size();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private void checkDeclaredType(String declaredType, ImageInfo image) {
+        String declared = declaredType == null ? "" : declaredType.trim().toLowerCase(Locale.ROOT);
+        if (GENERIC_TYPES.contains(declared)) {
+            return;
+        }
+        boolean matches = declared.equals(image.contentType())
+                || (ImageSniffer.JPEG.equals(image.format()) && (declared.equals("image/jpg") || declared.equals("image/pjpeg")));
+        if (!matches) {
+            throw new InvalidImageException("Tipe file (" + declared + ") tidak sesuai dengan isinya (" + image.contentType() + ")");
+        }
     }
 }
@@ -0,0 +1,82 @@
+package org.delcom.app.services;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Perkiraan frekuensi akses per key (count-min sketch, 4 baris). Memori tetap
+ * (4 x width counter) berapa pun jumlah file. Setelah 10 x width kenaikan,
+ * semua counter dibagi dua supaya yang dihitung adalah akses yang terus
+ * berlangsung, bukan lonjakan lama.
+ */
+class FrequencySketch {
+    private static final int DEPTH = 4;
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    private final AtomicIntegerArray table;
+    private final int width;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+
+    FrequencySketch(int width) {
+        // Dibulatkan ke pangkat dua agar indeks cukup dengan mask
+        this.width = Integer.highestOneBit(Math.max(16, width) - 1) << 1;
+        this.table = new AtomicIntegerArray(DEPTH * this.width);
+        this.sampleSize = 10 * this.width;
+    }
+
+    /**
+     * Conservative update: hanya counter yang sama dengan minimum yang dinaikkan,
+     * sehingga key lain yang kebetulan berbagi counter tidak ikut membengkak.
+     */
+    void increment(String key) {
+        int hash = spread(key.hashCode());
+        int[] indexes = new int[DEPTH];
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            indexes[row] = indexOf(hash, row);
+            min = Math.min(min, table.get(indexes[row]));
+        }
+        for (int index : indexes) {
+            int current = table.get(index);
+            if (current == min && current < Integer.MAX_VALUE) {
+                table.compareAndSet(index, current, current + 1);
+            }
+        }
+        if (additions.incrementAndGet() >= sampleSize) {
+            reset();
+        }
+    }
+
+    int estimate(String key) {
+        int hash = spread(key.hashCode());
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, table.get(indexOf(hash, row)));
+        }
+        return min;
+    }
+
+    // Penuaan: kenaikan yang berjalan bersamaan boleh hilang, hasilnya memang perkiraan
+    private synchronized void reset() {
+        if (additions.get() < sampleSize) {
+            return;
+        }
+        for (int i = 0; i < table.length(); i++) {
+            table.set(i, table.get(i) >>> 1);
+        }
+        additions.set(additions.get() / 2);
+    }
+
+    private int indexOf(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return row * width + ((int) h & (width - 1));
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
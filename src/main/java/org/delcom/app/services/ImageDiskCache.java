@@ -0,0 +1,135 @@
+package org.delcom.app.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Cache varian gambar di disk dengan batas total byte. Urutan akses disimpan
+ * di LinkedHashMap (access-order) sehingga eviction selalu membuang varian
+ * yang paling lama tidak dipakai. Saat start, isi folder dimuat ulang dengan
+ * urutan waktu ubah file.
+ */
+class ImageDiskCache {
+    private static final Logger log = LoggerFactory.getLogger(ImageDiskCache.class);
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long maxBytes;
+
+    // Nama file -> ukuran; dijaga oleh lock objek ini
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    ImageDiskCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        load();
+    }
+
+    byte[] get(String key) {
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                return null;
+            }
+        }
+        try {
+            return Files.readAllBytes(directory.resolve(key));
+        } catch (NoSuchFileException e) {
+            // Terhapus oleh eviction di antara lookup dan baca
+            return null;
+        } catch (IOException e) {
+            log.warn("Gagal membaca cache gambar {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    void put(String key, byte[] data) {
+        if (data.length > maxBytes) {
+            return;
+        }
+        try {
+            // Tulis ke file sementara lalu rename, supaya pembaca tidak pernah melihat file setengah jadi
+            Path temp = Files.createTempFile(directory, key, TEMP_SUFFIX);
+            Files.write(temp, data);
+            Files.move(temp, directory.resolve(key), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Gagal menyimpan cache gambar {}: {}", key, e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            Long previous = entries.put(key, (long) data.length);
+            totalBytes += data.length - (previous == null ? 0 : previous);
+            evictOverBudget();
+        }
+    }
+
+    synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    private void evictOverBudget() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue();
+            try {
+                Files.deleteIfExists(directory.resolve(eldest.getKey()));
+            } catch (IOException e) {
+                log.warn("Gagal menghapus cache gambar {}: {}", eldest.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private void load() {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(Files::isRegularFile)
+                        .sorted(Comparator.comparingLong(this::lastModified))
+                        .forEach(this::register);
+            }
+            synchronized (this) {
+                evictOverBudget();
+            }
+        } catch (IOException e) {
+            log.warn("Gagal memuat cache gambar di {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private synchronized void register(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            if (name.endsWith(TEMP_SUFFIX)) {
+                // Sisa penulisan yang terputus
+                Files.deleteIfExists(file);
+                return;
+            }
+            long size = Files.size(file);
+            entries.put(name, size);
+            totalBytes += size;
+        } catch (IOException e) {
+            log.warn("Gagal membaca cache gambar {}: {}", name, e.getMessage());
+        }
+    }
+
+    private long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+}
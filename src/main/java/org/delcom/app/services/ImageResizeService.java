@@ -0,0 +1,303 @@
+package org.delcom.app.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.delcom.app.dto.ResizedImage;
+import org.delcom.app.dto.StorageObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resize gambar upload sesuai permintaan (lebar/tinggi dari allow-list).
+ * Hasil disimpan di dua tingkat: memori untuk output kecil, disk dengan
+ * batas byte untuk sisanya. Miss bersamaan untuk varian yang sama hanya
+ * menjalankan satu resize; pemanggil lain menunggu hasil yang sama.
+ * Jumlah decode yang berjalan bersamaan dibatasi, dan gambar asli di-decode
+ * dengan subsampling sehingga raster resolusi penuh tidak pernah dibuat.
+ */
+@Service
+public class ImageResizeService {
+    public enum Fit { CONTAIN, COVER }
+
+    private static final Set<String> PNG_SOURCES = Set.of("png", "gif");
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final FileStorageService fileStorageService;
+    private final Set<Integer> allowedWidths;
+    private final Set<Integer> allowedHeights;
+    private final long memoryMaxEntryBytes;
+    private final Cache<String, ResizedImage> memoryCache;
+    private final ImageDiskCache diskCache;
+    // Varian berbeda tetap butuh decode sendiri; tanpa batas, burst kecil bisa menghabiskan heap
+    private final Semaphore resizePermits;
+    private final long acquireTimeoutMillis;
+
+    private final ConcurrentHashMap<String, CompletableFuture<ResizedImage>> inFlight = new ConcurrentHashMap<>();
+
+    public ImageResizeService(FileStorageService fileStorageService,
+                              @Value("${app.images.widths:160,320,480,640,960,1280,1920}") List<Integer> widths,
+                              @Value("${app.images.heights:160,320,480,640,960,1280,1920}") List<Integer> heights,
+                              @Value("${app.images.cache.dir:./cache/images}") String cacheDir,
+                              @Value("${app.images.cache.disk-max-bytes:536870912}") long diskMaxBytes,
+                              @Value("${app.images.cache.memory-max-bytes:33554432}") long memoryMaxBytes,
+                              @Value("${app.images.cache.memory-max-entry-bytes:262144}") long memoryMaxEntryBytes,
+                              @Value("${app.images.resize.max-concurrent:2}") int maxConcurrentResizes,
+                              @Value("${app.images.resize.acquire-timeout:PT2S}") Duration acquireTimeout) {
+        this.fileStorageService = fileStorageService;
+        this.allowedWidths = Set.copyOf(widths);
+        this.allowedHeights = Set.copyOf(heights);
+        this.memoryMaxEntryBytes = memoryMaxEntryBytes;
+        this.memoryCache = Caffeine.newBuilder()
+                .maximumWeight(memoryMaxBytes)
+                .weigher((String key, ResizedImage image) -> image.data().length)
+                .build();
+        this.diskCache = new ImageDiskCache(Paths.get(cacheDir), diskMaxBytes);
+        this.resizePermits = new Semaphore(Math.max(1, maxConcurrentResizes), true);
+        this.acquireTimeoutMillis = acquireTimeout.toMillis();
+    }
+
+    public static Fit parseFit(String value) {
+        for (Fit fit : Fit.values()) {
+            if (fit.name().equalsIgnoreCase(value == null ? "" : value.trim())) {
+                return fit;
+            }
+        }
+        throw new IllegalArgumentException("Mode fit tidak dikenal: " + value);
+    }
+
+    /**
+     * Varian gambar name dengan lebar width dan (opsional) tinggi height.
+     * Mengembalikan null jika file asli tidak ada; IllegalArgumentException
+     * untuk ukuran di luar allow-list atau format yang tidak bisa dibaca, dan
+     * RejectedExecutionException jika slot resize tetap penuh sampai acquire-timeout.
+     */
+    public ResizedImage getVariant(String name, int width, Integer height, Fit fit) throws IOException {
+        if (!FileStorageService.isServableName(name)) {
+            throw new IllegalArgumentException("Nama file tidak valid");
+        }
+        if (!allowedWidths.contains(width) || (height != null && !allowedHeights.contains(height))) {
+            throw new IllegalArgumentException("Ukuran gambar tidak diizinkan");
+        }
+
+        StorageObject source = fileStorageService.stat(name);
+        if (source == null) {
+            return null;
+        }
+        // Waktu ubah file asli ikut jadi kunci: gambar yang diganti dengan nama sama menghasilkan varian baru
+        long version = source.lastModified().toEpochMilli();
+        boolean png = PNG_SOURCES.contains(extension(name));
+        String key = stripExtension(name) + "-" + width + "x" + (height == null ? 0 : height) + "-"
+                + fit.name().toLowerCase(Locale.ROOT) + "-" + version + (png ? ".png" : ".jpg");
+
+        ResizedImage cached = memoryCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<ResizedImage> mine = new CompletableFuture<>();
+        CompletableFuture<ResizedImage> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            ResizedImage image = load(key, name, width, height, fit, png);
+            mine.complete(image);
+            return image;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private ResizedImage load(String key, String source, int width, Integer height, Fit fit, boolean png)
+            throws IOException {
+        String contentType = png ? "image/png" : "image/jpeg";
+        byte[] data = diskCache.get(key);
+        if (data == null) {
+            acquirePermit();
+            try {
+                data = resize(source, width, height, fit, png);
+            } finally {
+                resizePermits.release();
+            }
+            diskCache.put(key, data);
+        }
+        ResizedImage image = new ResizedImage(data, contentType, "\"" + key + "\"");
+        if (data.length <= memoryMaxEntryBytes) {
+            memoryCache.put(key, image);
+        }
+        return image;
+    }
+
+    private void acquirePermit() throws IOException {
+        try {
+            if (!resizePermits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("Terlalu banyak resize gambar berjalan, coba lagi");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Menunggu slot resize dibatalkan");
+        }
+    }
+
+    private byte[] resize(String source, int width, Integer height, Fit fit, boolean png) throws IOException {
+        try (InputStream in = fileStorageService.openFile(source)) {
+            if (in == null) {
+                // Terhapus setelah stat
+                throw new NoSuchFileException(source);
+            }
+            return resize(in, width, height, fit, png);
+        }
+    }
+
+    private byte[] resize(InputStream in, int width, Integer height, Fit fit, boolean png) throws IOException {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = stream == null ? null : ImageIO.getImageReaders(stream);
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException("Format gambar tidak didukung untuk resize");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                return resize(reader, width, height, fit, png);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private byte[] resize(ImageReader reader, int width, Integer height, Fit fit, boolean png) throws IOException {
+        int sourceWidth = reader.getWidth(0);
+        int sourceHeight = reader.getHeight(0);
+
+        // Tidak pernah memperbesar; tanpa tinggi, rasio asli dipertahankan
+        double scale;
+        if (height == null) {
+            scale = Math.min(1.0, (double) width / sourceWidth);
+        } else if (fit == Fit.COVER) {
+            scale = Math.min(1.0, Math.max((double) width / sourceWidth, (double) height / sourceHeight));
+        } else {
+            scale = Math.min(1.0, Math.min((double) width / sourceWidth, (double) height / sourceHeight));
+        }
+        int scaledWidth = Math.max(1, (int) Math.round(sourceWidth * scale));
+        int scaledHeight = Math.max(1, (int) Math.round(sourceHeight * scale));
+
+        // Decoder hanya membaca setiap piksel ke-n: hasilnya masih >= 2x ukuran target,
+        // sisanya diperhalus scale() sehingga kualitas tetap sama dengan decode penuh
+        int step = Math.max(1, (int) (1 / (scale * 2)));
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(step, step, 0, 0);
+        BufferedImage decoded = reader.read(0, param);
+        BufferedImage scaled = scale(decoded, scaledWidth, scaledHeight, png);
+
+        if (height != null && fit == Fit.COVER) {
+            // Potong bagian tengah sesuai kotak yang diminta
+            int cropWidth = Math.min(width, scaledWidth);
+            int cropHeight = Math.min(height, scaledHeight);
+            scaled = scaled.getSubimage((scaledWidth - cropWidth) / 2, (scaledHeight - cropHeight) / 2,
+                    cropWidth, cropHeight);
+        }
+        return png ? encodePng(scaled) : encodeJpeg(scaled);
+    }
+
+    // Diperkecil bertahap (maksimal setengah per langkah) agar hasil tidak bergerigi pada rasio besar
+    private BufferedImage scale(BufferedImage image, int targetWidth, int targetHeight, boolean alpha) {
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = image;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+        do {
+            currentWidth = Math.max(targetWidth, currentWidth / 2);
+            currentHeight = Math.max(targetHeight, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (currentWidth != targetWidth || currentHeight != targetHeight);
+        return current;
+    }
+
+    private byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private ResizedImage await(CompletableFuture<ResizedImage> running) throws IOException {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new UncheckedIOException(new IOException(cause));
+        }
+    }
+
+    private String extension(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private String stripExtension(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+}
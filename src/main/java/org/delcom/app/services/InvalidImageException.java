@@ -0,0 +1,8 @@
+package org.delcom.app.services;
+
+// Upload ditolak karena isinya bukan gambar yang didukung atau dimensinya di luar batas
+public class InvalidImageException extends IllegalArgumentException {
+    public InvalidImageException(String message) {
+        super(message);
+    }
+}
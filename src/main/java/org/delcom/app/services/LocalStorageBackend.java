@@ -0,0 +1,246 @@
+package org.delcom.app.services;
+
+import org.delcom.app.dto.StorageObject;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Storage di folder lokal (app.upload.dir); cocok untuk satu node atau folder bersama
+public class LocalStorageBackend implements StorageBackend {
+    static final String TEMP_SUFFIX = ".tmp";
+
+    // Atribut file dibaca paralel per potongan ini saat listing
+    private static final int LIST_CHUNK = 1024;
+
+    private final Path root;
+
+    public LocalStorageBackend(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Tulis ke file sementara di folder yang sama, fsync, lalu rename atomik ke
+     * nama tujuan. Crash di tengah penulisan hanya menyisakan file .tmp
+     * (dibersihkan job file yatim).
+     */
+    @Override
+    public void put(String key, InputStream data, long length, String contentType) throws IOException {
+        Path target = resolve(key);
+        Path directory = target.getParent();
+        Files.createDirectories(directory);
+        Path temp = directory.resolve("." + target.getFileName() + "." + UUID.randomUUID() + TEMP_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                OutputStream out = Channels.newOutputStream(channel);
+                data.transferTo(out);
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        syncDirectory(directory);
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        try {
+            channel.position(offset);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        InputStream in = Channels.newInputStream(channel);
+        return length < 0 ? in : new LimitedInputStream(in, length);
+    }
+
+    @Override
+    public StorageObject stat(String key) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(resolve(key), BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+            return new StorageObject(key, attributes.size(), attributes.lastModifiedTime().toInstant());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public boolean move(String fromKey, String toKey) throws IOException {
+        Path source = resolve(fromKey);
+        if (!Files.isRegularFile(source)) {
+            return false;
+        }
+        Path target = resolve(toKey);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        // Samakan dengan CopyObject di S3: objek tujuan dianggap baru
+        Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+        return true;
+    }
+
+    // Dipakai saat file dipindah antar tier: waktu ubah asli (versi/ETag) dipertahankan
+    void setLastModified(String key, Instant time) throws IOException {
+        Files.setLastModifiedTime(resolve(key), FileTime.from(time));
+    }
+
+    /**
+     * Folder ditelusuri berurutan, tapi atribut (ukuran, waktu ubah) dibaca
+     * paralel per potongan karena stat per file adalah bagian termahal pada folder besar.
+     */
+    @Override
+    public void list(String prefix, Consumer<StorageObject> consumer) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(root)) {
+            Iterator<Path> paths = walk.iterator();
+            List<Path> chunk = new ArrayList<>(LIST_CHUNK);
+            while (paths.hasNext()) {
+                Path path = paths.next();
+                if (keyOf(path).startsWith(prefix)) {
+                    chunk.add(path);
+                }
+                if (chunk.size() == LIST_CHUNK || !paths.hasNext()) {
+                    chunk.parallelStream().map(this::statPath).filter(Objects::nonNull).toList().forEach(consumer);
+                    chunk.clear();
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private StorageObject statPath(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+            return new StorageObject(keyOf(path), attributes.size(), attributes.lastModifiedTime().toInstant());
+        } catch (IOException e) {
+            // Terhapus di tengah penelusuran
+            return null;
+        }
+    }
+
+    // Key memakai '/' di semua OS agar sama dengan bentuk yang disimpan di photos.filename
+    private String keyOf(Path path) {
+        return root.relativize(path).toString().replace('\\', '/');
+    }
+
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (key.isEmpty() || !path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("Key storage tidak valid: " + key);
+        }
+        return path;
+    }
+
+    // Rename baru tahan crash setelah entry folder ikut di-fsync; tidak didukung di semua OS
+    private void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Windows tidak bisa membuka folder sebagai channel; rename tetap atomik
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LocalStorageBackend[" + root + "]";
+    }
+
+    // Membatasi pembacaan ke panjang range yang diminta
+    private static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+    }
+}
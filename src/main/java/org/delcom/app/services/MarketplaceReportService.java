@@ -0,0 +1,249 @@
+package org.delcom.app.services;
+
+import org.delcom.app.dto.CategoryPopularity;
+import org.delcom.app.dto.MarketplaceReport;
+import org.delcom.app.dto.PricePercentiles;
+import org.delcom.app.dto.UploadRate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Laporan marketplace (popularitas kategori, persentil harga, laju upload)
+ * yang dihitung dari snapshot kolumnar di memori, bukan dari tabel photos.
+ * Snapshot dibangun ulang berkala lewat satu scan read-only (diarahkan ke
+ * replica jika aktif) dengan jumlah baris dibatasi max-rows.
+ */
+@Service
+public class MarketplaceReportService {
+    private static final Logger log = LoggerFactory.getLogger(MarketplaceReportService.class);
+
+    public static final int MAX_DAYS = 366;
+
+    // Ukuran potongan baris per tugas paralel; cukup besar agar overhead fork/join kecil
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int FETCH_SIZE = 10_000;
+    private static final String SNAPSHOT_SQL =
+            "SELECT p.user_id, p.category_id, p.price_minor, p.currency, p.created_at FROM photos p WHERE p.deleted_at IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnly;
+    private final CategoryDictionary categoryDictionary;
+    private final int maxRows;
+
+    // Hanya satu build berjalan; snapshot lama tetap dibaca selama build
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile PhotoSnapshot snapshot;
+
+    public MarketplaceReportService(JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    CategoryDictionary categoryDictionary,
+                                    @Value("${app.reports.snapshot.max-rows:2000000}") int maxRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.categoryDictionary = categoryDictionary;
+        this.maxRows = maxRows;
+    }
+
+    @Scheduled(fixedDelayString = "${app.reports.snapshot.refresh-interval:PT15M}",
+            initialDelayString = "${app.reports.snapshot.initial-delay:PT1M}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            // Snapshot lama tetap dipakai sampai refresh berikutnya berhasil
+            log.error("Gagal membangun snapshot laporan: {}", e.getMessage());
+        }
+    }
+
+    // Dilewati jika refresh lain sedang berjalan; pembaca tetap memakai snapshot lama
+    public void refresh() {
+        if (!refreshLock.tryLock()) {
+            return;
+        }
+        try {
+            rebuild();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    // Laporan untuk jendela upload `days` hari terakhir (termasuk hari ini)
+    public MarketplaceReport getReport(int days) {
+        PhotoSnapshot current = snapshot;
+        if (current == null) {
+            // Belum ada snapshot (baru start): tunggu build pertama, jangan memulai build kedua
+            refreshLock.lock();
+            try {
+                if (snapshot == null) {
+                    rebuild();
+                }
+                current = snapshot;
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+        int window = Math.max(1, Math.min(days, MAX_DAYS));
+        List<UploadRate> uploads = uploadRates(current, LocalDate.now(), window);
+        long totalUploads = uploads.stream().mapToLong(UploadRate::uploads).sum();
+
+        return new MarketplaceReport(current.builtAt, current.buildMillis, current.truncated,
+                current.size, current.userCount,
+                categoryPopularity(current), pricePercentiles(current), uploads,
+                (double) totalUploads / window);
+    }
+
+    // Dipanggil dengan refreshLock dipegang
+    private void rebuild() {
+        long start = System.nanoTime();
+        PhotoSnapshot.Builder builder = new PhotoSnapshot.Builder(snapshot == null ? 0 : snapshot.size);
+        boolean[] truncated = {false};
+        readOnly.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SNAPSHOT_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // Satu baris ekstra untuk mendeteksi pemotongan; fetch size membuat driver men-stream hasil
+            statement.setMaxRows(maxRows + 1);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, (ResultSet rs) -> {
+            if (builder.size() < maxRows) {
+                builder.add(rs.getObject(1, UUID.class), rs.getInt(2), rs.getLong(3), rs.getString(4),
+                        rs.getObject(5, LocalDateTime.class).toLocalDate());
+            } else {
+                truncated[0] = true;
+            }
+        }));
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        PhotoSnapshot built = builder.build(LocalDateTime.now(), millis, truncated[0]);
+        snapshot = built;
+        log.info("Snapshot laporan dibangun: {} foto, {} penjual, {} ms{}", built.size, built.userCount, millis,
+                truncated[0] ? " (dipotong di max-rows)" : "");
+    }
+
+    private List<CategoryPopularity> categoryPopularity(PhotoSnapshot s) {
+        long[] counts = reduceChunks(s, () -> new long[s.maxCategoryId + 1], (acc, from, to) -> {
+            for (int i = from; i < to; i++) {
+                acc[s.categoryId[i]]++;
+            }
+        }, MarketplaceReportService::sum);
+
+        List<CategoryPopularity> result = new ArrayList<>();
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] > 0) {
+                result.add(new CategoryPopularity(categoryDictionary.nameOf(id), counts[id],
+                        100.0 * counts[id] / s.size));
+            }
+        }
+        result.sort(Comparator.comparingLong(CategoryPopularity::photos).reversed());
+        return result;
+    }
+
+    // Harga antar mata uang tidak sebanding, jadi persentil dihitung per mata uang
+    private List<PricePercentiles> pricePercentiles(PhotoSnapshot s) {
+        List<PricePercentiles> result = new ArrayList<>(s.currencies.length);
+        for (int c = 0; c < s.currencies.length; c++) {
+            byte currency = (byte) c;
+            long[] prices = IntStream.range(0, s.size).parallel()
+                    .filter(i -> s.currencyIndex[i] == currency)
+                    .mapToLong(i -> s.priceMinor[i])
+                    .toArray();
+            if (prices.length == 0) {
+                continue;
+            }
+            Arrays.parallelSort(prices);
+            result.add(new PricePercentiles(s.currencies[c], prices.length, prices[0],
+                    percentile(prices, 50), percentile(prices, 90), percentile(prices, 99),
+                    prices[prices.length - 1]));
+        }
+        return result;
+    }
+
+    private List<UploadRate> uploadRates(PhotoSnapshot s, LocalDate today, int days) {
+        int lastDay = (int) today.toEpochDay();
+        int firstDay = lastDay - days + 1;
+
+        long[] uploads = reduceChunks(s, () -> new long[days], (acc, from, to) -> {
+            for (int i = from; i < to; i++) {
+                int day = s.createdEpochDay[i];
+                if (day >= firstDay && day <= lastDay) {
+                    acc[day - firstDay]++;
+                }
+            }
+        }, MarketplaceReportService::sum);
+
+        // Penjual unik per hari: pasangan (hari, user) dikodekan ke satu long, diurutkan, lalu dihitung sekali jalan
+        long[] pairs = IntStream.range(0, s.size).parallel()
+                .filter(i -> s.createdEpochDay[i] >= firstDay && s.createdEpochDay[i] <= lastDay)
+                .mapToLong(i -> ((long) (s.createdEpochDay[i] - firstDay) << 32) | s.userIndex[i])
+                .toArray();
+        Arrays.parallelSort(pairs);
+        long[] sellers = new long[days];
+        for (int i = 0; i < pairs.length; i++) {
+            if (i == 0 || pairs[i] != pairs[i - 1]) {
+                sellers[(int) (pairs[i] >>> 32)]++;
+            }
+        }
+
+        List<UploadRate> result = new ArrayList<>(days);
+        for (int d = 0; d < days; d++) {
+            result.add(new UploadRate(LocalDate.ofEpochDay(firstDay + d), uploads[d], sellers[d]));
+        }
+        return result;
+    }
+
+    // Nearest-rank pada array yang sudah terurut
+    private long percentile(long[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * Agregasi paralel per potongan baris: setiap potongan mengisi akumulatornya
+     * sendiri (tanpa sinkronisasi), lalu hasilnya digabung berpasangan.
+     */
+    private <A> A reduceChunks(PhotoSnapshot s, Supplier<A> supplier, ChunkAccumulator<A> accumulator,
+                               BinaryOperator<A> combiner) {
+        int chunks = (s.size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        return IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> {
+                    A acc = supplier.get();
+                    accumulator.accept(acc, chunk * CHUNK_SIZE, Math.min(s.size, (chunk + 1) * CHUNK_SIZE));
+                    return acc;
+                })
+                .reduce(combiner)
+                .orElseGet(supplier);
+    }
+
+    private static long[] sum(long[] left, long[] right) {
+        for (int i = 0; i < left.length; i++) {
+            left[i] += right[i];
+        }
+        return left;
+    }
+
+    @FunctionalInterface
+    private interface ChunkAccumulator<A> {
+        void accept(A acc, int from, int to);
+    }
+}
@@ -0,0 +1,227 @@
+package org.delcom.app.services;
+
+import org.delcom.app.dto.OrphanReport;
+import org.delcom.app.dto.StorageObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Membersihkan file di storage upload yang tidak dirujuk photos.filename
+ * (sisa upload yang gagal di tengah jalan, gambar lama dengan ekstensi lain, dst).
+ * Hanya file yang lebih tua dari grace period yang disentuh, supaya upload yang
+ * sedang berjalan (file sudah ditulis, filename belum disimpan) tidak ikut terhapus.
+ */
+@Service
+public class OrphanFileService {
+    private static final Logger log = LoggerFactory.getLogger(OrphanFileService.class);
+
+    public enum Action { QUARANTINE, DELETE }
+
+    private static final String FILENAME_PREFIX = "cover_";
+
+    private final FileStorageService fileStorageService;
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration gracePeriod;
+    private final Action action;
+    private final String quarantinePrefix;
+    private final Duration quarantineRetention;
+    private final int batchSize;
+
+    private final ReentrantLock runLock = new ReentrantLock();
+    private volatile OrphanReport lastReport;
+
+    public OrphanFileService(FileStorageService fileStorageService,
+                             JdbcTemplate jdbcTemplate,
+                             @Value("${app.upload.orphans.grace-period:PT24H}") Duration gracePeriod,
+                             @Value("${app.upload.orphans.action:QUARANTINE}") Action action,
+                             @Value("${app.upload.orphans.quarantine-prefix:.quarantine/}") String quarantinePrefix,
+                             @Value("${app.upload.orphans.quarantine-retention:P7D}") Duration quarantineRetention,
+                             @Value("${app.upload.orphans.batch-size:1000}") int batchSize) {
+        this.fileStorageService = fileStorageService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.gracePeriod = gracePeriod;
+        this.action = action;
+        this.quarantinePrefix = quarantinePrefix;
+        this.quarantineRetention = quarantineRetention;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public OrphanReport getLastReport() {
+        return lastReport;
+    }
+
+    @Scheduled(cron = "${app.upload.orphans.cron:0 0 5 * * *}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.error("Gagal membersihkan file upload yatim: {}", e.getMessage());
+        }
+    }
+
+    // Mengembalikan null jika putaran lain sedang berjalan
+    public OrphanReport reconcile() {
+        if (!runLock.tryLock()) {
+            return null;
+        }
+        try {
+            OrphanReport report = run();
+            lastReport = report;
+            return report;
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    private OrphanReport run() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        Instant cutoff = Instant.now().minus(gracePeriod);
+
+        Sweep sweep = new Sweep();
+        List<Candidate> batch = new ArrayList<>(batchSize);
+        try {
+            // Kandidat diproses per batch selama penelusuran, tidak dikumpulkan dulu semuanya
+            fileStorageService.listFiles("", object -> {
+                if (object.key().startsWith(quarantinePrefix)) {
+                    return;
+                }
+                sweep.scanned++;
+                if (object.lastModified().isBefore(cutoff)) {
+                    batch.add(new Candidate(object.key(), object.size(), object.lastModified()));
+                    if (batch.size() == batchSize) {
+                        process(batch, sweep);
+                        batch.clear();
+                    }
+                }
+            });
+            if (!batch.isEmpty()) {
+                process(batch, sweep);
+            }
+        } catch (IOException e) {
+            log.error("Gagal membaca storage upload: {}", e.getMessage());
+        }
+
+        long[] purged = action == Action.QUARANTINE ? purgeQuarantine() : new long[2];
+
+        OrphanReport report = new OrphanReport(startedAt, (System.nanoTime() - start) / 1_000_000, action.name(),
+                sweep.scanned, sweep.orphans, sweep.reclaimed, purged[0], purged[1], sweep.failed);
+        log.info("Pembersihan upload: {} file dipindai, {} yatim, {} byte dibebaskan ({}), {} gagal",
+                sweep.scanned, sweep.orphans, sweep.reclaimed, action, sweep.failed);
+        return report;
+    }
+
+    private void process(List<Candidate> batch, Sweep sweep) {
+        Set<String> referenced = referencedNames(batch);
+        for (Candidate candidate : batch) {
+            if (referenced.contains(candidate.key())) {
+                continue;
+            }
+            sweep.orphans++;
+            try {
+                if (dispose(candidate)) {
+                    sweep.reclaimed += candidate.size();
+                }
+            } catch (IOException e) {
+                sweep.failed++;
+                log.warn("File yatim {} gagal diproses: {}", candidate.key(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Nama file upload selalu cover_<id foto>.<ekstensi>, jadi yang dicari cukup id foto
+     * (kolom depan primary key, tanpa perlu index filename di tabel berpartisi) lalu
+     * filename-nya dicocokkan. Nama yang tidak berpola itu tidak mungkin dirujuk.
+     * Foto yang dihapus tapi belum di-purge tetap dianggap merujuk file, supaya undo masih punya gambar
+     */
+    private Set<String> referencedNames(List<Candidate> batch) {
+        Object[] ids = batch.stream().map(candidate -> photoIdOf(candidate.key()))
+                .filter(Objects::nonNull).distinct().toArray();
+        if (ids.length == 0) {
+            return Set.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.length, "?"));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT p.filename FROM photos p WHERE p.id IN (" + placeholders + ")", String.class, ids));
+    }
+
+    static UUID photoIdOf(String key) {
+        if (!key.startsWith(FILENAME_PREFIX)) {
+            return null;
+        }
+        int dot = key.indexOf('.', FILENAME_PREFIX.length());
+        String id = key.substring(FILENAME_PREFIX.length(), dot < 0 ? key.length() : dot);
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private boolean dispose(Candidate candidate) throws IOException {
+        // Ditulis ulang sejak dipindai (misalnya gambar diganti dengan nama sama): biarkan
+        StorageObject current = fileStorageService.stat(candidate.key());
+        if (current == null || !current.lastModified().equals(candidate.lastModified())) {
+            return false;
+        }
+        if (action == Action.DELETE) {
+            return fileStorageService.deleteFile(candidate.key());
+        }
+        // Masa simpan karantina dihitung sejak dipindahkan (move memperbarui waktu ubah)
+        return fileStorageService.moveFile(candidate.key(), quarantinePrefix + candidate.key());
+    }
+
+    // File karantina yang melewati masa simpan dihapus permanen; {jumlah file, byte}
+    private long[] purgeQuarantine() {
+        long[] purged = new long[2];
+        Instant cutoff = Instant.now().minus(quarantineRetention);
+        List<StorageObject> expired = new ArrayList<>();
+        try {
+            fileStorageService.listFiles(quarantinePrefix, object -> {
+                if (object.lastModified().isBefore(cutoff)) {
+                    expired.add(object);
+                }
+            });
+        } catch (IOException e) {
+            log.error("Gagal membaca karantina {}: {}", quarantinePrefix, e.getMessage());
+            return purged;
+        }
+        for (StorageObject object : expired) {
+            if (fileStorageService.deleteFile(object.key())) {
+                purged[0]++;
+                purged[1] += object.size();
+            } else {
+                log.warn("File karantina {} gagal dihapus", object.key());
+            }
+        }
+        return purged;
+    }
+
+    private record Candidate(String key, long size, Instant lastModified) {
+    }
+
+    private static final class Sweep {
+        long scanned;
+        long orphans;
+        long reclaimed;
+        long failed;
+    }
+}
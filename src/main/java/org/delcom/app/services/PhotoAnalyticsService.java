@@ -0,0 +1,98 @@
+package org.delcom.app.services;
+
+import org.delcom.app.configs.CacheConfig;
+import org.delcom.app.dto.CategoryStat;
+import org.delcom.app.dto.PortfolioAnalytics;
+import org.delcom.app.dto.TimeBucket;
+import org.delcom.app.repositories.PhotoRepository;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+public class PhotoAnalyticsService {
+    // Rentang per granularitas supaya jumlah titik tetap kecil walau riwayat bertahun-tahun
+    public static final int DAILY_WINDOW_DAYS = 90;
+    public static final int WEEKLY_WINDOW_WEEKS = 104;
+    public static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final PhotoRepository photoRepository;
+    private final CategoryDictionary categoryDictionary;
+
+    public PhotoAnalyticsService(PhotoRepository photoRepository, CategoryDictionary categoryDictionary) {
+        this.photoRepository = photoRepository;
+        this.categoryDictionary = categoryDictionary;
+    }
+
+    @Cacheable(cacheNames = CacheConfig.CACHE_PHOTO_ANALYTICS, key = "#userId")
+    @Transactional(readOnly = true)
+    public PortfolioAnalytics getAnalytics(UUID userId) {
+        LocalDate today = LocalDate.now();
+
+        List<TimeBucket> daily = series(userId, "day", today.minusDays(DAILY_WINDOW_DAYS - 1).atStartOfDay());
+        // Diawali hari Senin seperti date_trunc('week'), supaya minggu pertama tidak terpotong
+        List<TimeBucket> weekly = series(userId, "week",
+                today.with(DayOfWeek.MONDAY).minusWeeks(WEEKLY_WINDOW_WEEKS - 1).atStartOfDay());
+        List<TimeBucket> monthly = toBuckets(photoRepository.aggregateByPeriod(userId, "month", BEGINNING), 0, 0);
+
+        List<CategoryStat> categories = new ArrayList<>();
+        for (Object[] row : photoRepository.aggregateByCategory(userId)) {
+            categories.add(new CategoryStat(categoryDictionary.nameOf(((Number) row[0]).intValue()), toLong(row[1]), toLong(row[2]), toDouble(row[3])));
+        }
+
+        return new PortfolioAnalytics(daily, weekly, monthly, categories);
+    }
+
+    // Dipanggil oleh PhotoService setiap kali portofolio user berubah
+    @CacheEvict(cacheNames = CacheConfig.CACHE_PHOTO_ANALYTICS, key = "#userId")
+    public void evict(UUID userId) {
+    }
+
+    // Kumulatif dalam jendela ditambah total foto yang lebih tua, jadi nilainya tetap nilai portofolio sebenarnya
+    private List<TimeBucket> series(UUID userId, String unit, LocalDateTime from) {
+        List<Object[]> rows = photoRepository.aggregateByPeriod(userId, unit, from);
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        List<Object[]> before = photoRepository.totalsBefore(userId, from);
+        Object[] totals = before.isEmpty() ? new Object[2] : before.get(0);
+        return toBuckets(rows, toLong(totals[0]), toLong(totals[1]));
+    }
+
+    private List<TimeBucket> toBuckets(List<Object[]> rows, long uploadsBefore, long valueBefore) {
+        List<TimeBucket> buckets = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            buckets.add(new TimeBucket(toLocalDate(row[0]), toLong(row[1]), toLong(row[2]),
+                    uploadsBefore + toLong(row[3]), valueBefore + toLong(row[4])));
+        }
+        return buckets;
+    }
+
+    private LocalDate toLocalDate(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toLocalDate();
+        }
+        if (value instanceof OffsetDateTime offsetDateTime) {
+            return offsetDateTime.toLocalDate();
+        }
+        return ((LocalDateTime) value).toLocalDate();
+    }
+
+    private long toLong(Object value) {
+        return value == null ? 0L : ((Number) value).longValue();
+    }
+
+    private double toDouble(Object value) {
+        return value == null ? 0.0 : ((Number) value).doubleValue();
+    }
+}
@@ -0,0 +1,119 @@
+package org.delcom.app.services;
+
+import org.delcom.app.dto.PhotoDetail;
+import org.delcom.app.repositories.PhotoRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+@Service
+public class PhotoFeedService {
+    // Batas bawah default saat client belum pernah sinkronisasi
+    public static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final int FLUSH_INTERVAL = 200;
+
+    private final PhotoRepository photoRepository;
+    private final JsonMapper jsonMapper;
+    private final CategoryDictionary categoryDictionary;
+
+    public PhotoFeedService(PhotoRepository photoRepository, JsonMapper jsonMapper,
+                            CategoryDictionary categoryDictionary) {
+        this.photoRepository = photoRepository;
+        this.jsonMapper = jsonMapper;
+        this.categoryDictionary = categoryDictionary;
+    }
+
+    /**
+     * Tulis metadata foto sebagai NDJSON (satu objek JSON per baris) langsung dari cursor,
+     * diikuti tombstone {"id", "deletedAt"} untuk foto yang dihapus setelah since.
+     * Baris pertama di-flush segera supaya time-to-first-byte tidak bergantung jumlah data.
+     *
+     * @return jumlah record (termasuk tombstone) yang ditulis
+     */
+    @Transactional(readOnly = true)
+    public long writeNdjson(UUID userId, LocalDateTime since, OutputStream outputStream) {
+        LocalDateTime lowerBound = since == null ? BEGINNING : since;
+        long count = 0;
+
+        try (JsonGenerator generator = jsonMapper.writer()
+                .withRootValueSeparator("\n")
+                .without(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .createGenerator(outputStream);
+             Stream<PhotoDetail> photos = photoRepository.streamDetailsUpdatedAfter(userId, lowerBound)) {
+
+            Iterator<PhotoDetail> iterator = photos.iterator();
+            while (iterator.hasNext()) {
+                writeRecord(generator, iterator.next());
+                count = flushPeriodically(generator, count + 1);
+            }
+            try (Stream<Object[]> deleted = photoRepository.streamDeletedAfter(userId, lowerBound)) {
+                Iterator<Object[]> tombstones = deleted.iterator();
+                while (tombstones.hasNext()) {
+                    writeTombstone(generator, tombstones.next());
+                    count = flushPeriodically(generator, count + 1);
+                }
+            }
+            if (count > 0) {
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+        }
+        return count;
+    }
+
+    private long flushPeriodically(JsonGenerator generator, long count) {
+        if (count == 1 || count % FLUSH_INTERVAL == 0) {
+            generator.flush();
+        }
+        return count;
+    }
+
+    // Client menghapus foto dengan id ini; deletedAt dipakai sebagai since berikutnya seperti updatedAt
+    private void writeTombstone(JsonGenerator generator, Object[] row) {
+        generator.writeStartObject();
+        generator.writeStringProperty("id", row[0].toString());
+        generator.writeStringProperty("deletedAt", toText(toLocalDateTime(row[1])));
+        generator.writeEndObject();
+    }
+
+    private void writeRecord(JsonGenerator generator, PhotoDetail photo) {
+        generator.writeStartObject();
+        generator.writeStringProperty("id", photo.id().toString());
+        generator.writeStringProperty("title", photo.title());
+        generator.writeNumberProperty("categoryId", photo.categoryId());
+        generator.writeStringProperty("category", categoryDictionary.nameOf(photo.categoryId()));
+        generator.writeStringProperty("description", photo.description());
+        generator.writeNumberProperty("price", photo.price());
+        generator.writeStringProperty("currency", photo.currency());
+        generator.writeStringProperty("filename", photo.filename());
+        generator.writeStringProperty("createdAt", toText(photo.createdAt()));
+        generator.writeStringProperty("updatedAt", toText(photo.updatedAt()));
+        generator.writeNumberProperty("version", photo.version());
+        generator.writeEndObject();
+    }
+
+    private LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        if (value instanceof OffsetDateTime offsetDateTime) {
+            return offsetDateTime.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+
+    private String toText(LocalDateTime value) {
+        return value == null ? null : value.toString();
+    }
+}
@@ -0,0 +1,99 @@
+package org.delcom.app.services;
+
+import org.delcom.app.entities.Photo;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ganti gambar foto: baca filename lama, tulis file baru, simpan filename, lalu hapus file
+ * lama. Seluruh urutan memegang lock per foto yang sama dengan FileStorageService, jadi dua
+ * penggantian bersamaan (form web, API, upload bertahap) tidak saling menghapus file yang
+ * baru ditulis atau menghitung ukuran gambar lama yang sudah tertimpa.
+ */
+@Service
+public class PhotoImageService {
+
+    // Penulis file baru; mengembalikan nama file yang tersimpan
+    @FunctionalInterface
+    public interface ImageWriter {
+        String store(UUID photoId) throws IOException;
+    }
+
+    private final PhotoService photoService;
+    private final FileStorageService fileStorageService;
+    private final StorageQuotaService storageQuotaService;
+
+    public PhotoImageService(PhotoService photoService, FileStorageService fileStorageService,
+                             StorageQuotaService storageQuotaService) {
+        this.photoService = photoService;
+        this.fileStorageService = fileStorageService;
+        this.storageQuotaService = storageQuotaService;
+    }
+
+    /**
+     * Ganti gambar foto milik user dengan file sebesar size bytes. null jika foto tidak ada
+     * atau milik user lain. expectedVersion (boleh null) dicek sebelum file disentuh.
+     * Pemakaian kuota bertambah sebesar selisih terhadap gambar lama, yang ukurannya tidak
+     * berubah selama lock dipegang; reserved = bagian yang sudah dipesan pemanggil
+     * (upload bertahap), tetap menjadi tanggungan pemanggil jika penggantian gagal.
+     *
+     * @throws QuotaExceededException kuota tidak cukup; tidak ada yang ditulis
+     * @throws ObjectOptimisticLockingFailureException version tidak cocok; tidak ada yang ditulis
+     */
+    public Photo replaceImage(UUID photoId, UUID userId, Long expectedVersion, long size, long reserved,
+                              ImageWriter writer) throws IOException {
+        ReentrantLock lock = fileStorageService.lockFor(photoId);
+        lock.lock();
+        try {
+            Photo photo = photoService.getPhotoById(photoId);
+            if (photo == null || !photo.getUserId().equals(userId)) {
+                return null;
+            }
+            if (expectedVersion != null && photo.getVersion() != expectedVersion) {
+                throw new ObjectOptimisticLockingFailureException(Photo.class, photoId);
+            }
+
+            String oldFilename = photo.getFilename();
+            long replaced = fileStorageService.fileSize(oldFilename);
+            long pending = size - replaced - reserved;
+            if (!storageQuotaService.tryReserve(userId, pending)) {
+                throw new QuotaExceededException("Kuota penyimpanan tidak cukup (" + storageQuotaService.getQuotaBytes() + " bytes)");
+            }
+
+            String filename;
+            try {
+                filename = writer.store(photoId);
+            } catch (IOException | RuntimeException e) {
+                storageQuotaService.release(userId, pending);
+                throw e;
+            }
+            Photo updated = null;
+            try {
+                updated = photoService.updatePhotoFile(photoId, filename);
+            } finally {
+                // Filename tidak tersimpan (gagal, atau foto baru saja dihapus): file baru dengan nama lain jadi yatim
+                if (updated == null) {
+                    storageQuotaService.release(userId, pending);
+                    if (!filename.equals(oldFilename)) {
+                        fileStorageService.deleteFile(filename);
+                    }
+                }
+            }
+            if (updated == null) {
+                return null;
+            }
+            storageQuotaService.confirm(userId, pending);
+            // File lama dihapus setelah yang baru tersimpan; nama yang sama berarti sudah tertimpa
+            if (oldFilename != null && !oldFilename.equals(filename)) {
+                fileStorageService.deleteFile(oldFilename);
+            }
+            return updated;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
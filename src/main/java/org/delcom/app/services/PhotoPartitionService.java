@@ -0,0 +1,61 @@
+package org.delcom.app.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Menyiapkan partisi bulanan tabel photos beberapa bulan ke depan supaya insert
+ * tidak pernah jatuh ke partisi default. Pembuatan partisi dilakukan fungsi
+ * database create_photos_partition (lihat V5__partition_photos.sql).
+ */
+@Service
+public class PhotoPartitionService {
+    private static final Logger log = LoggerFactory.getLogger(PhotoPartitionService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+
+    public PhotoPartitionService(JdbcTemplate jdbcTemplate,
+                                 @Value("${app.photos.partitions.months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        ensureFuturePartitions();
+    }
+
+    @Scheduled(cron = "${app.photos.partitions.cron:0 15 3 * * *}")
+    public void scheduledMaintenance() {
+        ensureFuturePartitions();
+    }
+
+    // Idempoten: partisi yang sudah ada dilewati oleh fungsi database
+    public List<String> ensureFuturePartitions() {
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        List<String> partitions = new ArrayList<>(monthsAhead + 1);
+        try {
+            for (int i = 0; i <= monthsAhead; i++) {
+                partitions.add(jdbcTemplate.queryForObject("SELECT create_photos_partition(?)",
+                        String.class, Date.valueOf(month.plusMonths(i))));
+            }
+            log.debug("Partisi photos tersedia: {}", partitions);
+        } catch (RuntimeException e) {
+            // Job dicoba lagi pada jadwal berikutnya; insert tetap aman lewat partisi default
+            log.error("Gagal menyiapkan partisi photos: {}", e.getMessage());
+        }
+        return partitions;
+    }
+}
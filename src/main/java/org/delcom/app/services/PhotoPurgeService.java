@@ -0,0 +1,128 @@
+package org.delcom.app.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Menghapus permanen foto yang sudah di-soft delete lebih lama dari jendela undo:
+ * baris dihapus per batch (dengan kunci partisi created_at), lalu file dan kuotanya.
+ * Request hapus sendiri hanya menandai deleted_at, jadi tidak pernah menunggu unlink file.
+ */
+@Service
+public class PhotoPurgeService {
+    private static final Logger log = LoggerFactory.getLogger(PhotoPurgeService.class);
+
+    private static final String SELECT_SQL = "SELECT p.id, p.user_id, p.filename, p.created_at FROM photos p "
+            + "WHERE p.deleted_at IS NOT NULL AND p.deleted_at < ? ORDER BY p.deleted_at LIMIT ?";
+    // Kondisi deleted_at diulang: foto yang dikembalikan di antara SELECT dan DELETE tidak ikut terhapus.
+    // Tombstone ditulis dalam statement yang sama supaya feed sinkronisasi tetap melihat penghapusannya
+    private static final String DELETE_SQL = "WITH gone AS ("
+            + "DELETE FROM photos WHERE id = ? AND created_at = ? AND deleted_at IS NOT NULL AND deleted_at < ? "
+            + "RETURNING id, user_id, deleted_at) "
+            + "INSERT INTO photo_tombstones (id, user_id, deleted_at) SELECT id, user_id, deleted_at FROM gone "
+            + "ON CONFLICT (id) DO UPDATE SET deleted_at = EXCLUDED.deleted_at";
+    private static final String EXPIRE_TOMBSTONES_SQL = "DELETE FROM photo_tombstones WHERE deleted_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StorageQuotaService storageQuotaService;
+    private final Duration undoWindow;
+    private final int batchSize;
+    private final Duration tombstoneRetention;
+
+    public PhotoPurgeService(JdbcTemplate jdbcTemplate,
+                             StorageQuotaService storageQuotaService,
+                             @Value("${app.photos.delete.undo-window:PT5M}") Duration undoWindow,
+                             @Value("${app.photos.purge.batch-size:200}") int batchSize,
+                             @Value("${app.photos.tombstone-retention:P90D}") Duration tombstoneRetention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.storageQuotaService = storageQuotaService;
+        this.undoWindow = undoWindow;
+        this.batchSize = Math.max(1, batchSize);
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    @Scheduled(fixedDelayString = "${app.photos.purge.interval:PT1M}")
+    public void scheduledPurge() {
+        try {
+            purge();
+        } catch (RuntimeException e) {
+            log.error("Gagal membersihkan foto yang dihapus: {}", e.getMessage());
+        }
+    }
+
+    // Jumlah foto yang dihapus permanen
+    public int purge() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(undoWindow);
+        int purged = 0;
+        List<Trashed> batch;
+        do {
+            batch = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> new Trashed(
+                    rs.getObject(1, UUID.class),
+                    rs.getObject(2, UUID.class),
+                    rs.getString(3),
+                    rs.getObject(4, LocalDateTime.class)), cutoff, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            purged += purgeBatch(batch, cutoff);
+        } while (batch.size() == batchSize);
+
+        // Client yang tidak sinkron lebih lama dari retensi harus sinkron ulang dari awal
+        int expired = jdbcTemplate.update(EXPIRE_TOMBSTONES_SQL, LocalDateTime.now().minus(tombstoneRetention));
+
+        if (purged > 0 || expired > 0) {
+            log.info("Purge foto: {} foto dihapus permanen, {} tombstone kedaluwarsa", purged, expired);
+        }
+        return purged;
+    }
+
+    /**
+     * Baris dihapus dulu; file hanya dihapus untuk baris yang benar-benar terhapus.
+     * Jika proses berhenti di tengah, yang tersisa hanyalah file tanpa baris,
+     * yang nanti dibersihkan OrphanFileService.
+     */
+    private int purgeBatch(List<Trashed> batch, LocalDateTime cutoff) {
+        int[] counts = jdbcTemplate.batchUpdate(DELETE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Trashed photo = batch.get(i);
+                ps.setObject(1, photo.id());
+                ps.setObject(2, photo.createdAt());
+                ps.setObject(3, cutoff);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+
+        int purged = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] <= 0) {
+                continue;
+            }
+            purged++;
+            Trashed photo = batch.get(i);
+            if (photo.filename() != null) {
+                storageQuotaService.deleteFile(photo.userId(), photo.filename());
+            }
+        }
+        return purged;
+    }
+
+    private record Trashed(UUID id, UUID userId, String filename, LocalDateTime createdAt) {
+    }
+}
@@ -1,62 +1,332 @@
 package org.delcom.app.services;
 
+import org.delcom.app.dto.BulkEditRequest;
+import org.delcom.app.dto.PhotoCursor;
+import org.delcom.app.dto.PhotoDetail;
+import org.delcom.app.dto.PhotoPage;
+import org.delcom.app.dto.PhotoSummary;
+import org.delcom.app.dto.PortfolioAnalytics;
+import org.delcom.app.dto.PortfolioStats;
+import org.delcom.app.dto.PriceBucket;
 import org.delcom.app.entities.Photo;
+import org.delcom.app.entities.PortfolioVersion;
 import org.delcom.app.repositories.PhotoRepository;
+import org.delcom.app.repositories.PortfolioVersionRepository;
+import org.delcom.app.utils.MoneyUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.UnaryOperator;
 
 @Service
 public class PhotoService {
+    // Batas penyesuaian harga persen pada edit massal (-100% = gratis)
+    private static final BigDecimal MIN_PERCENT = BigDecimal.valueOf(-100);
+    private static final BigDecimal MAX_PERCENT = BigDecimal.valueOf(1000);
+
     private final PhotoRepository photoRepository;
+    private final PhotoAnalyticsService photoAnalyticsService;
+    private final CategoryDictionary categoryDictionary;
+    private final PortfolioVersionRepository portfolioVersionRepository;
+
+    // Foto yang dihapus masih bisa dikembalikan selama jendela ini (sama dengan yang dipakai PhotoPurgeService)
+    @Value("${app.photos.delete.undo-window:PT5M}")
+    protected Duration undoWindow = Duration.ofMinutes(5);
 
-    public PhotoService(PhotoRepository photoRepository) {
+    public PhotoService(PhotoRepository photoRepository, PhotoAnalyticsService photoAnalyticsService,
+                        CategoryDictionary categoryDictionary, PortfolioVersionRepository portfolioVersionRepository) {
         this.photoRepository = photoRepository;
+        this.photoAnalyticsService = photoAnalyticsService;
+        this.categoryDictionary = categoryDictionary;
+        this.portfolioVersionRepository = portfolioVersionRepository;
     }
 
+    @Transactional(readOnly = true)
     public List<Photo> getAllPhotos(UUID userId) {
         return photoRepository.findByUserIdOrderByCreatedAtDesc(userId);
     }
 
+    // Daftar galeri tanpa entity: hanya kolom yang ditampilkan kartu
+    @Transactional(readOnly = true)
+    public List<PhotoSummary> getPhotoSummaries(UUID userId) {
+        return withCategoryNames(photoRepository.findAllSummaries(userId));
+    }
+
+    @Transactional(readOnly = true)
+    public PortfolioStats getPortfolioStats(UUID userId) {
+        PortfolioStats stats = photoRepository.getPortfolioStats(userId);
+        return stats == null ? PortfolioStats.EMPTY : stats;
+    }
+
+    @Transactional(readOnly = true)
     public Photo getPhotoById(UUID id) {
         return photoRepository.findById(id).orElse(null);
     }
 
+    public PhotoPage getPhotoPage(UUID userId, String cursor, int limit) {
+        return getPhotoPage(userId, null, cursor, limit);
+    }
+
+    // Ambil satu baris lebih banyak dari limit untuk mengetahui ada halaman berikutnya.
+    // Filter kategori di-resolve ke id dulu, jadi query memakai perbandingan integer
+    @Transactional(readOnly = true)
+    public PhotoPage getPhotoPage(UUID userId, String category, String cursor, int limit) {
+        Integer categoryId = null;
+        if (category != null && !category.isBlank()) {
+            categoryId = categoryDictionary.findId(category);
+            if (categoryId == null) {
+                return new PhotoPage(List.of(), null);
+            }
+        }
+
+        PhotoCursor position = cursor == null || cursor.isBlank() ? null : PhotoCursor.decode(cursor);
+        List<PhotoSummary> rows;
+        if (categoryId == null) {
+            rows = position == null
+                    ? photoRepository.findSummaries(userId, Limit.of(limit + 1))
+                    : photoRepository.findSummariesAfter(userId, position.createdAt(), position.id(), Limit.of(limit + 1));
+        } else {
+            rows = position == null
+                    ? photoRepository.findSummariesByCategory(userId, categoryId, Limit.of(limit + 1))
+                    : photoRepository.findSummariesByCategoryAfter(userId, categoryId, position.createdAt(),
+                            position.id(), Limit.of(limit + 1));
+        }
+        rows = withCategoryNames(rows);
+
+        if (rows.size() <= limit) {
+            return new PhotoPage(rows, null);
+        }
+        List<PhotoSummary> items = rows.subList(0, limit);
+        return new PhotoPage(items, PhotoCursor.of(items.get(limit - 1)).encode());
+    }
+
+    @Transactional(readOnly = true)
+    public PhotoDetail getPhotoDetail(UUID id, UUID userId) {
+        return photoRepository.findDetail(id, userId)
+                .map(detail -> detail.withCategory(categoryDictionary.nameOf(detail.categoryId())))
+                .orElse(null);
+    }
+
     @Transactional
     public Photo createPhoto(Photo photo) {
-        return photoRepository.save(photo);
+        resolveCategory(photo, photo.getCategory());
+        Photo saved = photoRepository.save(photo);
+        markPortfolioChanged(saved.getUserId());
+        return saved;
     }
 
     @Transactional
     public Photo updatePhotoData(UUID id, String title, String category, String desc, java.math.BigDecimal price) {
+        return updatePhotoData(id, null, title, category, desc, price);
+    }
+
+    /**
+     * Update metadata dengan optimistic locking. expectedVersion = version yang dilihat client
+     * (null = tanpa pengecekan). Perubahan bersamaan dari tab/client lain menghasilkan
+     * ObjectOptimisticLockingFailureException, baik saat pengecekan awal maupun saat flush.
+     */
+    @Transactional
+    public Photo updatePhotoData(UUID id, Long expectedVersion, String title, String category, String desc,
+                                 java.math.BigDecimal price) {
         Photo photo = getPhotoById(id);
         if (photo != null) {
+            checkVersion(photo, expectedVersion);
             photo.setTitle(title);
-            photo.setCategory(category);
+            resolveCategory(photo, category);
             photo.setDescription(desc);
             photo.setPrice(price);
-            return photoRepository.save(photo);
+            // Flush di sini supaya konflik versi muncul dari method ini, bukan saat commit
+            Photo saved = photoRepository.saveAndFlush(photo);
+            markPortfolioChanged(saved.getUserId());
+            return saved;
         }
         return null;
     }
 
     @Transactional
-    public void updatePhotoFile(UUID id, String filename) {
+    public Photo updatePhotoFile(UUID id, String filename) {
+        return updatePhotoFile(id, null, filename);
+    }
+
+    @Transactional
+    public Photo updatePhotoFile(UUID id, Long expectedVersion, String filename) {
         Photo photo = getPhotoById(id);
         if (photo != null) {
+            checkVersion(photo, expectedVersion);
             photo.setFilename(filename);
-            photoRepository.save(photo);
+            Photo saved = photoRepository.saveAndFlush(photo);
+            markPortfolioChanged(saved.getUserId());
+            return saved;
+        }
+        return null;
+    }
+
+    /**
+     * Soft delete: foto langsung hilang dari semua query, tapi file dan baris baru
+     * dihapus PhotoPurgeService setelah jendela undo. false jika foto tidak ada
+     * atau bukan milik user.
+     */
+    @Transactional
+    public boolean deletePhoto(UUID id, UUID userId) {
+        if (photoRepository.softDelete(id, userId, LocalDateTime.now()) == 0) {
+            return false;
         }
+        markPortfolioChanged(userId);
+        return true;
     }
 
+    // false jika foto tidak sedang dihapus atau jendela undo sudah lewat
     @Transactional
-    public void deletePhoto(UUID id) {
-        photoRepository.deleteById(id);
+    public boolean restorePhoto(UUID id, UUID userId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (photoRepository.restore(id, userId, now, now.minus(undoWindow)) == 0) {
+            return false;
+        }
+        markPortfolioChanged(userId);
+        return true;
     }
     
+    /**
+     * Edit massal: satu statement UPDATE untuk semua foto terpilih milik user, bukan
+     * load + save per foto. Foto milik user lain atau yang sudah dihapus dilewati diam-diam.
+     * Mengembalikan jumlah foto yang berubah; nilai tidak valid -> IllegalArgumentException.
+     */
+    @Transactional
+    public int bulkEdit(UUID userId, BulkEditRequest request) {
+        List<UUID> ids = request.getIds();
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        if (request.getAction() == null) {
+            throw new IllegalArgumentException("Aksi harus dipilih");
+        }
+        if (ids.size() > BulkEditRequest.MAX_IDS) {
+            throw new IllegalArgumentException("Maksimal " + BulkEditRequest.MAX_IDS + " foto sekaligus");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int changed = switch (request.getAction()) {
+            case CATEGORY -> {
+                if (request.getCategory() == null || request.getCategory().isBlank()) {
+                    throw new IllegalArgumentException("Kategori harus diisi");
+                }
+                yield photoRepository.bulkUpdateCategory(ids, userId, categoryDictionary.idFor(request.getCategory()), now);
+            }
+            case PRICE_AMOUNT -> {
+                BigDecimal amount = requireValue(request);
+                if (amount.abs().compareTo(MoneyUtil.toMajor(MoneyUtil.MAX_MINOR)) > 0) {
+                    throw new IllegalArgumentException("Nilai maksimal " + MoneyUtil.toMajor(MoneyUtil.MAX_MINOR).toPlainString());
+                }
+                yield photoRepository.bulkAdjustPrice(ids, userId, MoneyUtil.toMinor(amount), now);
+            }
+            case PRICE_PERCENT -> {
+                BigDecimal percent = requireValue(request);
+                if (percent.compareTo(MIN_PERCENT) < 0 || percent.compareTo(MAX_PERCENT) > 0) {
+                    throw new IllegalArgumentException("Persentase harus antara " + MIN_PERCENT + " dan " + MAX_PERCENT);
+                }
+                BigDecimal factor = BigDecimal.ONE.add(percent.movePointLeft(2));
+                yield photoRepository.bulkScalePrice(ids, userId, factor, now);
+            }
+            case DELETE -> photoRepository.bulkSoftDelete(ids, userId, now);
+        };
+        if (changed > 0) {
+            markPortfolioChanged(userId);
+        }
+        return changed;
+    }
+
+    private static BigDecimal requireValue(BulkEditRequest request) {
+        if (request.getValue() == null) {
+            throw new IllegalArgumentException("Nilai harga harus diisi");
+        }
+        return request.getValue();
+    }
+
+    // Baris [nama kategori, jumlah]; query mengelompokkan per id, nama diambil dari kamus
+    @Transactional(readOnly = true)
     public List<Object[]> getChartData(UUID userId) {
-        return photoRepository.countPhotosByCategory(userId);
+        List<Object[]> rows = photoRepository.countPhotosByCategory(userId);
+        List<Object[]> chart = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            chart.add(new Object[] { categoryDictionary.nameOf(((Number) row[0]).intValue()), row[1] });
+        }
+        return chart;
+    }
+
+    // Saran kategori untuk form: hanya kategori yang dipakai user ini, bukan seluruh kamus
+    // global (nama milik user lain tidak boleh bocor). Memakai query chart yang sudah di-cache
+    @Transactional(readOnly = true)
+    public List<String> getCategorySuggestions(UUID userId) {
+        List<String> names = new ArrayList<>();
+        for (Object[] row : photoRepository.countPhotosByCategory(userId)) {
+            String name = categoryDictionary.nameOf(((Number) row[0]).intValue());
+            if (name != null) {
+                names.add(name);
+            }
+        }
+        names.sort(String.CASE_INSENSITIVE_ORDER);
+        return names;
+    }
+
+    // Histogram harga; batas batang dalam satuan terkecil (sen)
+    @Transactional(readOnly = true)
+    public List<PriceBucket> getPriceHistogram(UUID userId, long widthMinor) {
+        List<Object[]> rows = photoRepository.priceHistogram(userId, widthMinor);
+        List<PriceBucket> buckets = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            long from = ((Number) row[0]).longValue();
+            buckets.add(new PriceBucket(from, from + widthMinor, ((Number) row[1]).longValue()));
+        }
+        return buckets;
+    }
+
+    @Transactional(readOnly = true)
+    public List<PhotoSummary> getPhotosInPriceRange(UUID userId, long minMinor, long maxMinor, int limit) {
+        return withCategoryNames(photoRepository.findSummariesInPriceRange(userId, minMinor, maxMinor, Limit.of(limit)));
+    }
+
+    public PortfolioAnalytics getAnalytics(UUID userId) {
+        return photoAnalyticsService.getAnalytics(userId);
+    }
+
+    // Versi portofolio untuk ETag halaman HTML; satu lookup primary key.
+    // User yang baru menulis dibaca dari primary (sticky window), jadi versi tidak tertinggal replica
+    @Transactional(readOnly = true)
+    public PortfolioVersion getPortfolioVersion(UUID userId) {
+        return portfolioVersionRepository.findById(userId)
+                .orElseGet(() -> new PortfolioVersion(userId, 0, null));
+    }
+
+    // Satu titik invalidasi untuk semua turunan data portofolio (cache analitik, versi ETag, dsb.)
+    @Transactional
+    public void markPortfolioChanged(UUID userId) {
+        portfolioVersionRepository.bump(userId);
+        photoAnalyticsService.evict(userId);
+    }
+
+    // Nama kategori bebas dari form/API -> id kamus (dibuat jika belum ada), memakai ejaan kanonik
+    private void resolveCategory(Photo photo, String category) {
+        int categoryId = categoryDictionary.idFor(category);
+        photo.assignCategory(categoryId, categoryDictionary.nameOf(categoryId));
+    }
+
+    private void checkVersion(Photo photo, Long expectedVersion) {
+        if (expectedVersion != null && photo.getVersion() != expectedVersion) {
+            throw new ObjectOptimisticLockingFailureException(Photo.class, photo.getId());
+        }
+    }
+
+    private List<PhotoSummary> withCategoryNames(List<PhotoSummary> rows) {
+        UnaryOperator<PhotoSummary> fill = row -> row.withCategory(categoryDictionary.nameOf(row.categoryId()));
+        return rows.stream().map(fill).toList();
     }
 }   
\ No newline at end of file
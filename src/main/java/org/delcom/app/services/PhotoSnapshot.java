@@ -0,0 +1,113 @@
+package org.delcom.app.services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Salinan kolom-kolom photos di memori untuk laporan lintas portofolio.
+ * Setiap kolom adalah array primitif sepanjang jumlah baris; user dan mata uang
+ * disimpan sebagai indeks kamus, kategori memakai id dari CategoryDictionary.
+ * Tidak pernah diubah setelah dibangun, jadi aman dibaca paralel.
+ */
+final class PhotoSnapshot {
+    final int size;
+    final int[] userIndex;
+    final int[] categoryId;
+    final long[] priceMinor;
+    final byte[] currencyIndex;
+    final int[] createdEpochDay;
+
+    final int userCount;
+    final String[] currencies;
+    final int maxCategoryId;
+
+    final LocalDateTime builtAt;
+    final long buildMillis;
+    final boolean truncated;
+
+    private PhotoSnapshot(Builder builder, LocalDateTime builtAt, long buildMillis, boolean truncated) {
+        this.size = builder.size;
+        this.userIndex = Arrays.copyOf(builder.userIndex, size);
+        this.categoryId = Arrays.copyOf(builder.categoryId, size);
+        this.priceMinor = Arrays.copyOf(builder.priceMinor, size);
+        this.currencyIndex = Arrays.copyOf(builder.currencyIndex, size);
+        this.createdEpochDay = Arrays.copyOf(builder.createdEpochDay, size);
+        this.userCount = builder.users.size();
+        this.currencies = builder.currencies.toArray(new String[0]);
+        this.maxCategoryId = builder.maxCategoryId;
+        this.builtAt = builtAt;
+        this.buildMillis = buildMillis;
+        this.truncated = truncated;
+    }
+
+    static final class Builder {
+        private final Map<UUID, Integer> users = new HashMap<>();
+        private final List<String> currencies = new ArrayList<>();
+
+        private int size;
+        private int[] userIndex;
+        private int[] categoryId;
+        private long[] priceMinor;
+        private byte[] currencyIndex;
+        private int[] createdEpochDay;
+        private int maxCategoryId;
+
+        Builder(int initialCapacity) {
+            int capacity = Math.max(initialCapacity, 16);
+            userIndex = new int[capacity];
+            categoryId = new int[capacity];
+            priceMinor = new long[capacity];
+            currencyIndex = new byte[capacity];
+            createdEpochDay = new int[capacity];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void add(UUID userId, int category, long price, String currency, LocalDate createdDate) {
+            if (size == userIndex.length) {
+                grow();
+            }
+            userIndex[size] = users.computeIfAbsent(userId, key -> users.size());
+            categoryId[size] = category;
+            priceMinor[size] = price;
+            currencyIndex[size] = currencyIndexOf(currency);
+            createdEpochDay[size] = (int) createdDate.toEpochDay();
+            maxCategoryId = Math.max(maxCategoryId, category);
+            size++;
+        }
+
+        PhotoSnapshot build(LocalDateTime builtAt, long buildMillis, boolean truncated) {
+            return new PhotoSnapshot(this, builtAt, buildMillis, truncated);
+        }
+
+        // Jumlah mata uang aktif kecil (kode ISO), jadi pencarian linear cukup
+        private byte currencyIndexOf(String currency) {
+            int index = currencies.indexOf(currency);
+            if (index < 0) {
+                if (currencies.size() > Byte.MAX_VALUE) {
+                    throw new IllegalStateException("Terlalu banyak mata uang untuk snapshot: " + currency);
+                }
+                currencies.add(currency);
+                index = currencies.size() - 1;
+            }
+            return (byte) index;
+        }
+
+        private void grow() {
+            int capacity = userIndex.length + (userIndex.length >> 1);
+            userIndex = Arrays.copyOf(userIndex, capacity);
+            categoryId = Arrays.copyOf(categoryId, capacity);
+            priceMinor = Arrays.copyOf(priceMinor, capacity);
+            currencyIndex = Arrays.copyOf(currencyIndex, capacity);
+            createdEpochDay = Arrays.copyOf(createdEpochDay, capacity);
+        }
+    }
+}
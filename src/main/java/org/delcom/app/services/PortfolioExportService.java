@@ -0,0 +1,170 @@
+package org.delcom.app.services;
+
+import jakarta.persistence.EntityManager;
+import org.delcom.app.dto.StorageObject;
+import org.delcom.app.entities.Photo;
+import org.delcom.app.repositories.PhotoRepository;
+import org.delcom.app.utils.CsvUtil;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+@Service
+public class PortfolioExportService {
+    public static final String MANIFEST_NAME = "manifest.csv";
+    public static final String PHOTO_DIR = "photos/";
+
+    // Buffer besar agar copy file tidak didominasi syscall kecil
+    private static final int COPY_BUFFER_SIZE = 256 * 1024;
+
+    // Format yang sudah terkompresi tidak perlu di-deflate lagi
+    private static final Set<String> STORED_EXTENSIONS = Set.of(".jpg", ".jpeg", ".png", ".gif", ".webp");
+
+    private final PhotoRepository photoRepository;
+    private final FileStorageService fileStorageService;
+    private final EntityManager entityManager;
+
+    public PortfolioExportService(PhotoRepository photoRepository,
+                                  FileStorageService fileStorageService,
+                                  EntityManager entityManager) {
+        this.photoRepository = photoRepository;
+        this.fileStorageService = fileStorageService;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Tulis ZIP portofolio (manifest.csv + file asli) langsung ke output stream.
+     * Foto dibaca dua kali lewat cursor (manifest dulu, lalu file) sehingga
+     * tidak ada daftar foto yang ditahan di memori. File yang hilang di tengah
+     * export (diganti atau di-purge) dilewati.
+     */
+    @Transactional(readOnly = true)
+    public void exportPortfolio(UUID userId, OutputStream outputStream) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(outputStream, COPY_BUFFER_SIZE));
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+
+        // 1. Manifest metadata
+        zip.putNextEntry(new ZipEntry(MANIFEST_NAME));
+        zip.write(CsvUtil.row("id", "title", "category", "description", "price", "currency", "filename", "created_at", "updated_at")
+                .getBytes(StandardCharsets.UTF_8));
+        try (Stream<Photo> photos = photoRepository.streamByUserId(userId)) {
+            Iterator<Photo> iterator = photos.iterator();
+            while (iterator.hasNext()) {
+                Photo photo = iterator.next();
+                zip.write(CsvUtil.row(
+                        photo.getId(),
+                        photo.getTitle(),
+                        photo.getCategory(),
+                        photo.getDescription(),
+                        photo.getPrice(),
+                        photo.getCurrency(),
+                        photo.getFilename(),
+                        photo.getCreatedAt(),
+                        photo.getUpdatedAt()).getBytes(StandardCharsets.UTF_8));
+                // Lepas dari persistence context agar memori tetap datar
+                entityManager.detach(photo);
+            }
+        }
+        zip.closeEntry();
+
+        // 2. File asli
+        Path spool = Files.createTempFile("portfolio-export-", ".tmp");
+        try (Stream<Photo> photos = photoRepository.streamByUserId(userId)) {
+            Iterator<Photo> iterator = photos.iterator();
+            while (iterator.hasNext()) {
+                Photo photo = iterator.next();
+                String filename = photo.getFilename();
+                entityManager.detach(photo);
+
+                StorageObject file = filename == null ? null : fileStorageService.stat(filename);
+                if (file == null) {
+                    continue;
+                }
+                writeFileEntry(zip, file, buffer, spool);
+            }
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+
+        zip.finish();
+        zip.flush();
+    }
+
+    /**
+     * File dibaca sekali dari storage. Entry STORED wajib tahu ukuran dan CRC di depan,
+     * jadi isinya di-spool ke file sementara sambil dihitung, lalu entry ditulis dari
+     * salinan itu: ukuran dan CRC selalu cocok dengan byte yang dikirim walaupun gambar
+     * diganti di tengah jalan, tanpa menahan lock per foto selama client lambat membaca.
+     */
+    private void writeFileEntry(ZipOutputStream zip, StorageObject file, byte[] buffer, Path spool) throws IOException {
+        String filename = file.key();
+        ZipEntry entry = new ZipEntry(PHOTO_DIR + filename);
+        entry.setLastModifiedTime(FileTime.from(file.lastModified()));
+        boolean stored = isAlreadyCompressed(filename);
+
+        try (InputStream in = fileStorageService.openFile(filename)) {
+            // Di-purge atau diganti dengan nama lain setelah stat
+            if (in == null) {
+                return;
+            }
+            if (!stored) {
+                zip.putNextEntry(entry);
+                copy(in, zip, buffer);
+                zip.closeEntry();
+                return;
+            }
+            CRC32 crc = new CRC32();
+            long size = 0;
+            try (OutputStream out = Files.newOutputStream(spool, StandardOpenOption.TRUNCATE_EXISTING)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    crc.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                    size += read;
+                }
+            }
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(size);
+            entry.setCompressedSize(size);
+            entry.setCrc(crc.getValue());
+        }
+
+        zip.putNextEntry(entry);
+        try (InputStream in = Files.newInputStream(spool)) {
+            copy(in, zip, buffer);
+        }
+        zip.closeEntry();
+    }
+
+    private void copy(InputStream in, OutputStream out, byte[] buffer) throws IOException {
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+    }
+
+    private boolean isAlreadyCompressed(String filename) {
+        int dot = filename.lastIndexOf('.');
+        if (dot < 0) {
+            return false;
+        }
+        return STORED_EXTENSIONS.contains(filename.substring(dot).toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,463 @@
+package org.delcom.app.services;
+
+import jakarta.persistence.EntityManager;
+import org.delcom.app.dto.ImportProgress;
+import org.delcom.app.entities.Photo;
+import org.delcom.app.repositories.PhotoRepository;
+import org.delcom.app.utils.CsvUtil;
+import org.delcom.app.utils.MoneyUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+@Service
+public class PortfolioImportService {
+    private static final Logger log = LoggerFactory.getLogger(PortfolioImportService.class);
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_LOG_INTERVAL = 1000;
+    private static final String DEFAULT_CATEGORY = "Imported";
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of(".jpg", ".jpeg", ".png", ".gif", ".webp");
+
+    private final PhotoRepository photoRepository;
+    private final PhotoService photoService;
+    private final FileStorageService fileStorageService;
+    private final EntityManager entityManager;
+    private final CategoryDictionary categoryDictionary;
+    private final StorageQuotaService storageQuotaService;
+
+    // Progress import terakhir per user, dibaca oleh endpoint polling
+    private final Map<UUID, ImportProgress> progressByUser = new ConcurrentHashMap<>();
+
+    @Value("${app.import.batch-size:500}")
+    protected int batchSize = 500;
+
+    public PortfolioImportService(PhotoRepository photoRepository,
+                                  PhotoService photoService,
+                                  FileStorageService fileStorageService,
+                                  EntityManager entityManager,
+                                  CategoryDictionary categoryDictionary,
+                                  StorageQuotaService storageQuotaService) {
+        this.photoRepository = photoRepository;
+        this.photoService = photoService;
+        this.fileStorageService = fileStorageService;
+        this.entityManager = entityManager;
+        this.categoryDictionary = categoryDictionary;
+        this.storageQuotaService = storageQuotaService;
+    }
+
+    public ImportProgress getProgress(UUID userId) {
+        return progressByUser.get(userId);
+    }
+
+    /**
+     * Import portofolio dari stream ZIP (manifest.csv + gambar) atau CSV saja.
+     * Format dideteksi dari magic bytes, bukan dari nama file. Entry ZIP ditulis
+     * langsung ke storage tanpa ekstraksi ke folder sementara. Jika import gagal di tengah,
+     * baris foto ikut rollback, jadi file yang sudah ditulis dihapus dan kuotanya dilepas.
+     */
+    @Transactional
+    public ImportProgress importPortfolio(UUID userId, InputStream inputStream) throws IOException {
+        ImportProgress progress = new ImportProgress();
+        progressByUser.put(userId, progress);
+
+        Batch batch = new Batch();
+        try {
+            BufferedInputStream in = new BufferedInputStream(inputStream, READ_BUFFER_SIZE);
+            if (isZip(in)) {
+                importZip(userId, in, progress, batch);
+            } else {
+                importManifest(userId, reader(in), progress, batch, new FileLinks());
+            }
+            batch.flush();
+            batch.confirmStoredFiles(userId);
+            photoService.markPortfolioChanged(userId);
+            progress.finish();
+            log.info("Import user {} selesai: {} foto, {} file, {} entry dilewati",
+                    userId, progress.getImportedPhotos(), progress.getStoredFiles(), progress.getSkippedEntries());
+            return progress;
+        } catch (IOException | RuntimeException e) {
+            progress.fail(e.getMessage());
+            batch.deleteStoredFiles(userId);
+            throw e;
+        }
+    }
+
+    private void importZip(UUID userId, InputStream in, ImportProgress progress, Batch batch) throws IOException {
+        FileLinks links = new FileLinks();
+
+        ZipInputStream zip = new ZipInputStream(in);
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            if (!entry.isDirectory()) {
+                String name = baseName(entry.getName());
+
+                if (name.toLowerCase(Locale.ROOT).endsWith(".csv")) {
+                    importManifest(userId, reader(zip), progress, batch, links);
+                } else if (isImage(name)) {
+                    importImage(userId, zip, name, progress, batch, links);
+                } else {
+                    progress.entrySkipped();
+                }
+            }
+
+            zip.closeEntry();
+            progress.entryProcessed();
+            if (progress.getProcessedEntries() % PROGRESS_LOG_INTERVAL == 0) {
+                log.info("Import user {}: {} entry diproses", userId, progress.getProcessedEntries());
+            }
+        }
+    }
+
+    private void importManifest(UUID userId, BufferedReader reader, ImportProgress progress, Batch batch,
+                                FileLinks links) throws IOException {
+        List<String> header = CsvUtil.readRecord(reader);
+        if (header == null) {
+            return;
+        }
+
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+
+        List<String> record;
+        while ((record = CsvUtil.readRecord(reader)) != null) {
+            String filename = column(record, columns, "filename");
+            String title = column(record, columns, "title");
+            if (isBlank(title)) {
+                title = isBlank(filename) ? "Untitled" : stripExtension(filename);
+            }
+
+            String category = orDefault(column(record, columns, "category"), DEFAULT_CATEGORY);
+            String description = column(record, columns, "description");
+            BigDecimal price = parsePrice(column(record, columns, "price"));
+            String currency = column(record, columns, "currency");
+
+            // Statistik, analitik dan histogram menjumlahkan price_minor tanpa konversi kurs,
+            // jadi hanya mata uang default yang boleh masuk; barisnya (dan gambarnya) dilewati
+            if (isCurrencyCode(currency) && !MoneyUtil.DEFAULT_CURRENCY.equalsIgnoreCase(currency.trim())) {
+                log.warn("Import user {}: baris '{}' dilewati: mata uang {} tidak didukung", userId, title, currency.trim());
+                progress.entrySkipped();
+                if (!isBlank(filename)) {
+                    links.rejected.add(baseName(filename));
+                }
+                continue;
+            }
+
+            // Gambarnya sudah diimport lebih dulu: metadata dipasang ke foto itu, bukan foto baru
+            UUID storedPhotoId = isBlank(filename) ? null : links.stored.remove(baseName(filename));
+            Photo photo = storedPhotoId == null ? null : entityManager.find(Photo.class, storedPhotoId);
+            if (photo != null) {
+                photo.setTitle(title);
+                photo.setDescription(description);
+                photo.setPrice(price);
+                batch.update(photo, category);
+                continue;
+            }
+
+            photo = new Photo(userId, title, category, description, price);
+            batch.persist(photo);
+            progress.photoImported();
+
+            if (!isBlank(filename)) {
+                links.pending.put(baseName(filename), photo.getId());
+            }
+        }
+    }
+
+    private void importImage(UUID userId, InputStream entryStream, String name, ImportProgress progress,
+                             Batch batch, FileLinks links) throws IOException {
+        if (links.rejected.remove(name)) {
+            progress.entrySkipped();
+            return;
+        }
+
+        // Header dicek dulu: entry yang bukan gambar dilewati tanpa membuat foto atau file
+        BufferedInputStream in = new BufferedInputStream(entryStream, FileStorageService.HEADER_BYTES);
+        try {
+            fileStorageService.inspect(in);
+        } catch (InvalidImageException e) {
+            log.warn("Import user {}: entry {} dilewati: {}", userId, name, e.getMessage());
+            progress.entrySkipped();
+            return;
+        }
+
+        UUID photoId = links.pending.remove(name);
+        Photo placeholder = null;
+        if (photoId == null) {
+            // Gambar tanpa baris manifest tetap diimport dengan metadata default
+            // (baris manifest yang datang belakangan akan mengisi metadatanya)
+            placeholder = new Photo(userId, stripExtension(name), DEFAULT_CATEGORY, null, BigDecimal.ZERO);
+            batch.persist(placeholder);
+            photoId = placeholder.getId();
+        }
+
+        StoredFile stored = storeWithinQuota(userId, in, photoId);
+        if (stored == null) {
+            // Foto default hanya ada demi gambar ini; tanpa gambar tidak ikut diimport
+            if (placeholder != null) {
+                batch.discard(placeholder);
+            }
+            log.warn("Import user {}: entry {} dilewati: kuota penyimpanan penuh", userId, name);
+            progress.entrySkipped();
+            return;
+        }
+        if (placeholder != null) {
+            progress.photoImported();
+            links.stored.put(name, photoId);
+        }
+        batch.fileStored(stored);
+        batch.updateFilename(photoId, stored.name());
+        progress.fileStored();
+    }
+
+    /**
+     * Ukuran entry ZIP baru diketahui setelah dibaca, jadi byte dihitung selama streaming dan
+     * penulisan dihentikan begitu sisa kuota user terlewati (file sementara dibuang backend).
+     * Reservasi setelahnya tetap yang menentukan, karena upload lain bisa berjalan bersamaan.
+     * null jika kuota tidak cukup.
+     */
+    private StoredFile storeWithinQuota(UUID userId, InputStream in, UUID photoId) throws IOException {
+        long quota = storageQuotaService.getQuotaBytes();
+        long remaining = quota > 0 ? Math.max(0, quota - storageQuotaService.getUsedBytes(userId)) : Long.MAX_VALUE;
+        String storedName;
+        try {
+            storedName = fileStorageService.storeStream(new QuotaLimitedInputStream(in, remaining), photoId);
+        } catch (QuotaExceededException e) {
+            return null;
+        }
+        long size = fileStorageService.fileSize(storedName);
+        if (!storageQuotaService.tryReserve(userId, size)) {
+            fileStorageService.deleteFile(storedName);
+            return null;
+        }
+        return new StoredFile(storedName, size);
+    }
+
+    // File yang ditulis import beserta ukuran yang dipesan untuknya
+    private record StoredFile(String name, long size) {
+    }
+
+    // Melempar QuotaExceededException begitu byte yang dibaca melebihi limit
+    private static class QuotaLimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long read;
+
+        QuotaLimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        // mark/reset dilakukan BufferedInputStream di atasnya; yang dihitung hanya byte dari entry
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void count(long n) {
+            read += n;
+            if (read > limit) {
+                throw new QuotaExceededException("Kuota penyimpanan tidak cukup");
+            }
+        }
+    }
+
+    // Penautan baris manifest <-> entry gambar; urutan keduanya di dalam ZIP bebas
+    private static class FileLinks {
+        // Nama file di manifest -> id foto baru yang menunggu gambarnya
+        final Map<String, UUID> pending = new HashMap<>();
+        // Gambar yang datang sebelum baris manifest-nya -> id foto yang sudah dibuat untuknya
+        final Map<String, UUID> stored = new HashMap<>();
+        // Gambar milik baris manifest yang ditolak
+        final Set<String> rejected = new HashSet<>();
+    }
+
+    // Flush + clear persistence context setiap batchSize operasi agar heap tetap datar
+    private class Batch {
+        private int pending;
+        // Update filename ditunda sampai flush: bulk update JPQL memicu auto-flush insert
+        // yang masih antre, sehingga batching JDBC-nya hilang kalau dijalankan per entry
+        private final Map<UUID, String> filenames = new HashMap<>();
+        // Semua file yang ditulis import ini, termasuk yang filename-nya sudah ter-flush
+        private final List<StoredFile> storedFiles = new ArrayList<>();
+
+        // Kategori di-resolve ke id lewat kamus (cache), bukan query per baris
+        void persist(Photo photo) {
+            assignCategory(photo, photo.getCategory());
+            entityManager.persist(photo);
+            count();
+        }
+
+        // Foto sudah managed (hasil find); perubahannya ikut ter-flush bersama batch
+        void update(Photo photo, String category) {
+            assignCategory(photo, category);
+            count();
+        }
+
+        // Foto yang baru di-persist dibatalkan lagi (hard delete jika sudah ter-flush)
+        void discard(Photo photo) {
+            Photo managed = entityManager.contains(photo) ? photo : entityManager.find(Photo.class, photo.getId());
+            if (managed != null) {
+                entityManager.remove(managed);
+            }
+        }
+
+        void fileStored(StoredFile file) {
+            storedFiles.add(file);
+        }
+
+        // Semua filename sudah ter-flush ke foto masing-masing
+        void confirmStoredFiles(UUID userId) {
+            for (StoredFile file : storedFiles) {
+                storageQuotaService.confirm(userId, file.size());
+            }
+            storedFiles.clear();
+        }
+
+        // Import gagal: tidak ada baris yang akan merujuk file ini. Kegagalan hapus hanya dicatat,
+        // exception aslinya yang dilempar; sisanya ditangani OrphanFileService dan rekonsiliasi
+        void deleteStoredFiles(UUID userId) {
+            for (StoredFile file : storedFiles) {
+                storageQuotaService.release(userId, file.size());
+                try {
+                    fileStorageService.deleteFile(file.name());
+                } catch (RuntimeException e) {
+                    log.warn("Import user {}: file {} gagal dihapus: {}", userId, file.name(), e.getMessage());
+                }
+            }
+            storedFiles.clear();
+        }
+
+        void updateFilename(UUID photoId, String filename) {
+            filenames.put(photoId, filename);
+            count();
+        }
+
+        void flush() {
+            entityManager.flush();
+            entityManager.clear();
+            // Persistence context sudah kosong, jadi bulk update tidak perlu flush/dirty-check apa pun
+            filenames.forEach(photoRepository::updateFilename);
+            filenames.clear();
+            pending = 0;
+        }
+
+        private void assignCategory(Photo photo, String category) {
+            int categoryId = categoryDictionary.idFor(category);
+            photo.assignCategory(categoryId, categoryDictionary.nameOf(categoryId));
+        }
+
+        private void count() {
+            if (++pending >= batchSize) {
+                flush();
+            }
+        }
+    }
+
+    private boolean isZip(BufferedInputStream in) throws IOException {
+        in.mark(4);
+        byte[] magic = in.readNBytes(4);
+        in.reset();
+        return magic.length == 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4;
+    }
+
+    // Reader tidak ditutup: menutupnya akan ikut menutup ZipInputStream
+    private BufferedReader reader(InputStream in) {
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), READ_BUFFER_SIZE);
+    }
+
+    private String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        return record.get(index);
+    }
+
+    private BigDecimal parsePrice(String value) {
+        if (isBlank(value)) {
+            return BigDecimal.ZERO;
+        }
+        try {
+            BigDecimal price = new BigDecimal(value.trim());
+            return price.signum() < 0 ? BigDecimal.ZERO : price;
+        } catch (NumberFormatException e) {
+            return BigDecimal.ZERO;
+        }
+    }
+
+    private boolean isCurrencyCode(String value) {
+        return value != null && value.trim().matches("[A-Za-z]{3}");
+    }
+
+    private boolean isImage(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && IMAGE_EXTENSIONS.contains(name.substring(dot).toLowerCase(Locale.ROOT));
+    }
+
+    private String baseName(String path) {
+        String normalized = path.replace('\\', '/');
+        return normalized.substring(normalized.lastIndexOf('/') + 1);
+    }
+
+    private String stripExtension(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    private String orDefault(String value, String fallback) {
+        return isBlank(value) ? fallback : value;
+    }
+
+    private boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
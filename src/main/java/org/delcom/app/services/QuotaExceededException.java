@@ -0,0 +1,8 @@
+package org.delcom.app.services;
+
+// Reservasi kuota penyimpanan user gagal; controller menerjemahkannya ke 413
+public class QuotaExceededException extends RuntimeException {
+    public QuotaExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,430 @@
+package org.delcom.app.services;
+
+import org.delcom.app.dto.UploadStatus;
+import org.delcom.app.entities.Photo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Upload gambar besar secara bertahap: sesi dibuka dengan ukuran dan SHA-256 file,
+ * potongan ditulis posisional (FileChannel.write(buffer, offset)) ke file yang sudah
+ * dialokasikan penuh, sehingga potongan boleh datang tidak urut, diulang, atau paralel.
+ * Saat finalisasi digest dicocokkan, lalu file disimpan lewat FileStorageService seperti
+ * upload biasa. Kuota dipesan saat sesi dibuka dan dilepas jika sesi batal atau kedaluwarsa.
+ * Jumlah sesi terbuka dibatasi per user dan per foto, karena setiap sesi memakai disk
+ * sebesar ukuran filenya sejak dibuka.
+ */
+@Service
+public class ResumableUploadService {
+    private static final Logger log = LoggerFactory.getLogger(ResumableUploadService.class);
+
+    private static final String PART_SUFFIX = ".part";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileStorageService fileStorageService;
+    private final StorageQuotaService storageQuotaService;
+    private final PhotoService photoService;
+    private final PhotoImageService photoImageService;
+    private final Path partialDir;
+    private final long maxSize;
+    private final long maxChunkSize;
+    private final Duration sessionTtl;
+    private final int maxSessionsPerUser;
+    private final int maxSessionsPerPhoto;
+
+    private final Map<UUID, Session> sessions = new ConcurrentHashMap<>();
+
+    public ResumableUploadService(FileStorageService fileStorageService,
+                                  StorageQuotaService storageQuotaService,
+                                  PhotoService photoService,
+                                  PhotoImageService photoImageService,
+                                  @Value("${app.upload.resumable.dir:./uploads-partial}") String partialDir,
+                                  @Value("${app.upload.resumable.max-size:209715200}") long maxSize,
+                                  @Value("${app.upload.resumable.max-chunk-size:8388608}") long maxChunkSize,
+                                  @Value("${app.upload.resumable.session-ttl:PT24H}") Duration sessionTtl,
+                                  @Value("${app.upload.resumable.max-sessions-per-user:5}") int maxSessionsPerUser,
+                                  @Value("${app.upload.resumable.max-sessions-per-photo:2}") int maxSessionsPerPhoto) {
+        this.fileStorageService = fileStorageService;
+        this.storageQuotaService = storageQuotaService;
+        this.photoService = photoService;
+        this.photoImageService = photoImageService;
+        this.partialDir = Paths.get(partialDir).toAbsolutePath().normalize();
+        this.maxSize = maxSize;
+        this.maxChunkSize = maxChunkSize;
+        this.sessionTtl = sessionTtl;
+        this.maxSessionsPerUser = Math.max(1, maxSessionsPerUser);
+        this.maxSessionsPerPhoto = Math.max(1, maxSessionsPerPhoto);
+    }
+
+    public long getMaxChunkSize() {
+        return maxChunkSize;
+    }
+
+    /**
+     * Buka sesi untuk mengganti gambar foto milik user. null jika foto tidak ditemukan.
+     * Yang dipesan dari kuota hanya selisih terhadap gambar yang akan diganti, tidak pernah
+     * negatif: file yang lebih kecil baru mengurangi pemakaian saat benar-benar terpasang.
+     *
+     * @throws IllegalStateException terlalu banyak sesi terbuka untuk user atau foto ini
+     */
+    public UploadStatus create(UUID userId, UUID photoId, long size, String sha256) throws IOException {
+        if (size <= 0 || size > maxSize) {
+            throw new IllegalArgumentException("Ukuran file harus antara 1 dan " + maxSize + " bytes");
+        }
+        byte[] digest = HexFormat.of().parseHex(sha256);
+        if (digest.length != 32) {
+            throw new IllegalArgumentException("Digest SHA-256 harus 64 karakter hex");
+        }
+        Photo photo = photoService.getPhotoById(photoId);
+        if (photo == null || !photo.getUserId().equals(userId)) {
+            return null;
+        }
+
+        long reserved = Math.max(0, size - fileStorageService.fileSize(photo.getFilename()));
+        Session session = new Session(UUID.randomUUID(), userId, photoId, size, digest, reserved);
+        register(session);
+        if (!storageQuotaService.tryReserve(userId, reserved)) {
+            sessions.remove(session.id);
+            throw new QuotaExceededException("Kuota penyimpanan tidak cukup (" + storageQuotaService.getQuotaBytes() + " bytes)");
+        }
+
+        try {
+            Files.createDirectories(partialDir);
+            // Dialokasikan penuh di awal: setiap potongan cukup ditulis di offset-nya tanpa memperpanjang file
+            try (RandomAccessFile file = new RandomAccessFile(partPath(session.id).toFile(), "rw")) {
+                file.setLength(size);
+            }
+        } catch (IOException | RuntimeException e) {
+            sessions.remove(session.id);
+            Files.deleteIfExists(partPath(session.id));
+            storageQuotaService.release(userId, reserved);
+            throw e;
+        }
+        return session.status();
+    }
+
+    // Hitung dan daftarkan dalam satu langkah supaya create paralel tidak melewati batas
+    private synchronized void register(Session session) {
+        int perUser = 0;
+        int perPhoto = 0;
+        for (Session open : sessions.values()) {
+            if (open.userId.equals(session.userId)) {
+                perUser++;
+                if (open.photoId.equals(session.photoId)) {
+                    perPhoto++;
+                }
+            }
+        }
+        if (perUser >= maxSessionsPerUser) {
+            throw new IllegalStateException("Maksimal " + maxSessionsPerUser + " sesi upload terbuka per user");
+        }
+        if (perPhoto >= maxSessionsPerPhoto) {
+            throw new IllegalStateException("Maksimal " + maxSessionsPerPhoto + " sesi upload terbuka per foto");
+        }
+        sessions.put(session.id, session);
+    }
+
+    // null jika sesi tidak ada atau bukan milik user
+    public UploadStatus getStatus(UUID userId, UUID uploadId) {
+        Session session = find(userId, uploadId);
+        return session == null ? null : session.status();
+    }
+
+    /**
+     * Tulis satu potongan [offset, offset + length). Jika koneksi putus di tengah, byte
+     * yang sudah tertulis tetap tercatat sehingga client cukup melanjutkan dari celahnya.
+     */
+    public UploadStatus writeChunk(UUID userId, UUID uploadId, long offset, long length, InputStream body)
+            throws IOException {
+        Session session = find(userId, uploadId);
+        if (session == null) {
+            return null;
+        }
+        if (offset < 0 || length <= 0 || length > maxChunkSize || offset + length > session.size) {
+            throw new IllegalArgumentException("Potongan harus di dalam 0-" + session.size
+                    + " dan maksimal " + maxChunkSize + " bytes");
+        }
+
+        session.beginWrite();
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(partPath(uploadId), StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, length));
+            while (written < length) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), length - written));
+                int read = body.read(buffer.array(), 0, buffer.limit());
+                if (read < 0) {
+                    break;
+                }
+                buffer.limit(read);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer, offset + written + buffer.position());
+                }
+                written += read;
+            }
+        } finally {
+            session.endWrite(offset, written);
+        }
+        if (written < length) {
+            throw new IllegalArgumentException("Body potongan lebih pendek dari rentang (" + written + " dari " + length + " bytes)");
+        }
+        return session.status();
+    }
+
+    /**
+     * Finalisasi: semua byte harus sudah diterima dan SHA-256 cocok, lalu file disimpan
+     * dan dipasang ke foto. Digest atau isi yang salah membuang sesi (tidak bisa diperbaiki
+     * dengan mengirim ulang potongan tertentu). null jika sesi atau fotonya tidak ada.
+     */
+    public Photo complete(UUID userId, UUID uploadId) throws IOException {
+        Session session = find(userId, uploadId);
+        if (session == null) {
+            return null;
+        }
+        // Belum lengkap: sesi tetap terbuka agar client bisa mengirim celah yang tersisa
+        session.close(true);
+
+        boolean attached = false;
+        try {
+            Path part = partPath(uploadId);
+            if (!MessageDigest.isEqual(session.sha256, sha256(part))) {
+                throw new IllegalArgumentException("Digest SHA-256 tidak cocok dengan file yang diterima");
+            }
+
+            // Kuota yang dipesan saat sesi dibuka dipakai sebagai bagian dari selisih terhadap gambar lama
+            Photo updated = photoImageService.replaceImage(session.photoId, session.userId, null, session.size,
+                    session.reserved, photoId -> {
+                        try (InputStream in = Files.newInputStream(part)) {
+                            return fileStorageService.storeStream(in, photoId);
+                        }
+                    });
+            attached = updated != null;
+            if (attached) {
+                storageQuotaService.confirm(session.userId, session.reserved);
+            }
+            return updated;
+        } finally {
+            discard(session, !attached);
+        }
+    }
+
+    // Batalkan sesi, hapus file sementara, dan kembalikan kuota yang dipesan
+    public boolean abort(UUID userId, UUID uploadId) throws IOException {
+        Session session = find(userId, uploadId);
+        if (session == null) {
+            return false;
+        }
+        session.close(false);
+        discard(session, true);
+        return true;
+    }
+
+    /**
+     * Sesi tanpa aktivitas selama session-ttl dibuang. File .part tanpa sesi (misalnya sisa
+     * sebelum restart, karena sesi hanya disimpan di memori) ikut dihapus setelah umur yang sama.
+     */
+    @Scheduled(fixedDelayString = "${app.upload.resumable.cleanup-interval:PT15M}")
+    public void scheduledCleanup() {
+        try {
+            cleanup();
+        } catch (IOException | RuntimeException e) {
+            log.error("Gagal membersihkan sesi upload: {}", e.getMessage());
+        }
+    }
+
+    public int cleanup() throws IOException {
+        Instant cutoff = Instant.now().minus(sessionTtl);
+        int removed = 0;
+        for (Session session : sessions.values()) {
+            if (session.lastActivity().isBefore(cutoff) && session.tryClose()) {
+                discard(session, true);
+                removed++;
+            }
+        }
+
+        if (Files.isDirectory(partialDir)) {
+            try (DirectoryStream<Path> parts = Files.newDirectoryStream(partialDir, "*" + PART_SUFFIX)) {
+                for (Path part : parts) {
+                    String name = part.getFileName().toString();
+                    UUID id = parseId(name.substring(0, name.length() - PART_SUFFIX.length()));
+                    if ((id == null || !sessions.containsKey(id))
+                            && Files.getLastModifiedTime(part).toInstant().isBefore(cutoff)) {
+                        Files.deleteIfExists(part);
+                        removed++;
+                    }
+                }
+            }
+        }
+        if (removed > 0) {
+            log.info("Cleanup upload: {} sesi/file sementara dihapus", removed);
+        }
+        return removed;
+    }
+
+    private Session find(UUID userId, UUID uploadId) {
+        Session session = sessions.get(uploadId);
+        return session == null || !session.userId.equals(userId) ? null : session;
+    }
+
+    private void discard(Session session, boolean releaseQuota) throws IOException {
+        if (sessions.remove(session.id, session) && releaseQuota) {
+            storageQuotaService.release(session.userId, session.reserved);
+        }
+        Files.deleteIfExists(partPath(session.id));
+    }
+
+    private Path partPath(UUID uploadId) {
+        return partialDir.resolve(uploadId + PART_SUFFIX);
+    }
+
+    private static byte[] sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return digest.digest();
+    }
+
+    private static UUID parseId(String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Status satu sesi. Rentang diterima disimpan sebagai start -> end (eksklusif) yang
+     * digabung saat bersinggungan; penulisan yang sedang berjalan dihitung agar finalisasi
+     * tidak membaca file yang masih ditulis.
+     */
+    private final class Session {
+        final UUID id;
+        final UUID userId;
+        final UUID photoId;
+        final long size;
+        final byte[] sha256;
+        final long reserved;
+
+        private final TreeMap<Long, Long> received = new TreeMap<>();
+        private long receivedBytes;
+        private int activeWrites;
+        private boolean closed;
+        private Instant lastActivity = Instant.now();
+
+        Session(UUID id, UUID userId, UUID photoId, long size, byte[] sha256, long reserved) {
+            this.id = id;
+            this.userId = userId;
+            this.photoId = photoId;
+            this.size = size;
+            this.sha256 = sha256;
+            this.reserved = reserved;
+        }
+
+        synchronized void beginWrite() {
+            if (closed) {
+                throw new IllegalStateException("Sesi upload sudah ditutup");
+            }
+            activeWrites++;
+            lastActivity = Instant.now();
+        }
+
+        synchronized void endWrite(long offset, long length) {
+            activeWrites--;
+            lastActivity = Instant.now();
+            if (length > 0) {
+                add(offset, offset + length);
+            }
+        }
+
+        // Untuk finalisasi/batal oleh client: gagal jika masih ada potongan yang ditulis
+        synchronized void close(boolean requireComplete) {
+            if (closed) {
+                throw new IllegalStateException("Sesi upload sudah ditutup");
+            }
+            if (activeWrites > 0) {
+                throw new IllegalStateException("Masih ada potongan yang sedang ditulis");
+            }
+            if (requireComplete && receivedBytes < size) {
+                throw new IllegalStateException("Upload belum lengkap (" + receivedBytes + " dari " + size + " bytes)");
+            }
+            closed = true;
+        }
+
+        // Untuk cleanup: sesi yang sedang dipakai dilewati tanpa exception
+        synchronized boolean tryClose() {
+            if (closed || activeWrites > 0) {
+                return false;
+            }
+            closed = true;
+            return true;
+        }
+
+        synchronized Instant lastActivity() {
+            return lastActivity;
+        }
+
+        synchronized UploadStatus status() {
+            List<UploadStatus.ByteRange> ranges = new ArrayList<>(received.size());
+            received.forEach((start, end) -> ranges.add(new UploadStatus.ByteRange(start, end)));
+            LocalDateTime expiresAt = LocalDateTime.ofInstant(lastActivity.plus(sessionTtl), ZoneId.systemDefault());
+            return new UploadStatus(id, photoId, size, receivedBytes, ranges, receivedBytes == size, expiresAt);
+        }
+
+        // Gabungkan [start, end) dengan rentang yang bersinggungan atau bertumpuk
+        private void add(long start, long end) {
+            Map.Entry<Long, Long> before = received.floorEntry(start);
+            if (before != null && before.getValue() >= start) {
+                start = before.getKey();
+                end = Math.max(end, before.getValue());
+                receivedBytes -= before.getValue() - before.getKey();
+                received.remove(before.getKey());
+            }
+            Map.Entry<Long, Long> next = received.ceilingEntry(start);
+            while (next != null && next.getKey() <= end) {
+                end = Math.max(end, next.getValue());
+                receivedBytes -= next.getValue() - next.getKey();
+                received.remove(next.getKey());
+                next = received.ceilingEntry(start);
+            }
+            received.put(start, end);
+            receivedBytes += end - start;
+        }
+    }
+}
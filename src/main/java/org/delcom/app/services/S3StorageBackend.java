@@ -0,0 +1,360 @@
+package org.delcom.app.services;
+
+import org.delcom.app.dto.StorageObject;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Storage di bucket S3-compatible (AWS S3, MinIO, Ceph RGW, R2) lewat REST API
+ * dengan Signature V4 dan alamat path-style (endpoint/bucket/key). Dibuat di atas
+ * java.net.http supaya tidak menambah dependency SDK; operasi yang dipakai hanya
+ * PUT, GET (dengan Range), HEAD, DELETE, CopyObject, dan ListObjectsV2.
+ */
+public class S3StorageBackend implements StorageBackend {
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    // Isi body tidak ikut ditandatangani; integritas dijaga TLS di endpoint https
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final DateTimeFormatter AMZ_DATE =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final int LIST_PAGE_SIZE = 1000;
+    private static final int ERROR_BODY_LIMIT = 512;
+
+    private final HttpClient httpClient;
+    private final String endpoint;
+    private final String region;
+    private final String bucket;
+    private final String accessKey;
+    private final String secretKey;
+    private final Duration timeout;
+    private final Clock clock;
+
+    public S3StorageBackend(String endpoint, String region, String bucket, String accessKey, String secretKey,
+                            Duration timeout) {
+        this(HttpClient.newBuilder().connectTimeout(timeout).build(), endpoint, region, bucket, accessKey, secretKey,
+                timeout, Clock.systemUTC());
+    }
+
+    S3StorageBackend(HttpClient httpClient, String endpoint, String region, String bucket, String accessKey,
+                     String secretKey, Duration timeout, Clock clock) {
+        this.httpClient = httpClient;
+        this.endpoint = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+        this.region = region;
+        this.bucket = bucket;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.timeout = timeout;
+        this.clock = clock;
+    }
+
+    @Override
+    public void put(String key, InputStream data, long length, String contentType) throws IOException {
+        SortedMap<String, String> headers = new TreeMap<>();
+        if (contentType != null) {
+            headers.put("content-type", contentType);
+        }
+        if (length >= 0) {
+            HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.fromPublisher(
+                    HttpRequest.BodyPublishers.ofInputStream(() -> data), length);
+            expectOk("PUT", key, send("PUT", key, null, headers, body, HttpResponse.BodyHandlers.ofString()));
+            return;
+        }
+        // PUT wajib tahu Content-Length; stream tanpa ukuran (entry ZIP) ditampung dulu di file sementara
+        Path spool = Files.createTempFile("s3-put-", ".tmp");
+        try {
+            Files.copy(data, spool, StandardCopyOption.REPLACE_EXISTING);
+            expectOk("PUT", key, send("PUT", key, null, headers, HttpRequest.BodyPublishers.ofFile(spool),
+                    HttpResponse.BodyHandlers.ofString()));
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        if (length == 0) {
+            return InputStream.nullInputStream();
+        }
+        SortedMap<String, String> headers = new TreeMap<>();
+        if (offset > 0 || length > 0) {
+            headers.put("range", "bytes=" + offset + "-" + (length > 0 ? String.valueOf(offset + length - 1) : ""));
+        }
+        HttpResponse<InputStream> response = send("GET", key, null, headers, HttpRequest.BodyPublishers.noBody(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        int status = response.statusCode();
+        if (status == 200 || status == 206) {
+            return response.body();
+        }
+        String error = readError(response.body());
+        if (status == 404) {
+            return null;
+        }
+        if (status == 416) {
+            // Offset di luar ukuran objek: sama dengan membaca di akhir file
+            return InputStream.nullInputStream();
+        }
+        throw failure("GET", key, status, error);
+    }
+
+    @Override
+    public StorageObject stat(String key) throws IOException {
+        HttpResponse<Void> response = send("HEAD", key, null, new TreeMap<>(), HttpRequest.BodyPublishers.noBody(),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return null;
+        }
+        if (response.statusCode() != 200) {
+            throw failure("HEAD", key, response.statusCode(), "");
+        }
+        long size = response.headers().firstValueAsLong("content-length").orElse(0L);
+        Instant lastModified = response.headers().firstValue("last-modified")
+                .map(value -> ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant())
+                .orElse(Instant.EPOCH);
+        return new StorageObject(key, size, lastModified);
+    }
+
+    // DELETE di S3 selalu 204 walau key tidak ada, jadi keberadaan dicek dulu lewat HEAD
+    @Override
+    public boolean delete(String key) throws IOException {
+        if (stat(key) == null) {
+            return false;
+        }
+        HttpResponse<String> response = send("DELETE", key, null, new TreeMap<>(),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 404) {
+            return false;
+        }
+        expectOk("DELETE", key, response);
+        return true;
+    }
+
+    // S3 tidak punya rename: CopyObject lalu DELETE sumber; LastModified tujuan = waktu copy
+    @Override
+    public boolean move(String fromKey, String toKey) throws IOException {
+        SortedMap<String, String> headers = new TreeMap<>();
+        headers.put("x-amz-copy-source", "/" + bucket + "/" + encode(fromKey, false));
+        HttpResponse<String> response = send("PUT", toKey, null, headers, HttpRequest.BodyPublishers.noBody(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 404) {
+            return false;
+        }
+        // CopyObject bisa gagal dengan status 200 dan body <Error>
+        if (response.statusCode() != 200 || response.body().contains("<Error>")) {
+            throw failure("COPY", fromKey, response.statusCode(), response.body());
+        }
+        delete(fromKey);
+        return true;
+    }
+
+    @Override
+    public void list(String prefix, Consumer<StorageObject> consumer) throws IOException {
+        String continuationToken = null;
+        do {
+            SortedMap<String, String> query = new TreeMap<>();
+            query.put("list-type", "2");
+            query.put("max-keys", String.valueOf(LIST_PAGE_SIZE));
+            query.put("prefix", prefix);
+            if (continuationToken != null) {
+                query.put("continuation-token", continuationToken);
+            }
+            String rawQuery = query.entrySet().stream()
+                    .map(entry -> encode(entry.getKey(), true) + "=" + encode(entry.getValue(), true))
+                    .collect(Collectors.joining("&"));
+            HttpResponse<InputStream> response = send("GET", null, rawQuery, new TreeMap<>(),
+                    HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() != 200) {
+                throw failure("LIST", prefix, response.statusCode(), readError(response.body()));
+            }
+
+            Document page;
+            try (InputStream body = response.body()) {
+                page = parseXml(body);
+            }
+            NodeList contents = page.getElementsByTagName("Contents");
+            for (int i = 0; i < contents.getLength(); i++) {
+                Element item = (Element) contents.item(i);
+                consumer.accept(new StorageObject(text(item, "Key"), Long.parseLong(text(item, "Size")),
+                        Instant.parse(text(item, "LastModified"))));
+            }
+            continuationToken = "true".equals(text(page.getDocumentElement(), "IsTruncated"))
+                    ? text(page.getDocumentElement(), "NextContinuationToken") : null;
+        } while (continuationToken != null);
+    }
+
+    private <T> HttpResponse<T> send(String method, String key, String rawQuery, SortedMap<String, String> headers,
+                                     HttpRequest.BodyPublisher body, HttpResponse.BodyHandler<T> handler)
+            throws IOException {
+        String path = "/" + bucket + (key == null ? "" : "/" + encode(key, false));
+        URI uri = URI.create(endpoint + path + (rawQuery == null || rawQuery.isEmpty() ? "" : "?" + rawQuery));
+        Instant now = clock.instant();
+
+        SortedMap<String, String> signed = new TreeMap<>(headers);
+        signed.put("host", hostHeader(uri));
+        signed.put("x-amz-content-sha256", UNSIGNED_PAYLOAD);
+        signed.put("x-amz-date", AMZ_DATE.format(now));
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(timeout).method(method, body);
+        // Host diisi sendiri oleh HttpClient (header terlarang), nilainya sama dengan yang ditandatangani
+        signed.forEach((name, value) -> {
+            if (!"host".equals(name)) {
+                request.header(name, value);
+            }
+        });
+        request.header("authorization", authorization(method, uri, signed, now));
+        try {
+            return httpClient.send(request.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Permintaan S3 terputus: " + method + " " + path);
+        }
+    }
+
+    /**
+     * Header Authorization Signature V4. headers harus sudah berisi host,
+     * x-amz-content-sha256, dan x-amz-date; semuanya ikut ditandatangani.
+     */
+    String authorization(String method, URI uri, SortedMap<String, String> headers, Instant now) {
+        String amzDate = AMZ_DATE.format(now);
+        String date = amzDate.substring(0, 8);
+        String scope = date + "/" + region + "/s3/aws4_request";
+
+        String canonicalHeaders = headers.entrySet().stream()
+                .map(entry -> entry.getKey() + ":" + entry.getValue().trim() + "\n")
+                .collect(Collectors.joining());
+        String signedHeaders = String.join(";", headers.keySet());
+        String canonicalRequest = method + "\n"
+                + (uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath()) + "\n"
+                + (uri.getRawQuery() == null ? "" : uri.getRawQuery()) + "\n"
+                + canonicalHeaders + "\n"
+                + signedHeaders + "\n"
+                + headers.get("x-amz-content-sha256");
+        String stringToSign = ALGORITHM + "\n" + amzDate + "\n" + scope + "\n"
+                + HexFormat.of().formatHex(sha256(canonicalRequest));
+
+        byte[] signingKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        signingKey = hmac(signingKey, region);
+        signingKey = hmac(signingKey, "s3");
+        signingKey = hmac(signingKey, "aws4_request");
+        String signature = HexFormat.of().formatHex(hmac(signingKey, stringToSign));
+
+        return ALGORITHM + " Credential=" + accessKey + "/" + scope
+                + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature;
+    }
+
+    // URI encoding versi AWS: hanya karakter unreserved yang dibiarkan; '/' dibiarkan di path key
+    static String encode(String value, boolean encodeSlash) {
+        StringBuilder out = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (c == '/' && !encodeSlash)) {
+                out.append(c);
+            } else {
+                out.append('%').append(HexFormat.of().withUpperCase().toHexDigits(b));
+            }
+        }
+        return out.toString();
+    }
+
+    private static String hostHeader(URI uri) {
+        int port = uri.getPort();
+        boolean defaultPort = port == -1
+                || ("http".equals(uri.getScheme()) && port == 80)
+                || ("https".equals(uri.getScheme()) && port == 443);
+        return defaultPort ? uri.getHost() : uri.getHost() + ":" + port;
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String value) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Document parseXml(InputStream body) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            return factory.newDocumentBuilder().parse(body);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Respons S3 bukan XML yang valid", e);
+        }
+    }
+
+    // Isi elemen anak langsung pertama dengan nama tertentu; null jika tidak ada
+    private static String text(Element parent, String name) {
+        for (var node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element element && name.equals(element.getTagName())) {
+                return element.getTextContent();
+            }
+        }
+        return null;
+    }
+
+    private static String readError(InputStream body) throws IOException {
+        try (body) {
+            return new String(body.readNBytes(ERROR_BODY_LIMIT), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void expectOk(String operation, String key, HttpResponse<String> response) throws IOException {
+        int status = response.statusCode();
+        if (status < 200 || status > 299) {
+            throw failure(operation, key, status, response.body());
+        }
+    }
+
+    private static IOException failure(String operation, String key, int status, String body) {
+        String detail = body == null ? "" : body.substring(0, Math.min(body.length(), ERROR_BODY_LIMIT));
+        return new IOException("S3 " + operation + " " + key + " gagal (HTTP " + status + ") " + detail);
+    }
+
+    // Kredensial tidak pernah ikut dicetak
+    @Override
+    public String toString() {
+        return "S3StorageBackend[" + endpoint + "/" + bucket + "]";
+    }
+}
@@ -0,0 +1,48 @@
+package org.delcom.app.services;
+
+import org.delcom.app.dto.StorageObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Tempat file upload disimpan. Key memakai '/' sebagai pemisah dan tidak
+ * diawali '/'. Implementasi: folder lokal (satu node) atau bucket S3-compatible
+ * (node aplikasi tanpa state).
+ */
+public interface StorageBackend {
+
+    /**
+     * Simpan isi stream sebagai key, menggantikan isi lama secara atomik:
+     * pembaca melihat objek lama utuh atau objek baru utuh. length -1 jika
+     * ukuran belum diketahui. Stream tidak ditutup.
+     */
+    void put(String key, InputStream data, long length, String contentType) throws IOException;
+
+    /**
+     * Baca length byte mulai offset (length -1 = sampai akhir); null jika key
+     * tidak ada. Pemanggil wajib menutup stream.
+     */
+    InputStream get(String key, long offset, long length) throws IOException;
+
+    default InputStream get(String key) throws IOException {
+        return get(key, 0, -1);
+    }
+
+    // null jika key tidak ada
+    StorageObject stat(String key) throws IOException;
+
+    // true jika ada objek yang dihapus
+    boolean delete(String key) throws IOException;
+
+    // Pindahkan objek (misalnya ke prefix karantina); waktu ubah tujuan = saat dipindah. false jika sumber tidak ada
+    boolean move(String fromKey, String toKey) throws IOException;
+
+    // Semua objek dengan prefix tertentu, dikirim satu per satu tanpa menahan seluruh daftar di memori
+    void list(String prefix, Consumer<StorageObject> consumer) throws IOException;
+
+    // Key dibaca oleh pengguna (bukan export, resize, atau verifikasi internal); dipakai backend bertingkat
+    default void recordAccess(String key) {
+    }
+}
@@ -0,0 +1,270 @@
+package org.delcom.app.services;
+
+import jakarta.annotation.PreDestroy;
+import org.delcom.app.entities.StorageUsage;
+import org.delcom.app.repositories.StorageUsageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pemakaian penyimpanan per user. Total di memori diperbarui atomik (CAS) saat
+ * reservasi sehingga dua upload bersamaan tidak bisa sama-sama lolos kuota;
+ * perubahan dikumpulkan di LongAdder dan di-flush ke database sebagai delta.
+ * Dengan beberapa node, total di memori dimuat ulang dari database berkala, jadi
+ * pemakaian node lain ikut terhitung dengan jeda paling lama flush + refresh interval.
+ * Reservasi yang belum menjadi file yang dirujuk foto (upload yang sedang berjalan, sesi
+ * upload bertahap) dicatat terpisah sampai dikonfirmasi, supaya rekonsiliasi tidak
+ * menghapusnya lalu release mengurangkannya dua kali.
+ */
+@Service
+public class StorageQuotaService {
+    private static final Logger log = LoggerFactory.getLogger(StorageQuotaService.class);
+
+    private final StorageUsageRepository storageUsageRepository;
+    private final FileStorageService fileStorageService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long quotaBytes;
+
+    private final Map<UUID, Usage> usages = new ConcurrentHashMap<>();
+
+    public StorageQuotaService(StorageUsageRepository storageUsageRepository,
+                               FileStorageService fileStorageService,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.storage.quota-bytes:1073741824}") long quotaBytes) {
+        this.storageUsageRepository = storageUsageRepository;
+        this.fileStorageService = fileStorageService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.quotaBytes = quotaBytes;
+    }
+
+    public long getQuotaBytes() {
+        return quotaBytes;
+    }
+
+    public long getUsedBytes(UUID userId) {
+        return usage(userId).used.get();
+    }
+
+    /**
+     * Catat bytes (boleh negatif, misalnya saat file diganti dengan yang lebih kecil)
+     * jika total tetap dalam kuota. Dipanggil sebelum file ditulis; jika penulisan
+     * gagal, pemanggil wajib memanggil release, dan setelah filename tersimpan di foto,
+     * confirm.
+     */
+    public boolean tryReserve(UUID userId, long bytes) {
+        Usage usage = usage(userId);
+        while (true) {
+            long current = usage.used.get();
+            long next = current + bytes;
+            if (bytes > 0 && quotaBytes > 0 && next > quotaBytes) {
+                return false;
+            }
+            if (usage.used.compareAndSet(current, next)) {
+                usage.unflushed.add(bytes);
+                usage.outstanding.add(bytes);
+                return true;
+            }
+        }
+    }
+
+    // Kembalikan reservasi yang tidak jadi dipakai
+    public void release(UUID userId, long bytes) {
+        adjust(userId, -bytes);
+        usage(userId).outstanding.add(-bytes);
+    }
+
+    // Reservasi sudah menjadi file yang dirujuk foto, jadi mulai terhitung oleh rekonsiliasi
+    public void confirm(UUID userId, long bytes) {
+        usage(userId).outstanding.add(-bytes);
+    }
+
+    // Reservasi yang belum dikonfirmasi atau dikembalikan
+    public long getOutstandingBytes(UUID userId) {
+        Usage usage = usages.get(userId);
+        return usage == null ? 0 : usage.outstanding.sum();
+    }
+
+    // Hapus file milik user dan kurangi pemakaiannya sebesar ukuran file yang benar-benar terhapus
+    public boolean deleteFile(UUID userId, String filename) {
+        long size = fileStorageService.fileSize(filename);
+        boolean deleted = fileStorageService.deleteFile(filename);
+        if (deleted) {
+            // File yang dirujuk foto, bukan reservasi: hanya totalnya yang berkurang
+            adjust(userId, -size);
+        }
+        return deleted;
+    }
+
+    @Scheduled(fixedDelayString = "${app.storage.flush-interval:PT10S}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    // Disinkronkan dengan refresh: selama flush delta sudah ada di database tapi belum dikurangi dari unflushed
+    @PreDestroy
+    public synchronized void flush() {
+        usages.forEach((userId, usage) -> {
+            long delta = usage.unflushed.sum();
+            if (delta == 0) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> storageUsageRepository.addBytes(userId, delta));
+                // Dikurangi setelah tersimpan; perubahan yang masuk selama flush tetap tersisa untuk flush berikutnya
+                usage.unflushed.add(-delta);
+            } catch (RuntimeException e) {
+                log.error("Gagal menyimpan pemakaian storage user {}: {}", userId, e.getMessage());
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.storage.refresh-interval:PT30S}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.error("Gagal memuat ulang pemakaian storage: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Muat ulang total user yang ada di memori dari database (termasuk flush node lain),
+     * ditambah delta node ini yang belum di-flush.
+     */
+    public synchronized void refresh() {
+        Map<UUID, Long> stored = new HashMap<>();
+        for (StorageUsage row : storageUsageRepository.findAllById(usages.keySet())) {
+            stored.put(row.getUserId(), row.getBytes());
+        }
+        usages.forEach((userId, usage) -> {
+            long base = stored.getOrDefault(userId, 0L);
+            while (true) {
+                long current = usage.used.get();
+                if (usage.used.compareAndSet(current, base + usage.unflushed.sum())) {
+                    break;
+                }
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        reconcile();
+    }
+
+    @Scheduled(cron = "${app.storage.reconcile-cron:0 30 4 * * *}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Hitung ulang pemakaian dari folder upload (ukuran file yang dirujuk foto
+     * milik user) lalu tulis totalnya apa adanya ke database, bukan sebagai delta:
+     * rekonsiliasi yang jalan di beberapa node sekaligus tidak mengoreksi dua kali.
+     * Upload yang terjadi selama scan bisa menyisakan selisih kecil; selisih itu
+     * dikoreksi pada rekonsiliasi berikutnya. Reservasi yang masih terbuka di node ini
+     * ditambahkan ke hasil scan; reservasi node lain tidak terlihat di sini, jadi
+     * rekonsiliasi terjadwal sebaiknya hanya aktif di satu node. Mengembalikan jumlah
+     * user yang dikoreksi.
+     */
+    public int reconcile() {
+        Map<String, Long> sizes;
+        try {
+            sizes = scanUploadDir();
+        } catch (IOException e) {
+            log.error("Gagal membaca folder upload untuk rekonsiliasi: {}", e.getMessage());
+            return 0;
+        }
+
+        // Foto yang menunggu purge ikut dihitung: filenya baru dihapus (dan kuotanya dilepas) oleh PhotoPurgeService
+        Map<UUID, Long> actual = new HashMap<>();
+        jdbcTemplate.query("SELECT p.user_id, p.filename FROM photos p WHERE p.filename IS NOT NULL",
+                (ResultSet rs) -> {
+                    Long size = sizes.get(rs.getString(2));
+                    if (size != null) {
+                        actual.merge(rs.getObject(1, UUID.class), size, Long::sum);
+                    }
+                });
+
+        // Delta node ini disimpan dulu supaya total di database sebanding dengan hasil scan
+        flush();
+        Map<UUID, Long> stored = new HashMap<>();
+        for (StorageUsage row : storageUsageRepository.findAll()) {
+            stored.put(row.getUserId(), row.getBytes());
+        }
+        Set<UUID> userIds = new HashSet<>(actual.keySet());
+        userIds.addAll(stored.keySet());
+        userIds.addAll(usages.keySet());
+
+        int corrected = 0;
+        for (UUID userId : userIds) {
+            long bytes = actual.getOrDefault(userId, 0L) + getOutstandingBytes(userId);
+            if (bytes != stored.getOrDefault(userId, 0L)) {
+                transactionTemplate.executeWithoutResult(status -> storageUsageRepository.setBytes(userId, bytes));
+                corrected++;
+            }
+        }
+        refresh();
+        log.info("Rekonsiliasi storage: {} user dikoreksi", corrected);
+        return corrected;
+    }
+
+    private Map<String, Long> scanUploadDir() throws IOException {
+        Map<String, Long> sizes = new HashMap<>();
+        fileStorageService.listFiles("", object -> sizes.put(object.key(), object.size()));
+        return sizes;
+    }
+
+    private void adjust(UUID userId, long bytes) {
+        Usage usage = usage(userId);
+        usage.used.addAndGet(bytes);
+        usage.unflushed.add(bytes);
+    }
+
+    // Nilai awal dibaca dari database sekali per user; query dilakukan di luar map agar tidak menahan lock
+    private Usage usage(UUID userId) {
+        Usage usage = usages.get(userId);
+        if (usage != null) {
+            return usage;
+        }
+        long stored = storageUsageRepository.findById(userId).map(StorageUsage::getBytes).orElse(0L);
+        Usage loaded = new Usage(stored);
+        Usage existing = usages.putIfAbsent(userId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private static final class Usage {
+        // Total termasuk perubahan yang belum di-flush; dipakai untuk cek kuota
+        final AtomicLong used;
+        // Delta yang belum tersimpan di database
+        final LongAdder unflushed = new LongAdder();
+        // Reservasi yang belum dikonfirmasi (file belum dirujuk foto) atau dikembalikan
+        final LongAdder outstanding = new LongAdder();
+
+        Usage(long stored) {
+            this.used = new AtomicLong(stored);
+        }
+    }
+}
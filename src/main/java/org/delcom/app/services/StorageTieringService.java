@@ -0,0 +1,166 @@
+package org.delcom.app.services;
+
+import org.delcom.app.dto.StorageObject;
+import org.delcom.app.dto.TieringReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Memindahkan file antar tier saat app.storage.backend=tiered: file cold yang
+ * terus dibaca dipromosikan ke hot, file hot yang sudah tua dan jarang dibaca
+ * diturunkan ke cold. Dua ambang berbeda (promote jauh di atas demote) mencegah
+ * file bolak-balik di setiap putaran.
+ */
+@Service
+public class StorageTieringService {
+    private static final Logger log = LoggerFactory.getLogger(StorageTieringService.class);
+
+    private final TieredStorageBackend backend;
+    private final Duration minHotAge;
+    private final int promoteMinHits;
+    private final int demoteMaxHits;
+    private final int maxMoves;
+    // Counter frekuensi hanya ada di memori: setelah restart semua file tampak dingin, jadi demote ditunda dulu
+    private final Instant demoteAfter;
+
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    public StorageTieringService(StorageBackend storageBackend,
+                                 @Value("${app.storage.tiering.min-hot-age:P7D}") Duration minHotAge,
+                                 @Value("${app.storage.tiering.promote-min-hits:8}") int promoteMinHits,
+                                 @Value("${app.storage.tiering.demote-max-hits:1}") int demoteMaxHits,
+                                 @Value("${app.storage.tiering.max-moves:500}") int maxMoves,
+                                 @Value("${app.storage.tiering.warmup:PT6H}") Duration warmup) {
+        this.backend = storageBackend instanceof TieredStorageBackend tiered ? tiered : null;
+        this.minHotAge = minHotAge;
+        this.promoteMinHits = promoteMinHits;
+        this.demoteMaxHits = demoteMaxHits;
+        this.maxMoves = Math.max(1, maxMoves);
+        this.demoteAfter = Instant.now().plus(warmup);
+    }
+
+    @Scheduled(fixedDelayString = "${app.storage.tiering.interval:PT15M}",
+            initialDelayString = "${app.storage.tiering.interval:PT15M}")
+    public void scheduledRebalance() {
+        if (backend == null) {
+            return;
+        }
+        try {
+            rebalance();
+        } catch (RuntimeException e) {
+            log.error("Gagal memindahkan file antar tier: {}", e.getMessage());
+        }
+    }
+
+    // null jika backend bukan tiered atau putaran lain sedang berjalan
+    public TieringReport rebalance() {
+        if (backend == null || !runLock.tryLock()) {
+            return null;
+        }
+        try {
+            return run();
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    private TieringReport run() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        long[] promoted = new long[2];
+        long[] demoted = new long[2];
+        long failed = 0;
+
+        // Yang paling sering dibaca didahulukan jika kandidat melebihi max-moves
+        for (StorageObject object : promoteCandidates()) {
+            failed += move(object, true, promoted);
+        }
+        if (!Instant.now().isBefore(demoteAfter)) {
+            for (StorageObject object : demoteCandidates()) {
+                failed += move(object, false, demoted);
+            }
+        }
+
+        TieringReport report = new TieringReport(startedAt, (System.nanoTime() - start) / 1_000_000,
+                promoted[0], promoted[1], demoted[0], demoted[1], failed);
+        if (promoted[0] + demoted[0] + failed > 0) {
+            log.info("Tiering storage: {} file naik ke hot, {} file turun ke cold, {} gagal",
+                    promoted[0], demoted[0], failed);
+        }
+        return report;
+    }
+
+    private List<StorageObject> promoteCandidates() {
+        // Frekuensi dibekukan saat dipindai; sketch bisa berubah selama antrean disusun
+        PriorityQueue<Ranked> top = new PriorityQueue<>(Comparator.comparingInt(Ranked::frequency));
+        list(TieredStorageBackend.Tier.COLD, object -> {
+            int frequency = backend.frequency(object.key());
+            if (frequency >= promoteMinHits) {
+                top.add(new Ranked(object, frequency));
+                if (top.size() > maxMoves) {
+                    top.poll();
+                }
+            }
+        });
+        return top.stream()
+                .sorted(Comparator.comparingInt(Ranked::frequency).reversed())
+                .map(Ranked::object)
+                .toList();
+    }
+
+    private List<StorageObject> demoteCandidates() {
+        Instant cutoff = Instant.now().minus(minHotAge);
+        List<StorageObject> candidates = new ArrayList<>();
+        list(TieredStorageBackend.Tier.HOT, object -> {
+            if (candidates.size() < maxMoves && object.lastModified().isBefore(cutoff)
+                    && backend.frequency(object.key()) <= demoteMaxHits) {
+                candidates.add(object);
+            }
+        });
+        return candidates;
+    }
+
+    // Hanya file gambar yang dilayani; file sementara dan karantina tetap di tempatnya
+    private void list(TieredStorageBackend.Tier tier, Consumer<StorageObject> consumer) {
+        try {
+            backend.list(tier, object -> {
+                if (FileStorageService.isServableName(object.key())) {
+                    consumer.accept(object);
+                }
+            });
+        } catch (IOException e) {
+            log.error("Gagal membaca tier {}: {}", tier, e.getMessage());
+        }
+    }
+
+    // Mengembalikan 1 jika gagal; totals = {jumlah file, byte}
+    private int move(StorageObject object, boolean promote, long[] totals) {
+        try {
+            if (promote ? backend.promote(object.key()) : backend.demote(object.key())) {
+                totals[0]++;
+                totals[1] += object.size();
+            }
+            return 0;
+        } catch (IOException e) {
+            log.warn("File {} gagal dipindah ke {}: {}", object.key(), promote ? "hot" : "cold", e.getMessage());
+            return 1;
+        }
+    }
+
+    private record Ranked(StorageObject object, int frequency) {
+    }
+}
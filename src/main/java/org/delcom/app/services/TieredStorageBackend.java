@@ -0,0 +1,185 @@
+package org.delcom.app.services;
+
+import org.delcom.app.dto.StorageObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Dua folder lokal (bisa di mount berbeda): hot untuk upload baru dan file yang
+ * sering dibaca, cold untuk sisanya. Pembacaan mencari di hot dulu lalu cold,
+ * jadi pemanggil tidak perlu tahu letak file. Frekuensi akses pengguna (recordAccess,
+ * bukan setiap get: export dan resize membaca seluruh portofolio) dicatat di
+ * FrequencySketch; pemindahan antar tier dijalankan StorageTieringService.
+ */
+public class TieredStorageBackend implements StorageBackend {
+    public enum Tier { HOT, COLD }
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final LocalStorageBackend hot;
+    private final LocalStorageBackend cold;
+    private final FrequencySketch sketch;
+
+    // Penulisan dan pemindahan key yang sama diserialkan, supaya pemindahan tidak menghapus isi yang baru ditulis
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public TieredStorageBackend(LocalStorageBackend hot, LocalStorageBackend cold, int sketchWidth) {
+        this.hot = hot;
+        this.cold = cold;
+        this.sketch = new FrequencySketch(sketchWidth);
+    }
+
+    // Upload baru selalu masuk hot; salinan lama di cold dibuang setelah isi baru utuh
+    @Override
+    public void put(String key, InputStream data, long length, String contentType) throws IOException {
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            hot.put(key, data, length, contentType);
+            cold.delete(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Urutan hot, cold, lalu hot lagi: file yang sedang dipromosikan bisa sudah
+     * hilang dari cold tepat setelah hot dicek. Salinan tujuan selalu ditulis
+     * sebelum sumber dihapus, jadi salah satu dari tiga pembacaan pasti kena.
+     */
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        InputStream in = hot.get(key, offset, length);
+        if (in == null) {
+            in = cold.get(key, offset, length);
+        }
+        return in != null ? in : hot.get(key, offset, length);
+    }
+
+    @Override
+    public StorageObject stat(String key) throws IOException {
+        StorageObject object = hot.stat(key);
+        if (object == null) {
+            object = cold.stat(key);
+        }
+        return object != null ? object : hot.stat(key);
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            boolean deletedHot = hot.delete(key);
+            boolean deletedCold = cold.delete(key);
+            return deletedHot || deletedCold;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Dipindah di dalam tier tempat file berada (misalnya ke prefix karantina)
+    @Override
+    public boolean move(String fromKey, String toKey) throws IOException {
+        ReentrantLock lock = lockFor(fromKey);
+        lock.lock();
+        try {
+            if (hot.move(fromKey, toKey)) {
+                cold.delete(toKey);
+                return true;
+            }
+            if (cold.move(fromKey, toKey)) {
+                hot.delete(toKey);
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Key yang sedang dipindah bisa ada di dua tier sekaligus; hanya dikirim sekali
+    @Override
+    public void list(String prefix, Consumer<StorageObject> consumer) throws IOException {
+        Set<String> seen = new HashSet<>();
+        hot.list(prefix, object -> {
+            seen.add(object.key());
+            consumer.accept(object);
+        });
+        cold.list(prefix, object -> {
+            if (!seen.contains(object.key())) {
+                consumer.accept(object);
+            }
+        });
+    }
+
+    @Override
+    public void recordAccess(String key) {
+        sketch.increment(key);
+    }
+
+    public void list(Tier tier, Consumer<StorageObject> consumer) throws IOException {
+        (tier == Tier.HOT ? hot : cold).list("", consumer);
+    }
+
+    // Perkiraan jumlah baca yang masih "segar" (counter menua berkala)
+    public int frequency(String key) {
+        return sketch.estimate(key);
+    }
+
+    public boolean promote(String key) throws IOException {
+        return migrate(key, cold, hot);
+    }
+
+    public boolean demote(String key) throws IOException {
+        return migrate(key, hot, cold);
+    }
+
+    /**
+     * Salin ke tier tujuan lalu hapus dari sumber. Copy biasa (bukan rename)
+     * karena kedua folder bisa ada di filesystem berbeda; waktu ubah asli
+     * dipertahankan supaya ETag dan cache varian gambar tidak berubah.
+     */
+    private boolean migrate(String key, LocalStorageBackend source, LocalStorageBackend target) throws IOException {
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            StorageObject object = source.stat(key);
+            if (object == null) {
+                return false;
+            }
+            try (InputStream in = source.get(key)) {
+                if (in == null) {
+                    return false;
+                }
+                target.put(key, in, object.size(), null);
+            }
+            target.setLastModified(key, object.lastModified());
+            source.delete(key);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockFor(String key) {
+        int hash = key.hashCode();
+        return locks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    @Override
+    public String toString() {
+        return "TieredStorageBackend[hot=" + hot.getRoot() + ", cold=" + cold.getRoot() + "]";
+    }
+}
@@ -2,6 +2,7 @@ package org.delcom.app.services;
 
 import java.util.UUID;
 
+import org.delcom.app.configs.ReplicaRoutingContext;
 import org.delcom.app.entities.User;
 import org.delcom.app.repositories.UserRepository;
 import org.springframework.stereotype.Service;
@@ -10,9 +11,11 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class UserService {
     private final UserRepository userRepository;
+    private final ReplicaRoutingContext routingContext;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, ReplicaRoutingContext routingContext) {
         this.userRepository = userRepository;
+        this.routingContext = routingContext;
     }
 
     @Transactional
@@ -21,12 +24,16 @@ public class UserService {
         return userRepository.save(user);
     }
 
+    // Login dan cek email terdaftar harus melihat user yang baru saja dibuat, jadi ke primary
+    @Transactional(readOnly = true)
     public User getUserByEmail(String email) {
-        return userRepository.findFirstByEmail(email).orElse(null);
+        return routingContext.onPrimary(() -> userRepository.findFirstByEmail(email).orElse(null));
     }
 
+    // Dipakai AuthInterceptor sebelum user terikat ke thread (belum ada jendela sticky)
+    @Transactional(readOnly = true)
     public User getUserById(UUID id) {
-        return userRepository.findById(id).orElse(null);
+        return routingContext.onPrimary(() -> userRepository.findById(id).orElse(null));
     }
 
     @Transactional
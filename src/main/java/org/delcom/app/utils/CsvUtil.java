@@ -0,0 +1,88 @@
+package org.delcom.app.utils;
+
+import java.io.IOException;
+import java.io.BufferedReader;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CsvUtil {
+    public static final char SEPARATOR = ',';
+    public static final char QUOTE = '"';
+
+    // Bungkus nilai dengan tanda kutip jika mengandung separator, kutip, atau baris baru
+    public static String escape(Object value) {
+        if (value == null) {
+            return "";
+        }
+
+        String text = value.toString();
+        boolean needsQuote = text.indexOf(SEPARATOR) >= 0
+                || text.indexOf(QUOTE) >= 0
+                || text.indexOf('\n') >= 0
+                || text.indexOf('\r') >= 0;
+        if (!needsQuote) {
+            return text;
+        }
+        return QUOTE + text.replace("\"", "\"\"") + QUOTE;
+    }
+
+    // Gabungkan beberapa nilai menjadi satu baris CSV (diakhiri newline)
+    public static String row(Object... values) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                builder.append(SEPARATOR);
+            }
+            builder.append(escape(values[i]));
+        }
+        return builder.append('\n').toString();
+    }
+
+    // Baca satu record CSV (mendukung kutip dan baris baru di dalam kutip).
+    // Mengembalikan null jika sudah mencapai akhir stream.
+    public static List<String> readRecord(BufferedReader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        boolean sawAny = false;
+
+        int c;
+        while ((c = reader.read()) != -1) {
+            sawAny = true;
+            char ch = (char) c;
+
+            if (inQuotes) {
+                if (ch == QUOTE) {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == QUOTE) {
+                        field.append(QUOTE);
+                    } else {
+                        inQuotes = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == QUOTE) {
+                inQuotes = true;
+            } else if (ch == SEPARATOR) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (ch == '\n') {
+                fields.add(field.toString());
+                return fields;
+            } else if (ch != '\r') {
+                field.append(ch);
+            }
+        }
+
+        if (!sawAny) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,31 @@
+package org.delcom.app.utils;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.nio.charset.StandardCharsets;
+
+public class EtagUtil {
+
+    // Weak ETag dari gabungan beberapa nilai (representasi JSON boleh beda spasi)
+    public static String weak(Object... parts) {
+        StringBuilder builder = new StringBuilder();
+        for (Object part : parts) {
+            builder.append(part).append('|');
+        }
+        String hash = DigestUtils.md5DigestAsHex(builder.toString().getBytes(StandardCharsets.UTF_8));
+        return "W/\"" + hash + "\"";
+    }
+
+    /**
+     * Conditional GET untuk halaman HTML milik user. Cache-Control di-set sendiri karena
+     * default Spring Security (no-store) membuat browser tidak pernah mengirim If-None-Match.
+     */
+    public static boolean checkNotModified(ServletWebRequest request, String etag, long lastModifiedMillis) {
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        }
+        return request.checkNotModified(etag, lastModifiedMillis);
+    }
+}
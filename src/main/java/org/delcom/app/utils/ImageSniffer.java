@@ -0,0 +1,157 @@
+package org.delcom.app.utils;
+
+import org.delcom.app.dto.ImageInfo;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+
+public class ImageSniffer {
+    public static final String JPEG = "jpeg";
+    public static final String PNG = "png";
+    public static final String GIF = "gif";
+    public static final String WEBP = "webp";
+
+    // Header PNG (IHDR), GIF, dan WebP (VP8/VP8L/VP8X) selalu berada di 30 byte pertama
+    static final int HEAD_BYTES = 32;
+
+    /**
+     * Kenali format dari magic bytes lalu baca dimensi dari header; null jika bukan gambar
+     * yang didukung. Segmen JPEG ditelusuri dengan melompati isinya sehingga SOF yang
+     * berada setelah APP besar (EXIF, ICC, XMP) tetap ditemukan. Membaca paling banyak
+     * maxBytes dari stream; pemanggil yang perlu mengulang stream memasang mark sendiri.
+     */
+    public static ImageInfo sniff(InputStream in, long maxBytes) throws IOException {
+        byte[] header = new byte[HEAD_BYTES];
+        int length = in.readNBytes(header, 0, HEAD_BYTES);
+
+        if (startsWith(header, length, 0xFF, 0xD8, 0xFF)) {
+            // Lanjutkan tepat setelah SOI: sisa head dulu, lalu stream. Batas dikurangi SOI dan
+            // beberapa byte yang dibaca setelah cek batas (marker, panjang, field SOF)
+            InputStream rest = new SequenceInputStream(new ByteArrayInputStream(header, 2, length - 2), in);
+            return jpeg(rest, maxBytes - 16);
+        }
+        if (startsWith(header, length, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            // Chunk pertama wajib IHDR: lebar dan tinggi big-endian di offset 16 dan 20
+            if (length < 24 || !ascii(header, 12, "IHDR")) {
+                return new ImageInfo(PNG, -1, -1);
+            }
+            return new ImageInfo(PNG, int32be(header, 16), int32be(header, 20));
+        }
+        if (length >= 10 && (ascii(header, 0, "GIF87a") || ascii(header, 0, "GIF89a"))) {
+            return new ImageInfo(GIF, uint16le(header, 6), uint16le(header, 8));
+        }
+        if (length >= 12 && ascii(header, 0, "RIFF") && ascii(header, 8, "WEBP")) {
+            return webp(header, length);
+        }
+        return null;
+    }
+
+    // Telusuri segmen JPEG (marker + panjang, isi dilewati) sampai marker SOFn yang memuat dimensi frame
+    private static ImageInfo jpeg(InputStream in, long limit) throws IOException {
+        long position = 0;
+        while (position < limit) {
+            if (in.read() != 0xFF) {
+                break;
+            }
+            int marker = in.read();
+            position += 2;
+            while (marker == 0xFF && position < limit) {
+                // Byte pengisi
+                marker = in.read();
+                position++;
+            }
+            if (marker < 0 || position >= limit) {
+                break;
+            }
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD8)) {
+                continue;
+            }
+
+            byte[] field = in.readNBytes(2);
+            if (field.length < 2) {
+                break;
+            }
+            int segmentLength = uint16be(field, 0);
+            position += 2;
+            boolean startOfFrame = marker >= 0xC0 && marker <= 0xCF
+                    && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+            if (startOfFrame) {
+                // presisi (1), tinggi (2), lebar (2)
+                byte[] frame = in.readNBytes(5);
+                if (frame.length < 5) {
+                    break;
+                }
+                return new ImageInfo(JPEG, uint16be(frame, 3), uint16be(frame, 1));
+            }
+            if (marker == 0xDA || segmentLength < 2 || position + segmentLength - 2 >= limit) {
+                break;
+            }
+            try {
+                in.skipNBytes(segmentLength - 2);
+            } catch (EOFException e) {
+                break;
+            }
+            position += segmentLength - 2;
+        }
+        return new ImageInfo(JPEG, -1, -1);
+    }
+
+    private static ImageInfo webp(byte[] header, int length) {
+        if (length >= 30 && ascii(header, 12, "VP8X")) {
+            return new ImageInfo(WEBP, 1 + uint24le(header, 24), 1 + uint24le(header, 27));
+        }
+        if (length >= 25 && ascii(header, 12, "VP8L")) {
+            int b1 = header[22] & 0xFF;
+            int b2 = header[23] & 0xFF;
+            int b3 = header[24] & 0xFF;
+            int width = 1 + (((b1 & 0x3F) << 8) | (header[21] & 0xFF));
+            int height = 1 + (((b3 & 0x0F) << 10) | (b2 << 2) | ((b1 & 0xC0) >> 6));
+            return new ImageInfo(WEBP, width, height);
+        }
+        if (length >= 30 && ascii(header, 12, "VP8 ")) {
+            return new ImageInfo(WEBP, uint16le(header, 26) & 0x3FFF, uint16le(header, 28) & 0x3FFF);
+        }
+        return new ImageInfo(WEBP, -1, -1);
+    }
+
+    private static boolean startsWith(byte[] data, int length, int... prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((data[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean ascii(byte[] data, int offset, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (data[offset + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int uint16be(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+    }
+
+    private static int uint16le(byte[] data, int offset) {
+        return (data[offset] & 0xFF) | ((data[offset + 1] & 0xFF) << 8);
+    }
+
+    private static int uint24le(byte[] data, int offset) {
+        return uint16le(data, offset) | ((data[offset + 2] & 0xFF) << 16);
+    }
+
+    // Nilai di atas Integer.MAX_VALUE menjadi negatif dan ditolak sebagai dimensi tidak valid
+    private static int int32be(byte[] data, int offset) {
+        return (uint16be(data, offset) << 16) | uint16be(data, offset + 2);
+    }
+}
@@ -0,0 +1,24 @@
+package org.delcom.app.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+public class MoneyUtil {
+    // Harga disimpan sebagai long dalam satuan terkecil (sen), 2 digit desimal
+    public static final int SCALE = 2;
+    public static final String DEFAULT_CURRENCY = "IDR";
+    // Harga tertinggi yang lolos validasi form/API (15 digit + 2 desimal), dalam sen
+    public static final long MAX_MINOR = 99_999_999_999_999_999L;
+
+    // Nominal -> satuan terkecil; pecahan di bawah 1 sen dibulatkan HALF_UP
+    public static long toMinor(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toMajor(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+}
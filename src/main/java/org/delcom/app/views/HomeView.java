@@ -1,20 +1,21 @@
 package org.delcom.app.views;
 
-import org.delcom.app.entities.Photo;
+import org.delcom.app.dto.PortfolioStats;
+import org.delcom.app.entities.PortfolioVersion;
 import org.delcom.app.entities.User;
 import org.delcom.app.services.PhotoService;
 import org.delcom.app.services.UserService;
 import org.delcom.app.utils.ConstUtil;
+import org.delcom.app.utils.EtagUtil;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.math.BigDecimal;
-import java.util.Collections;
-import java.util.List;
-import java.util.Objects;
+import java.time.ZoneId;
 
 @Controller
 public class HomeView {
@@ -28,7 +29,7 @@ public class HomeView {
     }
 
     @GetMapping("/")
-    public String home(Model model) {
+    public String home(Model model, ServletWebRequest webRequest) {
         // 1. Ambil Authentication dari Context Holder (Lebih aman daripada Principal)
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         User user = null;
@@ -37,6 +38,16 @@ public class HomeView {
         if (auth != null && auth.getPrincipal() instanceof User) {
             // Casting langsung dari sesi (tidak perlu query DB by email lagi)
             user = (User) auth.getPrincipal(); 
+
+            // Dashboard hanya bergantung pada portofolio user: jika versinya sama, kirim 304
+            // sebelum query user, query statistik dan render template
+            PortfolioVersion version = photoService.getPortfolioVersion(user.getId());
+            long lastModified = version.getUpdatedAt() == null ? -1
+                    : version.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            String etag = EtagUtil.weak(user.getId(), version.getVersion(), webRequest.getSessionId(), "home");
+            if (EtagUtil.checkNotModified(webRequest, etag, lastModified)) {
+                return null;
+            }
             
             // Refresh data user dari DB untuk memastikan data terbaru (opsional tapi disarankan)
             user = userService.getUserById(user.getId());
@@ -46,32 +57,13 @@ public class HomeView {
         model.addAttribute("user", user);
 
         if (user != null) {
-            // 2. Ambil semua foto
-            List<Photo> photos = photoService.getAllPhotos(user.getId());
-            
-            // Jaga-jaga jika photos null (walaupun repository biasanya return empty list)
-            if (photos == null) {
-                photos = Collections.emptyList();
-            }
-
-            // 3. Hitung Statistik
-            int totalPhotos = photos.size();
-
-            long totalCategories = photos.stream()
-                    .map(Photo::getCategory)
-                    .filter(Objects::nonNull) // Hindari null category
-                    .distinct()
-                    .count();
-
-            BigDecimal totalPortfolioValue = photos.stream()
-                    .map(Photo::getPrice)
-                    .filter(Objects::nonNull) // PENTING: Filter harga yang null agar tidak Error 500
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            // 2. Statistik dihitung oleh satu query agregat; baris foto tidak dimuat sama sekali
+            PortfolioStats stats = photoService.getPortfolioStats(user.getId());
 
-            // 4. Masukkan ke Model
-            model.addAttribute("totalPhotos", totalPhotos);
-            model.addAttribute("totalCategories", totalCategories);
-            model.addAttribute("totalPortfolioValue", totalPortfolioValue);
+            // 3. Masukkan ke Model
+            model.addAttribute("totalPhotos", stats.photos());
+            model.addAttribute("totalCategories", stats.categories());
+            model.addAttribute("totalPortfolioValue", stats.value());
         } else {
             // Default value jika user belum login/sesi habis
             model.addAttribute("totalPhotos", 0);
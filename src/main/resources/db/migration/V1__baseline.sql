@@ -0,0 +1,33 @@
+-- Skema awal, sama dengan yang sebelumnya dibuat Hibernate ddl-auto=update.
+-- Database lama di-baseline pada versi ini sehingga skrip ini hanya jalan di database kosong.
+
+CREATE TABLE IF NOT EXISTS users (
+    id         UUID         NOT NULL PRIMARY KEY,
+    name       VARCHAR(255) NOT NULL,
+    email      VARCHAR(255) NOT NULL,
+    password   VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS auth_tokens (
+    id         UUID         NOT NULL PRIMARY KEY,
+    token      TEXT         NOT NULL,
+    user_id    UUID         NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS photos (
+    id          UUID           NOT NULL PRIMARY KEY,
+    user_id     UUID           NOT NULL,
+    title       VARCHAR(255)   NOT NULL,
+    category    VARCHAR(255)   NOT NULL,
+    description TEXT,
+    price       NUMERIC(38, 2) NOT NULL,
+    filename    VARCHAR(255),
+    created_at  TIMESTAMP(6)   NOT NULL,
+    updated_at  TIMESTAMP(6)   NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_photos_user_created ON photos (user_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_photos_user_updated ON photos (user_id, updated_at, id);
@@ -0,0 +1,15 @@
+-- Harga disimpan sebagai BIGINT satuan terkecil (sen) + kode mata uang ISO 4217.
+-- SUM/filter/urut harga berjalan di atas integer 64-bit, bukan NUMERIC.
+
+ALTER TABLE photos ADD COLUMN price_minor BIGINT;
+ALTER TABLE photos ADD COLUMN currency CHAR(3) NOT NULL DEFAULT 'IDR';
+
+-- Backfill dari kolom lama; pecahan di bawah satu sen dibulatkan
+UPDATE photos SET price_minor = ROUND(price * 100)::BIGINT;
+
+ALTER TABLE photos ALTER COLUMN price_minor SET NOT NULL;
+ALTER TABLE photos ADD CONSTRAINT chk_photos_price_minor_non_negative CHECK (price_minor >= 0);
+ALTER TABLE photos DROP COLUMN price;
+
+-- Range scan untuk filter dan histogram harga per user
+CREATE INDEX idx_photos_user_price ON photos (user_id, price_minor);
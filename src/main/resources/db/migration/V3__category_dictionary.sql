@@ -0,0 +1,36 @@
+-- Kategori dinormalisasi ke tabel kamus global dengan id integer.
+-- photos.category (teks bebas) diganti category_id sehingga group by, filter dan index memakai key 4 byte.
+
+CREATE TABLE categories (
+    id   INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL
+);
+
+-- Nama unik tanpa membedakan huruf besar/kecil ("macro" = "Macro")
+CREATE UNIQUE INDEX uq_categories_name_lower ON categories (lower(name));
+
+-- Pilihan bawaan form + kategori default import
+INSERT INTO categories (name)
+VALUES ('Portrait'), ('Landscape'), ('Street'), ('Macro'), ('Abstract'), ('Architecture'), ('Imported');
+
+UPDATE photos SET category = 'Imported' WHERE btrim(category) = '';
+
+-- Kategori bebas yang sudah ada; ejaan pertama (urut abjad) dipakai sebagai nama kanonik
+INSERT INTO categories (name)
+SELECT DISTINCT ON (lower(btrim(category))) btrim(category)
+FROM photos
+ORDER BY lower(btrim(category)), btrim(category)
+ON CONFLICT (lower(name)) DO NOTHING;
+
+ALTER TABLE photos ADD COLUMN category_id INTEGER;
+
+UPDATE photos p
+SET category_id = c.id
+FROM categories c
+WHERE lower(c.name) = lower(btrim(p.category));
+
+ALTER TABLE photos ALTER COLUMN category_id SET NOT NULL;
+ALTER TABLE photos ADD CONSTRAINT fk_photos_category FOREIGN KEY (category_id) REFERENCES categories (id);
+ALTER TABLE photos DROP COLUMN category;
+
+CREATE INDEX idx_photos_user_category ON photos (user_id, category_id, created_at, id);
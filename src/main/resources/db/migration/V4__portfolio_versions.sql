@@ -0,0 +1,14 @@
+-- Versi portofolio per user untuk conditional GET halaman galeri/detail/home.
+-- Tabel terpisah dari users supaya bump versi tidak mengubah baris (dan cache) user.
+
+CREATE TABLE portfolio_versions (
+    user_id    UUID PRIMARY KEY REFERENCES users (id) ON DELETE CASCADE,
+    version    BIGINT    NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+INSERT INTO portfolio_versions (user_id, version, updated_at)
+SELECT u.id, 1, COALESCE(MAX(p.updated_at), now())
+FROM users u
+LEFT JOIN photos p ON p.user_id = u.id
+GROUP BY u.id;
@@ -0,0 +1,86 @@
+-- photos dipartisi per bulan (RANGE created_at). Vacuum dan index maintenance berjalan per partisi,
+-- dan query yang membatasi created_at (timeline, analitik, keyset galeri) hanya menyentuh partisi terkait.
+-- Migrasi menyalin tabel lama dalam satu transaksi; untuk tabel sangat besar jalankan pada jendela maintenance.
+
+-- 1. Tabel lama disingkirkan; nama index (termasuk primary key) harus unik per schema.
+-- Index di bawah hanya ada jika dibuat oleh @Index/ddl-auto; database yang di-baseline di V1 belum tentu punya
+ALTER TABLE photos RENAME TO photos_legacy;
+ALTER TABLE photos_legacy RENAME CONSTRAINT photos_pkey TO photos_legacy_pkey;
+DROP INDEX IF EXISTS idx_photos_user_created;
+DROP INDEX IF EXISTS idx_photos_user_updated;
+DROP INDEX IF EXISTS idx_photos_user_price;
+DROP INDEX IF EXISTS idx_photos_user_category;
+
+-- 2. Tabel induk. Primary key wajib memuat kolom partisi, jadi keunikan id saja tidak lagi dijaga database;
+-- id dibuat aplikasi sebagai UUID v4 acak (import juga tidak memakai id dari manifest) sehingga praktis unik.
+-- Lookup/update berdasarkan id saja tidak ter-prune dan memeriksa index PK setiap partisi (lihat PhotoRepository)
+CREATE TABLE photos (
+    id          UUID         NOT NULL,
+    user_id     UUID         NOT NULL,
+    title       VARCHAR(255) NOT NULL,
+    category_id INTEGER      NOT NULL,
+    description TEXT,
+    price_minor BIGINT       NOT NULL,
+    currency    CHAR(3)      NOT NULL DEFAULT 'IDR',
+    filename    VARCHAR(255),
+    created_at  TIMESTAMP(6) NOT NULL,
+    updated_at  TIMESTAMP(6) NOT NULL,
+    CONSTRAINT photos_pkey PRIMARY KEY (id, created_at),
+    CONSTRAINT chk_photos_price_minor_non_negative CHECK (price_minor >= 0),
+    CONSTRAINT fk_photos_category FOREIGN KEY (category_id) REFERENCES categories (id)
+) PARTITION BY RANGE (created_at);
+
+-- Penampung baris di luar partisi yang sudah dibuat (mis. jam server melompat jauh ke depan)
+CREATE TABLE photos_default PARTITION OF photos DEFAULT;
+
+-- 3. Pembuat partisi bulanan, dipanggil migrasi ini dan job PhotoPartitionService.
+-- Idempoten; baris yang terlanjur masuk photos_default dipindahkan ke partisi barunya
+CREATE OR REPLACE FUNCTION create_photos_partition(p_month DATE) RETURNS TEXT
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_from TIMESTAMP := date_trunc('month', p_month);
+    v_to   TIMESTAMP := date_trunc('month', p_month) + INTERVAL '1 month';
+    v_name TEXT      := 'photos_' || to_char(v_from, 'YYYY_MM');
+BEGIN
+    -- Beberapa instance aplikasi bisa menjalankan job bersamaan
+    PERFORM pg_advisory_xact_lock(hashtext('create_photos_partition'));
+
+    IF to_regclass(v_name) IS NOT NULL THEN
+        RETURN v_name;
+    END IF;
+
+    CREATE TEMP TABLE photos_partition_moved (LIKE photos) ON COMMIT DROP;
+    WITH moved AS (
+        DELETE FROM photos_default WHERE created_at >= v_from AND created_at < v_to RETURNING *
+    )
+    INSERT INTO photos_partition_moved SELECT * FROM moved;
+
+    EXECUTE format('CREATE TABLE %I PARTITION OF photos FOR VALUES FROM (%L) TO (%L)', v_name, v_from, v_to);
+
+    INSERT INTO photos SELECT * FROM photos_partition_moved;
+    DROP TABLE photos_partition_moved;
+    RETURN v_name;
+END;
+$$;
+
+-- 4. Partisi untuk seluruh rentang data lama + 3 bulan ke depan
+SELECT create_photos_partition(m::DATE)
+FROM generate_series(
+         date_trunc('month', LEAST(COALESCE((SELECT MIN(created_at) FROM photos_legacy), now()), now())),
+         date_trunc('month', now()) + INTERVAL '3 months',
+         INTERVAL '1 month') AS m;
+
+-- 5. Salin data, lalu buang tabel lama
+INSERT INTO photos (id, user_id, title, category_id, description, price_minor, currency, filename, created_at, updated_at)
+SELECT id, user_id, title, category_id, description, price_minor, currency, filename, created_at, updated_at
+FROM photos_legacy;
+
+DROP TABLE photos_legacy;
+
+-- 6. Index di tabel induk otomatis dibuat di setiap partisi (termasuk partisi baru)
+CREATE INDEX idx_photos_user_created ON photos (user_id, created_at, id);
+CREATE INDEX idx_photos_user_updated ON photos (user_id, updated_at, id);
+CREATE INDEX idx_photos_user_price ON photos (user_id, price_minor);
+CREATE INDEX idx_photos_user_category ON photos (user_id, category_id, created_at, id);
+
+ANALYZE photos;
@@ -0,0 +1,3 @@
+-- Kolom version untuk optimistic locking (@Version di entity Photo).
+-- Default 0 mengisi baris lama; ADD COLUMN dengan default konstan tidak menulis ulang tabel.
+ALTER TABLE photos ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
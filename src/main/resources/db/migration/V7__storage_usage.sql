@@ -0,0 +1,9 @@
+-- Total byte file upload per user untuk kuota penyimpanan.
+-- Diisi oleh StorageQuotaService (delta berkala) dan dikoreksi oleh job rekonsiliasi
+-- yang menghitung ulang dari folder upload; baris awal dibuat saat rekonsiliasi pertama.
+
+CREATE TABLE storage_usage (
+    user_id    UUID PRIMARY KEY REFERENCES users (id) ON DELETE CASCADE,
+    bytes      BIGINT    NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT now()
+);
@@ -0,0 +1,7 @@
+-- Soft delete foto: baris ditandai deleted_at dan disembunyikan dari semua query
+-- (@SQLRestriction di entity Photo, filter eksplisit di query native). File dan baris
+-- dihapus permanen oleh PhotoPurgeService setelah jendela undo lewat.
+ALTER TABLE photos ADD COLUMN deleted_at TIMESTAMP;
+
+-- Partial index: hanya baris yang menunggu purge, jadi tetap kecil
+CREATE INDEX idx_photos_deleted_at ON photos (deleted_at) WHERE deleted_at IS NOT NULL;
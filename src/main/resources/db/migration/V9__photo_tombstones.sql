@@ -0,0 +1,13 @@
+-- Jejak foto yang sudah di-purge, untuk feed sinkronisasi (/api/photos/stream).
+-- Foto yang baru di-soft delete masih ada di photos; setelah jendela undo PhotoPurgeService
+-- memindahkan id-nya ke sini dalam statement yang sama dengan DELETE. Baris lebih tua dari
+-- app.photos.tombstone-retention dihapus; client yang lebih lama tidak sinkron harus sinkron penuh.
+
+CREATE TABLE photo_tombstones (
+    id         UUID      PRIMARY KEY,
+    user_id    UUID      NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    deleted_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_photo_tombstones_user_deleted ON photo_tombstones (user_id, deleted_at);
+CREATE INDEX idx_photo_tombstones_deleted ON photo_tombstones (deleted_at);
@@ -0,0 +1,153 @@
+package org.delcom.app.controllers;
+
+import org.delcom.app.configs.ApiResponse;
+import org.delcom.app.configs.AuthContext;
+import org.delcom.app.configs.PoolMetrics;
+import org.delcom.app.configs.QueryMetrics;
+import org.delcom.app.dto.CacheRegionStats;
+import org.delcom.app.dto.ConnectionPoolStats;
+import org.delcom.app.dto.EndpointQueryStats;
+import org.delcom.app.dto.MarketplaceReport;
+import org.delcom.app.dto.OrphanReport;
+import org.delcom.app.entities.User;
+import org.delcom.app.services.CacheStatsService;
+import org.delcom.app.services.MarketplaceReportService;
+import org.delcom.app.services.OrphanFileService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AdminControllerTest {
+
+    private CacheStatsService cacheStatsService;
+    private QueryMetrics queryMetrics;
+    private PoolMetrics poolMetrics;
+    private MarketplaceReportService marketplaceReportService;
+    private OrphanFileService orphanFileService;
+    private AuthContext authContext;
+    private AdminController controller;
+
+    @BeforeEach
+    void setUp() {
+        cacheStatsService = mock(CacheStatsService.class);
+        queryMetrics = mock(QueryMetrics.class);
+        poolMetrics = mock(PoolMetrics.class);
+        marketplaceReportService = mock(MarketplaceReportService.class);
+        orphanFileService = mock(OrphanFileService.class);
+        authContext = mock(AuthContext.class);
+        controller = new AdminController(cacheStatsService, queryMetrics, poolMetrics, marketplaceReportService,
+                orphanFileService, authContext,
+                List.of(" Admin@Example.com ", ""));
+    }
+
+    @Test
+    void testCacheStats_Admin() {
+        when(authContext.getAuthUser()).thenReturn(new User("Admin", "admin@example.com", "secret"));
+        Map<String, List<CacheRegionStats>> stats = Map.of("entity", List.of(CacheRegionStats.of("photo", 1, 1, 1, 1)));
+        when(cacheStatsService.getStats()).thenReturn(stats);
+
+        ResponseEntity<ApiResponse<Map<String, List<CacheRegionStats>>>> response = controller.cacheStats();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(stats, response.getBody().getData());
+        assertEquals(0.5, response.getBody().getData().get("entity").get(0).hitRatio());
+    }
+
+    @Test
+    void testCacheStats_NotAdmin() {
+        when(authContext.getAuthUser()).thenReturn(new User("Ayu", "ayu@example.com", "secret"));
+
+        ResponseEntity<ApiResponse<Map<String, List<CacheRegionStats>>>> response = controller.cacheStats();
+
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        assertEquals("fail", response.getBody().getStatus());
+        verifyNoInteractions(cacheStatsService);
+    }
+
+    @Test
+    void testCacheStats_NoUser() {
+        when(authContext.getAuthUser()).thenReturn(null);
+
+        assertEquals(HttpStatus.FORBIDDEN, controller.cacheStats().getStatusCode());
+    }
+
+    @Test
+    void testDbMetrics_Admin() {
+        when(authContext.getAuthUser()).thenReturn(new User("Admin", "admin@example.com", "secret"));
+        List<ConnectionPoolStats> pools = List.of(
+                new ConnectionPoolStats("primary", 1, 2, 3, 10, 0, 5, 0.4, 1.2, 3.0, 0));
+        List<EndpointQueryStats> endpoints = List.of(new EndpointQueryStats("HomeView.home", 2, 8, 4.0, 5, 12, 65536, 131072));
+        when(poolMetrics.snapshot()).thenReturn(pools);
+        when(queryMetrics.snapshot()).thenReturn(endpoints);
+
+        ResponseEntity<ApiResponse<Map<String, Object>>> response = controller.dbMetrics();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(pools, response.getBody().getData().get("pools"));
+        assertSame(endpoints, response.getBody().getData().get("endpoints"));
+    }
+
+    @Test
+    void testDbMetrics_NotAdmin() {
+        when(authContext.getAuthUser()).thenReturn(new User("Ayu", "ayu@example.com", "secret"));
+
+        assertEquals(HttpStatus.FORBIDDEN, controller.dbMetrics().getStatusCode());
+        verifyNoInteractions(queryMetrics, poolMetrics);
+    }
+
+    @Test
+    void testReports_Admin() {
+        when(authContext.getAuthUser()).thenReturn(new User("Admin", "admin@example.com", "secret"));
+        MarketplaceReport report = new MarketplaceReport(null, 0, false, 0, 0, List.of(), List.of(), List.of(), 0.0);
+        when(marketplaceReportService.getReport(7)).thenReturn(report);
+
+        ResponseEntity<ApiResponse<MarketplaceReport>> response = controller.reports(7);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(report, response.getBody().getData());
+    }
+
+    @Test
+    void testReports_NotAdmin() {
+        when(authContext.getAuthUser()).thenReturn(new User("Ayu", "ayu@example.com", "secret"));
+
+        assertEquals(HttpStatus.FORBIDDEN, controller.reports(30).getStatusCode());
+        verifyNoInteractions(marketplaceReportService);
+    }
+
+    @Test
+    void testReconcileOrphans_Admin() {
+        when(authContext.getAuthUser()).thenReturn(new User("Admin", "admin@example.com", "secret"));
+        OrphanReport report = new OrphanReport(null, 5, "QUARANTINE", 10, 2, 4096, 0, 0, 0);
+        when(orphanFileService.reconcile()).thenReturn(report);
+
+        ResponseEntity<ApiResponse<OrphanReport>> response = controller.reconcileOrphans();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(report, response.getBody().getData());
+    }
+
+    @Test
+    void testReconcileOrphans_AlreadyRunning() {
+        when(authContext.getAuthUser()).thenReturn(new User("Admin", "admin@example.com", "secret"));
+        when(orphanFileService.reconcile()).thenReturn(null);
+
+        assertEquals(HttpStatus.CONFLICT, controller.reconcileOrphans().getStatusCode());
+    }
+
+    @Test
+    void testOrphanReport_NotAdmin() {
+        when(authContext.getAuthUser()).thenReturn(new User("Ayu", "ayu@example.com", "secret"));
+
+        assertEquals(HttpStatus.FORBIDDEN, controller.orphanReport().getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, controller.reconcileOrphans().getStatusCode());
+        verifyNoInteractions(orphanFileService);
+    }
+}
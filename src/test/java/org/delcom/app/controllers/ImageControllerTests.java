@@ -0,0 +1,191 @@
+package org.delcom.app.controllers;
+
+import org.delcom.app.dto.ResizedImage;
+import org.delcom.app.dto.StorageObject;
+import org.delcom.app.services.FileStorageService;
+import org.delcom.app.services.ImageResizeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ImageControllerTest {
+
+    private ImageResizeService imageResizeService;
+    private FileStorageService fileStorageService;
+    private WebRequest webRequest;
+    private ImageController controller;
+
+    private final ResizedImage image = new ResizedImage(new byte[]{1, 2, 3}, "image/jpeg", "\"cover_a-320x0-contain-1.jpg\"");
+
+    @BeforeEach
+    void setUp() {
+        imageResizeService = mock(ImageResizeService.class);
+        fileStorageService = mock(FileStorageService.class);
+        webRequest = mock(WebRequest.class);
+        controller = new ImageController(imageResizeService, fileStorageService);
+    }
+
+    private final byte[] original = "0123456789".getBytes();
+
+    private void givenOriginal() throws IOException {
+        when(fileStorageService.stat("cover_a.jpg"))
+                .thenReturn(new StorageObject("cover_a.jpg", original.length, Instant.ofEpochMilli(1000)));
+        when(fileStorageService.openFile(eq("cover_a.jpg"), anyLong(), anyLong())).thenAnswer(invocation -> {
+            int offset = (int) (long) invocation.getArgument(1);
+            long length = invocation.getArgument(2);
+            int count = length < 0 ? original.length - offset : (int) length;
+            return new ByteArrayInputStream(original, offset, count);
+        });
+    }
+
+    private byte[] body(ResponseEntity<StreamingResponseBody> response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toByteArray();
+    }
+
+    @Test
+    void testOriginal_StreamsWholeFile() throws IOException {
+        givenOriginal();
+
+        ResponseEntity<StreamingResponseBody> response = controller.original("cover_a.jpg", null, webRequest);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.IMAGE_JPEG, response.getHeaders().getContentType());
+        assertEquals(10, response.getHeaders().getContentLength());
+        assertEquals("bytes", response.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES));
+        assertEquals("\"3e8-a\"", response.getHeaders().getETag());
+        assertArrayEquals(original, body(response));
+        verify(fileStorageService).recordAccess("cover_a.jpg");
+    }
+
+    @Test
+    void testOriginal_Range() throws IOException {
+        givenOriginal();
+
+        ResponseEntity<StreamingResponseBody> response = controller.original("cover_a.jpg", "bytes=2-5", webRequest);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes 2-5/10", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(4, response.getHeaders().getContentLength());
+        assertArrayEquals("2345".getBytes(), body(response));
+        verify(fileStorageService).openFile("cover_a.jpg", 2, 4);
+    }
+
+    @Test
+    void testOriginal_SuffixRange() throws IOException {
+        givenOriginal();
+
+        ResponseEntity<StreamingResponseBody> response = controller.original("cover_a.jpg", "bytes=-3", webRequest);
+
+        assertEquals("bytes 7-9/10", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals("789".getBytes(), body(response));
+    }
+
+    @Test
+    void testOriginal_UnsatisfiableRange() throws IOException {
+        givenOriginal();
+
+        ResponseEntity<StreamingResponseBody> response = controller.original("cover_a.jpg", "bytes=20-30", webRequest);
+
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+        assertEquals("bytes */10", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void testOriginal_MalformedRangeServesWholeFile() throws IOException {
+        givenOriginal();
+
+        ResponseEntity<StreamingResponseBody> response = controller.original("cover_a.jpg", "items=0-1", webRequest);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(original, body(response));
+    }
+
+    @Test
+    void testOriginal_NotModified() throws IOException {
+        givenOriginal();
+        when(webRequest.checkNotModified("\"3e8-a\"", 1000L)).thenReturn(true);
+
+        ResponseEntity<StreamingResponseBody> response = controller.original("cover_a.jpg", null, webRequest);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        verify(fileStorageService, never()).openFile(anyString(), anyLong(), anyLong());
+        verify(fileStorageService, never()).recordAccess(anyString());
+    }
+
+    @Test
+    void testOriginal_NotFound() throws IOException {
+        assertEquals(HttpStatus.NOT_FOUND, controller.original("missing.jpg", null, webRequest).getStatusCode());
+        // File sementara/karantina tidak pernah dilayani
+        assertEquals(HttpStatus.NOT_FOUND, controller.original(".quarantine", null, webRequest).getStatusCode());
+        verify(fileStorageService, never()).stat(".quarantine");
+    }
+
+    @Test
+    void testResized_Ok() throws IOException {
+        when(imageResizeService.getVariant("cover_a.jpg", 320, null, ImageResizeService.Fit.CONTAIN)).thenReturn(image);
+
+        ResponseEntity<byte[]> response = controller.resized("cover_a.jpg", 320, null, "contain", webRequest);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.IMAGE_JPEG, response.getHeaders().getContentType());
+        assertEquals(image.etag(), response.getHeaders().getETag());
+        assertArrayEquals(image.data(), response.getBody());
+    }
+
+    @Test
+    void testResized_NotModified() throws IOException {
+        when(imageResizeService.getVariant("cover_a.jpg", 320, 160, ImageResizeService.Fit.COVER)).thenReturn(image);
+        when(webRequest.checkNotModified(image.etag())).thenReturn(true);
+
+        ResponseEntity<byte[]> response = controller.resized("cover_a.jpg", 320, 160, "cover", webRequest);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void testResized_BadRequest() throws IOException {
+        when(imageResizeService.getVariant(any(), anyInt(), any(), any()))
+                .thenThrow(new IllegalArgumentException("Ukuran gambar tidak diizinkan"));
+
+        assertEquals(HttpStatus.BAD_REQUEST,
+                controller.resized("cover_a.jpg", 333, null, "contain", webRequest).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST,
+                controller.resized("cover_a.jpg", 320, null, "stretch", webRequest).getStatusCode());
+    }
+
+    @Test
+    void testResized_BusyReturns503() throws IOException {
+        when(imageResizeService.getVariant(any(), anyInt(), any(), any()))
+                .thenThrow(new RejectedExecutionException("Terlalu banyak resize gambar berjalan, coba lagi"));
+
+        ResponseEntity<byte[]> response = controller.resized("cover_a.jpg", 320, null, "contain", webRequest);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void testResized_NotFound() throws IOException {
+        assertEquals(HttpStatus.NOT_FOUND,
+                controller.resized("missing.jpg", 320, null, "contain", webRequest).getStatusCode());
+    }
+}
@@ -0,0 +1,444 @@
+package org.delcom.app.controllers;
+
+import org.delcom.app.configs.ApiResponse;
+import org.delcom.app.configs.AuthContext;
+import org.delcom.app.dto.BulkEditRequest;
+import org.delcom.app.dto.PhotoDetail;
+import org.delcom.app.dto.PhotoPage;
+import org.delcom.app.dto.PhotoRequest;
+import org.delcom.app.dto.PhotoSummary;
+import org.delcom.app.dto.PriceBucket;
+import org.delcom.app.entities.Photo;
+import org.delcom.app.entities.User;
+import org.delcom.app.services.FileStorageService;
+import org.delcom.app.services.InvalidImageException;
+import org.delcom.app.services.PhotoFeedService;
+import org.delcom.app.services.PhotoImageService;
+import org.delcom.app.services.PhotoService;
+import org.delcom.app.services.QuotaExceededException;
+import org.delcom.app.services.StorageQuotaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PhotoApiControllerTest {
+
+    @Mock
+    private PhotoService photoService;
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private PhotoFeedService photoFeedService;
+
+    @Mock
+    private StorageQuotaService storageQuotaService;
+
+    @Mock
+    private PhotoImageService photoImageService;
+
+    @Mock
+    private AuthContext authContext;
+
+    @Mock
+    private WebRequest webRequest;
+
+    @Mock
+    private MultipartFile multipartFile;
+
+    @InjectMocks
+    private PhotoApiController controller;
+
+    private User user;
+    private Photo photo;
+
+    @BeforeEach
+    void setUp() {
+        user = new User("Ayu", "ayu@example.com", "secret");
+        user.setId(UUID.randomUUID());
+        lenient().when(authContext.getAuthUser()).thenReturn(user);
+
+        photo = new Photo(user.getId(), "Senja", "Landscape", "Desc", new BigDecimal("500"));
+        photo.setId(UUID.randomUUID());
+        photo.setFilename("cover.jpg");
+    }
+
+    private PhotoRequest request() {
+        PhotoRequest request = new PhotoRequest();
+        request.setTitle("Judul");
+        request.setCategory("Macro");
+        request.setDescription("Desc");
+        request.setPrice(BigDecimal.TEN);
+        return request;
+    }
+
+    // --- LIST ---
+
+    @Test
+    void testList_Ok() {
+        PhotoSummary item = new PhotoSummary(photo.getId(), "Senja", 2, "Landscape", BigDecimal.ONE, "IDR", "cover.jpg",
+                LocalDateTime.now(), LocalDateTime.now());
+        PhotoPage page = new PhotoPage(List.of(item), "next");
+        when(photoService.getPhotoPage(user.getId(), null, null, 20)).thenReturn(page);
+
+        ResponseEntity<ApiResponse<PhotoPage>> response = controller.list(null, null, 20, webRequest);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(page, response.getBody().getData());
+        assertNotNull(response.getHeaders().getETag());
+    }
+
+    @Test
+    void testList_NotModified() {
+        when(photoService.getPhotoPage(any(), any(), any(), anyInt())).thenReturn(new PhotoPage(List.of(), null));
+        when(webRequest.checkNotModified(anyString())).thenReturn(true);
+
+        ResponseEntity<ApiResponse<PhotoPage>> response = controller.list(null, null, 20, webRequest);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void testList_LimitIsClamped() {
+        when(photoService.getPhotoPage(any(), any(), any(), anyInt())).thenReturn(new PhotoPage(List.of(), null));
+
+        controller.list(null, null, 1000, webRequest);
+        controller.list(null, null, 0, webRequest);
+
+        verify(photoService).getPhotoPage(user.getId(), null, null, 100);
+        verify(photoService).getPhotoPage(user.getId(), null, null, 1);
+    }
+
+    @Test
+    void testList_InvalidCursor() {
+        when(photoService.getPhotoPage(any(), any(), eq("rusak"), anyInt()))
+                .thenThrow(new IllegalArgumentException("Cursor tidak valid"));
+
+        ResponseEntity<ApiResponse<PhotoPage>> response = controller.list("rusak", null, 20, webRequest);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void testList_ByCategory() {
+        when(photoService.getPhotoPage(user.getId(), "Macro", null, 20)).thenReturn(new PhotoPage(List.of(), null));
+
+        ResponseEntity<ApiResponse<PhotoPage>> response = controller.list(null, "Macro", 20, webRequest);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(photoService).getPhotoPage(user.getId(), "Macro", null, 20);
+    }
+
+    // --- STREAM ---
+
+    @Test
+    void testStream() throws IOException {
+        LocalDateTime since = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+        ResponseEntity<StreamingResponseBody> response = controller.stream(since);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("application/x-ndjson", response.getHeaders().getContentType().toString());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        verify(photoFeedService).writeNdjson(user.getId(), since, out);
+    }
+
+    // --- PRICE ---
+
+    @Test
+    void testPriceRange_Ok() {
+        List<PhotoSummary> items = List.of();
+        when(photoService.getPhotosInPriceRange(user.getId(), 10000L, 50000L, 100)).thenReturn(items);
+
+        ResponseEntity<ApiResponse<List<PhotoSummary>>> response =
+                controller.priceRange(new BigDecimal("100"), new BigDecimal("500"), 500);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(items, response.getBody().getData());
+    }
+
+    @Test
+    void testPriceRange_OpenEnded() {
+        when(photoService.getPhotosInPriceRange(user.getId(), 0L, Long.MAX_VALUE, 1)).thenReturn(List.of());
+
+        assertEquals(HttpStatus.OK, controller.priceRange(BigDecimal.ZERO, null, 0).getStatusCode());
+    }
+
+    @Test
+    void testPriceRange_Invalid() {
+        assertEquals(HttpStatus.BAD_REQUEST,
+                controller.priceRange(new BigDecimal("-1"), null, 20).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST,
+                controller.priceRange(new BigDecimal("500"), new BigDecimal("100"), 20).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST,
+                controller.priceRange(BigDecimal.ZERO, new BigDecimal("1e30"), 20).getStatusCode());
+        verifyNoInteractions(photoService);
+    }
+
+    @Test
+    void testPriceHistogram() {
+        List<PriceBucket> buckets = List.of(new PriceBucket(0L, 10000000L, 2L));
+        when(photoService.getPriceHistogram(user.getId(), 10000000L)).thenReturn(buckets);
+
+        ResponseEntity<ApiResponse<List<PriceBucket>>> response = controller.priceHistogram(new BigDecimal("100000"));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(buckets, response.getBody().getData());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.priceHistogram(BigDecimal.ZERO).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.priceHistogram(new BigDecimal("1e30")).getStatusCode());
+    }
+
+    // --- DETAIL ---
+
+    @Test
+    void testDetail_Ok() {
+        PhotoDetail detail = new PhotoDetail(photo.getId(), "Senja", 2, "Landscape", "Desc", BigDecimal.ONE,
+                "IDR", "cover.jpg", LocalDateTime.now(), LocalDateTime.now(), 0L);
+        when(photoService.getPhotoDetail(photo.getId(), user.getId())).thenReturn(detail);
+
+        ResponseEntity<ApiResponse<PhotoDetail>> response = controller.detail(photo.getId(), webRequest);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(detail, response.getBody().getData());
+    }
+
+    @Test
+    void testDetail_NotModified() {
+        PhotoDetail detail = new PhotoDetail(photo.getId(), "Senja", 2, "Landscape", "Desc", BigDecimal.ONE,
+                "IDR", "cover.jpg", LocalDateTime.now(), LocalDateTime.now(), 0L);
+        when(photoService.getPhotoDetail(any(), any())).thenReturn(detail);
+        when(webRequest.checkNotModified(anyString())).thenReturn(true);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, controller.detail(photo.getId(), webRequest).getStatusCode());
+    }
+
+    @Test
+    void testDetail_NotFound() {
+        ResponseEntity<ApiResponse<PhotoDetail>> response = controller.detail(UUID.randomUUID(), webRequest);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    // --- CREATE / UPDATE ---
+
+    @Test
+    void testCreate() {
+        when(photoService.createPhoto(any(Photo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ResponseEntity<ApiResponse<PhotoDetail>> response = controller.create(request());
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals("Judul", response.getBody().getData().title());
+    }
+
+    @Test
+    void testUpdate_Ok() {
+        when(photoService.getPhotoById(photo.getId())).thenReturn(photo);
+        when(photoService.updatePhotoData(eq(photo.getId()), any(), any(), any(), any(), any())).thenReturn(photo);
+
+        ResponseEntity<ApiResponse<PhotoDetail>> response = controller.update(photo.getId(), request());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(photoService).updatePhotoData(photo.getId(), null, "Judul", "Macro", "Desc", BigDecimal.TEN);
+    }
+
+    @Test
+    void testUpdate_OtherUsersPhoto() {
+        photo.setUserId(UUID.randomUUID());
+        when(photoService.getPhotoById(photo.getId())).thenReturn(photo);
+
+        ResponseEntity<ApiResponse<PhotoDetail>> response = controller.update(photo.getId(), request());
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(photoService, never()).updatePhotoData(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testUpdate_StaleVersionReturnsConflictWithCurrentData() {
+        PhotoRequest stale = request();
+        stale.setVersion(1L);
+        PhotoDetail current = new PhotoDetail(photo.getId(), "Versi lain", 2, "Landscape", "Desc", BigDecimal.ONE,
+                "IDR", "cover.jpg", LocalDateTime.now(), LocalDateTime.now(), 2L);
+        when(photoService.getPhotoById(photo.getId())).thenReturn(photo);
+        when(photoService.updatePhotoData(eq(photo.getId()), eq(1L), any(), any(), any(), any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Photo.class, photo.getId()));
+        when(photoService.getPhotoDetail(photo.getId(), user.getId())).thenReturn(current);
+
+        ResponseEntity<ApiResponse<PhotoDetail>> response = controller.update(photo.getId(), stale);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals(2L, response.getBody().getData().version());
+    }
+
+    // --- IMAGE ---
+
+    @Test
+    void testUpdateImage_NotAnImageReturns415() throws IOException {
+        when(photoService.getPhotoById(photo.getId())).thenReturn(photo);
+        when(multipartFile.isEmpty()).thenReturn(false);
+        when(fileStorageService.inspect(multipartFile)).thenThrow(new InvalidImageException("File bukan gambar"));
+
+        ResponseEntity<ApiResponse<PhotoDetail>> response = controller.updateImage(photo.getId(), multipartFile, null);
+
+        assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, response.getStatusCode());
+        verify(fileStorageService, never()).deleteFile(any());
+        verify(fileStorageService, never()).storeFile(any(), any());
+    }
+
+    @Test
+    void testUpdateImage_StaleVersionLeavesFileUntouched() throws IOException {
+        photo.setVersion(3L);
+        when(photoService.getPhotoById(photo.getId())).thenReturn(photo);
+        when(multipartFile.isEmpty()).thenReturn(false);
+
+        ResponseEntity<ApiResponse<PhotoDetail>> response = controller.updateImage(photo.getId(), multipartFile, 2L);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        verifyNoInteractions(fileStorageService);
+        verify(photoService, never()).updatePhotoFile(any(), any(), any());
+    }
+
+    @Test
+    void testUpdateImage_VersionCheckedAgainUnderLock() throws IOException {
+        photo.setVersion(2L);
+        when(photoService.getPhotoById(photo.getId())).thenReturn(photo);
+        when(multipartFile.isEmpty()).thenReturn(false);
+        when(multipartFile.getSize()).thenReturn(700L);
+        // Client lain mengganti gambar di antara cek awal dan lock
+        when(photoImageService.replaceImage(eq(photo.getId()), eq(user.getId()), eq(2L), eq(700L), eq(0L), any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Photo.class, photo.getId()));
+
+        ResponseEntity<ApiResponse<PhotoDetail>> response = controller.updateImage(photo.getId(), multipartFile, 2L);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        verify(fileStorageService, never()).storeFile(any(), any());
+        verify(fileStorageService, never()).deleteFile(any());
+    }
+
+    @Test
+    void testUpdateImage_Ok() throws IOException {
+        when(photoService.getPhotoById(photo.getId())).thenReturn(photo);
+        when(multipartFile.isEmpty()).thenReturn(false);
+        when(multipartFile.getSize()).thenReturn(700L);
+        Photo updated = new Photo(user.getId(), "Senja", "Landscape", "Desc", new BigDecimal("1000"));
+        updated.setId(photo.getId());
+        updated.setFilename("baru.png");
+        when(photoImageService.replaceImage(eq(photo.getId()), eq(user.getId()), isNull(), eq(700L), eq(0L), any()))
+                .thenAnswer(invocation -> {
+                    invocation.<PhotoImageService.ImageWriter>getArgument(5).store(photo.getId());
+                    return updated;
+                });
+
+        ResponseEntity<ApiResponse<PhotoDetail>> response = controller.updateImage(photo.getId(), multipartFile, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        // File ditulis di dalam replaceImage, di bawah lock per foto
+        verify(fileStorageService).storeFile(multipartFile, photo.getId());
+        assertEquals("baru.png", response.getBody().getData().filename());
+    }
+
+    @Test
+    void testUpdateImage_OverQuotaReturns413() throws IOException {
+        when(photoService.getPhotoById(photo.getId())).thenReturn(photo);
+        when(multipartFile.isEmpty()).thenReturn(false);
+        when(multipartFile.getSize()).thenReturn(5000L);
+        when(photoImageService.replaceImage(any(), any(), any(), anyLong(), anyLong(), any()))
+                .thenThrow(new QuotaExceededException("Kuota penyimpanan tidak cukup (4000 bytes)"));
+
+        ResponseEntity<ApiResponse<PhotoDetail>> response = controller.updateImage(photo.getId(), multipartFile, null);
+
+        assertEquals(HttpStatus.CONTENT_TOO_LARGE, response.getStatusCode());
+        verify(fileStorageService, never()).deleteFile(any());
+        verify(fileStorageService, never()).storeFile(any(), any());
+    }
+
+    @Test
+    void testUpdateImage_EmptyFile() throws IOException {
+        when(photoService.getPhotoById(photo.getId())).thenReturn(photo);
+        when(multipartFile.isEmpty()).thenReturn(true);
+
+        assertEquals(HttpStatus.BAD_REQUEST, controller.updateImage(photo.getId(), multipartFile, null).getStatusCode());
+    }
+
+    @Test
+    void testUpdateImage_NotFound() throws IOException {
+        assertEquals(HttpStatus.NOT_FOUND, controller.updateImage(UUID.randomUUID(), multipartFile, null).getStatusCode());
+    }
+
+    // --- DELETE ---
+
+    @Test
+    void testDelete_Ok() {
+        when(photoService.deletePhoto(photo.getId(), user.getId())).thenReturn(true);
+
+        ResponseEntity<ApiResponse<Void>> response = controller.delete(photo.getId());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        // Soft delete: file baru dihapus oleh job purge setelah jendela undo
+        verify(storageQuotaService, never()).deleteFile(any(), any());
+    }
+
+    @Test
+    void testDelete_NotFound() {
+        assertEquals(HttpStatus.NOT_FOUND, controller.delete(UUID.randomUUID()).getStatusCode());
+    }
+
+    @Test
+    void testRestore() {
+        when(photoService.restorePhoto(photo.getId(), user.getId())).thenReturn(true);
+
+        assertEquals(HttpStatus.OK, controller.restore(photo.getId()).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, controller.restore(UUID.randomUUID()).getStatusCode());
+    }
+
+    // --- BULK ---
+
+    @Test
+    void testBulk() {
+        BulkEditRequest request = new BulkEditRequest();
+        request.setIds(List.of(photo.getId()));
+        request.setAction(BulkEditRequest.Action.PRICE_AMOUNT);
+        request.setValue(new BigDecimal("1000"));
+        when(photoService.bulkEdit(user.getId(), request)).thenReturn(1);
+
+        ResponseEntity<ApiResponse<Integer>> response = controller.bulk(request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().getData());
+    }
+
+    @Test
+    void testBulk_InvalidValue() {
+        BulkEditRequest request = new BulkEditRequest();
+        request.setIds(List.of(photo.getId()));
+        request.setAction(BulkEditRequest.Action.PRICE_AMOUNT);
+        when(photoService.bulkEdit(user.getId(), request)).thenThrow(new IllegalArgumentException("Nilai harga harus diisi"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, controller.bulk(request).getStatusCode());
+    }
+}
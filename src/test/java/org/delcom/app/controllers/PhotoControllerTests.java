@@ -1,10 +1,23 @@
 package org.delcom.app.controllers;
 
+import org.delcom.app.configs.ApiResponse;
+import org.delcom.app.dto.ImportProgress;
+import org.delcom.app.dto.BulkEditRequest;
+import org.delcom.app.dto.CategoryStat;
 import org.delcom.app.dto.PhotoForm;
+import org.delcom.app.dto.PortfolioAnalytics;
+import org.delcom.app.dto.TimeBucket;
 import org.delcom.app.entities.Photo;
+import org.delcom.app.entities.PortfolioVersion;
 import org.delcom.app.entities.User;
 import org.delcom.app.services.FileStorageService;
+import org.delcom.app.services.InvalidImageException;
+import org.delcom.app.services.PhotoImageService;
 import org.delcom.app.services.PhotoService;
+import org.delcom.app.services.PortfolioExportService;
+import org.delcom.app.services.PortfolioImportService;
+import org.delcom.app.services.QuotaExceededException;
+import org.delcom.app.services.StorageQuotaService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,18 +25,32 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.thymeleaf.context.LazyContextVariable;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -39,6 +66,18 @@ class PhotoControllerTest {
     @Mock
     private FileStorageService fileStorageService;
 
+    @Mock
+    private PortfolioExportService portfolioExportService;
+
+    @Mock
+    private PortfolioImportService portfolioImportService;
+
+    @Mock
+    private StorageQuotaService storageQuotaService;
+
+    @Mock
+    private PhotoImageService photoImageService;
+
     @Mock
     private Model model;
 
@@ -51,6 +90,9 @@ class PhotoControllerTest {
     @Mock
     private MultipartFile multipartFile;
 
+    @Mock
+    private ServletWebRequest webRequest;
+
     @InjectMocks
     private PhotoController photoController;
 
@@ -93,19 +135,45 @@ class PhotoControllerTest {
     @Test
     void testIndex_LoggedIn() {
         mockSecurityContext(mockUser);
-        when(photoService.getAllPhotos(any(UUID.class))).thenReturn(new ArrayList<>());
+        when(photoService.getPortfolioVersion(mockUser.getId()))
+                .thenReturn(new PortfolioVersion(mockUser.getId(), 3, LocalDateTime.now()));
+        when(photoService.getPhotoSummaries(any(UUID.class))).thenReturn(new ArrayList<>());
 
-        String view = photoController.index(model);
+        String view = photoController.index(model, webRequest);
 
         assertEquals("pages/photos/index", view);
         verify(model).addAttribute(eq("photos"), anyList());
     }
 
+    @Test
+    void testIndex_NotModifiedSkipsQueries() {
+        mockSecurityContext(mockUser);
+        when(photoService.getPortfolioVersion(mockUser.getId()))
+                .thenReturn(new PortfolioVersion(mockUser.getId(), 3, LocalDateTime.now()));
+        when(webRequest.checkNotModified(anyString(), anyLong())).thenReturn(true);
+
+        String view = photoController.index(model, webRequest);
+
+        assertNull(view);
+        verify(photoService, never()).getPhotoSummaries(any());
+    }
+
+    @Test
+    void testIndex_FlashMessageAlwaysRenders() {
+        mockSecurityContext(mockUser);
+        when(model.containsAttribute("success")).thenReturn(true);
+        when(photoService.getPhotoSummaries(any(UUID.class))).thenReturn(new ArrayList<>());
+
+        assertEquals("pages/photos/index", photoController.index(model, webRequest));
+        verify(photoService, never()).getPortfolioVersion(any());
+        verify(webRequest, never()).checkNotModified(anyString(), anyLong());
+    }
+
     @Test
     void testIndex_NotLoggedIn() {
         mockSecurityContext(null); // User null/anonymous
 
-        String view = photoController.index(model);
+        String view = photoController.index(model, webRequest);
 
         assertEquals("redirect:/auth/login", view);
         verifyNoInteractions(photoService);
@@ -121,6 +189,18 @@ class PhotoControllerTest {
         verify(model).addAttribute(eq("photoForm"), any(PhotoForm.class));
     }
 
+    @Test
+    void testCategorySuggestions_LazyAndScopedToUser() {
+        mockSecurityContext(mockUser);
+        when(photoService.getCategorySuggestions(mockUser.getId())).thenReturn(List.of("Macro"));
+
+        LazyContextVariable<List<String>> suggestions = photoController.categorySuggestions();
+
+        // Query baru jalan saat template membaca nilainya
+        verify(photoService, never()).getCategorySuggestions(any());
+        assertEquals(List.of("Macro"), suggestions.getValue());
+    }
+
     // --- TEST STORE ---
 
     @Test
@@ -168,6 +248,7 @@ class PhotoControllerTest {
         when(bindingResult.hasErrors()).thenReturn(false);
         when(multipartFile.isEmpty()).thenReturn(false);
         when(photoService.createPhoto(any(Photo.class))).thenReturn(mockPhoto);
+        when(storageQuotaService.tryReserve(any(), anyLong())).thenReturn(true);
         when(fileStorageService.storeFile(any(), any())).thenReturn("new-image.jpg");
 
         PhotoForm form = new PhotoForm();
@@ -184,13 +265,162 @@ class PhotoControllerTest {
         verify(redirectAttributes).addFlashAttribute(eq("success"), anyString());
     }
 
+    @Test
+    void testStore_NotAnImageRejectedBeforeCreate() throws IOException {
+        mockSecurityContext(mockUser);
+        when(bindingResult.hasErrors()).thenReturn(false);
+        when(multipartFile.isEmpty()).thenReturn(false);
+        when(fileStorageService.inspect(multipartFile)).thenThrow(new InvalidImageException("File bukan gambar"));
+
+        PhotoForm form = new PhotoForm();
+        form.setFile(multipartFile);
+
+        String view = photoController.store(form, bindingResult, redirectAttributes);
+
+        assertEquals("pages/photos/form", view);
+        verify(bindingResult).rejectValue("file", "error.file", "File bukan gambar");
+        verify(photoService, never()).createPhoto(any());
+        verify(fileStorageService, never()).storeFile(any(), any());
+    }
+
+    @Test
+    void testStore_OverQuotaRejectedBeforeCreate() throws IOException {
+        mockSecurityContext(mockUser);
+        when(bindingResult.hasErrors()).thenReturn(false);
+        when(multipartFile.isEmpty()).thenReturn(false);
+        when(multipartFile.getSize()).thenReturn(5000L);
+        when(storageQuotaService.tryReserve(mockUser.getId(), 5000L)).thenReturn(false);
+
+        PhotoForm form = new PhotoForm();
+        form.setFile(multipartFile);
+
+        String view = photoController.store(form, bindingResult, redirectAttributes);
+
+        assertEquals("pages/photos/form", view);
+        verify(bindingResult).rejectValue(eq("file"), eq("error.file"), contains("Kuota penyimpanan"));
+        verify(photoService, never()).createPhoto(any());
+        verify(fileStorageService, never()).storeFile(any(), any());
+    }
+
+    @Test
+    void testStore_StoreFailureReleasesQuota() throws IOException {
+        mockSecurityContext(mockUser);
+        when(bindingResult.hasErrors()).thenReturn(false);
+        when(multipartFile.isEmpty()).thenReturn(false);
+        when(multipartFile.getSize()).thenReturn(5000L);
+        when(storageQuotaService.tryReserve(mockUser.getId(), 5000L)).thenReturn(true);
+        when(photoService.createPhoto(any(Photo.class))).thenReturn(mockPhoto);
+        when(fileStorageService.storeFile(any(), any())).thenThrow(new IOException("disk penuh"));
+
+        PhotoForm form = new PhotoForm();
+        form.setFile(multipartFile);
+
+        assertThrows(IOException.class, () -> photoController.store(form, bindingResult, redirectAttributes));
+        verify(storageQuotaService).release(mockUser.getId(), 5000L);
+    }
+
+    // --- TEST EXPORT ---
+
+    @Test
+    void testExport_LoggedIn() throws IOException {
+        mockSecurityContext(mockUser);
+
+        ResponseEntity<StreamingResponseBody> response = photoController.export();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION).contains(".zip"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        verify(portfolioExportService).exportPortfolio(mockUser.getId(), out);
+    }
+
+    @Test
+    void testExport_NotLoggedIn() {
+        mockSecurityContext(null);
+
+        ResponseEntity<StreamingResponseBody> response = photoController.export();
+
+        assertEquals(HttpStatus.FOUND, response.getStatusCode());
+        verifyNoInteractions(portfolioExportService);
+    }
+
+    // --- TEST IMPORT ---
+
+    @Test
+    void testImportPage() {
+        assertEquals("pages/photos/import", photoController.importPage());
+    }
+
+    @Test
+    void testImport_Success() throws IOException {
+        mockSecurityContext(mockUser);
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        ImportProgress progress = new ImportProgress();
+        when(portfolioImportService.importPortfolio(mockUser.getId(), body)).thenReturn(progress);
+
+        ResponseEntity<ApiResponse<ImportProgress>> response = photoController.importPortfolio(body);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(progress, response.getBody().getData());
+    }
+
+    @Test
+    void testImport_Failure() throws IOException {
+        mockSecurityContext(mockUser);
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        when(portfolioImportService.importPortfolio(any(), any())).thenThrow(new IOException("rusak"));
+
+        ResponseEntity<ApiResponse<ImportProgress>> response = photoController.importPortfolio(body);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("fail", response.getBody().getStatus());
+    }
+
+    @Test
+    void testImport_NotLoggedIn() {
+        mockSecurityContext(null);
+
+        ResponseEntity<ApiResponse<ImportProgress>> response =
+                photoController.importPortfolio(new ByteArrayInputStream(new byte[0]));
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verifyNoInteractions(portfolioImportService);
+    }
+
+    @Test
+    void testImportProgress() {
+        mockSecurityContext(mockUser);
+        ImportProgress progress = new ImportProgress();
+        when(portfolioImportService.getProgress(mockUser.getId())).thenReturn(progress);
+
+        ResponseEntity<ApiResponse<ImportProgress>> response = photoController.importProgress();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(progress, response.getBody().getData());
+    }
+
+    @Test
+    void testImportProgress_NoneYet() {
+        mockSecurityContext(mockUser);
+
+        assertEquals(HttpStatus.NOT_FOUND, photoController.importProgress().getStatusCode());
+    }
+
+    @Test
+    void testImportProgress_NotLoggedIn() {
+        mockSecurityContext(null);
+
+        assertEquals(HttpStatus.UNAUTHORIZED, photoController.importProgress().getStatusCode());
+    }
+
     // --- TEST DETAIL ---
 
     @Test
     void testDetail_Found() {
         when(photoService.getPhotoById(any(UUID.class))).thenReturn(mockPhoto);
 
-        String view = photoController.detail(UUID.randomUUID(), model);
+        String view = photoController.detail(UUID.randomUUID(), model, webRequest);
 
         assertEquals("pages/photos/detail", view);
         verify(model).addAttribute("photo", mockPhoto);
@@ -200,11 +430,24 @@ class PhotoControllerTest {
     void testDetail_NotFound() {
         when(photoService.getPhotoById(any(UUID.class))).thenReturn(null);
 
-        String view = photoController.detail(UUID.randomUUID(), model);
+        String view = photoController.detail(UUID.randomUUID(), model, webRequest);
 
         assertEquals("redirect:/photos", view);
     }
 
+    @Test
+    void testDetail_OtherUsersPhotoRedirects() {
+        mockSecurityContext(mockUser);
+        when(photoService.getPortfolioVersion(mockUser.getId()))
+                .thenReturn(new PortfolioVersion(mockUser.getId(), 0, null));
+        when(photoService.getPhotoById(any(UUID.class))).thenReturn(mockPhoto);
+
+        String view = photoController.detail(mockPhoto.getId(), model, webRequest);
+
+        assertEquals("redirect:/photos", view);
+        verify(webRequest).checkNotModified(anyString(), eq(-1L));
+    }
+
     // --- TEST EDIT ---
 
     @Test
@@ -234,7 +477,7 @@ class PhotoControllerTest {
         when(bindingResult.hasErrors()).thenReturn(true);
         PhotoForm form = new PhotoForm();
 
-        String view = photoController.update(UUID.randomUUID(), form, bindingResult, redirectAttributes);
+        String view = photoController.update(UUID.randomUUID(), form, bindingResult, model, redirectAttributes);
 
         assertEquals("pages/photos/form", view);
     }
@@ -248,17 +491,46 @@ class PhotoControllerTest {
         form.setDescription("New Desc");
         form.setPrice(BigDecimal.ONE);
 
-        String view = photoController.update(UUID.randomUUID(), form, bindingResult, redirectAttributes);
+        String view = photoController.update(UUID.randomUUID(), form, bindingResult, model, redirectAttributes);
 
         assertEquals("redirect:/photos", view);
-        verify(photoService).updatePhotoData(any(), eq("New Title"), eq("New Cat"), eq("New Desc"), eq(BigDecimal.ONE));
+        verify(photoService).updatePhotoData(any(), any(), eq("New Title"), eq("New Cat"), eq("New Desc"), eq(BigDecimal.ONE));
         verify(redirectAttributes).addFlashAttribute(eq("success"), anyString());
     }
 
+    @Test
+    void testUpdate_ConflictRerendersWithLatestData() {
+        UUID id = UUID.randomUUID();
+        Photo current = new Photo(UUID.randomUUID(), "Judul Lain", "Cat", "Desc", BigDecimal.TEN);
+        current.setVersion(5L);
+        PhotoForm form = new PhotoForm();
+        form.setTitle("New Title");
+        form.setVersion(4L);
+        when(bindingResult.hasErrors()).thenReturn(false);
+        when(photoService.updatePhotoData(eq(id), eq(4L), any(), any(), any(), any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Photo.class, id));
+        when(photoService.getPhotoById(id)).thenReturn(current);
+
+        String view = photoController.update(id, form, bindingResult, model, redirectAttributes);
+
+        assertEquals("pages/photos/form", view);
+        assertEquals(5L, form.getVersion());
+        assertEquals("New Title", form.getTitle());
+        verify(model).addAttribute("conflictPhoto", current);
+        verify(bindingResult).reject(eq("error.conflict"), anyString());
+        verifyNoInteractions(redirectAttributes);
+    }
+
     // --- TEST UPDATE IMAGE ---
 
+    private void loginAsOwner() {
+        lenient().when(mockUser.getId()).thenReturn(mockPhoto.getUserId());
+        mockSecurityContext(mockUser);
+    }
+
     @Test
     void testUpdateImage_FileEmpty() throws IOException {
+        loginAsOwner();
         when(multipartFile.isEmpty()).thenReturn(true);
         UUID id = UUID.randomUUID();
 
@@ -269,71 +541,205 @@ class PhotoControllerTest {
     }
 
     @Test
-    void testUpdateImage_Success_WithOldFile() throws IOException {
+    void testUpdateImage_ReplacesThroughPhotoImageService() throws Exception {
+        loginAsOwner();
         when(multipartFile.isEmpty()).thenReturn(false);
-        mockPhoto.setFilename("old-file.jpg");
-        when(photoService.getPhotoById(any(UUID.class))).thenReturn(mockPhoto);
-        when(fileStorageService.storeFile(any(), any())).thenReturn("new-file.jpg");
-
+        when(multipartFile.getSize()).thenReturn(3000L);
         UUID id = mockPhoto.getId();
+        when(photoImageService.replaceImage(eq(id), eq(mockPhoto.getUserId()), isNull(), eq(3000L), eq(0L), any()))
+                .thenAnswer(invocation -> {
+                    invocation.<PhotoImageService.ImageWriter>getArgument(5).store(id);
+                    return mockPhoto;
+                });
+
         String view = photoController.updateImage(id, multipartFile, redirectAttributes);
 
         assertEquals("redirect:/photos/" + id, view);
-        verify(fileStorageService).deleteFile("old-file.jpg"); // Verify old file deleted
-        verify(photoService).updatePhotoFile(id, "new-file.jpg");
+        // Penulisan file terjadi di dalam replaceImage (di bawah lock per foto)
+        verify(fileStorageService).storeFile(multipartFile, id);
         verify(redirectAttributes).addFlashAttribute("success", "Gambar berhasil diganti.");
     }
 
     @Test
-    void testUpdateImage_Success_NoOldFile() throws IOException {
+    void testUpdateImage_StoreFailurePropagates() throws Exception {
+        loginAsOwner();
         when(multipartFile.isEmpty()).thenReturn(false);
-        mockPhoto.setFilename(null); // No old file
-        when(photoService.getPhotoById(any(UUID.class))).thenReturn(mockPhoto);
-        when(fileStorageService.storeFile(any(), any())).thenReturn("new-file.jpg");
+        when(photoImageService.replaceImage(any(), any(), any(), anyLong(), anyLong(), any()))
+                .thenThrow(new IOException("disk penuh"));
+
+        UUID id = mockPhoto.getId();
+        assertThrows(IOException.class, () -> photoController.updateImage(id, multipartFile, redirectAttributes));
+        verify(redirectAttributes, never()).addFlashAttribute(eq("success"), any());
+    }
+
+    @Test
+    void testUpdateImage_NotAnImageKeepsOldFile() throws IOException {
+        loginAsOwner();
+        when(multipartFile.isEmpty()).thenReturn(false);
+        when(fileStorageService.inspect(multipartFile)).thenThrow(new InvalidImageException("Dimensi gambar terlalu besar"));
+        UUID id = UUID.randomUUID();
+
+        String view = photoController.updateImage(id, multipartFile, redirectAttributes);
+
+        assertEquals("redirect:/photos/" + id, view);
+        verify(redirectAttributes).addFlashAttribute("error", "Dimensi gambar terlalu besar");
+        verify(fileStorageService, never()).deleteFile(anyString());
+        verify(fileStorageService, never()).storeFile(any(), any());
+        verifyNoInteractions(photoService);
+    }
+
+    @Test
+    void testUpdateImage_OverQuotaKeepsOldFile() throws IOException {
+        loginAsOwner();
+        when(multipartFile.isEmpty()).thenReturn(false);
+        when(photoImageService.replaceImage(any(), any(), any(), anyLong(), anyLong(), any()))
+                .thenThrow(new QuotaExceededException("Kuota penyimpanan tidak cukup"));
 
         UUID id = mockPhoto.getId();
         String view = photoController.updateImage(id, multipartFile, redirectAttributes);
 
         assertEquals("redirect:/photos/" + id, view);
-        verify(fileStorageService, never()).deleteFile(anyString()); // Verify delete NOT called
-        verify(photoService).updatePhotoFile(id, "new-file.jpg");
+        verify(redirectAttributes).addFlashAttribute(eq("error"), contains("Kuota penyimpanan"));
+    }
+
+    @Test
+    void testUpdateImage_NotLoggedIn() throws IOException {
+        mockSecurityContext(null);
+
+        assertEquals("redirect:/auth/login", photoController.updateImage(mockPhoto.getId(), multipartFile, redirectAttributes));
+        verifyNoInteractions(fileStorageService, storageQuotaService);
+    }
+
+    @Test
+    void testUpdateImage_UnknownOrForeignPhoto() throws IOException {
+        mockSecurityContext(mockUser);
+        when(multipartFile.isEmpty()).thenReturn(false);
+        // replaceImage mengembalikan null untuk foto yang tidak ada atau milik user lain
+        when(photoImageService.replaceImage(any(), eq(mockUser.getId()), any(), anyLong(), anyLong(), any()))
+                .thenReturn(null);
+
+        assertEquals("redirect:/photos", photoController.updateImage(mockPhoto.getId(), multipartFile, redirectAttributes));
+
+        verify(redirectAttributes).addFlashAttribute("error", "Foto tidak ditemukan.");
+        verify(fileStorageService, never()).storeFile(any(), any());
     }
 
     // --- TEST DELETE ---
 
     @Test
-    void testDelete_PhotoNotFound() {
-        when(photoService.getPhotoById(any(UUID.class))).thenReturn(null);
+    void testDelete_NotLoggedIn() {
+        mockSecurityContext(null);
+
+        String view = photoController.delete(UUID.randomUUID(), redirectAttributes);
+
+        assertEquals("redirect:/auth/login", view);
+        verify(photoService, never()).deletePhoto(any(), any());
+    }
+
+    @Test
+    void testDelete_PhotoNotFoundOrNotOwned() {
+        mockSecurityContext(mockUser);
+        when(photoService.deletePhoto(any(UUID.class), any(UUID.class))).thenReturn(false);
 
         String view = photoController.delete(UUID.randomUUID(), redirectAttributes);
 
         assertEquals("redirect:/photos", view);
-        verify(photoService, never()).deletePhoto(any());
+        verify(redirectAttributes, never()).addFlashAttribute(eq("success"), any());
     }
 
     @Test
-    void testDelete_Success_WithFile() {
-        mockPhoto.setFilename("existing.jpg");
-        when(photoService.getPhotoById(any(UUID.class))).thenReturn(mockPhoto);
+    void testDelete_Success_OffersUndo() {
+        mockSecurityContext(mockUser);
+        when(photoService.deletePhoto(mockPhoto.getId(), mockUser.getId())).thenReturn(true);
 
         String view = photoController.delete(mockPhoto.getId(), redirectAttributes);
 
         assertEquals("redirect:/photos", view);
-        verify(fileStorageService).deleteFile("existing.jpg");
-        verify(photoService).deletePhoto(mockPhoto.getId());
+        // File dan kuota dilepas belakangan oleh job purge
+        verifyNoInteractions(storageQuotaService);
         verify(redirectAttributes).addFlashAttribute("success", "Foto berhasil dihapus.");
+        verify(redirectAttributes).addFlashAttribute("undoPhotoId", mockPhoto.getId());
     }
-    
+
     @Test
-    void testDelete_Success_NoFile() {
-        mockPhoto.setFilename(null);
-        when(photoService.getPhotoById(any(UUID.class))).thenReturn(mockPhoto);
+    void testRestore_Success() {
+        mockSecurityContext(mockUser);
+        when(photoService.restorePhoto(mockPhoto.getId(), mockUser.getId())).thenReturn(true);
 
-        String view = photoController.delete(mockPhoto.getId(), redirectAttributes);
+        String view = photoController.restore(mockPhoto.getId(), redirectAttributes);
 
         assertEquals("redirect:/photos", view);
-        verify(fileStorageService, never()).deleteFile(anyString());
-        verify(photoService).deletePhoto(mockPhoto.getId());
+        verify(redirectAttributes).addFlashAttribute("success", "Foto berhasil dikembalikan.");
+    }
+
+    @Test
+    void testRestore_WindowPassed() {
+        mockSecurityContext(mockUser);
+        when(photoService.restorePhoto(mockPhoto.getId(), mockUser.getId())).thenReturn(false);
+
+        String view = photoController.restore(mockPhoto.getId(), redirectAttributes);
+
+        assertEquals("redirect:/photos", view);
+        verify(redirectAttributes).addFlashAttribute(eq("error"), contains("undo"));
+    }
+
+    // --- TEST BULK EDIT ---
+
+    private BulkEditRequest bulkRequest(BulkEditRequest.Action action) {
+        BulkEditRequest request = new BulkEditRequest();
+        request.setIds(List.of(mockPhoto.getId()));
+        request.setAction(action);
+        request.setCategory(" Street ");
+        return request;
+    }
+
+    @Test
+    void testBulk_NotLoggedIn() {
+        mockSecurityContext(null);
+
+        String view = photoController.bulk(bulkRequest(BulkEditRequest.Action.DELETE), bindingResult, redirectAttributes);
+
+        assertEquals("redirect:/auth/login", view);
+        verifyNoInteractions(photoService);
+    }
+
+    @Test
+    void testBulk_ValidationError() {
+        mockSecurityContext(mockUser);
+        when(bindingResult.hasErrors()).thenReturn(true);
+        when(bindingResult.getFieldErrors()).thenReturn(List.of(
+                new FieldError("bulkEditRequest", "ids", "Pilih minimal satu foto")));
+
+        String view = photoController.bulk(new BulkEditRequest(), bindingResult, redirectAttributes);
+
+        assertEquals("redirect:/photos", view);
+        verify(redirectAttributes).addFlashAttribute("error", "Pilih minimal satu foto");
+        verifyNoInteractions(photoService);
+    }
+
+    @Test
+    void testBulk_Category() {
+        mockSecurityContext(mockUser);
+        BulkEditRequest request = bulkRequest(BulkEditRequest.Action.CATEGORY);
+        when(photoService.bulkEdit(mockUser.getId(), request)).thenReturn(1);
+
+        String view = photoController.bulk(request, bindingResult, redirectAttributes);
+
+        assertEquals("redirect:/photos", view);
+        verify(redirectAttributes).addFlashAttribute("success", "1 foto dipindah ke kategori Street.");
+    }
+
+    @Test
+    void testBulk_InvalidValue() {
+        mockSecurityContext(mockUser);
+        BulkEditRequest request = bulkRequest(BulkEditRequest.Action.PRICE_PERCENT);
+        when(photoService.bulkEdit(mockUser.getId(), request))
+                .thenThrow(new IllegalArgumentException("Persentase harus antara -100 dan 1000"));
+
+        String view = photoController.bulk(request, bindingResult, redirectAttributes);
+
+        assertEquals("redirect:/photos", view);
+        verify(redirectAttributes).addFlashAttribute("error", "Persentase harus antara -100 dan 1000");
     }
 
     // --- TEST CHART ---
@@ -342,11 +748,24 @@ class PhotoControllerTest {
     void testChart_LoggedIn() {
         mockSecurityContext(mockUser);
         when(photoService.getChartData(any(UUID.class))).thenReturn(new ArrayList<>());
+        TimeBucket bucket = new TimeBucket(LocalDate.of(2025, 3, 1), 2, 1000L, 5, 3000L);
+        CategoryStat stat = new CategoryStat("Macro", 2, 1000L, 100.0);
+        when(photoService.getAnalytics(any(UUID.class)))
+                .thenReturn(new PortfolioAnalytics(List.of(bucket), List.of(), List.of(bucket), List.of(stat)));
 
         String view = photoController.chart(model);
 
         assertEquals("pages/photos/chart", view);
         verify(model).addAttribute(eq("chartData"), anyList());
+        verify(model).addAttribute("dailySeries", Map.of(
+                "labels", List.of("2025-03-01"),
+                "uploads", List.of(2L),
+                "value", List.of(new BigDecimal("10.00")),
+                "cumulativeValue", List.of(new BigDecimal("30.00"))));
+        verify(model).addAttribute("categoryStats", Map.of(
+                "labels", List.of("Macro"),
+                "value", List.of(new BigDecimal("10.00")),
+                "share", List.of(100.0)));
     }
 
     @Test
@@ -382,7 +801,7 @@ class PhotoControllerTest {
         SecurityContextHolder.setContext(securityContext);
 
         // 2. Panggil controller (akan memicu getAuthUser)
-        String view = photoController.index(model);
+        String view = photoController.index(model, webRequest);
 
         // 3. Assert: Karena auth null, dianggap tidak login -> redirect
         assertEquals("redirect:/auth/login", view);
@@ -398,7 +817,7 @@ class PhotoControllerTest {
         SecurityContextHolder.setContext(securityContext);
 
         // 2. Panggil controller
-        String view = photoController.index(model);
+        String view = photoController.index(model, webRequest);
 
         // 3. Assert: Karena bukan User, dianggap tidak login -> redirect
         assertEquals("redirect:/auth/login", view);
@@ -0,0 +1,193 @@
+package org.delcom.app.controllers;
+
+import org.delcom.app.configs.ApiResponse;
+import org.delcom.app.configs.AuthContext;
+import org.delcom.app.dto.PhotoDetail;
+import org.delcom.app.dto.UploadRequest;
+import org.delcom.app.dto.UploadStatus;
+import org.delcom.app.entities.Photo;
+import org.delcom.app.entities.User;
+import org.delcom.app.services.InvalidImageException;
+import org.delcom.app.services.PhotoService;
+import org.delcom.app.services.QuotaExceededException;
+import org.delcom.app.services.ResumableUploadService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UploadApiControllerTest {
+
+    @Mock
+    private ResumableUploadService resumableUploadService;
+
+    @Mock
+    private PhotoService photoService;
+
+    @Mock
+    private AuthContext authContext;
+
+    @InjectMocks
+    private UploadApiController controller;
+
+    private User user;
+    private UUID uploadId;
+    private UploadStatus status;
+
+    @BeforeEach
+    void setUp() {
+        user = new User("Ayu", "ayu@example.com", "secret");
+        user.setId(UUID.randomUUID());
+        lenient().when(authContext.getAuthUser()).thenReturn(user);
+
+        uploadId = UUID.randomUUID();
+        status = new UploadStatus(uploadId, UUID.randomUUID(), 250, 0, List.of(), false, LocalDateTime.now());
+    }
+
+    private UploadRequest request() {
+        UploadRequest request = new UploadRequest();
+        request.setPhotoId(status.photoId());
+        request.setSize(250L);
+        request.setSha256("ab".repeat(32));
+        return request;
+    }
+
+    // --- CREATE ---
+
+    @Test
+    void testCreate() throws Exception {
+        when(resumableUploadService.create(user.getId(), status.photoId(), 250, "ab".repeat(32))).thenReturn(status);
+
+        ResponseEntity<ApiResponse<UploadStatus>> response = controller.create(request());
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals("/api/uploads/" + uploadId, response.getHeaders().getLocation().toString());
+        assertSame(status, response.getBody().getData());
+    }
+
+    @Test
+    void testCreate_NotFoundAndQuota() throws Exception {
+        assertEquals(HttpStatus.NOT_FOUND, controller.create(request()).getStatusCode());
+
+        when(resumableUploadService.create(any(), any(), anyLong(), anyString()))
+                .thenThrow(new QuotaExceededException("Kuota penyimpanan tidak cukup"));
+        assertEquals(HttpStatus.CONTENT_TOO_LARGE, controller.create(request()).getStatusCode());
+    }
+
+    @Test
+    void testCreate_TooManyOpenSessions() throws Exception {
+        when(resumableUploadService.create(any(), any(), anyLong(), anyString()))
+                .thenThrow(new IllegalStateException("Maksimal 5 sesi upload terbuka per user"));
+
+        assertEquals(HttpStatus.CONFLICT, controller.create(request()).getStatusCode());
+    }
+
+    // --- CHUNK ---
+
+    @Test
+    void testWriteChunk_UsesContentRangeOffsets() throws Exception {
+        InputStream body = new ByteArrayInputStream(new byte[100]);
+        when(resumableUploadService.getStatus(user.getId(), uploadId)).thenReturn(status);
+        when(resumableUploadService.writeChunk(user.getId(), uploadId, 100, 100, body)).thenReturn(status);
+
+        ResponseEntity<ApiResponse<UploadStatus>> response = controller.writeChunk(uploadId, "bytes 100-199/250", body);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(resumableUploadService).writeChunk(user.getId(), uploadId, 100, 100, body);
+    }
+
+    @Test
+    void testWriteChunk_InvalidContentRange() throws Exception {
+        InputStream body = new ByteArrayInputStream(new byte[10]);
+
+        assertEquals(HttpStatus.BAD_REQUEST, controller.writeChunk(uploadId, null, body).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.writeChunk(uploadId, "bytes=0-9", body).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.writeChunk(uploadId, "bytes 9-0/250", body).getStatusCode());
+
+        // Total tidak sama dengan ukuran sesi
+        when(resumableUploadService.getStatus(user.getId(), uploadId)).thenReturn(status);
+        assertEquals(HttpStatus.BAD_REQUEST, controller.writeChunk(uploadId, "bytes 0-9/999", body).getStatusCode());
+        verify(resumableUploadService, never()).writeChunk(any(), any(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void testWriteChunk_UnknownTotalAndMissingSession() throws Exception {
+        InputStream body = new ByteArrayInputStream(new byte[10]);
+
+        assertEquals(HttpStatus.NOT_FOUND, controller.writeChunk(uploadId, "bytes 0-9/*", body).getStatusCode());
+        verify(resumableUploadService, never()).getStatus(any(), any());
+    }
+
+    // --- STATUS / COMPLETE / ABORT ---
+
+    @Test
+    void testStatus() {
+        when(resumableUploadService.getStatus(user.getId(), uploadId)).thenReturn(status);
+
+        assertEquals(HttpStatus.OK, controller.status(uploadId).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, controller.status(UUID.randomUUID()).getStatusCode());
+    }
+
+    @Test
+    void testComplete() throws Exception {
+        Photo photo = new Photo(user.getId(), "Senja", "Landscape", "Desc", new BigDecimal("500"));
+        photo.setId(status.photoId());
+        PhotoDetail detail = new PhotoDetail(photo.getId(), "Senja", 2, "Landscape", "Desc", BigDecimal.ONE,
+                "IDR", "cover_baru.jpg", LocalDateTime.now(), LocalDateTime.now(), 3);
+        when(resumableUploadService.complete(user.getId(), uploadId)).thenReturn(photo);
+        when(photoService.getPhotoDetail(photo.getId(), user.getId())).thenReturn(detail);
+
+        ResponseEntity<ApiResponse<Object>> response = controller.complete(uploadId);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(detail, response.getBody().getData());
+    }
+
+    @Test
+    void testComplete_IncompleteReturnsStatus() throws Exception {
+        when(resumableUploadService.complete(user.getId(), uploadId))
+                .thenThrow(new IllegalStateException("Upload belum lengkap"));
+        when(resumableUploadService.getStatus(user.getId(), uploadId)).thenReturn(status);
+
+        ResponseEntity<ApiResponse<Object>> response = controller.complete(uploadId);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertSame(status, response.getBody().getData());
+    }
+
+    @Test
+    void testComplete_DigestMismatchAndInvalidImage() throws Exception {
+        when(resumableUploadService.complete(user.getId(), uploadId))
+                .thenThrow(new IllegalArgumentException("Digest SHA-256 tidak cocok"))
+                .thenThrow(new InvalidImageException("File bukan gambar"))
+                .thenThrow(new QuotaExceededException("Kuota penyimpanan tidak cukup"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, controller.complete(uploadId).getStatusCode());
+        assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, controller.complete(uploadId).getStatusCode());
+        assertEquals(HttpStatus.CONTENT_TOO_LARGE, controller.complete(uploadId).getStatusCode());
+    }
+
+    @Test
+    void testAbort() throws Exception {
+        when(resumableUploadService.abort(user.getId(), uploadId)).thenReturn(true);
+
+        assertEquals(HttpStatus.OK, controller.abort(uploadId).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, controller.abort(UUID.randomUUID()).getStatusCode());
+    }
+}
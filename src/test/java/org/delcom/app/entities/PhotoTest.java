@@ -55,6 +55,34 @@ class PhotoTest {
         assertEquals("test.jpg", photo.getFilename());
     }
 
+    @Test
+    void testPriceStoredAsMinorUnits() {
+        Photo photo = new Photo(USER_ID, TITLE, CATEGORY, DESCRIPTION, new BigDecimal("1234.565"));
+
+        // Dibulatkan HALF_UP ke sen
+        assertEquals(123457L, photo.getPriceMinor());
+        assertEquals(new BigDecimal("1234.57"), photo.getPrice());
+        assertEquals("IDR", photo.getCurrency());
+
+        photo.setPriceMinor(99L);
+        photo.setCurrency("USD");
+        assertEquals(new BigDecimal("0.99"), photo.getPrice());
+        assertEquals("USD", photo.getCurrency());
+
+        photo.setPrice(null);
+        assertEquals(0L, photo.getPriceMinor());
+    }
+
+    @Test
+    void testAssignCategory() {
+        Photo photo = new Photo(USER_ID, TITLE, "landscape", DESCRIPTION, PRICE);
+
+        photo.assignCategory(2, "Landscape");
+
+        assertEquals(2, photo.getCategoryId());
+        assertEquals("Landscape", photo.getCategory());
+    }
+
 @Test
     void testPrePersist() {
         Photo photo = new Photo(USER_ID, TITLE, CATEGORY, DESCRIPTION, PRICE);
@@ -0,0 +1,110 @@
+package org.delcom.app.interceptors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.delcom.app.configs.QueryMetrics;
+import org.delcom.app.dto.EndpointQueryStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+
+public class QueryCountInterceptorTests {
+
+    // Handler palsu untuk membentuk HandlerMethod
+    static class SampleController {
+        public String home() {
+            return "home";
+        }
+    }
+
+    private QueryMetrics queryMetrics;
+    private QueryCountInterceptor interceptor;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        queryMetrics = new QueryMetrics(Duration.ofMillis(100), 1);
+        interceptor = new QueryCountInterceptor(queryMetrics);
+        request = Mockito.mock(HttpServletRequest.class);
+        response = Mockito.mock(HttpServletResponse.class);
+    }
+
+    private void runQuery(long elapsedMillis) {
+        ExecutionInfo info = new ExecutionInfo();
+        info.setElapsedTime(elapsedMillis);
+        queryMetrics.afterQuery(info, List.of(new QueryInfo("select 1")));
+    }
+
+    @Test
+    @DisplayName("Query dihitung per handler controller")
+    public void testCountsQueriesPerHandler() throws Exception {
+        HandlerMethod handler = new HandlerMethod(new SampleController(), SampleController.class.getMethod("home"));
+
+        assertTrue(interceptor.preHandle(request, response, handler));
+        runQuery(5);
+        runQuery(250);
+        interceptor.afterCompletion(request, response, handler, null);
+
+        interceptor.preHandle(request, response, handler);
+        runQuery(1);
+        interceptor.afterCompletion(request, response, handler, null);
+
+        EndpointQueryStats stats = queryMetrics.snapshot().get(0);
+        assertEquals("SampleController.home", stats.endpoint());
+        assertEquals(2, stats.requests());
+        assertEquals(3, stats.queries());
+        assertEquals(1.5, stats.avgQueries());
+        assertEquals(2, stats.maxQueries());
+        assertEquals(256, stats.totalQueryMillis());
+        // Alokasi diukur per thread; di HotSpot selalu terisi, di JVM lain bernilai 0
+        assertTrue(stats.maxAllocatedBytes() >= stats.avgAllocatedBytes());
+        assertTrue(stats.avgAllocatedBytes() >= 0);
+    }
+
+    @Test
+    @DisplayName("Handler non-controller memakai pola mapping, query di luar request diabaikan")
+    public void testNonHandlerMethodAndOutsideRequest() throws Exception {
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE)).thenReturn("/uploads/**");
+
+        runQuery(500);
+        interceptor.afterCompletion(request, response, null, null);
+        assertTrue(queryMetrics.snapshot().isEmpty());
+
+        interceptor.preHandle(request, response, new Object());
+        runQuery(1);
+        interceptor.afterCompletion(request, response, null, null);
+
+        assertEquals("GET /uploads/**", queryMetrics.snapshot().get(0).endpoint());
+    }
+
+    @Test
+    @DisplayName("URI tanpa pola mapping masuk satu bucket, bukan satu kunci per URL")
+    public void testUnmappedRequestsShareOneBucket() throws Exception {
+        when(request.getMethod()).thenReturn("GET");
+
+        for (String uri : List.of("/wp-login.php", "/.env", "/favicon.ico")) {
+            when(request.getRequestURI()).thenReturn(uri);
+            interceptor.preHandle(request, response, new Object());
+            interceptor.afterCompletion(request, response, null, null);
+        }
+
+        assertEquals(1, queryMetrics.snapshot().size());
+        assertEquals("GET " + QueryCountInterceptor.UNMAPPED, queryMetrics.snapshot().get(0).endpoint());
+        assertEquals(3, queryMetrics.snapshot().get(0).requests());
+    }
+}
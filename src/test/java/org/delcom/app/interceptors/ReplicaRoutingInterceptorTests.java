@@ -0,0 +1,120 @@
+package org.delcom.app.interceptors;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import org.delcom.app.configs.AuthContext;
+import org.delcom.app.configs.ReplicaRoutingContext;
+import org.delcom.app.entities.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+public class ReplicaRoutingInterceptorTests {
+
+    private ReplicaRoutingContext routingContext;
+    private AuthContext authContext;
+    private ReplicaRoutingInterceptor interceptor;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        routingContext = new ReplicaRoutingContext(Duration.ofMinutes(1), 100);
+        authContext = new AuthContext();
+        interceptor = new ReplicaRoutingInterceptor(routingContext, authContext);
+        request = Mockito.mock(HttpServletRequest.class);
+        response = Mockito.mock(HttpServletResponse.class);
+
+        user = new User("testuser", "testuser@example.com");
+        user.setId(UUID.randomUUID());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        routingContext.clear();
+    }
+
+    @Test
+    @DisplayName("User API dari AuthContext menjadi sticky setelah menulis")
+    public void testApiUserBecomesStickyAfterWrite() throws Exception {
+        authContext.setAuthUser(user);
+
+        assertTrue(interceptor.preHandle(request, response, null));
+        assertFalse(routingContext.isSticky());
+
+        routingContext.recordWrite();
+        assertTrue(routingContext.isSticky());
+
+        // Setelah request selesai thread tidak lagi terikat ke user
+        interceptor.afterCompletion(request, response, null, null);
+        assertFalse(routingContext.isSticky());
+
+        // Request berikutnya dari user yang sama masih di dalam jendela sticky
+        interceptor.preHandle(request, response, null);
+        assertTrue(routingContext.isSticky());
+    }
+
+    @Test
+    @DisplayName("User web diambil dari sesi Spring Security")
+    public void testWebUserFromSecurityContext() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of()));
+
+        interceptor.preHandle(request, response, null);
+        routingContext.recordWrite();
+
+        assertTrue(routingContext.isSticky());
+    }
+
+    @Test
+    @DisplayName("Request anonim tidak pernah sticky")
+    public void testAnonymousRequest() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("anonymous", null, List.of()));
+
+        interceptor.preHandle(request, response, null);
+        routingContext.recordWrite();
+        assertFalse(routingContext.isSticky());
+
+        SecurityContextHolder.clearContext();
+        interceptor.preHandle(request, response, null);
+        assertFalse(routingContext.isSticky());
+    }
+
+    @Test
+    @DisplayName("Request async melepas user dari thread saat handling berpindah thread")
+    public void testAsyncRequestClearsUser() throws Exception {
+        authContext.setAuthUser(user);
+        interceptor.preHandle(request, response, null);
+        routingContext.recordWrite();
+
+        interceptor.afterConcurrentHandlingStarted(request, response, null);
+
+        assertFalse(routingContext.isSticky());
+    }
+
+    @Test
+    @DisplayName("Lookup onPrimary tidak menandai user sebagai penulis")
+    public void testOnPrimaryDoesNotRecordWrite() throws Exception {
+        authContext.setAuthUser(user);
+        interceptor.preHandle(request, response, null);
+
+        assertTrue(routingContext.onPrimary(routingContext::isPrimaryForced));
+        assertFalse(routingContext.isPrimaryForced());
+        assertFalse(routingContext.isSticky());
+    }
+}
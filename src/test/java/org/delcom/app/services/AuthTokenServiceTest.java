@@ -1,13 +1,16 @@
 package org.delcom.app.services;
 
+import org.delcom.app.configs.ReplicaRoutingContext;
 import org.delcom.app.entities.AuthToken;
 import org.delcom.app.repositories.AuthTokenRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.MockitoAnnotations;
 
+import java.time.Duration;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -20,6 +23,9 @@ class AuthTokenServiceTest {
     @Mock
     private AuthTokenRepository authTokenRepository;
 
+    @Spy
+    private ReplicaRoutingContext routingContext = new ReplicaRoutingContext(Duration.ofSeconds(5), 100);
+
     @InjectMocks
     private AuthTokenService authTokenService;
 
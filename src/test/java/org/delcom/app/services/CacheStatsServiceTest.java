@@ -0,0 +1,98 @@
+package org.delcom.app.services;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.persistence.EntityManagerFactory;
+import org.delcom.app.configs.CacheConfig;
+import org.delcom.app.dto.CacheRegionStats;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CacheStatsServiceTest {
+
+    private EntityManagerFactory entityManagerFactory;
+    private Statistics statistics;
+    private CacheManager cacheManager;
+    private CacheStatsService cacheStatsService;
+
+    @BeforeEach
+    void setUp() {
+        entityManagerFactory = mock(EntityManagerFactory.class);
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        statistics = mock(Statistics.class);
+        cacheManager = mock(CacheManager.class);
+
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getStatistics()).thenReturn(statistics);
+
+        cacheStatsService = new CacheStatsService(entityManagerFactory, cacheManager);
+    }
+
+    private CacheRegionStatistics regionStats(long hits, long misses, long puts, long size) {
+        CacheRegionStatistics stats = mock(CacheRegionStatistics.class);
+        when(stats.getHitCount()).thenReturn(hits);
+        when(stats.getMissCount()).thenReturn(misses);
+        when(stats.getPutCount()).thenReturn(puts);
+        when(stats.getElementCountInMemory()).thenReturn(size);
+        return stats;
+    }
+
+    @Test
+    void testGetStats_CollectsAllRegions() {
+        CacheRegionStatistics photoStats = regionStats(3, 1, 1, 10);
+        CacheRegionStatistics userStats = regionStats(0, 0, 0, Long.MIN_VALUE);
+        when(statistics.getDomainDataRegionStatistics(CacheConfig.REGION_PHOTO)).thenReturn(photoStats);
+        when(statistics.getDomainDataRegionStatistics(CacheConfig.REGION_USER)).thenReturn(userStats);
+        when(statistics.getQueryRegionStatistics(CacheConfig.REGION_PHOTO_CATEGORY_COUNTS)).thenReturn(null);
+
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> caffeine = Caffeine.newBuilder().recordStats().build();
+        caffeine.put("a", "b");
+        caffeine.getIfPresent("a");
+        caffeine.getIfPresent("x");
+        Cache springCache = mock(Cache.class);
+        when(springCache.getNativeCache()).thenReturn(caffeine);
+        when(cacheManager.getCache(CacheConfig.CACHE_PHOTO_ANALYTICS)).thenReturn(springCache);
+
+        Map<String, List<CacheRegionStats>> result = cacheStatsService.getStats();
+
+        CacheRegionStats photo = result.get("entity").get(0);
+        assertEquals(CacheConfig.REGION_PHOTO, photo.region());
+        assertEquals(3, photo.hits());
+        assertEquals(10, photo.size());
+        assertEquals(0.75, photo.hitRatio());
+
+        CacheRegionStats user = result.get("entity").get(1);
+        assertEquals(-1, user.size());
+        assertEquals(0.0, user.hitRatio());
+
+        CacheRegionStats query = result.get("query").get(0);
+        assertEquals(0, query.hits());
+        assertEquals(-1, query.size());
+
+        CacheRegionStats analytics = result.get("application").get(0);
+        assertEquals(1, analytics.hits());
+        assertEquals(1, analytics.misses());
+        assertEquals(1, analytics.size());
+    }
+
+    @Test
+    void testGetStats_ApplicationCacheMissingOrNotCaffeine() {
+        when(cacheManager.getCache(CacheConfig.CACHE_PHOTO_ANALYTICS)).thenReturn(null);
+        assertEquals(-1, cacheStatsService.getStats().get("application").get(0).size());
+
+        Cache springCache = mock(Cache.class);
+        when(springCache.getNativeCache()).thenReturn(new Object());
+        when(cacheManager.getCache(CacheConfig.CACHE_PHOTO_ANALYTICS)).thenReturn(springCache);
+        assertEquals(-1, cacheStatsService.getStats().get("application").get(0).size());
+    }
+}
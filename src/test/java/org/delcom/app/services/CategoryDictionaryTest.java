@@ -0,0 +1,80 @@
+package org.delcom.app.services;
+
+import org.delcom.app.entities.Category;
+import org.delcom.app.repositories.CategoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class CategoryDictionaryTest {
+
+    private CategoryRepository categoryRepository;
+    private PlatformTransactionManager transactionManager;
+    private CategoryDictionary dictionary;
+
+    @BeforeEach
+    void setUp() {
+        categoryRepository = mock(CategoryRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        when(categoryRepository.findAll()).thenReturn(List.of(new Category(1, "Street"), new Category(2, "Macro")));
+        dictionary = new CategoryDictionary(categoryRepository, transactionManager);
+        dictionary.preload();
+    }
+
+    @Test
+    void testLookupsAfterPreloadDoNotHitDatabase() {
+        assertEquals("Street", dictionary.nameOf(1));
+        assertEquals(2, dictionary.findId(" macro "));
+        assertEquals(2, dictionary.idFor("MACRO"));
+        assertSame(dictionary.nameOf(2), "Macro".intern());
+
+        verify(categoryRepository, never()).findById(anyInt());
+        verify(categoryRepository, never()).findByNameIgnoreCase(any());
+        verify(categoryRepository, never()).insertIfAbsent(any());
+    }
+
+    @Test
+    void testIdForCreatesUnknownCategoryInOwnTransaction() {
+        when(categoryRepository.findByNameIgnoreCase("Aerial"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(new Category(3, "Aerial")));
+
+        assertEquals(3, dictionary.idFor("Aerial "));
+        assertEquals("Aerial", dictionary.nameOf(3));
+
+        verify(categoryRepository).insertIfAbsent("Aerial");
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void testFindIdUnknownOrBlank() {
+        when(categoryRepository.findByNameIgnoreCase("Aerial")).thenReturn(Optional.empty());
+
+        assertNull(dictionary.findId("Aerial"));
+        assertNull(dictionary.findId(" "));
+        assertNull(dictionary.findId(null));
+        verify(categoryRepository, never()).insertIfAbsent(any());
+    }
+
+    @Test
+    void testNameOfFallsBackToDatabase() {
+        when(categoryRepository.findById(9)).thenReturn(Optional.of(new Category(9, "Wildlife")));
+        when(categoryRepository.findById(10)).thenReturn(Optional.empty());
+
+        assertEquals("Wildlife", dictionary.nameOf(9));
+        assertEquals("Wildlife", dictionary.nameOf(9));
+        assertNull(dictionary.nameOf(10));
+        verify(categoryRepository, times(1)).findById(9);
+    }
+}
@@ -1,5 +1,6 @@
 package org.delcom.app.services;
 
+import org.delcom.app.dto.ImageInfo;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -7,12 +8,24 @@ import org.junit.jupiter.api.io.TempDir;
 import org.mockito.MockedStatic;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,12 +40,31 @@ class FileStorageServiceTests {
 
     @BeforeEach
     void setup() {
-        fileStorageService = new FileStorageService();
-        // Override uploadDir dengan temporary directory
-        fileStorageService.uploadDir = tempDir.toString();
+        // Backend lokal di temporary directory
+        fileStorageService = new FileStorageService(new LocalStorageBackend(tempDir));
         mockMultipartFile = mock(MultipartFile.class);
     }
 
+    // Header PNG minimal: signature + chunk IHDR berisi dimensi
+    static byte[] png(int width, int height) {
+        ByteBuffer buffer = ByteBuffer.allocate(33);
+        buffer.put(new byte[]{(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A});
+        buffer.putInt(13).put("IHDR".getBytes(StandardCharsets.US_ASCII)).putInt(width).putInt(height);
+        buffer.put(new byte[]{8, 6, 0, 0, 0}).putInt(0);
+        return buffer.array();
+    }
+
+    // Header JPEG minimal: SOI, APP0, lalu SOF0 berisi dimensi
+    static byte[] jpeg(int width, int height) {
+        ByteBuffer buffer = ByteBuffer.allocate(2 + 18 + 19);
+        buffer.put(new byte[]{(byte) 0xFF, (byte) 0xD8});
+        buffer.put(new byte[]{(byte) 0xFF, (byte) 0xE0}).putShort((short) 16).put("JFIF".getBytes(StandardCharsets.US_ASCII))
+                .put(new byte[10]);
+        buffer.put(new byte[]{(byte) 0xFF, (byte) 0xC0}).putShort((short) 17).put((byte) 8)
+                .putShort((short) height).putShort((short) width).put(new byte[10]);
+        return buffer.array();
+    }
+
     @Test
     @DisplayName("Store file berhasil menyimpan file dengan extension")
     void storeFile_berhasil_menyimpan_file_dengan_extension() throws Exception {
@@ -40,7 +72,7 @@ class FileStorageServiceTests {
         UUID todoId = UUID.randomUUID();
         String originalFilename = "image.jpg";
         String expectedFilename = "cover_" + todoId + ".jpg";
-        byte[] fileContent = "fake image content".getBytes();
+        byte[] fileContent = jpeg(640, 480);
 
         when(mockMultipartFile.getOriginalFilename()).thenReturn(originalFilename);
         when(mockMultipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(fileContent));
@@ -58,12 +90,12 @@ class FileStorageServiceTests {
     }
 
     @Test
-    @DisplayName("Store file berhasil tanpa extension ketika original filename null")
-    void storeFile_berhasil_tanpa_extension_ketika_originalFilename_null() throws Exception {
+    @DisplayName("Store file memakai extension dari isi file ketika original filename null")
+    void storeFile_extension_dari_isi_ketika_originalFilename_null() throws Exception {
         // Arrange
         UUID todoId = UUID.randomUUID();
-        String expectedFilename = "cover_" + todoId.toString();
-        byte[] fileContent = "fake content".getBytes();
+        String expectedFilename = "cover_" + todoId + ".png";
+        byte[] fileContent = png(10, 10);
 
         when(mockMultipartFile.getOriginalFilename()).thenReturn(null);
         when(mockMultipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(fileContent));
@@ -77,12 +109,12 @@ class FileStorageServiceTests {
     }
 
     @Test
-    @DisplayName("Store file berhasil tanpa extension ketika tidak ada dot")
-    void storeFile_berhasil_tanpa_extension_ketika_tidak_ada_dot() throws Exception {
+    @DisplayName("Store file memakai extension dari isi file ketika tidak ada dot")
+    void storeFile_extension_dari_isi_ketika_tidak_ada_dot() throws Exception {
         // Arrange
         UUID todoId = UUID.randomUUID();
-        String expectedFilename = "cover_" + todoId.toString();
-        byte[] fileContent = "fake content".getBytes();
+        String expectedFilename = "cover_" + todoId + ".jpg";
+        byte[] fileContent = jpeg(10, 10);
 
         when(mockMultipartFile.getOriginalFilename()).thenReturn("filename");
         when(mockMultipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(fileContent));
@@ -96,23 +128,107 @@ class FileStorageServiceTests {
     }
 
     @Test
-    @DisplayName("Store file berhasil dengan complex extension")
-    void storeFile_berhasil_dengan_complex_extension() throws Exception {
+    @DisplayName("Store file menolak file bukan gambar tanpa menulis ke disk")
+    void storeFile_menolak_file_bukan_gambar() throws Exception {
         // Arrange
         UUID todoId = UUID.randomUUID();
-        String originalFilename = "document.final.pdf";
-        String expectedFilename = "cover_" + todoId + ".pdf";
-        byte[] fileContent = "fake pdf content".getBytes();
+        when(mockMultipartFile.getInputStream()).thenReturn(new ByteArrayInputStream("%PDF-1.7 fake pdf".getBytes()));
 
-        when(mockMultipartFile.getOriginalFilename()).thenReturn(originalFilename);
-        when(mockMultipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(fileContent));
+        // Act & Assert
+        assertThrows(InvalidImageException.class, () -> fileStorageService.storeFile(mockMultipartFile, todoId));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Extension dari client diabaikan, mengikuti format asli")
+    void storeFile_extension_client_diabaikan() throws Exception {
+        // Arrange
+        UUID todoId = UUID.randomUUID();
+        when(mockMultipartFile.getOriginalFilename()).thenReturn("document.final.html");
+        when(mockMultipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(png(20, 20)));
 
         // Act
         String result = fileStorageService.storeFile(mockMultipartFile, todoId);
 
         // Assert
-        assertEquals(expectedFilename, result);
-        assertTrue(Files.exists(tempDir.resolve(expectedFilename)));
+        assertEquals("cover_" + todoId + ".png", result);
+    }
+
+    @Test
+    @DisplayName("Inspect menolak tipe yang dideklarasikan berbeda dengan isi")
+    void inspect_menolak_tipe_tidak_sesuai() throws Exception {
+        when(mockMultipartFile.getContentType()).thenReturn("image/gif");
+        when(mockMultipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(png(20, 20)));
+
+        assertThrows(InvalidImageException.class, () -> fileStorageService.inspect(mockMultipartFile));
+    }
+
+    @Test
+    @DisplayName("Inspect menerima tipe generik dan alias image/jpg")
+    void inspect_menerima_tipe_generik() throws Exception {
+        when(mockMultipartFile.getContentType()).thenReturn("application/octet-stream", "image/jpg");
+        when(mockMultipartFile.getInputStream())
+                .thenReturn(new ByteArrayInputStream(png(20, 10)), new ByteArrayInputStream(jpeg(30, 40)));
+
+        ImageInfo png = fileStorageService.inspect(mockMultipartFile);
+        ImageInfo jpeg = fileStorageService.inspect(mockMultipartFile);
+
+        assertEquals(new ImageInfo("png", 20, 10), png);
+        assertEquals(new ImageInfo("jpeg", 30, 40), jpeg);
+    }
+
+    @Test
+    @DisplayName("Inspect menolak dimensi berlebihan (decompression bomb)")
+    void inspect_menolak_dimensi_berlebihan() {
+        fileStorageService.maxDimension = 20000;
+        fileStorageService.maxPixels = 1_000_000;
+
+        assertThrows(InvalidImageException.class,
+                () -> fileStorageService.inspect(new BufferedInputStream(new ByteArrayInputStream(png(15000, 15000)))));
+        assertThrows(InvalidImageException.class,
+                () -> fileStorageService.inspect(new BufferedInputStream(new ByteArrayInputStream(png(30000, 1)))));
+        assertThrows(InvalidImageException.class,
+                () -> fileStorageService.inspect(new BufferedInputStream(new ByteArrayInputStream(png(0, 10)))));
+    }
+
+    @Test
+    @DisplayName("Inspect mengenali GIF dan WebP dan tidak menggeser posisi stream")
+    void inspect_gif_dan_webp() throws Exception {
+        byte[] gif = {'G', 'I', 'F', '8', '9', 'a', 64, 0, 32, 0, 0, 0};
+        byte[] webp = new byte[30];
+        System.arraycopy("RIFF".getBytes(StandardCharsets.US_ASCII), 0, webp, 0, 4);
+        System.arraycopy("WEBPVP8X".getBytes(StandardCharsets.US_ASCII), 0, webp, 8, 8);
+        webp[24] = 99;
+        webp[27] = 49;
+
+        BufferedInputStream gifStream = new BufferedInputStream(new ByteArrayInputStream(gif));
+        assertEquals(new ImageInfo("gif", 64, 32), fileStorageService.inspect(gifStream));
+        assertArrayEquals(gif, gifStream.readAllBytes());
+        assertEquals(new ImageInfo("webp", 100, 50),
+                fileStorageService.inspect(new BufferedInputStream(new ByteArrayInputStream(webp))));
+    }
+
+    @Test
+    @DisplayName("Inspect menemukan SOF JPEG setelah segmen APP lebih dari 64 KB dan stream tetap utuh")
+    void inspect_jpeg_dengan_segmen_app_besar() throws Exception {
+        byte[] base = jpeg(4000, 3000);
+        ByteBuffer buffer = ByteBuffer.allocate(base.length + 3 * 65537);
+        buffer.put(base, 0, 2);
+        // EXIF, ICC, dan XMP masing-masing satu segmen APP penuh (65535 byte)
+        for (int marker : new int[]{0xE1, 0xE2, 0xE1}) {
+            buffer.put((byte) 0xFF).put((byte) marker).putShort((short) 0xFFFF).put(new byte[65533]);
+        }
+        buffer.put(base, 2, base.length - 2);
+        byte[] content = buffer.array();
+
+        BufferedInputStream in = new BufferedInputStream(new ByteArrayInputStream(content), FileStorageService.HEADER_BYTES);
+        ImageInfo image = fileStorageService.inspect(in);
+
+        assertEquals(4000, image.width());
+        assertEquals(3000, image.height());
+        assertArrayEquals(content, in.readAllBytes());
     }
 
     @Test
@@ -121,10 +237,10 @@ class FileStorageServiceTests {
         // Arrange
         UUID todoId = UUID.randomUUID();
         Path customUploadDir = tempDir.resolve("custom-upload");
-        fileStorageService.uploadDir = customUploadDir.toString();
+        fileStorageService = new FileStorageService(new LocalStorageBackend(customUploadDir));
 
-        when(mockMultipartFile.getOriginalFilename()).thenReturn("test.txt");
-        when(mockMultipartFile.getInputStream()).thenReturn(new ByteArrayInputStream("content".getBytes()));
+        when(mockMultipartFile.getOriginalFilename()).thenReturn("test.png");
+        when(mockMultipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(png(10, 10)));
 
         // Act
         String result = fileStorageService.storeFile(mockMultipartFile, todoId);
@@ -185,7 +301,7 @@ class FileStorageServiceTests {
     void deleteFile_return_false_ketika_ioexception() throws Exception {
         // Arrange
         String filename = "test-file.txt";
-        Path filePath = Paths.get(fileStorageService.uploadDir).resolve(filename);
+        Path filePath = tempDir.resolve(filename);
 
         // Mock Files class untuk melemparkan IOException
         try (MockedStatic<Files> filesMock = mockStatic(Files.class)) {
@@ -201,17 +317,33 @@ class FileStorageServiceTests {
     }
 
     @Test
-    @DisplayName("Load file return path yang benar")
-    void loadFile_return_path_yang_benar() {
+    @DisplayName("Open file membaca isi dan potongan file")
+    void openFile_membaca_isi_dan_potongan_file() throws Exception {
         // Arrange
         String filename = "test-file.txt";
-        Path expectedPath = tempDir.resolve(filename);
+        Files.write(tempDir.resolve(filename), "0123456789".getBytes());
 
-        // Act
-        Path result = fileStorageService.loadFile(filename);
+        // Act & Assert
+        try (InputStream in = fileStorageService.openFile(filename)) {
+            assertEquals("0123456789", new String(in.readAllBytes()));
+        }
+        try (InputStream in = fileStorageService.openFile(filename, 3, 4)) {
+            assertEquals("3456", new String(in.readAllBytes()));
+        }
+        assertEquals(10, fileStorageService.stat(filename).size());
+        assertNull(fileStorageService.openFile("tidak-ada.txt"));
+        assertNull(fileStorageService.stat("tidak-ada.txt"));
+    }
 
-        // Assert
-        assertEquals(expectedPath, result);
+    @Test
+    @DisplayName("Nama file yang boleh dilayani publik")
+    void isServableName_menolak_nama_tersembunyi_dan_path() {
+        assertTrue(FileStorageService.isServableName("cover_" + UUID.randomUUID() + ".jpg"));
+        assertFalse(FileStorageService.isServableName(".cover_a.jpg.123.tmp"));
+        assertFalse(FileStorageService.isServableName(".quarantine"));
+        assertFalse(FileStorageService.isServableName("../secret.jpg"));
+        assertFalse(FileStorageService.isServableName("a/b.jpg"));
+        assertFalse(FileStorageService.isServableName(null));
     }
 
     @Test
@@ -247,14 +379,14 @@ class FileStorageServiceTests {
     void storeFile_menggantikan_file_yang_sudah_ada() throws Exception {
         // Arrange
         UUID todoId = UUID.randomUUID();
-        String originalFilename = "test.txt";
-        String expectedFilename = "cover_" + todoId + ".txt";
+        String originalFilename = "test.png";
+        String expectedFilename = "cover_" + todoId + ".png";
 
         // Create existing file with different content
         Path existingFile = tempDir.resolve(expectedFilename);
-        Files.write(existingFile, "old content".getBytes());
+        Files.write(existingFile, png(10, 10));
 
-        byte[] newContent = "new content".getBytes();
+        byte[] newContent = png(20, 20);
 
         when(mockMultipartFile.getOriginalFilename()).thenReturn(originalFilename);
         when(mockMultipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(newContent));
@@ -266,4 +398,129 @@ class FileStorageServiceTests {
         assertEquals(expectedFilename, result);
         assertArrayEquals(newContent, Files.readAllBytes(existingFile));
     }
-}
\ No newline at end of file
+
+    // Gambar PNG 10x10 diikuti isi sebanyak padding byte yang semuanya bernilai fill
+    private static byte[] paddedPng(int padding, byte fill) {
+        byte[] header = png(10, 10);
+        byte[] content = Arrays.copyOf(header, header.length + padding);
+        Arrays.fill(content, header.length, content.length, fill);
+        return content;
+    }
+
+    private static void assertNoTempFiles(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            assertTrue(files.noneMatch(path -> path.getFileName().toString().endsWith(LocalStorageBackend.TEMP_SUFFIX)));
+        }
+    }
+
+    @Test
+    @DisplayName("Penulisan yang gagal di tengah jalan tidak merusak file lama")
+    void storeStream_gagal_di_tengah_tidak_merusak_file_lama() throws Exception {
+        UUID todoId = UUID.randomUUID();
+        byte[] original = paddedPng(1000, (byte) 1);
+        fileStorageService.storeStream(new ByteArrayInputStream(original), todoId);
+
+        // Stream putus setelah header lolos validasi
+        byte[] replacement = paddedPng(200 * 1024, (byte) 2);
+        InputStream source = new ByteArrayInputStream(replacement);
+        InputStream broken = new InputStream() {
+            private int consumed;
+
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (consumed > 100 * 1024) {
+                    throw new IOException("koneksi terputus");
+                }
+                int n = source.read(b, off, len);
+                consumed += Math.max(n, 0);
+                return n;
+            }
+        };
+
+        assertThrows(IOException.class, () -> fileStorageService.storeStream(broken, todoId));
+        assertArrayEquals(original, Files.readAllBytes(tempDir.resolve("cover_" + todoId + ".png")));
+        assertNoTempFiles(tempDir);
+    }
+
+    @Test
+    @DisplayName("Lock penulisan sama untuk foto yang sama dan tersebar untuk foto berbeda")
+    void lockFor_per_foto() {
+        UUID todoId = UUID.randomUUID();
+        assertSame(fileStorageService.lockFor(todoId), fileStorageService.lockFor(todoId));
+
+        long distinct = Stream.generate(UUID::randomUUID).limit(5000)
+                .map(fileStorageService::lockFor)
+                .distinct()
+                .count();
+        assertEquals(FileStorageService.LOCK_STRIPES, distinct);
+    }
+
+    @Test
+    @DisplayName("Banyak penulis dan pembaca pada foto yang sama tidak pernah melihat file terpotong")
+    void storeStream_stress_penulis_bersamaan() throws Exception {
+        UUID todoId = UUID.randomUUID();
+        Path target = tempDir.resolve("cover_" + todoId + ".png");
+        int writers = 8;
+        int writesPerThread = 25;
+        int padding = 256 * 1024;
+
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 2);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < writers; t++) {
+                byte fill = (byte) (t + 1);
+                tasks.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < writesPerThread; i++) {
+                        fileStorageService.storeStream(new ByteArrayInputStream(paddedPng(padding, fill)), todoId);
+                    }
+                    return null;
+                }));
+            }
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(executor.submit(() -> {
+                    start.await();
+                    int reads = 0;
+                    while (writing.get()) {
+                        if (!Files.exists(target)) {
+                            continue;
+                        }
+                        byte[] content = Files.readAllBytes(target);
+                        // Selalu satu versi utuh: panjang penuh dan seluruh padding dari penulis yang sama
+                        assertEquals(png(10, 10).length + padding, content.length);
+                        byte fill = content[content.length - 1];
+                        for (int i = content.length - padding; i < content.length; i++) {
+                            assertEquals(fill, content[i]);
+                        }
+                        reads++;
+                    }
+                    return reads;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+            writing.set(false);
+            for (Future<Integer> reader : readers) {
+                assertTrue(reader.get() >= 0);
+            }
+        } finally {
+            writing.set(false);
+            executor.shutdownNow();
+        }
+
+        assertEquals(png(10, 10).length + padding, Files.size(target));
+        assertNoTempFiles(tempDir);
+    }
+}
@@ -0,0 +1,53 @@
+package org.delcom.app.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageDiskCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testEvictsLeastRecentlyUsedOverBudget() {
+        ImageDiskCache cache = new ImageDiskCache(tempDir, 10);
+        cache.put("a.jpg", new byte[4]);
+        cache.put("b.jpg", new byte[4]);
+        assertNotNull(cache.get("a.jpg"));
+
+        cache.put("c.jpg", new byte[4]);
+
+        assertNull(cache.get("b.jpg"));
+        assertFalse(Files.exists(tempDir.resolve("b.jpg")));
+        assertNotNull(cache.get("a.jpg"));
+        assertNotNull(cache.get("c.jpg"));
+        assertEquals(8, cache.totalBytes());
+    }
+
+    @Test
+    void testReloadsExistingFilesAndDropsLeftoverTemps() throws Exception {
+        Files.write(tempDir.resolve("old.jpg"), new byte[6]);
+        Files.write(tempDir.resolve("half.jpg123.tmp"), new byte[3]);
+
+        ImageDiskCache cache = new ImageDiskCache(tempDir, 10);
+
+        assertEquals(6, cache.totalBytes());
+        assertArrayEquals(new byte[6], cache.get("old.jpg"));
+        assertFalse(Files.exists(tempDir.resolve("half.jpg123.tmp")));
+    }
+
+    @Test
+    void testEntryLargerThanBudgetIsNotStored() {
+        ImageDiskCache cache = new ImageDiskCache(tempDir, 10);
+
+        cache.put("big.jpg", new byte[11]);
+
+        assertNull(cache.get("big.jpg"));
+        assertEquals(0, cache.totalBytes());
+    }
+}
@@ -0,0 +1,178 @@
+package org.delcom.app.services;
+
+import org.delcom.app.dto.ResizedImage;
+import org.delcom.app.dto.StorageObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ImageResizeServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path uploadDir;
+    private Path cacheDir;
+    private FileStorageService fileStorageService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        uploadDir = Files.createDirectories(tempDir.resolve("uploads"));
+        cacheDir = tempDir.resolve("cache");
+        fileStorageService = new FileStorageService(new LocalStorageBackend(uploadDir));
+
+        ImageIO.write(new BufferedImage(800, 400, BufferedImage.TYPE_INT_RGB), "jpg",
+                uploadDir.resolve("cover_a.jpg").toFile());
+        ImageIO.write(new BufferedImage(800, 400, BufferedImage.TYPE_INT_ARGB), "png",
+                uploadDir.resolve("cover_b.png").toFile());
+    }
+
+    private ImageResizeService service(long memoryMaxEntryBytes) {
+        return new ImageResizeService(fileStorageService, List.of(160, 320, 1920), List.of(160, 320),
+                cacheDir.toString(), 10_000_000, 1_000_000, memoryMaxEntryBytes, 2, Duration.ofSeconds(2));
+    }
+
+    private BufferedImage decode(ResizedImage image) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(image.data()));
+    }
+
+    @Test
+    void testWidthOnlyKeepsAspectRatio() throws IOException {
+        ResizedImage image = service(1_000_000).getVariant("cover_a.jpg", 320, null, ImageResizeService.Fit.CONTAIN);
+
+        BufferedImage decoded = decode(image);
+        assertEquals("image/jpeg", image.contentType());
+        assertEquals(320, decoded.getWidth());
+        assertEquals(160, decoded.getHeight());
+    }
+
+    @Test
+    void testCoverCropsToBoxAndPngStaysPng() throws IOException {
+        ResizedImage image = service(1_000_000).getVariant("cover_b.png", 160, 160, ImageResizeService.Fit.COVER);
+
+        BufferedImage decoded = decode(image);
+        assertEquals("image/png", image.contentType());
+        assertEquals(160, decoded.getWidth());
+        assertEquals(160, decoded.getHeight());
+    }
+
+    @Test
+    void testContainFitsInsideBoxAndNeverUpscales() throws IOException {
+        ImageResizeService service = service(1_000_000);
+
+        BufferedImage contained = decode(service.getVariant("cover_a.jpg", 320, 320, ImageResizeService.Fit.CONTAIN));
+        BufferedImage wide = decode(service.getVariant("cover_a.jpg", 1920, null, ImageResizeService.Fit.CONTAIN));
+
+        assertEquals(320, contained.getWidth());
+        assertEquals(160, contained.getHeight());
+        assertEquals(800, wide.getWidth());
+    }
+
+    @Test
+    void testSmallVariantServedFromMemory() throws IOException {
+        ImageResizeService service = service(1_000_000);
+
+        ResizedImage first = service.getVariant("cover_a.jpg", 160, null, ImageResizeService.Fit.CONTAIN);
+        ResizedImage second = service.getVariant("cover_a.jpg", 160, null, ImageResizeService.Fit.CONTAIN);
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void testLargeVariantServedFromDiskAcrossRestarts() throws IOException {
+        ResizedImage first = service(0).getVariant("cover_a.jpg", 320, null, ImageResizeService.Fit.CONTAIN);
+        try (var files = Files.list(cacheDir)) {
+            assertEquals(1, files.count());
+        }
+
+        ResizedImage again = service(0).getVariant("cover_a.jpg", 320, null, ImageResizeService.Fit.CONTAIN);
+
+        assertNotSame(first, again);
+        assertArrayEquals(first.data(), again.data());
+        assertEquals(first.etag(), again.etag());
+    }
+
+    @Test
+    void testRejectsSizeOutsideAllowListAndUnsafeNames() {
+        ImageResizeService service = service(1_000_000);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getVariant("cover_a.jpg", 300, null, ImageResizeService.Fit.CONTAIN));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getVariant("cover_a.jpg", 320, 100, ImageResizeService.Fit.CONTAIN));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getVariant("../cover_a.jpg", 320, null, ImageResizeService.Fit.CONTAIN));
+    }
+
+    @Test
+    void testLargeSourceDecodedWithSubsampling() throws IOException {
+        ImageIO.write(new BufferedImage(4000, 2000, BufferedImage.TYPE_INT_RGB), "jpg",
+                uploadDir.resolve("cover_c.jpg").toFile());
+
+        BufferedImage decoded = decode(service(1_000_000).getVariant("cover_c.jpg", 160, null, ImageResizeService.Fit.CONTAIN));
+
+        assertEquals(160, decoded.getWidth());
+        assertEquals(80, decoded.getHeight());
+    }
+
+    @Test
+    void testResizeRejectedWhenAllPermitsBusy() throws Exception {
+        byte[] jpeg = Files.readAllBytes(uploadDir.resolve("cover_a.jpg"));
+        FileStorageService blocking = mock(FileStorageService.class);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(blocking.stat(anyString())).thenAnswer(invocation ->
+                new StorageObject(invocation.getArgument(0), jpeg.length, Instant.EPOCH));
+        when(blocking.openFile(anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new ByteArrayInputStream(jpeg);
+        });
+        ImageResizeService service = new ImageResizeService(blocking, List.of(160, 320), List.of(160),
+                cacheDir.toString(), 10_000_000, 1_000_000, 1_000_000, 1, Duration.ZERO);
+
+        CompletableFuture<ResizedImage> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return service.getVariant("cover_a.jpg", 160, null, ImageResizeService.Fit.CONTAIN);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Varian lain dari file lain butuh decode sendiri, tapi satu-satunya slot sedang dipakai
+        assertThrows(RejectedExecutionException.class,
+                () -> service.getVariant("cover_x.jpg", 320, null, ImageResizeService.Fit.CONTAIN));
+
+        release.countDown();
+        assertEquals(160, decode(first.get(5, TimeUnit.SECONDS)).getWidth());
+    }
+
+    @Test
+    void testMissingSourceReturnsNull() throws IOException {
+        assertNull(service(1_000_000).getVariant("missing.jpg", 320, null, ImageResizeService.Fit.CONTAIN));
+    }
+
+    @Test
+    void testParseFit() {
+        assertEquals(ImageResizeService.Fit.COVER, ImageResizeService.parseFit(" Cover "));
+        assertThrows(IllegalArgumentException.class, () -> ImageResizeService.parseFit("stretch"));
+    }
+}
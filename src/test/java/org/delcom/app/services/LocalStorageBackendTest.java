@@ -0,0 +1,124 @@
+package org.delcom.app.services;
+
+import org.delcom.app.dto.StorageObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalStorageBackendTest {
+
+    @TempDir
+    Path tempDir;
+
+    private LocalStorageBackend backend;
+
+    @BeforeEach
+    void setUp() {
+        backend = new LocalStorageBackend(tempDir.resolve("uploads"));
+    }
+
+    private void put(String key, String content) throws Exception {
+        backend.put(key, new ByteArrayInputStream(content.getBytes()), content.length(), "image/jpeg");
+    }
+
+    private String read(InputStream in) throws Exception {
+        try (in) {
+            return new String(in.readAllBytes());
+        }
+    }
+
+    @Test
+    void testPutReplacesAndLeavesNoTempFiles() throws Exception {
+        put("cover_a.jpg", "lama");
+        put("cover_a.jpg", "baru sekali");
+
+        assertEquals("baru sekali", read(backend.get("cover_a.jpg")));
+        try (Stream<Path> files = Files.list(backend.getRoot())) {
+            assertEquals(List.of("cover_a.jpg"), files.map(path -> path.getFileName().toString()).toList());
+        }
+    }
+
+    @Test
+    void testRangedGet() throws Exception {
+        put("cover_a.jpg", "0123456789");
+
+        assertEquals("3456", read(backend.get("cover_a.jpg", 3, 4)));
+        assertEquals("789", read(backend.get("cover_a.jpg", 7, -1)));
+        // Panjang melewati akhir file dipotong di akhir file
+        assertEquals("89", read(backend.get("cover_a.jpg", 8, 100)));
+        assertEquals("", read(backend.get("cover_a.jpg", 20, 5)));
+        assertNull(backend.get("tidak-ada.jpg"));
+    }
+
+    @Test
+    void testStatAndDelete() throws Exception {
+        put("cover_a.jpg", "12345");
+
+        StorageObject object = backend.stat("cover_a.jpg");
+        assertEquals("cover_a.jpg", object.key());
+        assertEquals(5, object.size());
+        assertNull(backend.stat("tidak-ada.jpg"));
+
+        assertTrue(backend.delete("cover_a.jpg"));
+        assertFalse(backend.delete("cover_a.jpg"));
+        assertNull(backend.stat("cover_a.jpg"));
+    }
+
+    @Test
+    void testMoveCreatesPrefixAndResetsModifiedTime() throws Exception {
+        put("cover_a.jpg", "isi");
+        Path source = backend.getRoot().resolve("cover_a.jpg");
+        Files.setLastModifiedTime(source, FileTime.from(Instant.now().minus(Duration.ofDays(3))));
+
+        assertTrue(backend.move("cover_a.jpg", ".quarantine/cover_a.jpg"));
+
+        assertNull(backend.stat("cover_a.jpg"));
+        StorageObject moved = backend.stat(".quarantine/cover_a.jpg");
+        assertEquals(3, moved.size());
+        assertTrue(moved.lastModified().isAfter(Instant.now().minus(Duration.ofMinutes(1))));
+        assertFalse(backend.move("cover_a.jpg", ".quarantine/cover_a.jpg"));
+    }
+
+    @Test
+    void testListFiltersByPrefixAndUsesSlashKeys() throws Exception {
+        put("cover_a.jpg", "a");
+        put("cover_b.png", "bb");
+        put(".quarantine/cover_c.jpg", "ccc");
+
+        List<StorageObject> all = new ArrayList<>();
+        backend.list("", all::add);
+        List<StorageObject> quarantined = new ArrayList<>();
+        backend.list(".quarantine/", quarantined::add);
+
+        assertEquals(3, all.size());
+        assertEquals(List.of(".quarantine/cover_c.jpg"), quarantined.stream().map(StorageObject::key).toList());
+        assertEquals(3, quarantined.get(0).size());
+    }
+
+    @Test
+    void testListMissingRootIsEmpty() throws Exception {
+        List<StorageObject> all = new ArrayList<>();
+        backend.list("", all::add);
+
+        assertTrue(all.isEmpty());
+    }
+
+    @Test
+    void testRejectsKeysOutsideRoot() {
+        assertThrows(IllegalArgumentException.class, () -> backend.stat("../rahasia.txt"));
+        assertThrows(IllegalArgumentException.class, () -> backend.get("", 0, -1));
+    }
+}
@@ -0,0 +1,128 @@
+package org.delcom.app.services;
+
+import org.delcom.app.dto.CategoryPopularity;
+import org.delcom.app.dto.MarketplaceReport;
+import org.delcom.app.dto.PricePercentiles;
+import org.delcom.app.dto.UploadRate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MarketplaceReportServiceTest {
+
+    private final UUID ayu = UUID.randomUUID();
+    private final UUID budi = UUID.randomUUID();
+    private final LocalDateTime now = LocalDateTime.now();
+
+    private JdbcTemplate jdbcTemplate;
+    private PlatformTransactionManager transactionManager;
+    private CategoryDictionary categoryDictionary;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        categoryDictionary = mock(CategoryDictionary.class);
+        when(categoryDictionary.nameOf(1)).thenReturn("Landscape");
+        when(categoryDictionary.nameOf(2)).thenReturn("Macro");
+
+        // Empat baris: dua milik Ayu hari ini, satu milik Budi kemarin, satu USD 40 hari lalu
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject(1, UUID.class)).thenReturn(ayu, ayu, budi, budi);
+        when(rs.getInt(2)).thenReturn(1, 1, 2, 1);
+        when(rs.getLong(3)).thenReturn(100L, 300L, 200L, 500L);
+        when(rs.getString(4)).thenReturn("IDR", "IDR", "IDR", "USD");
+        when(rs.getObject(5, LocalDateTime.class)).thenReturn(now, now, now.minusDays(1), now.minusDays(40));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (int i = 0; i < 4; i++) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void testReportComputedFromSnapshot() {
+        MarketplaceReportService service = new MarketplaceReportService(jdbcTemplate, transactionManager,
+                categoryDictionary, 1000);
+
+        MarketplaceReport report = service.getReport(7);
+
+        assertEquals(4, report.photos());
+        assertEquals(2, report.sellers());
+        assertFalse(report.truncated());
+        assertNotNull(report.snapshotAt());
+
+        assertEquals(List.of(new CategoryPopularity("Landscape", 3, 75.0), new CategoryPopularity("Macro", 1, 25.0)),
+                report.categories());
+
+        PricePercentiles idr = report.prices().get(0);
+        assertEquals("IDR", idr.currency());
+        assertEquals(3, idr.photos());
+        assertEquals(100, idr.minMinor());
+        assertEquals(200, idr.p50Minor());
+        assertEquals(300, idr.p99Minor());
+        assertEquals(300, idr.maxMinor());
+        assertEquals(new PricePercentiles("USD", 1, 500, 500, 500, 500, 500), report.prices().get(1));
+
+        List<UploadRate> uploads = report.uploads();
+        assertEquals(7, uploads.size());
+        assertEquals(new UploadRate(LocalDate.now(), 2, 1), uploads.get(6));
+        assertEquals(new UploadRate(LocalDate.now().minusDays(1), 1, 1), uploads.get(5));
+        assertEquals(3.0 / 7, report.avgUploadsPerDay(), 1e-9);
+    }
+
+    @Test
+    void testSnapshotIsReusedUntilRefresh() {
+        MarketplaceReportService service = new MarketplaceReportService(jdbcTemplate, transactionManager,
+                categoryDictionary, 1000);
+
+        service.getReport(30);
+        service.getReport(90);
+        verify(jdbcTemplate, times(1)).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        service.refresh();
+        verify(jdbcTemplate, times(2)).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void testSnapshotTruncatedAtMaxRows() {
+        MarketplaceReportService service = new MarketplaceReportService(jdbcTemplate, transactionManager,
+                categoryDictionary, 2);
+
+        MarketplaceReport report = service.getReport(400);
+
+        assertTrue(report.truncated());
+        assertEquals(2, report.photos());
+        assertEquals(MarketplaceReportService.MAX_DAYS, report.uploads().size());
+    }
+
+    @Test
+    void testScheduledRefreshKeepsOldSnapshotOnError() {
+        MarketplaceReportService service = new MarketplaceReportService(jdbcTemplate, transactionManager,
+                categoryDictionary, 1000);
+        service.refresh();
+        doThrow(new DataAccessResourceFailureException("down"))
+                .when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        assertDoesNotThrow(service::scheduledRefresh);
+        assertEquals(4, service.getReport(7).photos());
+    }
+}
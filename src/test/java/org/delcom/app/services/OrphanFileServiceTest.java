@@ -0,0 +1,151 @@
+package org.delcom.app.services;
+
+import org.delcom.app.dto.OrphanReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrphanFileServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path uploadDir;
+    private Path quarantineDir;
+    private FileStorageService fileStorageService;
+    private JdbcTemplate jdbcTemplate;
+
+    private final UUID a = UUID.randomUUID();
+    private final UUID b = UUID.randomUUID();
+    private final UUID c = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        uploadDir = Files.createDirectories(tempDir.resolve("uploads"));
+        quarantineDir = uploadDir.resolve(".quarantine");
+        fileStorageService = new FileStorageService(new LocalStorageBackend(uploadDir));
+
+        // Hanya foto a yang ada di tabel photos, dengan gambar cover_<a>.jpg
+        Map<UUID, String> photos = Map.of(a, name(a, ".jpg"));
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class))).thenAnswer(invocation -> {
+            List<Object> ids = new ArrayList<>();
+            for (Object arg : Arrays.copyOfRange(invocation.getArguments(), 2, invocation.getArguments().length)) {
+                ids.addAll(arg instanceof Object[] array ? Arrays.asList(array) : List.of(arg));
+            }
+            return ids.stream().map(photos::get).filter(Objects::nonNull).toList();
+        });
+
+        write(name(a, ".jpg"), 100, Duration.ofDays(3));
+        write(name(a, ".png"), 250, Duration.ofDays(3));
+        write(name(b, ".jpg"), 50, Duration.ofDays(2));
+        // Baru ditulis: mungkin upload yang belum selesai menyimpan filename
+        write(name(c, ".jpg"), 75, Duration.ofMinutes(5));
+    }
+
+    private static String name(UUID id, String extension) {
+        return "cover_" + id + extension;
+    }
+
+    private void write(String name, int size, Duration age) throws Exception {
+        Path file = uploadDir.resolve(name);
+        Files.write(file, new byte[size]);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(age)));
+    }
+
+    private OrphanFileService service(OrphanFileService.Action action) {
+        return new OrphanFileService(fileStorageService, jdbcTemplate, Duration.ofHours(24), action,
+                ".quarantine/", Duration.ofDays(7), 2);
+    }
+
+    @Test
+    void testQuarantinesOrphansOlderThanGracePeriod() {
+        OrphanFileService service = service(OrphanFileService.Action.QUARANTINE);
+
+        OrphanReport report = service.reconcile();
+
+        // File di karantina tidak ikut dipindai
+        assertEquals(4, report.scannedFiles());
+        assertEquals(2, report.orphanFiles());
+        assertEquals(300, report.reclaimedBytes());
+        assertEquals(0, report.failedFiles());
+        assertTrue(Files.exists(uploadDir.resolve(name(a, ".jpg"))));
+        assertTrue(Files.exists(uploadDir.resolve(name(c, ".jpg"))));
+        assertFalse(Files.exists(uploadDir.resolve(name(a, ".png"))));
+        assertTrue(Files.exists(quarantineDir.resolve(name(a, ".png"))));
+        assertTrue(Files.exists(quarantineDir.resolve(name(b, ".jpg"))));
+        assertSame(report, service.getLastReport());
+        // Tiga kandidat dengan batch 2 = dua query
+        verify(jdbcTemplate, times(2)).queryForList(anyString(), eq(String.class), any(Object[].class));
+    }
+
+    @Test
+    void testLookupByPhotoIdParsedFromFilename() throws Exception {
+        // Nama di luar pola cover_<uuid> tidak mungkin dirujuk foto mana pun
+        write("sisa.tmp", 10, Duration.ofDays(3));
+        OrphanFileService service = new OrphanFileService(fileStorageService, jdbcTemplate, Duration.ofHours(24),
+                OrphanFileService.Action.DELETE, ".quarantine/", Duration.ofDays(7), 100);
+
+        OrphanReport report = service.reconcile();
+
+        assertEquals(3, report.orphanFiles());
+        assertFalse(Files.exists(uploadDir.resolve("sisa.tmp")));
+        verify(jdbcTemplate).queryForList(contains("p.id IN (?,?)"), eq(String.class), any(Object[].class));
+        assertEquals(a, OrphanFileService.photoIdOf(name(a, ".jpg")));
+        assertNull(OrphanFileService.photoIdOf("cover_bukan-uuid.jpg"));
+        assertNull(OrphanFileService.photoIdOf("sisa.tmp"));
+    }
+
+    @Test
+    void testDeleteAction() {
+        OrphanReport report = service(OrphanFileService.Action.DELETE).reconcile();
+
+        assertEquals("DELETE", report.action());
+        assertEquals(300, report.reclaimedBytes());
+        assertFalse(Files.exists(uploadDir.resolve(name(a, ".png"))));
+        assertFalse(Files.exists(quarantineDir));
+    }
+
+    @Test
+    void testQuarantineIsPurgedAfterRetention() throws Exception {
+        Files.createDirectories(quarantineDir);
+        Path expired = quarantineDir.resolve("lama.jpg");
+        Files.write(expired, new byte[40]);
+        Files.setLastModifiedTime(expired, FileTime.from(Instant.now().minus(Duration.ofDays(8))));
+
+        OrphanReport report = service(OrphanFileService.Action.QUARANTINE).reconcile();
+
+        assertEquals(1, report.purgedQuarantineFiles());
+        assertEquals(40, report.purgedQuarantineBytes());
+        assertFalse(Files.exists(expired));
+        // Yang baru dipindahkan tidak ikut terhapus
+        assertTrue(Files.exists(quarantineDir.resolve(name(b, ".jpg"))));
+    }
+
+    @Test
+    void testMissingUploadDir() {
+        fileStorageService = new FileStorageService(new LocalStorageBackend(tempDir.resolve("tidak-ada")));
+
+        OrphanReport report = service(OrphanFileService.Action.QUARANTINE).reconcile();
+
+        assertEquals(0, report.scannedFiles());
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,132 @@
+package org.delcom.app.services;
+
+import org.delcom.app.dto.CategoryStat;
+import org.delcom.app.dto.PortfolioAnalytics;
+import org.delcom.app.dto.TimeBucket;
+import org.delcom.app.repositories.PhotoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PhotoAnalyticsServiceTest {
+
+    @Mock
+    private PhotoRepository photoRepository;
+
+    @Mock
+    private CategoryDictionary categoryDictionary;
+
+    @InjectMocks
+    private PhotoAnalyticsService analyticsService;
+
+    private List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+
+    @Test
+    void testGetAnalytics_MapsRowsPerGranularity() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now();
+
+        when(photoRepository.aggregateByPeriod(userId, "day", today.minusDays(89).atStartOfDay()))
+                .thenReturn(rows(new Object[]{Timestamp.valueOf("2025-03-04 00:00:00"), 2L,
+                        30000L, 2L, 30000L}));
+        when(photoRepository.aggregateByPeriod(userId, "week", today.with(DayOfWeek.MONDAY).minusWeeks(103).atStartOfDay()))
+                .thenReturn(rows(new Object[]{OffsetDateTime.of(2025, 3, 3, 0, 0, 0, 0, ZoneOffset.UTC), 2L,
+                        30000L, 2L, 30050L}));
+        when(photoRepository.aggregateByPeriod(userId, "month", PhotoAnalyticsService.BEGINNING))
+                .thenReturn(rows(new Object[]{LocalDateTime.of(2025, 3, 1, 0, 0), 2L, null, null, null}));
+        when(photoRepository.aggregateByCategory(userId))
+                .thenReturn(rows(new Object[]{4, 2L, 30000L, new BigDecimal("100.0")}));
+        when(categoryDictionary.nameOf(4)).thenReturn("Macro");
+
+        PortfolioAnalytics analytics = analyticsService.getAnalytics(userId);
+
+        TimeBucket day = analytics.daily().get(0);
+        assertEquals(LocalDate.of(2025, 3, 4), day.start());
+        assertEquals(2L, day.cumulativeUploads());
+        assertEquals(30000L, day.valueMinor());
+
+        TimeBucket week = analytics.weekly().get(0);
+        assertEquals(LocalDate.of(2025, 3, 3), week.start());
+        assertEquals(30050L, week.cumulativeValueMinor());
+
+        TimeBucket month = analytics.monthly().get(0);
+        assertEquals(0L, month.valueMinor());
+        assertEquals(0L, month.cumulativeUploads());
+
+        CategoryStat category = analytics.categories().get(0);
+        assertEquals("Macro", category.category());
+        assertEquals(30000L, category.valueMinor());
+        assertEquals(100.0, category.valueShare());
+    }
+
+    @Test
+    void testGetAnalytics_CumulativeIncludesPhotosBeforeWindow() {
+        UUID userId = UUID.randomUUID();
+        LocalDate today = LocalDate.now();
+        LocalDateTime dailyFrom = today.minusDays(89).atStartOfDay();
+        LocalDateTime weeklyFrom = today.with(DayOfWeek.MONDAY).minusWeeks(103).atStartOfDay();
+
+        // 3 foto lama (Rp 700) di luar jendela harian, 1 di luar jendela mingguan; 1 foto baru Rp 50
+        when(photoRepository.aggregateByPeriod(userId, "day", dailyFrom))
+                .thenReturn(rows(new Object[]{LocalDateTime.of(2025, 3, 4, 0, 0), 1L, 5000L, 1L, 5000L}));
+        when(photoRepository.totalsBefore(userId, dailyFrom)).thenReturn(rows(new Object[]{3L, 70000L}));
+        when(photoRepository.aggregateByPeriod(userId, "week", weeklyFrom))
+                .thenReturn(rows(new Object[]{LocalDateTime.of(2024, 3, 4, 0, 0), 2L, 50000L, 2L, 50000L},
+                        new Object[]{LocalDateTime.of(2025, 3, 3, 0, 0), 1L, 5000L, 3L, 55000L}));
+        when(photoRepository.totalsBefore(userId, weeklyFrom)).thenReturn(rows(new Object[]{1L, 20000L}));
+        when(photoRepository.aggregateByPeriod(userId, "month", PhotoAnalyticsService.BEGINNING))
+                .thenReturn(rows(new Object[]{LocalDateTime.of(2025, 3, 1, 0, 0), 4L, 75000L, 4L, 75000L}));
+
+        PortfolioAnalytics analytics = analyticsService.getAnalytics(userId);
+
+        TimeBucket day = analytics.daily().get(0);
+        assertEquals(1L, day.uploads());
+        assertEquals(4L, day.cumulativeUploads());
+        assertEquals(75000L, day.cumulativeValueMinor());
+
+        assertEquals(70000L, analytics.weekly().get(0).cumulativeValueMinor());
+        assertEquals(4L, analytics.weekly().get(1).cumulativeUploads());
+        assertEquals(75000L, analytics.weekly().get(1).cumulativeValueMinor());
+        // Jendela bulanan sudah mulai dari awal: tidak perlu total sebelumnya
+        assertEquals(75000L, analytics.monthly().get(0).cumulativeValueMinor());
+        verify(photoRepository, never()).totalsBefore(userId, PhotoAnalyticsService.BEGINNING);
+    }
+
+    @Test
+    void testGetAnalytics_WeeklyWindowStartsOnMonday() {
+        UUID userId = UUID.randomUUID();
+
+        analyticsService.getAnalytics(userId);
+
+        verify(photoRepository).aggregateByPeriod(eq(userId), eq("week"),
+                argThat(from -> from.getDayOfWeek() == DayOfWeek.MONDAY && from.toLocalTime().equals(LocalTime.MIDNIGHT)));
+    }
+
+    @Test
+    void testEvict_DoesNotTouchRepository() {
+        analyticsService.evict(UUID.randomUUID());
+
+        verifyNoInteractions(photoRepository);
+    }
+}
@@ -0,0 +1,105 @@
+package org.delcom.app.services;
+
+import org.delcom.app.dto.PhotoDetail;
+import org.delcom.app.repositories.PhotoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PhotoFeedServiceTest {
+
+    private PhotoRepository photoRepository;
+    private JsonMapper jsonMapper;
+    private PhotoFeedService feedService;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        photoRepository = mock(PhotoRepository.class);
+        jsonMapper = JsonMapper.builder().build();
+        CategoryDictionary categoryDictionary = mock(CategoryDictionary.class);
+        when(categoryDictionary.nameOf(3)).thenReturn("Street");
+        feedService = new PhotoFeedService(photoRepository, jsonMapper, categoryDictionary);
+        userId = UUID.randomUUID();
+    }
+
+    private PhotoDetail detail(String title, String description) {
+        LocalDateTime now = LocalDateTime.of(2025, 5, 1, 10, 30);
+        return new PhotoDetail(UUID.randomUUID(), title, 3, null, description, new BigDecimal("125.50"),
+                "IDR", "cover.jpg", now, now, 2L);
+    }
+
+    @Test
+    void testWriteNdjson_OneObjectPerLine() {
+        LocalDateTime since = LocalDateTime.of(2025, 1, 1, 0, 0);
+        PhotoDetail first = detail("Pasar", "Baris\nkedua");
+        PhotoDetail second = detail("Halte", null);
+        when(photoRepository.streamDetailsUpdatedAfter(userId, since)).thenReturn(Stream.of(first, second));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = feedService.writeNdjson(userId, since, out);
+
+        assertEquals(2, count);
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertTrue(body.endsWith("\n"));
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        JsonNode firstNode = jsonMapper.readTree(lines[0]);
+        assertEquals(first.id().toString(), firstNode.get("id").asString());
+        assertEquals("Baris\nkedua", firstNode.get("description").asString());
+        assertEquals("2025-05-01T10:30", firstNode.get("updatedAt").asString());
+        assertEquals("IDR", firstNode.get("currency").asString());
+        assertEquals(3, firstNode.get("categoryId").asInt());
+        assertEquals(2L, firstNode.get("version").asLong());
+        assertEquals("Street", firstNode.get("category").asString());
+        assertTrue(jsonMapper.readTree(lines[1]).get("description").isNull());
+    }
+
+    @Test
+    void testWriteNdjson_TombstonesForDeletedPhotos() {
+        LocalDateTime since = LocalDateTime.of(2025, 1, 1, 0, 0);
+        UUID trashed = UUID.randomUUID();
+        UUID purged = UUID.randomUUID();
+        when(photoRepository.streamDetailsUpdatedAfter(userId, since)).thenReturn(Stream.of(detail("Pasar", null)));
+        // Native query: timestamp bisa datang sebagai java.sql.Timestamp
+        when(photoRepository.streamDeletedAfter(userId, since)).thenReturn(Stream.of(
+                new Object[]{trashed, Timestamp.valueOf(LocalDateTime.of(2025, 6, 2, 8, 0))},
+                new Object[]{purged, LocalDateTime.of(2025, 6, 3, 9, 15)}));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = feedService.writeNdjson(userId, since, out);
+
+        assertEquals(3, count);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        JsonNode tombstone = jsonMapper.readTree(lines[1]);
+        assertEquals(trashed.toString(), tombstone.get("id").asString());
+        assertEquals("2025-06-02T08:00", tombstone.get("deletedAt").asString());
+        assertNull(tombstone.get("title"));
+        assertEquals(purged.toString(), jsonMapper.readTree(lines[2]).get("id").asString());
+    }
+
+    @Test
+    void testWriteNdjson_DefaultsSinceAndEmptyResult() {
+        when(photoRepository.streamDetailsUpdatedAfter(userId, PhotoFeedService.BEGINNING)).thenReturn(Stream.empty());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = feedService.writeNdjson(userId, null, out);
+
+        assertEquals(0, count);
+        assertEquals(0, out.size());
+    }
+}
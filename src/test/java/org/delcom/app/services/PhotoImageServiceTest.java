@@ -0,0 +1,187 @@
+package org.delcom.app.services;
+
+import org.delcom.app.entities.Photo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PhotoImageServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private FileStorageService fileStorageService;
+    private PhotoService photoService;
+    private StorageQuotaService storageQuotaService;
+    private PhotoImageService service;
+
+    private final UUID userId = UUID.randomUUID();
+    private final AtomicLong used = new AtomicLong();
+    private Photo photo;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fileStorageService = new FileStorageService(new LocalStorageBackend(tempDir));
+        photoService = mock(PhotoService.class);
+        storageQuotaService = mock(StorageQuotaService.class);
+        service = new PhotoImageService(photoService, fileStorageService, storageQuotaService);
+
+        photo = new Photo(userId, "Senja", "Landscape", "Desc", new BigDecimal("1000"));
+        photo.setId(UUID.randomUUID());
+        photo.setVersion(4L);
+        photo.setFilename(fileStorageService.storeStream(new ByteArrayInputStream(image(".png", 100)), photo.getId()));
+        used.set(Files.size(tempDir.resolve(photo.getFilename())));
+
+        when(photoService.getPhotoById(photo.getId())).thenReturn(photo);
+        when(photoService.updatePhotoFile(eq(photo.getId()), anyString())).thenAnswer(invocation -> {
+            photo.setFilename(invocation.getArgument(1));
+            photo.setVersion(photo.getVersion() + 1);
+            return photo;
+        });
+        // Kuota tanpa batas; pemakaian dicatat supaya bisa dicocokkan dengan isi folder
+        when(storageQuotaService.tryReserve(eq(userId), anyLong())).thenAnswer(invocation -> {
+            used.addAndGet(invocation.getArgument(1));
+            return true;
+        });
+        doAnswer(invocation -> used.addAndGet(-(long) invocation.getArgument(1)))
+                .when(storageQuotaService).release(eq(userId), anyLong());
+    }
+
+    // Gambar dengan header valid ditambah padding, ekstensi menentukan format
+    private static byte[] image(String extension, int padding) {
+        byte[] header = ".png".equals(extension) ? FileStorageServiceTests.png(10, 10) : FileStorageServiceTests.jpeg(10, 10);
+        return Arrays.copyOf(header, header.length + padding);
+    }
+
+    private Photo replace(byte[] content, Long version, long reserved) throws IOException {
+        return service.replaceImage(photo.getId(), userId, version, content.length, reserved,
+                photoId -> fileStorageService.storeStream(new ByteArrayInputStream(content), photoId));
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.map(path -> path.getFileName().toString()).toList();
+        }
+    }
+
+    @Test
+    void testReplaceDeletesOldFileAndChargesDifference() throws Exception {
+        String oldFilename = photo.getFilename();
+        byte[] content = image(".jpg", 500);
+
+        assertSame(photo, replace(content, 4L, 0));
+
+        assertEquals(List.of(photo.getFilename()), files());
+        assertNotEquals(oldFilename, photo.getFilename());
+        assertEquals(content.length, used.get());
+    }
+
+    @Test
+    void testReservedPartIsNotChargedTwice() throws Exception {
+        long old = used.get();
+        byte[] content = image(".png", 900);
+        // Pemanggil (upload bertahap) sudah memesan sebagian saat sesi dibuka
+        used.addAndGet(content.length - old);
+
+        replace(content, null, content.length - old);
+
+        assertEquals(content.length, used.get());
+        verify(storageQuotaService).tryReserve(userId, 0);
+    }
+
+    @Test
+    void testStaleVersionWritesNothing() throws Exception {
+        List<String> before = files();
+        long usedBefore = used.get();
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> replace(image(".jpg", 50), 3L, 0));
+
+        assertEquals(before, files());
+        assertEquals(usedBefore, used.get());
+        verify(photoService, never()).updatePhotoFile(any(), anyString());
+    }
+
+    @Test
+    void testForeignOrMissingPhoto() throws Exception {
+        assertNull(service.replaceImage(photo.getId(), UUID.randomUUID(), null, 10, 0, photoId -> fail("tidak boleh menulis")));
+        assertNull(service.replaceImage(UUID.randomUUID(), userId, null, 10, 0, photoId -> fail("tidak boleh menulis")));
+        verifyNoInteractions(storageQuotaService);
+    }
+
+    @Test
+    void testOverQuotaWritesNothing() throws Exception {
+        when(storageQuotaService.tryReserve(eq(userId), anyLong())).thenReturn(false);
+        List<String> before = files();
+
+        assertThrows(QuotaExceededException.class, () -> replace(image(".jpg", 5000), null, 0));
+
+        assertEquals(before, files());
+    }
+
+    @Test
+    void testFailedFilenameUpdateRemovesNewFileAndReleases() throws Exception {
+        String oldFilename = photo.getFilename();
+        long usedBefore = used.get();
+        when(photoService.updatePhotoFile(eq(photo.getId()), anyString())).thenThrow(new IllegalStateException("db mati"));
+
+        assertThrows(IllegalStateException.class, () -> replace(image(".jpg", 300), null, 0));
+
+        assertEquals(List.of(oldFilename), files());
+        assertEquals(usedBefore, used.get());
+    }
+
+    @Test
+    void testConcurrentReplacesLeaveOneFileAndExactUsage() throws Exception {
+        int writers = 8;
+        int replacesPerThread = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < writers; t++) {
+                int writer = t;
+                tasks.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < replacesPerThread; i++) {
+                        // Ekstensi bergantian: nama file berubah sehingga file lama harus dihapus
+                        String extension = (writer + i) % 2 == 0 ? ".png" : ".jpg";
+                        replace(image(extension, 1000 * (writer + 1) + i), null, 0);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Tanpa lock sepanjang urutan, file yang sedang dipakai bisa terhapus atau file lama tertinggal
+        assertEquals(List.of(photo.getFilename()), files());
+        assertEquals(Files.size(tempDir.resolve(photo.getFilename())), used.get());
+        assertEquals(4L + writers * replacesPerThread, photo.getVersion());
+    }
+}
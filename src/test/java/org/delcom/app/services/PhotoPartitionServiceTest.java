@@ -0,0 +1,43 @@
+package org.delcom.app.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PhotoPartitionServiceTest {
+
+    @Test
+    void testEnsureFuturePartitions_CurrentMonthPlusMonthsAhead() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class), any(Object[].class)))
+                .thenAnswer(invocation -> "photos_" + invocation.getArgument(2));
+
+        List<String> partitions = new PhotoPartitionService(jdbcTemplate, 2).ensureFuturePartitions();
+
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        assertEquals(3, partitions.size());
+        verify(jdbcTemplate).queryForObject("SELECT create_photos_partition(?)", String.class, Date.valueOf(month));
+        verify(jdbcTemplate).queryForObject("SELECT create_photos_partition(?)", String.class,
+                Date.valueOf(month.plusMonths(2)));
+    }
+
+    @Test
+    void testEnsureFuturePartitions_DatabaseErrorIsNotThrown() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class), any(Object[].class)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        PhotoPartitionService service = new PhotoPartitionService(jdbcTemplate, 3);
+
+        assertDoesNotThrow(service::scheduledMaintenance);
+        assertTrue(service.ensureFuturePartitions().isEmpty());
+    }
+}
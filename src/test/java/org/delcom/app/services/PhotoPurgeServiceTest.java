@@ -0,0 +1,132 @@
+package org.delcom.app.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PhotoPurgeServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private StorageQuotaService storageQuotaService;
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        storageQuotaService = mock(StorageQuotaService.class);
+    }
+
+    // Setiap pemanggilan SELECT mengembalikan batch berikutnya, dipetakan lewat RowMapper milik service
+    @SuppressWarnings("unchecked")
+    private void givenBatches(List<List<Object[]>> batches) {
+        List<List<Object[]>> remaining = new ArrayList<>(batches);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any())).thenAnswer(invocation -> {
+            RowMapper<Object> mapper = invocation.getArgument(1);
+            List<Object> mapped = new ArrayList<>();
+            List<Object[]> rows = remaining.isEmpty() ? List.of() : remaining.remove(0);
+            for (Object[] row : rows) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getObject(1, UUID.class)).thenReturn((UUID) row[0]);
+                when(rs.getObject(2, UUID.class)).thenReturn(userId);
+                when(rs.getString(3)).thenReturn((String) row[1]);
+                when(rs.getObject(4, LocalDateTime.class)).thenReturn(LocalDateTime.now().minusDays(1));
+                mapped.add(mapper.mapRow(rs, mapped.size()));
+            }
+            return mapped;
+        });
+    }
+
+    private Object[] row(String filename) {
+        return new Object[]{UUID.randomUUID(), filename};
+    }
+
+    @Test
+    void testPurge_DeletesRowsThenFiles() {
+        givenBatches(List.of(List.of(row("a.jpg"), row(null))));
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class)))
+                .thenReturn(new int[]{1, 1});
+
+        int purged = new PhotoPurgeService(jdbcTemplate, storageQuotaService, Duration.ofMinutes(5), 10, Duration.ofDays(90)).purge();
+
+        assertEquals(2, purged);
+        verify(storageQuotaService).deleteFile(userId, "a.jpg");
+        verifyNoMoreInteractions(storageQuotaService);
+        // Batch lebih kecil dari limit: tidak ada SELECT kedua
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowMapper.class), any(), any());
+    }
+
+    @Test
+    void testPurge_RestoredInBetweenKeepsFile() {
+        givenBatches(List.of(List.of(row("a.jpg"), row("b.jpg"))));
+        // Baris kedua dikembalikan user di antara SELECT dan DELETE
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class)))
+                .thenReturn(new int[]{1, 0});
+
+        int purged = new PhotoPurgeService(jdbcTemplate, storageQuotaService, Duration.ofMinutes(5), 10, Duration.ofDays(90)).purge();
+
+        assertEquals(1, purged);
+        verify(storageQuotaService).deleteFile(userId, "a.jpg");
+        verify(storageQuotaService, never()).deleteFile(userId, "b.jpg");
+    }
+
+    @Test
+    void testPurge_ContinuesWhileBatchesAreFull() {
+        givenBatches(List.of(List.of(row("a.jpg"), row("b.jpg")), List.of(row("c.jpg"))));
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class)))
+                .thenReturn(new int[]{1, 1}, new int[]{1});
+
+        int purged = new PhotoPurgeService(jdbcTemplate, storageQuotaService, Duration.ofMinutes(5), 2, Duration.ofDays(90)).purge();
+
+        assertEquals(3, purged);
+        verify(storageQuotaService, times(3)).deleteFile(eq(userId), anyString());
+    }
+
+    @Test
+    void testPurge_OnlyPhotosPastUndoWindow() {
+        givenBatches(List.of());
+
+        assertEquals(0, new PhotoPurgeService(jdbcTemplate, storageQuotaService, Duration.ofMinutes(5), 10, Duration.ofDays(90)).purge());
+
+        verify(jdbcTemplate).query(contains("deleted_at < ?"), any(RowMapper.class),
+                argThat((LocalDateTime cutoff) -> cutoff.isBefore(LocalDateTime.now().minusMinutes(4))), eq(10));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+    }
+
+    @Test
+    void testPurge_WritesTombstonesAndExpiresOldOnes() {
+        givenBatches(List.of(List.of(row("a.jpg"))));
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class))).thenReturn(new int[]{1});
+
+        new PhotoPurgeService(jdbcTemplate, storageQuotaService, Duration.ofMinutes(5), 10, Duration.ofDays(90)).purge();
+
+        // Feed sinkronisasi masih perlu tahu foto ini dihapus setelah barisnya hilang
+        verify(jdbcTemplate).batchUpdate(contains("INSERT INTO photo_tombstones"), any(BatchPreparedStatementSetter.class));
+        verify(jdbcTemplate).update(startsWith("DELETE FROM photo_tombstones"),
+                argThat((LocalDateTime cutoff) -> cutoff.isBefore(LocalDateTime.now().minusDays(89))));
+    }
+
+    @Test
+    void testScheduledPurge_DatabaseErrorIsNotThrown() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        PhotoPurgeService service = new PhotoPurgeService(jdbcTemplate, storageQuotaService, Duration.ofMinutes(5), 10, Duration.ofDays(90));
+
+        assertDoesNotThrow(service::scheduledPurge);
+        verifyNoInteractions(storageQuotaService);
+    }
+}
@@ -1,15 +1,28 @@
 package org.delcom.app.services;
 
+import org.delcom.app.dto.BulkEditRequest;
+import org.delcom.app.dto.PhotoCursor;
+import org.delcom.app.dto.PhotoDetail;
+import org.delcom.app.dto.PhotoPage;
+import org.delcom.app.dto.PhotoSummary;
+import org.delcom.app.dto.PortfolioAnalytics;
+import org.delcom.app.dto.PortfolioStats;
+import org.delcom.app.dto.PriceBucket;
 import org.delcom.app.entities.Photo;
+import org.delcom.app.entities.PortfolioVersion;
 import org.delcom.app.repositories.PhotoRepository;
+import org.delcom.app.repositories.PortfolioVersionRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -18,6 +31,7 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,6 +40,15 @@ class PhotoServiceTest {
     @Mock
     private PhotoRepository photoRepository;
 
+    @Mock
+    private PhotoAnalyticsService photoAnalyticsService;
+
+    @Mock
+    private CategoryDictionary categoryDictionary;
+
+    @Mock
+    private PortfolioVersionRepository portfolioVersionRepository;
+
     @InjectMocks
     private PhotoService photoService;
 
@@ -95,6 +118,8 @@ class PhotoServiceTest {
     @Test
     void testCreatePhoto() {
         // Given
+        when(categoryDictionary.idFor("Nature")).thenReturn(7);
+        when(categoryDictionary.nameOf(7)).thenReturn("Nature");
         when(photoRepository.save(samplePhoto)).thenReturn(samplePhoto);
 
         // When
@@ -103,7 +128,11 @@ class PhotoServiceTest {
         // Then
         assertNotNull(result);
         assertEquals("Original Title", result.getTitle());
+        assertEquals(7, result.getCategoryId());
+        assertEquals("Nature", result.getCategory());
         verify(photoRepository, times(1)).save(samplePhoto);
+        verify(photoAnalyticsService).evict(userId);
+        verify(portfolioVersionRepository).bump(userId);
     }
 
     @Test
@@ -115,16 +144,20 @@ class PhotoServiceTest {
         BigDecimal newPrice = new BigDecimal("250.00");
 
         when(photoRepository.findById(photoId)).thenReturn(Optional.of(samplePhoto));
+        // Input huruf kecil tetap disimpan dengan ejaan kanonik dari kamus
+        when(categoryDictionary.idFor("abstract")).thenReturn(5);
+        when(categoryDictionary.nameOf(5)).thenReturn(newCategory);
         // Mock save untuk mengembalikan objek yang sama (yang sudah dimodifikasi di service)
-        when(photoRepository.save(any(Photo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(photoRepository.saveAndFlush(any(Photo.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // When
-        Photo updatedPhoto = photoService.updatePhotoData(photoId, newTitle, newCategory, newDesc, newPrice);
+        Photo updatedPhoto = photoService.updatePhotoData(photoId, newTitle, "abstract", newDesc, newPrice);
 
         // Then
         assertNotNull(updatedPhoto);
         assertEquals(newTitle, updatedPhoto.getTitle());
         assertEquals(newCategory, updatedPhoto.getCategory());
+        assertEquals(5, updatedPhoto.getCategoryId());
         assertEquals(newDesc, updatedPhoto.getDescription());
         assertEquals(newPrice, updatedPhoto.getPrice());
         
@@ -132,7 +165,30 @@ class PhotoServiceTest {
         assertEquals("original.jpg", updatedPhoto.getFilename());
         
         verify(photoRepository, times(1)).findById(photoId);
-        verify(photoRepository, times(1)).save(samplePhoto);
+        verify(photoRepository, times(1)).saveAndFlush(samplePhoto);
+        verify(photoAnalyticsService).evict(userId);
+    }
+
+    @Test
+    void testUpdatePhotoData_StaleVersion() {
+        samplePhoto.setVersion(4L);
+        when(photoRepository.findById(photoId)).thenReturn(Optional.of(samplePhoto));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> photoService.updatePhotoData(photoId, 3L, "Title", "Cat", "Desc", BigDecimal.TEN));
+
+        assertEquals("Original Title", samplePhoto.getTitle());
+        verify(photoRepository, never()).saveAndFlush(any(Photo.class));
+        verifyNoInteractions(portfolioVersionRepository);
+    }
+
+    @Test
+    void testUpdatePhotoData_MatchingVersion() {
+        samplePhoto.setVersion(4L);
+        when(photoRepository.findById(photoId)).thenReturn(Optional.of(samplePhoto));
+        when(photoRepository.saveAndFlush(samplePhoto)).thenReturn(samplePhoto);
+
+        assertSame(samplePhoto, photoService.updatePhotoData(photoId, 4L, "Title", "Cat", "Desc", BigDecimal.TEN));
     }
 
     @Test
@@ -146,7 +202,7 @@ class PhotoServiceTest {
         // Then
         assertNull(result);
         verify(photoRepository, times(1)).findById(photoId);
-        verify(photoRepository, never()).save(any(Photo.class));
+        verify(photoRepository, never()).saveAndFlush(any(Photo.class));
     }
 
     @Test
@@ -154,6 +210,7 @@ class PhotoServiceTest {
         // Given
         String newFilename = "new-image.png";
         when(photoRepository.findById(photoId)).thenReturn(Optional.of(samplePhoto));
+        when(photoRepository.saveAndFlush(samplePhoto)).thenReturn(samplePhoto);
 
         // When
         photoService.updatePhotoFile(photoId, newFilename);
@@ -161,7 +218,8 @@ class PhotoServiceTest {
         // Then
         assertEquals(newFilename, samplePhoto.getFilename());
         verify(photoRepository, times(1)).findById(photoId);
-        verify(photoRepository, times(1)).save(samplePhoto);
+        verify(photoRepository, times(1)).saveAndFlush(samplePhoto);
+        verify(portfolioVersionRepository).bump(userId);
     }
 
     @Test
@@ -174,26 +232,207 @@ class PhotoServiceTest {
 
         // Then
         verify(photoRepository, times(1)).findById(photoId);
-        verify(photoRepository, never()).save(any(Photo.class));
+        verify(photoRepository, never()).saveAndFlush(any(Photo.class));
     }
 
     @Test
     void testDeletePhoto() {
+        // Given
+        when(photoRepository.softDelete(eq(photoId), eq(userId), any(LocalDateTime.class))).thenReturn(1);
+
         // When
-        photoService.deletePhoto(photoId);
+        assertTrue(photoService.deletePhoto(photoId, userId));
 
         // Then
-        verify(photoRepository, times(1)).deleteById(photoId);
+        verify(photoRepository, never()).deleteById(any());
+        verify(photoAnalyticsService).evict(userId);
+    }
+
+    @Test
+    void testDeletePhoto_NotFoundOrNotOwned() {
+        // Given
+        when(photoRepository.softDelete(eq(photoId), eq(userId), any(LocalDateTime.class))).thenReturn(0);
+
+        // When
+        assertFalse(photoService.deletePhoto(photoId, userId));
+
+        // Then
+        verifyNoInteractions(photoAnalyticsService);
+        verifyNoInteractions(portfolioVersionRepository);
+    }
+
+    @Test
+    void testRestorePhoto_WithinUndoWindow() {
+        // Given
+        when(photoRepository.restore(eq(photoId), eq(userId), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(1);
+
+        // When
+        assertTrue(photoService.restorePhoto(photoId, userId));
+
+        // Then: hanya foto yang dihapus dalam 5 menit terakhir yang boleh kembali
+        verify(photoRepository).restore(eq(photoId), eq(userId), any(LocalDateTime.class),
+                argThat(since -> since.isAfter(LocalDateTime.now().minusMinutes(6))
+                        && since.isBefore(LocalDateTime.now().minusMinutes(4))));
+        verify(photoAnalyticsService).evict(userId);
+    }
+
+    @Test
+    void testRestorePhoto_WindowPassed() {
+        // Given
+        when(photoRepository.restore(eq(photoId), eq(userId), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(0);
+
+        // When
+        assertFalse(photoService.restorePhoto(photoId, userId));
+
+        // Then
+        verifyNoInteractions(photoAnalyticsService);
+    }
+
+    private BulkEditRequest bulk(BulkEditRequest.Action action, String category, String value) {
+        BulkEditRequest request = new BulkEditRequest();
+        request.setIds(List.of(photoId, UUID.randomUUID()));
+        request.setAction(action);
+        request.setCategory(category);
+        request.setValue(value == null ? null : new BigDecimal(value));
+        return request;
+    }
+
+    @Test
+    void testBulkEdit_CategoryIsOneStatement() {
+        when(categoryDictionary.idFor("Street")).thenReturn(7);
+        when(photoRepository.bulkUpdateCategory(anyList(), eq(userId), eq(7), any(LocalDateTime.class))).thenReturn(2);
+
+        assertEquals(2, photoService.bulkEdit(userId, bulk(BulkEditRequest.Action.CATEGORY, "Street", null)));
+
+        verify(photoRepository, never()).findById(any());
+        verify(photoRepository, never()).saveAndFlush(any());
+        verify(photoAnalyticsService).evict(userId);
+        verify(portfolioVersionRepository).bump(userId);
+    }
+
+    @Test
+    void testBulkEdit_PriceAmountInMinorUnits() {
+        when(photoRepository.bulkAdjustPrice(anyList(), eq(userId), eq(-250_050L), any(LocalDateTime.class)))
+                .thenReturn(2);
+
+        assertEquals(2, photoService.bulkEdit(userId, bulk(BulkEditRequest.Action.PRICE_AMOUNT, null, "-2500.50")));
+    }
+
+    @Test
+    void testBulkEdit_PriceAmountAboveMaximumRejected() {
+        // Tanpa batas ini toMinor melempar ArithmeticException, atau UPDATE melewati bigint
+        assertThrows(IllegalArgumentException.class,
+                () -> photoService.bulkEdit(userId, bulk(BulkEditRequest.Action.PRICE_AMOUNT, null, "1000000000000000")));
+        verify(photoRepository, never()).bulkAdjustPrice(anyList(), any(), anyLong(), any());
+    }
+
+    @Test
+    void testBulkEdit_PricePercentAsFactor() {
+        when(photoRepository.bulkScalePrice(anyList(), eq(userId),
+                argThat(factor -> factor.compareTo(new BigDecimal("0.9")) == 0), any(LocalDateTime.class)))
+                .thenReturn(1);
+
+        assertEquals(1, photoService.bulkEdit(userId, bulk(BulkEditRequest.Action.PRICE_PERCENT, null, "-10")));
+    }
+
+    @Test
+    void testBulkEdit_DeleteReusesSoftDelete() {
+        when(photoRepository.bulkSoftDelete(anyList(), eq(userId), any(LocalDateTime.class))).thenReturn(2);
+
+        assertEquals(2, photoService.bulkEdit(userId, bulk(BulkEditRequest.Action.DELETE, null, null)));
+
+        verify(photoRepository, never()).deleteAllById(any());
+    }
+
+    @Test
+    void testBulkEdit_NothingChangedKeepsCaches() {
+        when(photoRepository.bulkSoftDelete(anyList(), eq(userId), any(LocalDateTime.class))).thenReturn(0);
+
+        assertEquals(0, photoService.bulkEdit(userId, bulk(BulkEditRequest.Action.DELETE, null, null)));
+
+        verifyNoInteractions(photoAnalyticsService);
+        verifyNoInteractions(portfolioVersionRepository);
+    }
+
+    @Test
+    void testBulkEdit_InvalidInput() {
+        assertThrows(IllegalArgumentException.class,
+                () -> photoService.bulkEdit(userId, bulk(BulkEditRequest.Action.CATEGORY, " ", null)));
+        assertThrows(IllegalArgumentException.class,
+                () -> photoService.bulkEdit(userId, bulk(BulkEditRequest.Action.PRICE_AMOUNT, null, null)));
+        assertThrows(IllegalArgumentException.class,
+                () -> photoService.bulkEdit(userId, bulk(BulkEditRequest.Action.PRICE_PERCENT, null, "-150")));
+
+        BulkEditRequest tooMany = bulk(BulkEditRequest.Action.DELETE, null, null);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i <= BulkEditRequest.MAX_IDS; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        tooMany.setIds(ids);
+        assertThrows(IllegalArgumentException.class, () -> photoService.bulkEdit(userId, tooMany));
+
+        verifyNoInteractions(photoAnalyticsService);
+    }
+
+    @Test
+    void testGetPortfolioVersion() {
+        PortfolioVersion stored = new PortfolioVersion(userId, 4, LocalDateTime.now());
+        when(portfolioVersionRepository.findById(userId)).thenReturn(Optional.of(stored));
+        assertSame(stored, photoService.getPortfolioVersion(userId));
+
+        UUID freshUser = UUID.randomUUID();
+        when(portfolioVersionRepository.findById(freshUser)).thenReturn(Optional.empty());
+        PortfolioVersion fresh = photoService.getPortfolioVersion(freshUser);
+        assertEquals(0, fresh.getVersion());
+        assertNull(fresh.getUpdatedAt());
+    }
+
+    @Test
+    void testGetPhotoSummaries_FillsCategoryNames() {
+        when(photoRepository.findAllSummaries(userId)).thenReturn(List.of(summary(1).withCategory(null)));
+        when(categoryDictionary.nameOf(1)).thenReturn("Street");
+
+        List<PhotoSummary> result = photoService.getPhotoSummaries(userId);
+
+        assertEquals(1, result.size());
+        assertEquals("Street", result.get(0).category());
+        verify(photoRepository, never()).findByUserIdOrderByCreatedAtDesc(any());
+    }
+
+    @Test
+    void testGetPortfolioStats() {
+        when(photoRepository.getPortfolioStats(userId)).thenReturn(new PortfolioStats(3, 2, 123456L));
+
+        PortfolioStats stats = photoService.getPortfolioStats(userId);
+
+        assertEquals(3, stats.photos());
+        assertEquals(2, stats.categories());
+        assertEquals(new BigDecimal("1234.56"), stats.value());
+
+        when(photoRepository.getPortfolioStats(userId)).thenReturn(null);
+        assertSame(PortfolioStats.EMPTY, photoService.getPortfolioStats(userId));
+    }
+
+    @Test
+    void testGetAnalytics() {
+        PortfolioAnalytics analytics = new PortfolioAnalytics(List.of(), List.of(), List.of(), List.of());
+        when(photoAnalyticsService.getAnalytics(userId)).thenReturn(analytics);
+
+        assertSame(analytics, photoService.getAnalytics(userId));
     }
 
     @Test
     void testGetChartData() {
         // Given
         List<Object[]> mockChartData = new ArrayList<>();
-        mockChartData.add(new Object[]{"Nature", 5L});
-        mockChartData.add(new Object[]{"Urban", 3L});
+        mockChartData.add(new Object[]{1, 5L});
+        mockChartData.add(new Object[]{2, 3L});
         
         when(photoRepository.countPhotosByCategory(userId)).thenReturn(mockChartData);
+        when(categoryDictionary.nameOf(1)).thenReturn("Nature");
+        when(categoryDictionary.nameOf(2)).thenReturn("Urban");
 
         // When
         List<Object[]> result = photoService.getChartData(userId);
@@ -203,7 +442,123 @@ class PhotoServiceTest {
         assertEquals(2, result.size());
         assertEquals("Nature", result.get(0)[0]);
         assertEquals(5L, result.get(0)[1]);
+        assertEquals("Urban", result.get(1)[0]);
         
         verify(photoRepository, times(1)).countPhotosByCategory(userId);
     }
-}
\ No newline at end of file
+
+    private PhotoSummary summary(int minutesAgo) {
+        return new PhotoSummary(UUID.randomUUID(), "T", 1, "C", BigDecimal.ONE, "IDR", "f.jpg",
+                LocalDateTime.now().minusMinutes(minutesAgo), LocalDateTime.now());
+    }
+
+    @Test
+    void testGetPhotoPage_FirstPageWithMore() {
+        List<PhotoSummary> rows = List.of(summary(1), summary(2), summary(3));
+        when(photoRepository.findSummaries(userId, Limit.of(3))).thenReturn(rows);
+
+        PhotoPage page = photoService.getPhotoPage(userId, null, 2);
+
+        assertEquals(2, page.items().size());
+        PhotoCursor next = PhotoCursor.decode(page.nextCursor());
+        assertEquals(rows.get(1).id(), next.id());
+        assertEquals(rows.get(1).createdAt(), next.createdAt());
+    }
+
+    @Test
+    void testGetPhotoPage_LastPageFromCursor() {
+        PhotoSummary last = summary(5);
+        String cursor = PhotoCursor.of(last).encode();
+        when(photoRepository.findSummariesAfter(userId, last.createdAt(), last.id(), Limit.of(3)))
+                .thenReturn(List.of(summary(6)));
+
+        PhotoPage page = photoService.getPhotoPage(userId, cursor, 2);
+
+        assertEquals(1, page.items().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void testGetPhotoPage_BlankCursorAndInvalidCursor() {
+        when(photoRepository.findSummaries(eq(userId), any(Limit.class))).thenReturn(List.of());
+
+        assertTrue(photoService.getPhotoPage(userId, " ", 10).items().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> photoService.getPhotoPage(userId, "bukan-cursor", 10));
+    }
+
+    @Test
+    void testGetPhotoPage_FilteredByCategory() {
+        PhotoSummary row = new PhotoSummary(UUID.randomUUID(), "T", 3, 100L, "IDR", "f.jpg",
+                LocalDateTime.now(), LocalDateTime.now());
+        when(categoryDictionary.findId("macro")).thenReturn(3);
+        when(categoryDictionary.nameOf(3)).thenReturn("Macro");
+        when(photoRepository.findSummariesByCategory(userId, 3, Limit.of(11))).thenReturn(List.of(row));
+
+        PhotoPage page = photoService.getPhotoPage(userId, "macro", null, 10);
+
+        assertEquals(1, page.items().size());
+        assertEquals("Macro", page.items().get(0).category());
+        verify(photoRepository, never()).findSummaries(any(), any());
+    }
+
+    @Test
+    void testGetPhotoPage_UnknownCategoryIsEmpty() {
+        when(categoryDictionary.findId("Tidak Ada")).thenReturn(null);
+
+        PhotoPage page = photoService.getPhotoPage(userId, "Tidak Ada", null, 10);
+
+        assertTrue(page.items().isEmpty());
+        assertNull(page.nextCursor());
+        verifyNoInteractions(photoRepository);
+    }
+
+    @Test
+    void testGetCategorySuggestions_OnlyOwnCategoriesSorted() {
+        when(photoRepository.countPhotosByCategory(userId))
+                .thenReturn(List.of(new Object[] { 3, 2L }, new Object[] { 1, 5L }, new Object[] { 9, 1L }));
+        when(categoryDictionary.nameOf(3)).thenReturn("street");
+        when(categoryDictionary.nameOf(1)).thenReturn("Macro");
+        when(categoryDictionary.nameOf(9)).thenReturn(null);
+
+        assertEquals(List.of("Macro", "street"), photoService.getCategorySuggestions(userId));
+    }
+
+    @Test
+    void testGetPhotoDetail() {
+        PhotoDetail detail = new PhotoDetail(photoId, "T", 2, "D", 150L, "IDR", "f.jpg", null, null, 0L);
+        when(photoRepository.findDetail(photoId, userId)).thenReturn(Optional.of(detail));
+        when(categoryDictionary.nameOf(2)).thenReturn("Street");
+
+        PhotoDetail result = photoService.getPhotoDetail(photoId, userId);
+        assertEquals(detail.withCategory("Street"), result);
+        assertEquals(new BigDecimal("1.50"), result.price());
+        assertNull(photoService.getPhotoDetail(UUID.randomUUID(), userId));
+    }
+
+    @Test
+    void testGetPriceHistogram() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{0L, 3L});
+        rows.add(new Object[]{20000L, 1L});
+        when(photoRepository.priceHistogram(userId, 10000L)).thenReturn(rows);
+
+        List<PriceBucket> buckets = photoService.getPriceHistogram(userId, 10000L);
+
+        assertEquals(2, buckets.size());
+        assertEquals(new PriceBucket(0L, 10000L, 3L), buckets.get(0));
+        assertEquals(new PriceBucket(20000L, 30000L, 1L), buckets.get(1));
+    }
+
+    @Test
+    void testGetPhotosInPriceRange() {
+        List<PhotoSummary> rows = List.of(new PhotoSummary(UUID.randomUUID(), "T", 1, 5000L, "IDR", "f.jpg",
+                LocalDateTime.now(), LocalDateTime.now()));
+        when(photoRepository.findSummariesInPriceRange(userId, 1000L, 9000L, Limit.of(10))).thenReturn(rows);
+        when(categoryDictionary.nameOf(1)).thenReturn("Portrait");
+
+        List<PhotoSummary> result = photoService.getPhotosInPriceRange(userId, 1000L, 9000L, 10);
+        assertEquals(1, result.size());
+        assertEquals("Portrait", result.get(0).category());
+        assertEquals(new BigDecimal("50.00"), result.get(0).price());
+    }
+}
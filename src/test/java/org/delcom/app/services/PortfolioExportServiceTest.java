@@ -0,0 +1,154 @@
+package org.delcom.app.services;
+
+import jakarta.persistence.EntityManager;
+import org.delcom.app.dto.StorageObject;
+import org.delcom.app.entities.Photo;
+import org.delcom.app.repositories.PhotoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PortfolioExportServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private PhotoRepository photoRepository;
+    private EntityManager entityManager;
+    private FileStorageService fileStorageService;
+    private PortfolioExportService exportService;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        photoRepository = mock(PhotoRepository.class);
+        entityManager = mock(EntityManager.class);
+
+        fileStorageService = spy(new FileStorageService(new LocalStorageBackend(tempDir)));
+
+        exportService = new PortfolioExportService(photoRepository, fileStorageService, entityManager);
+        userId = UUID.randomUUID();
+    }
+
+    private Photo photo(String title, String filename) {
+        Photo photo = new Photo(userId, title, "Landscape", "Deskripsi, dengan koma", new BigDecimal("1500"));
+        photo.setId(UUID.randomUUID());
+        photo.setFilename(filename);
+        return photo;
+    }
+
+    private Map<String, ZipEntry> readEntries(byte[] zipBytes, Map<String, byte[]> contents) throws Exception {
+        Map<String, ZipEntry> entries = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(zipBytes))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), entry);
+                contents.put(entry.getName(), zip.readAllBytes());
+            }
+        }
+        return entries;
+    }
+
+    @Test
+    void testExportPortfolio_WritesManifestAndFiles() throws Exception {
+        Photo jpeg = photo("Gunung", "cover_1.jpg");
+        Photo raw = photo("Sketsa", "cover_2.txt");
+        Photo missing = photo("Hilang", "cover_3.jpg");
+        Photo noFile = photo("Tanpa File", null);
+        Files.write(tempDir.resolve("cover_1.jpg"), "jpeg-bytes".getBytes());
+        Files.write(tempDir.resolve("cover_2.txt"), "plain-bytes".getBytes());
+
+        when(photoRepository.streamByUserId(userId))
+                .thenReturn(Stream.of(jpeg, raw, missing, noFile))
+                .thenReturn(Stream.of(jpeg, raw, missing, noFile));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportPortfolio(userId, out);
+
+        Map<String, byte[]> contents = new HashMap<>();
+        Map<String, ZipEntry> entries = readEntries(out.toByteArray(), contents);
+
+        assertEquals(3, entries.size());
+        String manifest = new String(contents.get(PortfolioExportService.MANIFEST_NAME), StandardCharsets.UTF_8);
+        assertTrue(manifest.startsWith("id,title,category"));
+        assertTrue(manifest.contains("\"Deskripsi, dengan koma\""));
+        assertTrue(manifest.contains("Tanpa File"));
+
+        assertEquals(ZipEntry.STORED, entries.get("photos/cover_1.jpg").getMethod());
+        assertEquals(ZipEntry.DEFLATED, entries.get("photos/cover_2.txt").getMethod());
+        assertArrayEquals("jpeg-bytes".getBytes(), contents.get("photos/cover_1.jpg"));
+        assertArrayEquals("plain-bytes".getBytes(), contents.get("photos/cover_2.txt"));
+
+        // Setiap entity dilepas dari persistence context di kedua pass
+        verify(entityManager, times(8)).detach(any(Photo.class));
+    }
+
+    @Test
+    void testExportPortfolio_FileReplacedAfterStatKeepsZipValid() throws Exception {
+        Photo jpeg = photo("Gunung", "cover_1.jpg");
+        Files.write(tempDir.resolve("cover_1.jpg"), "gambar-baru-yang-lebih-panjang".getBytes());
+        // stat masih melihat versi lama (3 bytes) sebelum gambar diganti
+        doReturn(new StorageObject("cover_1.jpg", 3, Instant.now())).when(fileStorageService).stat("cover_1.jpg");
+        when(photoRepository.streamByUserId(userId)).thenReturn(Stream.of(jpeg)).thenReturn(Stream.of(jpeg));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportPortfolio(userId, out);
+
+        Map<String, byte[]> contents = new HashMap<>();
+        Map<String, ZipEntry> entries = readEntries(out.toByteArray(), contents);
+        assertEquals(ZipEntry.STORED, entries.get("photos/cover_1.jpg").getMethod());
+        assertArrayEquals("gambar-baru-yang-lebih-panjang".getBytes(), contents.get("photos/cover_1.jpg"));
+        // Satu kali baca dari storage; CRC dan ukuran diambil dari byte yang sama
+        verify(fileStorageService, times(1)).openFile("cover_1.jpg");
+    }
+
+    @Test
+    void testExportPortfolio_FilePurgedAfterStatIsSkipped() throws Exception {
+        Photo gone = photo("Hilang", "cover_1.jpg");
+        Photo kept = photo("Tetap", "cover_2.jpg");
+        Files.write(tempDir.resolve("cover_2.jpg"), "jpeg-bytes".getBytes());
+        doReturn(new StorageObject("cover_1.jpg", 10, Instant.now())).when(fileStorageService).stat("cover_1.jpg");
+        when(photoRepository.streamByUserId(userId))
+                .thenReturn(Stream.of(gone, kept))
+                .thenReturn(Stream.of(gone, kept));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportPortfolio(userId, out);
+
+        Map<String, byte[]> contents = new HashMap<>();
+        Map<String, ZipEntry> entries = readEntries(out.toByteArray(), contents);
+        assertFalse(entries.containsKey("photos/cover_1.jpg"));
+        assertArrayEquals("jpeg-bytes".getBytes(), contents.get("photos/cover_2.jpg"));
+    }
+
+    @Test
+    void testExportPortfolio_EmptyPortfolio() throws Exception {
+        when(photoRepository.streamByUserId(userId)).thenReturn(Stream.empty()).thenReturn(Stream.empty());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportPortfolio(userId, out);
+
+        Map<String, byte[]> contents = new HashMap<>();
+        Map<String, ZipEntry> entries = readEntries(out.toByteArray(), contents);
+
+        assertEquals(1, entries.size());
+        assertTrue(entries.containsKey(PortfolioExportService.MANIFEST_NAME));
+    }
+}
@@ -0,0 +1,324 @@
+package org.delcom.app.services;
+
+import jakarta.persistence.EntityManager;
+import org.delcom.app.dto.ImportProgress;
+import org.delcom.app.entities.Photo;
+import org.delcom.app.repositories.PhotoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PortfolioImportServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private PhotoRepository photoRepository;
+    private PhotoService photoService;
+    private EntityManager entityManager;
+    private StorageQuotaService storageQuotaService;
+    private FileStorageService fileStorageService;
+    private PortfolioImportService importService;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        photoRepository = mock(PhotoRepository.class);
+        photoService = mock(PhotoService.class);
+        entityManager = mock(EntityManager.class);
+        storageQuotaService = mock(StorageQuotaService.class);
+        when(storageQuotaService.tryReserve(any(), anyLong())).thenReturn(true);
+
+        // Simulasikan generator UUID saat persist
+        doAnswer(invocation -> {
+            Photo photo = invocation.getArgument(0);
+            photo.setId(UUID.randomUUID());
+            return null;
+        }).when(entityManager).persist(any(Photo.class));
+
+        fileStorageService = new FileStorageService(new LocalStorageBackend(tempDir));
+
+        // Kamus sederhana: id = posisi nama di daftar
+        List<String> categories = new ArrayList<>();
+        CategoryDictionary categoryDictionary = mock(CategoryDictionary.class);
+        when(categoryDictionary.idFor(anyString())).thenAnswer(invocation -> {
+            String name = invocation.getArgument(0);
+            if (!categories.contains(name)) {
+                categories.add(name);
+            }
+            return categories.indexOf(name) + 1;
+        });
+        when(categoryDictionary.nameOf(anyInt())).thenAnswer(invocation -> categories.get((int) invocation.getArgument(0) - 1));
+
+        importService = new PortfolioImportService(photoRepository, photoService, fileStorageService, entityManager,
+                categoryDictionary, storageQuotaService);
+        userId = UUID.randomUUID();
+    }
+
+    // Pasangan nama entry dan isi (String atau byte[])
+    private byte[] zip(Object... namesAndContents) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                zip.putNextEntry(new ZipEntry((String) namesAndContents[i]));
+                Object content = namesAndContents[i + 1];
+                zip.write(content instanceof byte[] bytes ? bytes : content.toString().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    void testImportZip_ManifestAndImages() throws Exception {
+        String manifest = "id,title,category,description,price,currency,filename\n"
+                + "x,Gunung,Landscape,\"Pagi hari,\nberkabut\",2500,idr,cover_a.jpg\n";
+        byte[] imageA = FileStorageServiceTests.jpeg(640, 480);
+        byte[] archive = zip(
+                "manifest.csv", manifest,
+                "photos/cover_a.jpg", imageA,
+                "photos/lepas.png", FileStorageServiceTests.png(32, 32),
+                "readme.txt", "abaikan");
+
+        ImportProgress progress = importService.importPortfolio(userId, new ByteArrayInputStream(archive));
+
+        assertEquals(ImportProgress.Status.DONE, progress.getStatus());
+        assertEquals(4, progress.getProcessedEntries());
+        assertEquals(2, progress.getImportedPhotos());
+        assertEquals(2, progress.getStoredFiles());
+        assertEquals(1, progress.getSkippedEntries());
+        assertNotNull(progress.getFinishedAt());
+        assertSame(progress, importService.getProgress(userId));
+        verify(photoService).markPortfolioChanged(userId);
+
+        ArgumentCaptor<Photo> captor = ArgumentCaptor.forClass(Photo.class);
+        verify(entityManager, times(2)).persist(captor.capture());
+        Photo fromManifest = captor.getAllValues().get(0);
+        assertEquals("Gunung", fromManifest.getTitle());
+        assertEquals("Pagi hari,\nberkabut", fromManifest.getDescription());
+        assertEquals(new BigDecimal("2500.00"), fromManifest.getPrice());
+        assertEquals(250000L, fromManifest.getPriceMinor());
+        assertEquals("IDR", fromManifest.getCurrency());
+        assertEquals("lepas", captor.getAllValues().get(1).getTitle());
+
+        String storedName = "cover_" + fromManifest.getId() + ".jpg";
+        // Update filename baru dijalankan setelah insert batch di-flush
+        InOrder inOrder = inOrder(entityManager, photoRepository);
+        inOrder.verify(entityManager).flush();
+        inOrder.verify(photoRepository).updateFilename(fromManifest.getId(), storedName);
+        assertArrayEquals(imageA, Files.readAllBytes(tempDir.resolve(storedName)));
+        // Reservasi dikonfirmasi setelah filename tersimpan di foto
+        verify(storageQuotaService).confirm(userId, imageA.length);
+    }
+
+    @Test
+    void testImportZip_ImageBeforeManifestRowIsNotDuplicated() throws Exception {
+        List<Photo> persisted = new ArrayList<>();
+        doAnswer(invocation -> {
+            Photo photo = invocation.getArgument(0);
+            photo.setId(UUID.randomUUID());
+            persisted.add(photo);
+            return null;
+        }).when(entityManager).persist(any(Photo.class));
+        when(entityManager.find(eq(Photo.class), any())).thenAnswer(invocation -> persisted.stream()
+                .filter(photo -> photo.getId().equals(invocation.getArgument(1))).findFirst().orElse(null));
+
+        byte[] archive = zip(
+                "photos/cover_a.png", FileStorageServiceTests.png(32, 32),
+                "manifest.csv", "title,category,price,filename\nGunung,Landscape,2500,cover_a.png\n");
+
+        ImportProgress progress = importService.importPortfolio(userId, new ByteArrayInputStream(archive));
+
+        assertEquals(1, progress.getImportedPhotos());
+        assertEquals(1, progress.getStoredFiles());
+        assertEquals(1, persisted.size());
+        Photo photo = persisted.get(0);
+        assertEquals("Gunung", photo.getTitle());
+        assertEquals("Landscape", photo.getCategory());
+        assertEquals(250000L, photo.getPriceMinor());
+        verify(photoRepository).updateFilename(photo.getId(), "cover_" + photo.getId() + ".png");
+    }
+
+    @Test
+    void testImportZip_UnsupportedCurrencyRowAndImageSkipped() throws Exception {
+        byte[] archive = zip(
+                "manifest.csv", "title,price,currency,filename\nGunung,25,USD,cover_a.png\nPantai,1000,,cover_b.png\n",
+                "photos/cover_a.png", FileStorageServiceTests.png(32, 32),
+                "photos/cover_b.png", FileStorageServiceTests.png(32, 32));
+
+        ImportProgress progress = importService.importPortfolio(userId, new ByteArrayInputStream(archive));
+
+        assertEquals(1, progress.getImportedPhotos());
+        assertEquals(1, progress.getStoredFiles());
+        // Baris USD + gambarnya
+        assertEquals(2, progress.getSkippedEntries());
+        ArgumentCaptor<Photo> captor = ArgumentCaptor.forClass(Photo.class);
+        verify(entityManager, times(1)).persist(captor.capture());
+        assertEquals("Pantai", captor.getValue().getTitle());
+        assertEquals("IDR", captor.getValue().getCurrency());
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void testImportZip_NonImageEntrySkippedBeforePhotoIsCreated() throws Exception {
+        byte[] archive = zip(
+                "photos/palsu.jpg", "<?php echo 'bukan gambar'; ?>",
+                "photos/asli.png", FileStorageServiceTests.png(32, 32));
+
+        ImportProgress progress = importService.importPortfolio(userId, new ByteArrayInputStream(archive));
+
+        assertEquals(1, progress.getImportedPhotos());
+        assertEquals(1, progress.getStoredFiles());
+        assertEquals(1, progress.getSkippedEntries());
+        verify(entityManager, times(1)).persist(any(Photo.class));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void testImportZip_ImageOverQuotaIsRemoved() throws Exception {
+        byte[] image = FileStorageServiceTests.png(32, 32);
+        when(storageQuotaService.tryReserve(any(), anyLong())).thenReturn(true, false);
+        when(entityManager.contains(any(Photo.class))).thenReturn(true);
+        byte[] archive = zip(
+                "photos/pertama.png", image,
+                "photos/kedua.png", image);
+
+        ImportProgress progress = importService.importPortfolio(userId, new ByteArrayInputStream(archive));
+
+        assertEquals(1, progress.getStoredFiles());
+        assertEquals(1, progress.getSkippedEntries());
+        verify(storageQuotaService, times(2)).tryReserve(userId, image.length);
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+        // Foto default untuk gambar yang ditolak tidak ditinggalkan tanpa gambar
+        assertEquals(1, progress.getImportedPhotos());
+        verify(entityManager).remove(any(Photo.class));
+    }
+
+    @Test
+    void testImportZip_EntryLargerThanRemainingQuotaStopsWhileStreaming() throws Exception {
+        when(storageQuotaService.getQuotaBytes()).thenReturn(1000L);
+        when(storageQuotaService.getUsedBytes(userId)).thenReturn(400L);
+        when(entityManager.contains(any(Photo.class))).thenReturn(true);
+        byte[] small = FileStorageServiceTests.png(32, 32);
+        byte[] large = Arrays.copyOf(small, 5 * 1024 * 1024);
+        byte[] archive = zip(
+                "photos/besar.png", large,
+                "photos/kecil.png", small);
+
+        ImportProgress progress = importService.importPortfolio(userId, new ByteArrayInputStream(archive));
+
+        assertEquals(1, progress.getStoredFiles());
+        assertEquals(1, progress.getSkippedEntries());
+        assertEquals(1, progress.getImportedPhotos());
+        // Entry besar dihentikan sebelum selesai ditulis, jadi tidak pernah dipesan atau tersisa di disk
+        verify(storageQuotaService, never()).tryReserve(userId, (long) large.length);
+        verify(entityManager).remove(argThat((Photo photo) -> "besar".equals(photo.getTitle())));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void testImportCsv_FlushesEveryBatch() throws Exception {
+        importService.batchSize = 2;
+        String csv = "title,category,price,currency\nA,,abc,rupiah\nB,Macro,-5,\n,Street,10\n";
+
+        ImportProgress progress = importService.importPortfolio(userId,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(3, progress.getImportedPhotos());
+        assertEquals(0, progress.getStoredFiles());
+        // 1x saat batch penuh + 1x di akhir import
+        verify(entityManager, times(2)).flush();
+        verify(entityManager, times(2)).clear();
+
+        ArgumentCaptor<Photo> captor = ArgumentCaptor.forClass(Photo.class);
+        verify(entityManager, times(3)).persist(captor.capture());
+        List<Photo> photos = captor.getAllValues();
+        assertEquals("Imported", photos.get(0).getCategory());
+        assertTrue(photos.get(0).getCategoryId() > 0);
+        assertNotEquals(photos.get(0).getCategoryId(), photos.get(1).getCategoryId());
+        assertEquals(0L, photos.get(0).getPriceMinor());
+        assertEquals(0L, photos.get(1).getPriceMinor());
+        assertEquals(1000L, photos.get(2).getPriceMinor());
+        assertEquals("IDR", photos.get(0).getCurrency());
+        assertEquals("IDR", photos.get(1).getCurrency());
+        assertEquals("Untitled", photos.get(2).getTitle());
+    }
+
+    @Test
+    void testImportEmptyStream() throws Exception {
+        ImportProgress progress = importService.importPortfolio(userId, new ByteArrayInputStream(new byte[0]));
+
+        assertEquals(ImportProgress.Status.DONE, progress.getStatus());
+        assertEquals(0, progress.getImportedPhotos());
+    }
+
+    @Test
+    void testImportFailure_MarksProgressFailed() throws Exception {
+        InputStream broken = mock(InputStream.class);
+        when(broken.read(any(byte[].class), anyInt(), anyInt())).thenThrow(new IOException("koneksi putus"));
+
+        assertThrows(IOException.class, () -> importService.importPortfolio(userId, broken));
+
+        ImportProgress progress = importService.getProgress(userId);
+        assertEquals(ImportProgress.Status.FAILED, progress.getStatus());
+        assertEquals("koneksi putus", progress.getMessage());
+        verifyNoInteractions(photoService);
+    }
+
+    @Test
+    void testImportFailure_DeletesStoredFilesAndReleasesQuota() throws Exception {
+        byte[] image = FileStorageServiceTests.png(32, 32);
+        // Padding acak supaya entry kedua tidak terkompresi menjadi beberapa byte saja
+        byte[] large = Arrays.copyOf(image, 64 * 1024);
+        byte[] noise = new byte[large.length - image.length];
+        new Random(3).nextBytes(noise);
+        System.arraycopy(noise, 0, large, image.length, noise.length);
+        byte[] archive = zip(
+                "photos/pertama.png", image,
+                "photos/kedua.png", large);
+        // ZIP terpotong di tengah entry kedua, seperti upload yang putus
+        byte[] truncated = Arrays.copyOf(archive, archive.length - 32 * 1024);
+
+        assertThrows(IOException.class, () -> importService.importPortfolio(userId, new ByteArrayInputStream(truncated)));
+
+        // Baris foto rollback bersama transaksi, jadi file pertama tidak boleh tertinggal
+        verify(storageQuotaService).tryReserve(userId, image.length);
+        verify(storageQuotaService).release(userId, image.length);
+        verify(storageQuotaService, never()).confirm(any(), anyLong());
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+        assertEquals(ImportProgress.Status.FAILED, importService.getProgress(userId).getStatus());
+    }
+}
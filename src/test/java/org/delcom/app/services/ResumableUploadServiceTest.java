@@ -0,0 +1,254 @@
+package org.delcom.app.services;
+
+import org.delcom.app.dto.UploadStatus;
+import org.delcom.app.entities.Photo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ResumableUploadServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private FileStorageService fileStorageService;
+    private StorageQuotaService storageQuotaService;
+    private PhotoService photoService;
+    private PhotoImageService photoImageService;
+    private ResumableUploadService service;
+
+    private final UUID userId = UUID.randomUUID();
+    private Photo photo;
+    private byte[] data;
+    private String sha256;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fileStorageService = mock(FileStorageService.class);
+        storageQuotaService = mock(StorageQuotaService.class);
+        photoService = mock(PhotoService.class);
+        when(fileStorageService.lockFor(any())).thenReturn(new ReentrantLock());
+        photoImageService = new PhotoImageService(photoService, fileStorageService, storageQuotaService);
+        service = new ResumableUploadService(fileStorageService, storageQuotaService, photoService, photoImageService,
+                tempDir.toString(), 1000, 100, Duration.ofHours(1), 3, 2);
+
+        photo = new Photo(userId, "Senja", "Landscape", "Desc", new BigDecimal("1000"));
+        photo.setId(UUID.randomUUID());
+        photo.setFilename("cover_lama.png");
+        when(photoService.getPhotoById(photo.getId())).thenReturn(photo);
+        when(fileStorageService.fileSize("cover_lama.png")).thenReturn(30L);
+        when(storageQuotaService.tryReserve(eq(userId), anyLong())).thenReturn(true);
+
+        data = new byte[250];
+        new Random(7).nextBytes(data);
+        sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+
+    private UploadStatus put(UUID uploadId, int offset, int length) throws Exception {
+        return service.writeChunk(userId, uploadId, offset, length, new ByteArrayInputStream(data, offset, length));
+    }
+
+    private long partFiles() throws Exception {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void testCreatePreallocatesAndReservesDifference() throws Exception {
+        UploadStatus status = service.create(userId, photo.getId(), 250, sha256);
+
+        assertEquals(250, status.size());
+        assertFalse(status.complete());
+        assertEquals(250, Files.size(tempDir.resolve(status.id() + ".part")));
+        // Hanya selisih terhadap gambar lama (30 bytes) yang dipesan
+        verify(storageQuotaService).tryReserve(userId, 220);
+    }
+
+    @Test
+    void testCreateSmallerThanOldImageReservesNothing() throws Exception {
+        // Selisih negatif tidak boleh jadi kredit: banyak sesi 1 byte akan menurunkan pemakaian
+        UUID id = service.create(userId, photo.getId(), 1, sha256).id();
+
+        verify(storageQuotaService).tryReserve(userId, 0);
+        assertTrue(service.abort(userId, id));
+        verify(storageQuotaService).release(userId, 0);
+    }
+
+    @Test
+    void testCreateLimitsOpenSessionsPerPhotoAndUser() throws Exception {
+        service.create(userId, photo.getId(), 250, sha256);
+        UUID second = service.create(userId, photo.getId(), 250, sha256).id();
+        assertThrows(IllegalStateException.class, () -> service.create(userId, photo.getId(), 250, sha256));
+
+        Photo other = new Photo(userId, "Fajar", "Landscape", "Desc", new BigDecimal("1000"));
+        other.setId(UUID.randomUUID());
+        when(photoService.getPhotoById(other.getId())).thenReturn(other);
+        service.create(userId, other.getId(), 250, sha256);
+        assertThrows(IllegalStateException.class, () -> service.create(userId, other.getId(), 250, sha256));
+
+        // Sesi yang ditolak tidak memesan kuota maupun disk
+        verify(storageQuotaService, times(3)).tryReserve(eq(userId), anyLong());
+        assertEquals(3, partFiles());
+
+        // Menutup sesi membuka tempat lagi
+        service.abort(userId, second);
+        assertNotNull(service.create(userId, other.getId(), 250, sha256));
+    }
+
+    @Test
+    void testCreateRejectsForeignPhotoOversizeAndQuota() throws Exception {
+        assertNull(service.create(UUID.randomUUID(), photo.getId(), 250, sha256));
+        assertThrows(IllegalArgumentException.class, () -> service.create(userId, photo.getId(), 1001, sha256));
+        assertThrows(IllegalArgumentException.class, () -> service.create(userId, photo.getId(), 250, "zz"));
+
+        when(storageQuotaService.tryReserve(eq(userId), anyLong())).thenReturn(false);
+        assertThrows(QuotaExceededException.class, () -> service.create(userId, photo.getId(), 250, sha256));
+        assertThrows(QuotaExceededException.class, () -> service.create(userId, photo.getId(), 250, sha256));
+        assertThrows(QuotaExceededException.class, () -> service.create(userId, photo.getId(), 250, sha256));
+        // Sesi yang gagal memesan kuota tidak ikut dihitung dalam batas sesi
+        assertEquals(0, partFiles());
+    }
+
+    @Test
+    void testChunksOutOfOrderAreMergedIntoRanges() throws Exception {
+        UUID id = service.create(userId, photo.getId(), 250, sha256).id();
+
+        put(id, 100, 100);
+        UploadStatus status = put(id, 0, 50);
+        assertEquals(List.of(new UploadStatus.ByteRange(0, 50), new UploadStatus.ByteRange(100, 200)), status.received());
+        assertEquals(150, status.receivedBytes());
+
+        // Potongan diulang/bertumpuk tidak dihitung dua kali
+        put(id, 40, 70);
+        status = put(id, 200, 50);
+        assertEquals(List.of(new UploadStatus.ByteRange(0, 250)), status.received());
+        assertTrue(status.complete());
+        assertArrayEquals(data, Files.readAllBytes(tempDir.resolve(id + ".part")));
+    }
+
+    @Test
+    void testInterruptedChunkKeepsWrittenPrefix() throws Exception {
+        UUID id = service.create(userId, photo.getId(), 250, sha256).id();
+
+        // Koneksi putus setelah 40 dari 100 byte
+        assertThrows(IllegalArgumentException.class,
+                () -> service.writeChunk(userId, id, 0, 100, new ByteArrayInputStream(data, 0, 40)));
+
+        assertEquals(List.of(new UploadStatus.ByteRange(0, 40)), service.getStatus(userId, id).received());
+    }
+
+    @Test
+    void testChunkOutsideSessionOrTooLarge() throws Exception {
+        UUID id = service.create(userId, photo.getId(), 250, sha256).id();
+
+        assertThrows(IllegalArgumentException.class, () -> put(id, 200, 70));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.writeChunk(userId, id, 0, 101, new ByteArrayInputStream(data)));
+        assertNull(service.writeChunk(UUID.randomUUID(), id, 0, 10, new ByteArrayInputStream(data)));
+    }
+
+    @Test
+    void testCompleteStoresVerifiedFileAndReplacesOld() throws Exception {
+        UUID id = service.create(userId, photo.getId(), 250, sha256).id();
+        put(id, 0, 100);
+        put(id, 100, 100);
+        put(id, 200, 50);
+
+        AtomicReference<byte[]> stored = new AtomicReference<>();
+        when(fileStorageService.storeStream(any(InputStream.class), eq(photo.getId()))).thenAnswer(invocation -> {
+            stored.set(((InputStream) invocation.getArgument(0)).readAllBytes());
+            return "cover_baru.jpg";
+        });
+        when(photoService.updatePhotoFile(photo.getId(), "cover_baru.jpg")).thenReturn(photo);
+
+        assertSame(photo, service.complete(userId, id));
+
+        assertArrayEquals(data, stored.get());
+        verify(fileStorageService).deleteFile("cover_lama.png");
+        verify(storageQuotaService, never()).release(any(), anyLong());
+        // Bagian yang dipesan saat sesi dibuka sekarang dirujuk foto
+        verify(storageQuotaService).confirm(userId, 220);
+        assertNull(service.getStatus(userId, id));
+        assertEquals(0, partFiles());
+    }
+
+    @Test
+    void testCompleteIncompleteKeepsSession() throws Exception {
+        UUID id = service.create(userId, photo.getId(), 250, sha256).id();
+        put(id, 0, 100);
+
+        assertThrows(IllegalStateException.class, () -> service.complete(userId, id));
+
+        // Sesi masih bisa dilanjutkan
+        put(id, 100, 100);
+        assertEquals(200, service.getStatus(userId, id).receivedBytes());
+        verify(fileStorageService, never()).storeStream(any(), any());
+    }
+
+    @Test
+    void testCompleteDigestMismatchDiscardsSession() throws Exception {
+        UUID id = service.create(userId, photo.getId(), 250, sha256).id();
+        data[10] ^= 1;
+        put(id, 0, 100);
+        put(id, 100, 100);
+        put(id, 200, 50);
+
+        assertThrows(IllegalArgumentException.class, () -> service.complete(userId, id));
+
+        verify(fileStorageService, never()).storeStream(any(), any());
+        verify(storageQuotaService).release(userId, 220);
+        assertNull(service.getStatus(userId, id));
+        assertEquals(0, partFiles());
+    }
+
+    @Test
+    void testAbortReleasesQuota() throws Exception {
+        UUID id = service.create(userId, photo.getId(), 250, sha256).id();
+
+        assertFalse(service.abort(UUID.randomUUID(), id));
+        assertTrue(service.abort(userId, id));
+
+        verify(storageQuotaService).release(userId, 220);
+        assertEquals(0, partFiles());
+        assertFalse(service.abort(userId, id));
+    }
+
+    @Test
+    void testCleanupRemovesExpiredSessionsAndStrayParts() throws Exception {
+        ResumableUploadService expiring = new ResumableUploadService(fileStorageService, storageQuotaService,
+                photoService, photoImageService, tempDir.toString(), 1000, 100, Duration.ZERO, 3, 2);
+        UUID id = expiring.create(userId, photo.getId(), 250, sha256).id();
+        Path stray = tempDir.resolve(UUID.randomUUID() + ".part");
+        Files.write(stray, new byte[5]);
+        Files.setLastModifiedTime(stray, FileTime.from(Instant.now().minusSeconds(60)));
+        Thread.sleep(5);
+
+        assertEquals(2, expiring.cleanup());
+
+        assertNull(expiring.getStatus(userId, id));
+        verify(storageQuotaService).release(userId, 220);
+        assertEquals(0, partFiles());
+    }
+}
@@ -0,0 +1,289 @@
+package org.delcom.app.services;
+
+import org.delcom.app.entities.StorageUsage;
+import org.delcom.app.repositories.StorageUsageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StorageQuotaServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private StorageUsageRepository repository;
+    private JdbcTemplate jdbcTemplate;
+    private FileStorageService fileStorageService;
+    private PlatformTransactionManager transactionManager;
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(StorageUsageRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(repository.findById(any())).thenReturn(Optional.empty());
+
+        fileStorageService = new FileStorageService(new LocalStorageBackend(tempDir));
+    }
+
+    private StorageQuotaService service(long quota) {
+        return new StorageQuotaService(repository, fileStorageService, jdbcTemplate, transactionManager, quota);
+    }
+
+    @Test
+    void testReserveWithinQuotaAndRejectBeyond() {
+        StorageQuotaService service = service(1000);
+
+        assertTrue(service.tryReserve(userId, 600));
+        assertFalse(service.tryReserve(userId, 500));
+        assertTrue(service.tryReserve(userId, 400));
+        assertEquals(1000, service.getUsedBytes(userId));
+
+        service.release(userId, 300);
+        assertEquals(700, service.getUsedBytes(userId));
+    }
+
+    @Test
+    void testShrinkingReplacementAlwaysAllowed() {
+        when(repository.findById(userId)).thenReturn(Optional.of(new StorageUsage(userId, 2000, LocalDateTime.now())));
+        StorageQuotaService service = service(1000);
+
+        // Sudah di atas kuota (misalnya kuota diturunkan), tapi mengganti dengan file lebih kecil tetap boleh
+        assertTrue(service.tryReserve(userId, -500));
+        assertFalse(service.tryReserve(userId, 1));
+        assertEquals(1500, service.getUsedBytes(userId));
+    }
+
+    @Test
+    void testUnlimitedQuota() {
+        StorageQuotaService service = service(0);
+
+        assertTrue(service.tryReserve(userId, Long.MAX_VALUE / 2));
+    }
+
+    @Test
+    void testConcurrentReservesNeverExceedQuota() throws Exception {
+        StorageQuotaService service = service(10_000);
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int accepted = 0;
+                    for (int i = 0; i < 1000; i++) {
+                        if (service.tryReserve(userId, 7)) {
+                            accepted++;
+                        }
+                    }
+                    return accepted;
+                }));
+            }
+            start.countDown();
+
+            int accepted = 0;
+            for (Future<Integer> result : results) {
+                accepted += result.get();
+            }
+            assertEquals(10_000 / 7, accepted);
+            assertEquals(accepted * 7L, service.getUsedBytes(userId));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFlushWritesOnlyUnflushedDelta() {
+        StorageQuotaService service = service(1000);
+        service.tryReserve(userId, 300);
+        service.release(userId, 100);
+
+        service.flush();
+        verify(repository).addBytes(userId, 200);
+
+        service.flush();
+        verify(repository, times(1)).addBytes(any(), anyLong());
+
+        service.tryReserve(userId, 50);
+        service.flush();
+        verify(repository).addBytes(userId, 50);
+    }
+
+    @Test
+    void testFlushFailureKeepsDeltaForNextFlush() {
+        StorageQuotaService service = service(1000);
+        service.tryReserve(userId, 300);
+        when(repository.addBytes(userId, 300)).thenThrow(new RuntimeException("down")).thenReturn(1);
+
+        assertDoesNotThrow(service::flush);
+        service.flush();
+
+        verify(repository, times(2)).addBytes(userId, 300);
+    }
+
+    @Test
+    void testDeleteFileReleasesItsSize() throws Exception {
+        Files.write(tempDir.resolve("cover_a.jpg"), new byte[250]);
+        StorageQuotaService service = service(1000);
+        service.tryReserve(userId, 250);
+        service.confirm(userId, 250);
+
+        assertTrue(service.deleteFile(userId, "cover_a.jpg"));
+        assertEquals(0, service.getUsedBytes(userId));
+        assertEquals(0, service.getOutstandingBytes(userId));
+        assertFalse(service.deleteFile(userId, "cover_a.jpg"));
+        assertEquals(0, service.getUsedBytes(userId));
+    }
+
+    // Tabel storage_usage di memori, dipakai bersama oleh beberapa "node"
+    private Map<UUID, Long> sharedTable() {
+        Map<UUID, Long> table = new ConcurrentHashMap<>();
+        when(repository.addBytes(any(), anyLong())).thenAnswer(invocation -> {
+            table.merge(invocation.getArgument(0), invocation.getArgument(1), Long::sum);
+            return 1;
+        });
+        when(repository.setBytes(any(), anyLong())).thenAnswer(invocation -> {
+            table.put(invocation.getArgument(0), invocation.getArgument(1));
+            return 1;
+        });
+        when(repository.findById(any())).thenAnswer(invocation -> Optional.ofNullable(table.get(invocation.getArgument(0)))
+                .map(bytes -> new StorageUsage(invocation.getArgument(0), bytes, LocalDateTime.now())));
+        when(repository.findAll()).thenAnswer(invocation -> rows(table, table.keySet()));
+        when(repository.findAllById(any())).thenAnswer(invocation -> rows(table, invocation.getArgument(0)));
+        return table;
+    }
+
+    private static List<StorageUsage> rows(Map<UUID, Long> table, Iterable<UUID> ids) {
+        List<StorageUsage> rows = new ArrayList<>();
+        for (UUID id : ids) {
+            if (table.containsKey(id)) {
+                rows.add(new StorageUsage(id, table.get(id), LocalDateTime.now()));
+            }
+        }
+        return rows;
+    }
+
+    // Foto milik userId: dua file ada di disk (400 + 100 bytes), satu hilang dan tidak dihitung
+    private void photosOnDisk() throws Exception {
+        Files.write(tempDir.resolve("cover_a.jpg"), new byte[400]);
+        Files.write(tempDir.resolve("cover_b.png"), new byte[100]);
+        doAnswer(invocation -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getObject(1, UUID.class)).thenReturn(userId, userId, userId);
+            when(rs.getString(2)).thenReturn("cover_a.jpg", "cover_b.png", "hilang.jpg");
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (int i = 0; i < 3; i++) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void testReconcileWritesAbsoluteTotalsAndReloads() throws Exception {
+        UUID other = UUID.randomUUID();
+        Map<UUID, Long> table = sharedTable();
+        table.put(other, 999L);
+        photosOnDisk();
+
+        StorageQuotaService service = service(1000);
+        // Upload yang sudah selesai tapi filenya tidak ada di disk: selisih yang harus dikoreksi
+        service.tryReserve(userId, 50);
+        service.confirm(userId, 50);
+
+        assertEquals(2, service.reconcile());
+        assertEquals(500, service.getUsedBytes(userId));
+        assertEquals(0, service.getUsedBytes(other));
+        verify(repository).setBytes(userId, 500);
+        verify(repository).setBytes(other, 0);
+        assertEquals(Map.of(userId, 500L, other, 0L), table);
+    }
+
+    @Test
+    void testReconcileKeepsOpenReservationsUntilReleased() throws Exception {
+        Map<UUID, Long> table = sharedTable();
+        photosOnDisk();
+        StorageQuotaService service = service(1000);
+        // Sesi upload bertahap sedang terbuka: 300 bytes dipesan, filenya belum dirujuk foto
+        assertTrue(service.tryReserve(userId, 300));
+
+        service.reconcile();
+
+        assertEquals(800L, table.get(userId));
+        assertEquals(800, service.getUsedBytes(userId));
+        assertFalse(service.tryReserve(userId, 300));
+
+        // Sesi dibatalkan: pemakaian kembali ke ukuran file yang ada, bukan 200
+        service.release(userId, 300);
+        assertEquals(500, service.getUsedBytes(userId));
+        assertEquals(0, service.getOutstandingBytes(userId));
+        service.flush();
+        assertEquals(500L, table.get(userId));
+        assertEquals(0, service.reconcile());
+    }
+
+    @Test
+    void testReconcileOnTwoNodesDoesNotCorrectTwice() throws Exception {
+        Map<UUID, Long> table = sharedTable();
+        table.put(userId, 800L);
+        photosOnDisk();
+        StorageQuotaService nodeA = service(1000);
+        StorageQuotaService nodeB = service(1000);
+        assertEquals(800, nodeA.getUsedBytes(userId));
+        assertEquals(800, nodeB.getUsedBytes(userId));
+
+        // Dengan delta, kedua node masing-masing menambahkan -300 (hasil 200)
+        nodeA.reconcile();
+        nodeB.reconcile();
+
+        assertEquals(500L, table.get(userId));
+        assertEquals(500, nodeA.getUsedBytes(userId));
+        assertEquals(500, nodeB.getUsedBytes(userId));
+    }
+
+    @Test
+    void testRefreshSeesUsageFlushedByOtherNode() {
+        Map<UUID, Long> table = sharedTable();
+        StorageQuotaService nodeA = service(1000);
+        StorageQuotaService nodeB = service(1000);
+        assertEquals(0, nodeB.getUsedBytes(userId));
+
+        assertTrue(nodeA.tryReserve(userId, 600));
+        nodeA.flush();
+        // Delta node B yang belum di-flush tetap dihitung setelah refresh
+        assertTrue(nodeB.tryReserve(userId, 100));
+        nodeB.refresh();
+
+        assertEquals(700, nodeB.getUsedBytes(userId));
+        assertFalse(nodeB.tryReserve(userId, 400));
+        nodeB.flush();
+        assertEquals(700L, table.get(userId));
+    }
+}
@@ -0,0 +1,112 @@
+package org.delcom.app.services;
+
+import org.delcom.app.dto.TieringReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorageTieringServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path hotDir;
+    private Path coldDir;
+    private TieredStorageBackend backend;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        hotDir = tempDir.resolve("hot");
+        coldDir = tempDir.resolve("cold");
+        backend = new TieredStorageBackend(new LocalStorageBackend(hotDir), new LocalStorageBackend(coldDir), 1024);
+
+        write("cover_old.jpg", Duration.ofDays(30));
+        write("cover_popular.jpg", Duration.ofDays(30));
+        write("cover_new.jpg", Duration.ofHours(1));
+        for (int i = 0; i < 3; i++) {
+            read("cover_popular.jpg");
+        }
+    }
+
+    private void write(String key, Duration age) throws Exception {
+        backend.put(key, new ByteArrayInputStream(new byte[100]), 100, "image/jpeg");
+        Files.setLastModifiedTime(hotDir.resolve(key), FileTime.from(Instant.now().minus(age)));
+    }
+
+    // Dilayani ke pengguna seperti ImageController
+    private void read(String key) throws Exception {
+        backend.recordAccess(key);
+        try (InputStream in = backend.get(key)) {
+            in.readAllBytes();
+        }
+    }
+
+    private StorageTieringService service(Duration warmup) {
+        return new StorageTieringService(backend, Duration.ofDays(7), 4, 1, 100, warmup);
+    }
+
+    @Test
+    void testDemotesOldRarelyReadFiles() {
+        TieringReport report = service(Duration.ZERO).rebalance();
+
+        assertEquals(1, report.demotedFiles());
+        assertEquals(100, report.demotedBytes());
+        assertTrue(Files.exists(coldDir.resolve("cover_old.jpg")));
+        // Sering dibaca atau masih baru: tetap di hot
+        assertTrue(Files.exists(hotDir.resolve("cover_popular.jpg")));
+        assertTrue(Files.exists(hotDir.resolve("cover_new.jpg")));
+    }
+
+    @Test
+    void testPromotesOnSustainedAccess() throws Exception {
+        StorageTieringService service = service(Duration.ZERO);
+        service.rebalance();
+
+        read("cover_old.jpg");
+        assertEquals(0, service.rebalance().promotedFiles());
+
+        for (int i = 0; i < 3; i++) {
+            read("cover_old.jpg");
+        }
+        TieringReport report = service.rebalance();
+
+        assertEquals(1, report.promotedFiles());
+        assertTrue(Files.exists(hotDir.resolve("cover_old.jpg")));
+        assertFalse(Files.exists(coldDir.resolve("cover_old.jpg")));
+    }
+
+    @Test
+    void testNoDemotionDuringWarmup() {
+        TieringReport report = service(Duration.ofHours(6)).rebalance();
+
+        assertEquals(0, report.demotedFiles());
+        assertTrue(Files.exists(hotDir.resolve("cover_old.jpg")));
+    }
+
+    @Test
+    void testQuarantinedFilesStayPut() throws Exception {
+        backend.move("cover_old.jpg", ".quarantine/cover_old.jpg");
+
+        service(Duration.ZERO).rebalance();
+
+        assertTrue(Files.exists(hotDir.resolve(".quarantine/cover_old.jpg")));
+    }
+
+    @Test
+    void testDisabledWithoutTieredBackend() {
+        StorageTieringService service = new StorageTieringService(new LocalStorageBackend(tempDir),
+                Duration.ofDays(7), 4, 1, 100, Duration.ZERO);
+
+        assertNull(service.rebalance());
+    }
+}
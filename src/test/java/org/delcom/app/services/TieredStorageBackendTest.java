@@ -0,0 +1,142 @@
+package org.delcom.app.services;
+
+import org.delcom.app.dto.StorageObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredStorageBackendTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path hotDir;
+    private Path coldDir;
+    private TieredStorageBackend backend;
+
+    @BeforeEach
+    void setUp() {
+        hotDir = tempDir.resolve("hot");
+        coldDir = tempDir.resolve("cold");
+        backend = new TieredStorageBackend(new LocalStorageBackend(hotDir), new LocalStorageBackend(coldDir), 1024);
+    }
+
+    private void put(String key, String content) throws Exception {
+        backend.put(key, new ByteArrayInputStream(content.getBytes()), content.length(), "image/jpeg");
+    }
+
+    private String read(InputStream in) throws Exception {
+        try (in) {
+            return new String(in.readAllBytes());
+        }
+    }
+
+    @Test
+    void testNewUploadsGoToHotAndReplaceColdCopy() throws Exception {
+        put("cover_a.jpg", "lama");
+        assertTrue(backend.demote("cover_a.jpg"));
+
+        put("cover_a.jpg", "baru");
+
+        assertTrue(Files.exists(hotDir.resolve("cover_a.jpg")));
+        assertFalse(Files.exists(coldDir.resolve("cover_a.jpg")));
+        assertEquals("baru", read(backend.get("cover_a.jpg")));
+    }
+
+    @Test
+    void testLookupsAreTransparentAcrossTiers() throws Exception {
+        put("cover_a.jpg", "0123456789");
+        Instant modified = Instant.now().minus(Duration.ofDays(30)).truncatedTo(ChronoUnit.SECONDS);
+        Files.setLastModifiedTime(hotDir.resolve("cover_a.jpg"), FileTime.from(modified));
+
+        assertTrue(backend.demote("cover_a.jpg"));
+
+        assertFalse(Files.exists(hotDir.resolve("cover_a.jpg")));
+        assertEquals("3456", read(backend.get("cover_a.jpg", 3, 4)));
+        StorageObject object = backend.stat("cover_a.jpg");
+        assertEquals(10, object.size());
+        // Waktu ubah dipertahankan supaya ETag dan cache varian tetap berlaku
+        assertEquals(modified, object.lastModified());
+
+        assertTrue(backend.promote("cover_a.jpg"));
+        assertFalse(Files.exists(coldDir.resolve("cover_a.jpg")));
+        assertEquals(modified, backend.stat("cover_a.jpg").lastModified());
+        assertFalse(backend.promote("cover_a.jpg"));
+    }
+
+    @Test
+    void testDeleteAndMoveWorkInEitherTier() throws Exception {
+        put("cover_a.jpg", "a");
+        put("cover_b.jpg", "b");
+        backend.demote("cover_b.jpg");
+
+        assertTrue(backend.move("cover_b.jpg", ".quarantine/cover_b.jpg"));
+        assertTrue(Files.exists(coldDir.resolve(".quarantine/cover_b.jpg")));
+        assertTrue(backend.delete("cover_a.jpg"));
+        assertFalse(backend.delete("cover_a.jpg"));
+        assertNull(backend.get("cover_a.jpg"));
+    }
+
+    @Test
+    void testListMergesTiersWithoutDuplicates() throws Exception {
+        put("cover_a.jpg", "a");
+        put("cover_b.jpg", "b");
+        backend.demote("cover_b.jpg");
+        // Sisa pemindahan yang terputus: key ada di dua tier
+        Files.createDirectories(coldDir);
+        Files.write(coldDir.resolve("cover_a.jpg"), new byte[]{1});
+
+        List<String> keys = new ArrayList<>();
+        backend.list("", object -> keys.add(object.key()));
+
+        assertEquals(2, keys.size());
+        assertTrue(keys.containsAll(List.of("cover_a.jpg", "cover_b.jpg")));
+    }
+
+    @Test
+    void testOnlyRecordedAccessesAreCounted() throws Exception {
+        put("cover_a.jpg", "a");
+        put("cover_b.jpg", "b");
+
+        for (int i = 0; i < 5; i++) {
+            backend.recordAccess("cover_a.jpg");
+        }
+        // Pembacaan internal (export, resize) tidak membuat file terlihat populer
+        for (int i = 0; i < 5; i++) {
+            read(backend.get("cover_b.jpg"));
+        }
+        backend.stat("cover_b.jpg");
+
+        assertEquals(5, backend.frequency("cover_a.jpg"));
+        assertEquals(0, backend.frequency("cover_b.jpg"));
+    }
+
+    @Test
+    void testSketchAgesCounts() {
+        FrequencySketch sketch = new FrequencySketch(16);
+        for (int i = 0; i < 100; i++) {
+            sketch.increment("cover_a.jpg");
+        }
+        assertEquals(100, sketch.estimate("cover_a.jpg"));
+
+        // 10 x width kenaikan memicu pembagian dua
+        for (int i = 0; i < 60; i++) {
+            sketch.increment("key-" + i);
+        }
+        assertTrue(sketch.estimate("cover_a.jpg") <= 50);
+        assertTrue(sketch.estimate("cover_a.jpg") >= 25);
+    }
+}
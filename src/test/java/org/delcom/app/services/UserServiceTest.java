@@ -1,5 +1,6 @@
 package org.delcom.app.services;
 
+import org.delcom.app.configs.ReplicaRoutingContext;
 import org.delcom.app.entities.User;
 import org.delcom.app.repositories.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,7 +8,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import java.time.Duration;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -21,6 +24,9 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Spy
+    private ReplicaRoutingContext routingContext = new ReplicaRoutingContext(Duration.ofSeconds(5), 100);
+
     @InjectMocks
     private UserService userService;
 
@@ -52,12 +58,17 @@ class UserServiceTest {
 
     @Test
     void testGetUserByEmail_Found() {
-        when(userRepository.findFirstByEmail(EMAIL)).thenReturn(Optional.of(testUser));
+        // User yang baru daftar belum tentu ada di replica: lookup harus ke primary
+        when(userRepository.findFirstByEmail(EMAIL)).thenAnswer(invocation -> {
+            assertTrue(routingContext.isPrimaryForced());
+            return Optional.of(testUser);
+        });
 
         User foundUser = userService.getUserByEmail(EMAIL);
 
         assertNotNull(foundUser);
         assertEquals(EMAIL, foundUser.getEmail());
+        assertFalse(routingContext.isPrimaryForced());
     }
     
     @Test